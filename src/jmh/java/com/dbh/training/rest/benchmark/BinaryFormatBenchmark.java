@@ -0,0 +1,126 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.Address;
+import com.dbh.training.rest.models.Money;
+import com.dbh.training.rest.models.Priority;
+import com.dbh.training.rest.models.Todo;
+import com.dbh.training.rest.models.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode / decode time and payload size per representation: JSON, Smile, CBOR.
+ *
+ * - writeTodos: GET /todos, a page of 100 with the Summary view (PrioritySerializer)
+ * - writeUsers: GET /v1/users, a page of 100 with the Internal view (MoneySerializer)
+ * - readTodo: POST /todos request body
+ * - readUsers: the users page read back (MoneyDeserializer)
+ *
+ * Mappers are the ones {@link JacksonConfig} builds for each format.
+ * Payload sizes are printed once per trial.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="BinaryFormatBenchmark -f 1 -wi 2 -i 3"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    private static final int PAGE = 100;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectWriter todosWriter;
+    private ObjectWriter usersWriter;
+    private ObjectReader todoReader;
+    private ObjectReader usersReader;
+
+    private List<Todo> todoPage;
+    private List<User> userPage;
+    private byte[] todoBody;
+    private byte[] usersBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JacksonConfig config = new JacksonConfig(false, false);
+        ObjectMapper mapper = "smile".equals(format) ? config.getSmileMapper()
+                : "cbor".equals(format) ? config.getCborMapper()
+                : config.getContext(null);
+        todosWriter = mapper.writer().withView(com.dbh.training.rest.views.Views.Summary.class);
+        usersWriter = mapper.writer().withView(com.dbh.training.rest.dto.Views.Internal.class);
+        todoReader = mapper.readerFor(Todo.class);
+        usersReader = mapper.readerFor(new TypeReference<List<User>>() { })
+                .withView(com.dbh.training.rest.dto.Views.Internal.class);
+
+        todoPage = new ArrayList<>(PAGE);
+        userPage = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            Todo todo = new Todo("Todo " + i, "Description of todo " + i, Priority.values()[i % Priority.values().length]);
+            todo.setId((long) i);
+            todo.setDueDate(LocalDateTime.of(2024, 2, 1, 9, 0));
+            todoPage.add(todo);
+
+            User user = new User("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            user.setId((long) i);
+            user.setBirthDate(LocalDate.of(1990, 1, 1).plusDays(i));
+            user.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+            user.setStatus(AccountStatus.ACTIVE);
+            user.setRoles(new HashSet<>(Arrays.asList("USER")));
+            user.setPrimaryAddress(new Address(i + " Main Street", "Berlin", "10115", "DE"));
+            user.setAccountBalance(new Money(new BigDecimal("1234.56"), "EUR"));
+            userPage.add(user);
+        }
+
+        Map<String, Object> createTodo = new LinkedHashMap<>();
+        createTodo.put("title", "Write the quarterly report");
+        createTodo.put("description", "Collect figures from every team and summarize them");
+        createTodo.put("priority", "HIGH");
+        createTodo.put("dueDate", "2024-02-01T09:00:00");
+        todoBody = mapper.writeValueAsBytes(createTodo);
+        usersBody = usersWriter.writeValueAsBytes(userPage);
+
+        System.out.printf("%n[%s] bytes: todos %d, users %d, todo request %d%n", format,
+                todosWriter.writeValueAsBytes(todoPage).length, usersBody.length, todoBody.length);
+    }
+
+    @Benchmark
+    public byte[] writeTodos() throws IOException {
+        return todosWriter.writeValueAsBytes(todoPage);
+    }
+
+    @Benchmark
+    public byte[] writeUsers() throws IOException {
+        return usersWriter.writeValueAsBytes(userPage);
+    }
+
+    @Benchmark
+    public Todo readTodo() throws IOException {
+        return todoReader.readValue(todoBody);
+    }
+
+    @Benchmark
+    public List<User> readUsers() throws IOException {
+        return usersReader.readValue(usersBody);
+    }
+}
@@ -0,0 +1,137 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.Address;
+import com.dbh.training.rest.models.Money;
+import com.dbh.training.rest.models.Priority;
+import com.dbh.training.rest.models.Todo;
+import com.dbh.training.rest.models.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Deflate time and compressed size per level for typical responses.
+ *
+ * - todos: GET /todos, a page of 100 (Summary view)
+ * - users: GET /v1/users, a page of 100 (Internal view)
+ * - swaggerBundle: swagger-ui-bundle.js, precompressed once at level 9
+ *
+ * Compresses the whole payload with a reused Deflater, as the GzipHandler
+ * does per response (minus the gzip header and CRC). Compressed sizes are
+ * printed once per trial.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="CompressionBenchmark -f 1 -wi 2 -i 3"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int PAGE = 100;
+    private static final String SWAGGER_BUNDLE = "META-INF/resources/webjars/swagger-ui/4.15.5/swagger-ui-bundle.js";
+
+    @Param({"1", "6", "9"})
+    public int level;
+
+    private byte[] todos;
+    private byte[] users;
+    private byte[] swaggerBundle;
+    private Deflater deflater;
+    private byte[] out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new JacksonConfig(false, false).getContext(null);
+        List<Todo> todoPage = new ArrayList<>(PAGE);
+        List<User> userPage = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            Todo todo = new Todo("Todo " + i, "Description of todo " + i, Priority.values()[i % Priority.values().length]);
+            todo.setId((long) i);
+            todo.setDueDate(LocalDateTime.of(2024, 2, 1, 9, 0));
+            todoPage.add(todo);
+
+            User user = new User("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            user.setId((long) i);
+            user.setBirthDate(LocalDate.of(1990, 1, 1).plusDays(i));
+            user.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+            user.setStatus(AccountStatus.ACTIVE);
+            user.setRoles(new HashSet<>(Arrays.asList("USER")));
+            user.setPrimaryAddress(new Address(i + " Main Street", "Berlin", "10115", "DE"));
+            user.setAccountBalance(new Money(new BigDecimal("1234.56"), "EUR"));
+            userPage.add(user);
+        }
+        todos = mapper.writerWithView(com.dbh.training.rest.views.Views.Summary.class).writeValueAsBytes(todoPage);
+        users = mapper.writerWithView(com.dbh.training.rest.dto.Views.Internal.class).writeValueAsBytes(userPage);
+        swaggerBundle = readResource(SWAGGER_BUNDLE);
+
+        deflater = new Deflater(level, true);
+        out = new byte[swaggerBundle.length + 1024];
+
+        System.out.printf("%n[level %d] bytes: todos %d -> %d, users %d -> %d, swagger-ui-bundle.js %d -> %d%n",
+                level, todos.length, deflate(todos), users.length, deflate(users),
+                swaggerBundle.length, deflate(swaggerBundle));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deflater.end();
+    }
+
+    @Benchmark
+    public int todos() {
+        return deflate(todos);
+    }
+
+    @Benchmark
+    public int users() {
+        return deflate(users);
+    }
+
+    @Benchmark
+    public int swaggerBundle() {
+        return deflate(swaggerBundle);
+    }
+
+    private int deflate(byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(out, length, out.length - length);
+        }
+        return length;
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream in = CompressionBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + name);
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
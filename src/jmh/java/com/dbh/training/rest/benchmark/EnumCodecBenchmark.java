@@ -0,0 +1,182 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.config.jackson.EnumCodec;
+import com.dbh.training.rest.config.jackson.EnumCodecModule;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.Priority;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading and writing enums.
+ *
+ * Parsing a status query parameter, four values per call:
+ * - parseLegacy: the original AccountStatus.fromString (valueOf, catch, switch)
+ * - parseFromString: AccountStatus.fromString over EnumCodec
+ * - parseCodec: EnumCodec.parse, which returns null instead of throwing
+ * with input "valid" (all known, mixed case) or "invalid" (all unknown).
+ * The fromString variants catch the IllegalArgumentException they throw.
+ *
+ * JSON arrays of 100 values, with impl "default" (Jackson's enum handling,
+ * the original string-keyed PrioritySerializer) or "codec" (EnumCodecModule,
+ * the pre-encoded PrioritySerializer):
+ * - readStatuses / writeStatuses: AccountStatus[]
+ * - writePriorities: Priority[], as the priority objects in todo listings
+ *
+ * Run: ./gradlew jmh -PjmhArgs="EnumCodecBenchmark -f 1 -wi 2 -i 3 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class EnumCodecBenchmark {
+
+    private static final int PAGE = 100;
+
+    private static final EnumCodec<AccountStatus> CODEC = EnumCodec.of(AccountStatus.class);
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"valid", "invalid"})
+        public String input;
+
+        String[] values;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            values = "valid".equals(input)
+                    ? new String[] {"active", "SUSPENDED", "pending", "Deleted"}
+                    : new String[] {"closed", "ACTIV", "", "pending-verification"};
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Json {
+        @Param({"default", "codec"})
+        public String impl;
+
+        ObjectReader statusReader;
+        ObjectWriter statusWriter;
+        ObjectWriter priorityWriter;
+        AccountStatus[] statuses;
+        Priority[] priorities;
+        byte[] statusBody;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            ObjectMapper mapper = new ObjectMapper();
+            if ("codec".equals(impl)) {
+                mapper.registerModule(new EnumCodecModule());
+            } else {
+                mapper.addMixIn(Priority.class, LegacyPriorityMixIn.class);
+            }
+            statusReader = mapper.readerFor(AccountStatus[].class);
+            statusWriter = mapper.writerFor(AccountStatus[].class);
+            priorityWriter = mapper.writerFor(Priority[].class);
+
+            statuses = new AccountStatus[PAGE];
+            priorities = new Priority[PAGE];
+            for (int i = 0; i < PAGE; i++) {
+                statuses[i] = AccountStatus.values()[i % AccountStatus.values().length];
+                priorities[i] = Priority.values()[i % Priority.values().length];
+            }
+            statusBody = statusWriter.writeValueAsBytes(statuses);
+            System.out.printf("%n[%s] %s %s%n", impl, new String(statusBody, "UTF-8").substring(0, 40),
+                    new String(priorityWriter.writeValueAsBytes(new Priority[] {Priority.HIGH}), "UTF-8"));
+        }
+    }
+
+    @Benchmark
+    public void parseLegacy(Input input, Blackhole blackhole) {
+        for (String value : input.values) {
+            try {
+                blackhole.consume(legacyFromString(value));
+            } catch (IllegalArgumentException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseFromString(Input input, Blackhole blackhole) {
+        for (String value : input.values) {
+            try {
+                blackhole.consume(AccountStatus.fromString(value));
+            } catch (IllegalArgumentException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseCodec(Input input, Blackhole blackhole) {
+        for (String value : input.values) {
+            blackhole.consume(CODEC.parse(value));
+        }
+    }
+
+    @Benchmark
+    public AccountStatus[] readStatuses(Json json) throws IOException {
+        return json.statusReader.readValue(json.statusBody);
+    }
+
+    @Benchmark
+    public byte[] writeStatuses(Json json) throws IOException {
+        return json.statusWriter.writeValueAsBytes(json.statuses);
+    }
+
+    @Benchmark
+    public byte[] writePriorities(Json json) throws IOException {
+        return json.priorityWriter.writeValueAsBytes(json.priorities);
+    }
+
+    // AccountStatus.fromString before EnumCodec
+    private static AccountStatus legacyFromString(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return AccountStatus.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            switch (value.toLowerCase()) {
+                case "active":
+                    return AccountStatus.ACTIVE;
+                case "suspended":
+                    return AccountStatus.SUSPENDED;
+                case "pending":
+                    return AccountStatus.PENDING_VERIFICATION;
+                case "deleted":
+                    return AccountStatus.DELETED;
+                default:
+                    throw new IllegalArgumentException("Unknown AccountStatus: " + value);
+            }
+        }
+    }
+
+    @JsonSerialize(using = LegacyPrioritySerializer.class)
+    abstract static class LegacyPriorityMixIn {
+    }
+
+    public static class LegacyPrioritySerializer extends JsonSerializer<Priority> {
+        @Override
+        public void serialize(Priority priority, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("value", priority.name());
+            gen.writeNumberField("level", priority.getLevel());
+            gen.writeStringField("color", priority.getColor());
+            gen.writeEndObject();
+        }
+    }
+}
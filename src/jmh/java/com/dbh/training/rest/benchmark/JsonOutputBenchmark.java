@@ -0,0 +1,130 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.Address;
+import com.dbh.training.rest.models.Money;
+import com.dbh.training.rest.models.Priority;
+import com.dbh.training.rest.models.Todo;
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.models.UserV2;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization time and response size per endpoint, indented vs compact.
+ *
+ * - pretty: the previous default (INDENT_OUTPUT always on)
+ * - compact: the new default (json.pretty.print=false)
+ *
+ * Each payload is what the endpoint returns for a page of 100 entries,
+ * written with the resource method's @JsonView. Response sizes are
+ * printed once per trial.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="JsonOutputBenchmark -f 1 -wi 2 -i 3"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class JsonOutputBenchmark {
+
+    private static final int PAGE = 100;
+
+    @Param({"pretty", "compact"})
+    public String mode;
+
+    private ObjectWriter v1Users;
+    private ObjectWriter v2Users;
+    private ObjectWriter todos;
+    private ObjectWriter metrics;
+
+    private List<User> userPage;
+    private List<UserV2> userV2Page;
+    private List<Todo> todoPage;
+    private Map<String, Object> adminMetrics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        JacksonConfig config = new JacksonConfig("pretty".equals(mode), false);
+        ObjectWriter writer = config.getContext(null).writer();
+        v1Users = writer.withView(com.dbh.training.rest.dto.Views.Public.class);
+        v2Users = writer;
+        todos = writer.withView(com.dbh.training.rest.views.Views.Summary.class);
+        metrics = writer;
+
+        userPage = new ArrayList<>(PAGE);
+        userV2Page = new ArrayList<>(PAGE);
+        todoPage = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            User user = new User("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            user.setId((long) i);
+            user.setBirthDate(LocalDate.of(1990, 1, 1).plusDays(i));
+            user.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+            user.setStatus(AccountStatus.ACTIVE);
+            user.setRoles(new HashSet<>(Arrays.asList("USER")));
+            user.setPrimaryAddress(new Address(i + " Main Street", "Berlin", "10115", "DE"));
+            user.setAccountBalance(new Money(new BigDecimal("1234.56"), "EUR"));
+            userPage.add(user);
+
+            UserV2 userV2 = new UserV2("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            userV2.setId((long) i);
+            userV2.setStatus(AccountStatus.ACTIVE);
+            userV2.setRoles(Arrays.asList("USER"));
+            userV2Page.add(userV2);
+
+            Todo todo = new Todo("Todo " + i, "Description of todo " + i, Priority.values()[i % Priority.values().length]);
+            todo.setId((long) i);
+            todo.setDueDate(LocalDateTime.of(2024, 2, 1, 9, 0));
+            todoPage.add(todo);
+        }
+
+        adminMetrics = new LinkedHashMap<>();
+        for (String name : Arrays.asList("token_cache", "token_revocations", "password_hasher", "rate_limit")) {
+            Map<String, Object> section = new LinkedHashMap<>();
+            section.put("size", 1000);
+            section.put("hits", 123456L);
+            section.put("misses", 789L);
+            section.put("avg_ms", 1.25);
+            adminMetrics.put(name, section);
+        }
+
+        System.out.printf("%n[%s] bytes: v1 users %d, v2 users %d, todos %d, admin/metrics %d%n", mode,
+                v1Users.writeValueAsBytes(userPage).length, v2Users.writeValueAsBytes(userV2Page).length,
+                todos.writeValueAsBytes(todoPage).length, metrics.writeValueAsBytes(adminMetrics).length);
+    }
+
+    @Benchmark
+    public byte[] v1Users() throws JsonProcessingException {
+        return v1Users.writeValueAsBytes(userPage);
+    }
+
+    @Benchmark
+    public byte[] v2Users() throws JsonProcessingException {
+        return v2Users.writeValueAsBytes(userV2Page);
+    }
+
+    @Benchmark
+    public byte[] todos() throws JsonProcessingException {
+        return todos.writeValueAsBytes(todoPage);
+    }
+
+    @Benchmark
+    public byte[] adminMetrics() throws JsonProcessingException {
+        return metrics.writeValueAsBytes(adminMetrics);
+    }
+}
@@ -0,0 +1,174 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.config.CachingJacksonProvider;
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.Address;
+import com.dbh.training.rest.models.Money;
+import com.dbh.training.rest.models.Priority;
+import com.dbh.training.rest.models.Todo;
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.models.UserV2;
+import com.fasterxml.jackson.annotation.JsonView;
+import org.glassfish.jersey.jackson.internal.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * JSON response throughput: Jersey's Jackson provider vs CachingJacksonProvider.
+ *
+ * Each operation writes a page of 100 entries the way Jersey does for a
+ * resource method annotated with @JsonView: type, generic type, method
+ * annotations and a fresh header map per response. Both providers share
+ * the application's ObjectMapper, so only the per-call overhead and the
+ * output path differ.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="JsonProviderBenchmark -f 1 -wi 2 -i 3"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class JsonProviderBenchmark {
+
+    private static final int PAGE = 100;
+
+    @Param({"jersey", "caching"})
+    public String provider;
+
+    @Param({"Todo", "User", "UserV2"})
+    public String entity;
+
+    private MessageBodyWriter<Object> writer;
+    private List<?> page;
+    private Type genericType;
+    private Annotation[] annotations;
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        JacksonConfig config = new JacksonConfig(false, false);
+        if ("jersey".equals(provider)) {
+            writer = new JacksonJaxbJsonProvider(config.getContext(null), JacksonJaxbJsonProvider.DEFAULT_ANNOTATIONS);
+        } else {
+            writer = new CachingJacksonProvider(config);
+        }
+
+        switch (entity) {
+            case "Todo":
+                page = todos();
+                genericType = new GenericType<List<Todo>>() { }.getType();
+                annotations = annotationsOf("todoSummary");
+                break;
+            case "User":
+                page = users();
+                genericType = new GenericType<List<User>>() { }.getType();
+                annotations = annotationsOf("userPublic");
+                break;
+            default:
+                page = usersV2();
+                genericType = new GenericType<List<UserV2>>() { }.getType();
+                annotations = annotationsOf("userV2Public");
+        }
+    }
+
+    @Benchmark
+    public long writePage() throws IOException {
+        out.count = 0;
+        writer.writeTo(page, List.class, genericType, annotations, MediaType.APPLICATION_JSON_TYPE,
+                new MultivaluedHashMap<>(), out);
+        return out.count;
+    }
+
+    // Resource method stand-ins: their annotations are what Jersey hands to the provider
+
+    @JsonView(com.dbh.training.rest.views.Views.Summary.class)
+    private static void todoSummary() {
+    }
+
+    @JsonView(com.dbh.training.rest.dto.Views.Public.class)
+    private static void userPublic() {
+    }
+
+    @JsonView(com.dbh.training.rest.dto.Views.Public.class)
+    private static void userV2Public() {
+    }
+
+    private static Annotation[] annotationsOf(String method) throws NoSuchMethodException {
+        return JsonProviderBenchmark.class.getDeclaredMethod(method).getAnnotations();
+    }
+
+    private static List<Todo> todos() {
+        List<Todo> todos = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            Todo todo = new Todo("Todo " + i, "Description of todo " + i, Priority.values()[i % Priority.values().length]);
+            todo.setId((long) i);
+            todo.setDueDate(LocalDateTime.of(2024, 2, 1, 9, 0));
+            todos.add(todo);
+        }
+        return todos;
+    }
+
+    private static List<User> users() {
+        List<User> users = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            User user = new User("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            user.setId((long) i);
+            user.setBirthDate(LocalDate.of(1990, 1, 1).plusDays(i));
+            user.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+            user.setStatus(AccountStatus.ACTIVE);
+            user.setRoles(new HashSet<>(Arrays.asList("USER")));
+            user.setPrimaryAddress(new Address(i + " Main Street", "Berlin", "10115", "DE"));
+            user.setAccountBalance(new Money(new BigDecimal("1234.56"), "EUR"));
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static List<UserV2> usersV2() {
+        List<UserV2> users = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            UserV2 user = new UserV2("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            user.setId((long) i);
+            user.setStatus(AccountStatus.ACTIVE);
+            user.setRoles(Arrays.asList("USER"));
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * Sink that discards bytes, standing in for the container's response stream.
+     */
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
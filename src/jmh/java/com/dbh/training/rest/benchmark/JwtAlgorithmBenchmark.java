@@ -0,0 +1,68 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.security.JwtKeyRing;
+import com.dbh.training.rest.security.JwtService;
+import com.dbh.training.rest.security.VerifiedToken;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verification throughput per JWT algorithm.
+ *
+ * - sign: generateToken with the active key
+ * - verify: full verification with the key's pre-built parser (signature + claims)
+ * - signatureOnly: hasValidSignature with the per-thread Mac / Signature
+ *
+ * HS256 needs the shared secret on every verifying node; RS256 and ES256
+ * verify with public keys from the JWKS.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="JwtAlgorithmBenchmark -f 1 -wi 2 -i 3"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class JwtAlgorithmBenchmark {
+
+    private static final String SECRET = "training-secret-key-minimum-256-bits-for-hs256-algorithm";
+
+    @Param({"HS256", "RS256", "ES256"})
+    public String algorithm;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SignatureAlgorithm alg = SignatureAlgorithm.forName(algorithm);
+        JwtKeyRing ring = alg.isHmac() ? new JwtKeyRing(SECRET.getBytes()) : new JwtKeyRing(alg, 0, 3600);
+        jwtService = new JwtService(ring);
+        user = new User("alice", "alice@example.com", "Alice", "Smith");
+        user.setId(42L);
+        user.setRoles(new HashSet<>(Arrays.asList("USER", "ADMIN")));
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public boolean signatureOnly() {
+        return jwtService.hasValidSignature(token);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.security.JwtService;
+import com.dbh.training.rest.security.TokenCache;
+import com.dbh.training.rest.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens verified per second by JwtService.
+ *
+ * - parserPerCall: the previous behaviour, building a parser for every token
+ * - cachedParser: validateToken with the shared parser (signature + claims)
+ * - verifiedToken: verify, i.e. cachedParser plus typed claim extraction
+ * - signatureOnly: hasValidSignature, HMAC only
+ * - cacheHit: AuthenticationFilter's path for a token already in the TokenCache
+ *
+ * Compare thread counts with -t, e.g.
+ * Run: ./gradlew jmh -PjmhArgs="JwtVerificationBenchmark -f 1 -wi 2 -i 3 -t 8"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    // Same secret as JwtService's default
+    private static final String SECRET = "training-secret-key-minimum-256-bits-for-hs256-algorithm";
+
+    private JwtService jwtService;
+    private Key key;
+    private String token;
+    private TokenCache tokenCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtService = new JwtService();
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        User user = new User("alice", "alice@example.com", "Alice", "Smith");
+        user.setId(42L);
+        user.setRoles(new HashSet<>(Arrays.asList("USER", "ADMIN")));
+        token = jwtService.generateToken(user);
+        
+        tokenCache = new TokenCache(10_000, 10_000, 30_000);
+        tokenCache.putVerified(tokenCache.keyOf(token), jwtService.verify(token));
+    }
+
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    }
+
+    @Benchmark
+    public Claims cachedParser() {
+        return jwtService.validateToken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifiedToken() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public boolean signatureOnly() {
+        return jwtService.hasValidSignature(token);
+    }
+
+    @Benchmark
+    public VerifiedToken cacheHit() {
+        return tokenCache.getVerified(tokenCache.keyOf(token));
+    }
+}
@@ -0,0 +1,160 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.config.jackson.MoneyDeserializer;
+import com.dbh.training.rest.config.jackson.MoneySerializer;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.CompactMoney;
+import com.dbh.training.rest.models.Money;
+import com.dbh.training.rest.models.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the account balance in user listings.
+ *
+ * - tree: the original MoneySerializer / MoneyDeserializer (getSymbol() and
+ *   formatting per write, a JsonNode tree per read)
+ * - streaming: MoneySerializer / MoneyDeserializer (pre-encoded names, cached
+ *   symbol and formatted string, token-level reads)
+ * - compact: CompactMoney with its serializer, as User stores it
+ *
+ * tree and streaming are applied via a mix-in that exposes the balance as
+ * a Money, so they include the conversion from CompactMoney.
+ * writeUsers serializes the same 100 stored users on every call, as a
+ * listing does; readUsers parses a page of 100 users with balances.
+ *
+ * Run with the GC profiler to see allocations:
+ * ./gradlew jmh -PjmhArgs="MoneyBenchmark -f 1 -wi 2 -i 3 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int PAGE = 100;
+    private static final String[] CURRENCIES = {"EUR", "USD", "GBP", "CHF"};
+
+    @Param({"tree", "streaming", "compact"})
+    public String impl;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<User> users;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new JacksonConfig(false, false).getContext(null);
+        if ("tree".equals(impl)) {
+            mapper = mapper.copy().addMixIn(User.class, TreeMoneyMixIn.class);
+        } else if ("streaming".equals(impl)) {
+            mapper = mapper.copy().addMixIn(User.class, StreamingMoneyMixIn.class);
+        }
+        writer = mapper.writerWithView(com.dbh.training.rest.dto.Views.Internal.class);
+        reader = mapper.readerFor(new TypeReference<List<User>>() { });
+
+        users = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            User user = new User("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            user.setId((long) i);
+            user.setStatus(AccountStatus.ACTIVE);
+            user.setRoles(new HashSet<>(Arrays.asList("USER")));
+            user.setAccountBalance(new Money(new BigDecimal(1000 + i * 37).movePointLeft(2),
+                    CURRENCIES[i % CURRENCIES.length]));
+            users.add(user);
+        }
+        body = writer.writeValueAsBytes(users);
+        System.out.printf("%n[%s] %s%n", impl, mapper.readTree(body).get(0).get("account_balance"));
+    }
+
+    @Benchmark
+    public byte[] writeUsers() throws IOException {
+        return writer.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public List<User> readUsers() throws IOException {
+        return reader.readValue(body);
+    }
+
+    abstract static class TreeMoneyMixIn {
+        @JsonIgnore
+        private CompactMoney accountBalance;
+
+        @JsonIgnore(false)
+        @JsonProperty("account_balance")
+        @JsonView(com.dbh.training.rest.dto.Views.Internal.class)
+        @JsonSerialize(using = TreeMoneySerializer.class)
+        abstract Money getAccountBalance();
+
+        @JsonIgnore(false)
+        @JsonProperty("account_balance")
+        @JsonDeserialize(using = TreeMoneyDeserializer.class)
+        abstract void setAccountBalance(Money accountBalance);
+    }
+
+    abstract static class StreamingMoneyMixIn {
+        @JsonIgnore
+        private CompactMoney accountBalance;
+
+        @JsonIgnore(false)
+        @JsonProperty("account_balance")
+        @JsonView(com.dbh.training.rest.dto.Views.Internal.class)
+        @JsonSerialize(using = MoneySerializer.class)
+        abstract Money getAccountBalance();
+
+        @JsonIgnore(false)
+        @JsonProperty("account_balance")
+        @JsonDeserialize(using = MoneyDeserializer.class)
+        abstract void setAccountBalance(Money accountBalance);
+    }
+
+    public static class TreeMoneySerializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("amount", value.getAmount());
+            gen.writeStringField("currency", value.getCurrency().getCurrencyCode());
+            gen.writeStringField("formatted", value.getCurrency().getSymbol() + " "
+                    + value.getAmount().setScale(2, RoundingMode.HALF_UP));
+            gen.writeEndObject();
+        }
+    }
+
+    public static class TreeMoneyDeserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonNode node = p.getCodec().readTree(p);
+            return new Money(node.get("amount").decimalValue(), Currency.getInstance(node.get("currency").asText()));
+        }
+    }
+}
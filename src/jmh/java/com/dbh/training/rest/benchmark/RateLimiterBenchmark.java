@@ -0,0 +1,62 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.util.TokenBucketLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one rate-limit decision in TokenBucketLimiter.
+ *
+ * - hotKey: every call hits the same bucket (one abusive client, mostly rejected)
+ * - manyKeys: calls spread over 10,000 clients, each well under its limit
+ * - newKeys: every call is a new client, so buckets are created and evicted
+ *
+ * Compare thread counts with -t to see CAS contention on a single bucket.
+ * Run: ./gradlew jmh -PjmhArgs="RateLimiterBenchmark -f 1 -wi 2 -i 3 -t 4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    private TokenBucketLimiter limiter;
+    private String[] keys;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        long fresh;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new TokenBucketLimiter(600_000_000, 1_000_000, 20_000);
+        keys = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            keys[i] = "10.0." + (i >> 8) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public long hotKey() {
+        return limiter.tryAcquire(keys[0]);
+    }
+
+    @Benchmark
+    public long manyKeys(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = i + 1 == CLIENTS ? 0 : i + 1;
+        return limiter.tryAcquire(keys[i]);
+    }
+
+    @Benchmark
+    public long newKeys(Cursor cursor) {
+        return limiter.tryAcquire("client-" + Thread.currentThread().getId() + "-" + cursor.fresh++);
+    }
+}
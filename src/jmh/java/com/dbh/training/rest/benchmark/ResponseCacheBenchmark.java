@@ -0,0 +1,155 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.config.CachingJacksonProvider;
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.config.ResponseCache;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.Address;
+import com.dbh.training.rest.models.Money;
+import com.dbh.training.rest.models.Priority;
+import com.dbh.training.rest.models.Todo;
+import com.dbh.training.rest.models.User;
+import com.fasterxml.jackson.annotation.JsonView;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+
+/**
+ * Single-entity responses with and without the ResponseCache.
+ *
+ * - Todo: GET /todos/{id} (Detailed view)
+ * - User: GET /v1/users/{id}/public (Public view)
+ *
+ * hot writes the same entity every time. skewed picks one of 10,000
+ * entities per call with a Zipf(1) distribution, against a 1 MB cache that
+ * holds a fraction of them; hit rate, bytes and evictions are printed per
+ * trial. Writes go through CachingJacksonProvider as Jersey calls it.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="ResponseCacheBenchmark -f 1 -wi 2 -i 3 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ResponseCacheBenchmark {
+
+    private static final int ENTITIES = 10_000;
+    private static final int SEQUENCE = 1 << 16;
+
+    @Param({"off", "on"})
+    public String cache;
+
+    @Param({"Todo", "User"})
+    public String entity;
+
+    private ResponseCache responseCache;
+    private CachingJacksonProvider provider;
+    private Object[] values;
+    private Class<?> kind;
+    private Annotation[] annotations;
+    private int[] sequence;
+    private final JsonProviderBenchmark.CountingOutputStream out = new JsonProviderBenchmark.CountingOutputStream();
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        responseCache = new ResponseCache("on".equals(cache), 1024 * 1024, 64 * 1024);
+        provider = new CachingJacksonProvider(new JacksonConfig(false, false), responseCache);
+
+        values = new Object[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) {
+            values[i] = "Todo".equals(entity) ? todo(i) : user(i);
+        }
+        kind = values[0].getClass();
+        annotations = ResponseCacheBenchmark.class
+                .getDeclaredMethod("Todo".equals(entity) ? "todoDetailed" : "userPublic").getAnnotations();
+
+        // Zipf(1) ranks by inverse CDF over precomputed weights
+        double[] cdf = new double[ENTITIES];
+        double sum = 0;
+        for (int i = 0; i < ENTITIES; i++) {
+            sum += 1.0 / (i + 1);
+            cdf[i] = sum;
+        }
+        Random random = new Random(42);
+        sequence = new int[SEQUENCE];
+        for (int i = 0; i < SEQUENCE; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            sequence[i] = Math.min(ENTITIES - 1, rank < 0 ? -rank - 1 : rank);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n[%s %s] %s%n", cache, entity, responseCache.getStats());
+    }
+
+    @Benchmark
+    public long hot() throws IOException {
+        return write(0);
+    }
+
+    @Benchmark
+    public long skewed(Cursor cursor) throws IOException {
+        int i = cursor.next;
+        cursor.next = (i + 1) & (SEQUENCE - 1);
+        return write(sequence[i]);
+    }
+
+    private long write(int id) throws IOException {
+        long version = responseCache.versionOf(kind, (long) id);
+        Object value = responseCache.entity(values[id], kind, (long) id, version);
+        out.count = 0;
+        provider.writeTo(value, value.getClass(), value.getClass(), annotations, MediaType.APPLICATION_JSON_TYPE,
+                new MultivaluedHashMap<>(), out);
+        return out.count;
+    }
+
+    // Resource method stand-ins: their annotations are what Jersey hands to the provider
+
+    @JsonView(com.dbh.training.rest.views.Views.Detailed.class)
+    private static void todoDetailed() {
+    }
+
+    @JsonView(com.dbh.training.rest.dto.Views.Public.class)
+    private static void userPublic() {
+    }
+
+    private static Todo todo(int i) {
+        Todo todo = new Todo("Todo " + i, "Description of todo " + i, Priority.values()[i % Priority.values().length]);
+        todo.setId((long) i);
+        todo.setUserId("user" + i % 100);
+        todo.setDueDate(LocalDateTime.of(2024, 2, 1, 9, 0));
+        todo.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        todo.setUpdatedAt(LocalDateTime.of(2024, 1, 16, 8, 0));
+        return todo;
+    }
+
+    private static User user(int i) {
+        User user = new User("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+        user.setId((long) i);
+        user.setBirthDate(LocalDate.of(1990, 1, 1).plusDays(i % 3650));
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        user.setStatus(AccountStatus.ACTIVE);
+        user.setRoles(new HashSet<>(Arrays.asList("USER")));
+        user.setPrimaryAddress(new Address(i + " Main Street", "Berlin", "10115", "DE"));
+        user.setAccountBalance(new Money(new BigDecimal("1234.56"), "EUR"));
+        return user;
+    }
+}
@@ -0,0 +1,100 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.security.UserSecurityContext;
+import com.dbh.training.rest.security.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.SecurityContext;
+
+/**
+ * Per-request cost of the security context on the authentication path.
+ *
+ * Each operation does what a request to a @RolesAllowed({"USER", "ADMIN"})
+ * endpoint does: AuthenticationFilter builds the context from a cached
+ * VerifiedToken, RolesAllowedDynamicFeature checks the roles, and the
+ * resource and RateLimitFilter read the principal.
+ *
+ * - setBased: the previous implementation (HashSet copy, Principal per call)
+ * - bitmask: UserSecurityContext with a role mask and a cached principal
+ *
+ * Run with the GC profiler to see allocations per request:
+ * ./gradlew jmh -PjmhArgs="SecurityContextBenchmark -f 1 -wi 2 -i 3 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class SecurityContextBenchmark {
+
+    private VerifiedToken token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        token = new VerifiedToken("alice", 42L, Arrays.asList("USER"), 0L, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public boolean setBased() {
+        SecurityContext context = new SetBasedSecurityContext(token.getSubject(), token.getUserId(), token.getRoles());
+        return authorize(context);
+    }
+
+    @Benchmark
+    public boolean bitmask() {
+        SecurityContext context = new UserSecurityContext(token.getSubject(), token.getUserId(), token.getRoleMask(), null);
+        return authorize(context);
+    }
+
+    private static boolean authorize(SecurityContext context) {
+        boolean allowed = context.isUserInRole("USER") || context.isUserInRole("ADMIN");
+        Principal forRateLimit = context.getUserPrincipal();
+        Principal forResource = context.getUserPrincipal();
+        return allowed && forRateLimit.getName().equals(forResource.getName());
+    }
+
+    /**
+     * UserSecurityContext as it was before the role registry
+     */
+    private static final class SetBasedSecurityContext implements SecurityContext {
+        private final String username;
+        private final Set<String> roles;
+
+        SetBasedSecurityContext(String username, Long userId, List<String> roles) {
+            this.username = username;
+            this.roles = roles != null ? new HashSet<>(roles) : new HashSet<>();
+        }
+
+        @Override
+        public Principal getUserPrincipal() {
+            return new Principal() {
+                @Override
+                public String getName() {
+                    return username;
+                }
+            };
+        }
+
+        @Override
+        public boolean isUserInRole(String role) {
+            return roles.contains(role);
+        }
+
+        @Override
+        public boolean isSecure() {
+            return false;
+        }
+
+        @Override
+        public String getAuthenticationScheme() {
+            return "Bearer";
+        }
+    }
+}
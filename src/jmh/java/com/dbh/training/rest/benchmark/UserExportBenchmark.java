@@ -0,0 +1,77 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.services.UserExporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the /v1/users/stream export encoder at 1M users.
+ *
+ * Scores are records per second (one operation = one exported user).
+ * The sink only counts bytes, so the numbers isolate encoding and gzip
+ * cost from network I/O.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="UserExportBenchmark -f 1 -wi 2 -i 3"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class UserExportBenchmark {
+
+    private static final int USERS = 1_000_000;
+
+    @Param({"JSON", "NDJSON"})
+    public UserExporter.Format format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    @Param({"1000"})
+    public int flushInterval;
+
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            user.setId((long) i);
+            users.add(user);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public long export() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        new UserExporter(users, format, gzip).writeTo(out, flushInterval);
+        return out.count;
+    }
+
+    /**
+     * Sink that discards bytes but keeps the write calls honest.
+     */
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.models.UserV2;
+import com.dbh.training.rest.services.UserV2Importer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of the /v2/users/import pipeline (parse, validate, batch) at 100k NDJSON records.
+ *
+ * Scores are records per second. The batch sink only assigns ids and the
+ * result stream is discarded, so the numbers isolate the importer itself.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="UserImportBenchmark -f 1 -wi 2 -i 3"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class UserImportBenchmark {
+
+    private static final int RECORDS = 100_000;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"500"})
+    public int chunkSize;
+
+    private byte[] payload;
+    private ExecutorService executor;
+    private UserV2Importer importer;
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(RECORDS * 128);
+        for (int i = 0; i < RECORDS; i++) {
+            sb.append("{\"user_name\":\"user").append(i)
+              .append("\",\"email_address\":\"user").append(i)
+              .append("@example.com\",\"first_name\":\"First\",\"last_name\":\"Last\",\"age\":")
+              .append(20 + i % 50).append("}\n");
+        }
+        payload = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        executor = Executors.newFixedThreadPool(parallelism);
+        importer = new UserV2Importer(mapper, validator, executor, chunkSize, parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long importAll() throws IOException {
+        return importer.run(new ByteArrayInputStream(payload), this::assignIds, DISCARD).getCreated();
+    }
+
+    private void assignIds(List<UserV2> batch) {
+        for (UserV2 user : batch) {
+            user.setId(ids.incrementAndGet());
+        }
+    }
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+}
@@ -0,0 +1,69 @@
+package com.dbh.training.rest.benchmark;
+
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.models.UserV2;
+import com.dbh.training.rest.services.UserMigration;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the V1 -> V2 migration pipeline at 200k users.
+ *
+ * Scores are migrated records per second. The sink only assigns ids, so
+ * the numbers cover snapshot, transform, validation and the stage hand-offs.
+ *
+ * Run: ./gradlew jmh -PjmhArgs="UserMigrationBenchmark -f 1 -wi 2 -i 3"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class UserMigrationBenchmark {
+
+    private static final int USERS = 200_000;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private List<User> users;
+    private Validator validator;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        users = new ArrayList<>(USERS);
+        for (int i = 1; i <= USERS; i++) {
+            User user = new User("user" + i, "user" + i + "@example.com", "First" + i, "Last" + i);
+            user.setId((long) i);
+            users.add(user);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public long migrate() throws InterruptedException {
+        UserMigration migration = new UserMigration(
+                () -> users, this::assignIds, validator, parallelism, batchSize, 4, 0);
+        migration.start(0);
+        migration.awaitCompletion(5, TimeUnit.MINUTES);
+        return migration.getImported();
+    }
+
+    // Called only from the importer thread
+    private void assignIds(List<UserV2> batch) {
+        for (UserV2 user : batch) {
+            user.setId(++nextId);
+        }
+    }
+}
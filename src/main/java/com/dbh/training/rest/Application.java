@@ -1,13 +1,21 @@
 package com.dbh.training.rest;
 
+import java.util.EnumSet;
+import javax.servlet.DispatcherType;
+
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.glassfish.jersey.servlet.ServletContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.dbh.training.rest.config.CompressionConfig;
 import com.dbh.training.rest.config.JerseyConfig;
+import com.dbh.training.rest.filters.ServletApiFilter;
+import com.dbh.training.rest.resources.UserExportServlet;
+import com.dbh.training.rest.security.Route;
 
 /**
  * Main application class that starts an embedded Jetty server with Jersey REST endpoints.
@@ -44,11 +52,22 @@ public class Application {
         ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
         context.setContextPath(DEFAULT_CONTEXT_PATH);
         
-        server.setHandler(context);
+        // Gzip in front of every servlet (server.compression.*)
+        server.setHandler(new CompressionConfig().wrap(context));
+        
+        // Non-blocking user export; the exact path takes precedence over /api/*
+        ServletHolder exportServlet = context.addServlet(UserExportServlet.class, UserExportServlet.PATH);
+        exportServlet.setAsyncSupported(true);
+        // Outside Jersey: its security headers, CORS and rate limit come from a servlet filter
+        FilterHolder exportFilter = new FilterHolder(new ServletApiFilter(Route.USER_DATA));
+        exportFilter.setAsyncSupported(true);
+        context.addFilter(exportFilter, UserExportServlet.PATH, EnumSet.of(DispatcherType.REQUEST));
         
         // Configure Jersey servlet
         ServletHolder jerseyServlet = context.addServlet(ServletContainer.class, API_PATH_SPEC);
         jerseyServlet.setInitOrder(0);
+        // Suspended (async) resources free the request thread while they wait
+        jerseyServlet.setAsyncSupported(true);
         
         // Tell Jersey where to find the configuration
         jerseyServlet.setInitParameter(
@@ -122,11 +141,22 @@ public class Application {
         ServletContextHandler context = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
         context.setContextPath(DEFAULT_CONTEXT_PATH);
         
-        server.setHandler(context);
+        // Gzip in front of every servlet (server.compression.*)
+        server.setHandler(new CompressionConfig().wrap(context));
+        
+        // Non-blocking user export; the exact path takes precedence over /api/*
+        ServletHolder exportServlet = context.addServlet(UserExportServlet.class, UserExportServlet.PATH);
+        exportServlet.setAsyncSupported(true);
+        // Outside Jersey: its security headers, CORS and rate limit come from a servlet filter
+        FilterHolder exportFilter = new FilterHolder(new ServletApiFilter(Route.USER_DATA));
+        exportFilter.setAsyncSupported(true);
+        context.addFilter(exportFilter, UserExportServlet.PATH, EnumSet.of(DispatcherType.REQUEST));
         
         // Configure Jersey servlet
         ServletHolder jerseyServlet = context.addServlet(ServletContainer.class, API_PATH_SPEC);
         jerseyServlet.setInitOrder(0);
+        // Suspended (async) resources free the request thread while they wait
+        jerseyServlet.setAsyncSupported(true);
         
         // Tell Jersey where to find the configuration
         jerseyServlet.setInitParameter(
@@ -0,0 +1,82 @@
+package com.dbh.training.rest.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Application configuration loaded from application.properties.
+ *
+ * Values can be overridden with JVM system properties of the same name
+ * (e.g. -Djson.pretty.print=false), which is handy for tests and for
+ * per-environment settings without rebuilding.
+ */
+public final class AppConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
+    private static final String RESOURCE = "application.properties";
+    private static final AppConfig INSTANCE = new AppConfig();
+
+    private final Properties properties = new Properties();
+
+    private AppConfig() {
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            } else {
+                logger.warn("{} not found on classpath, using defaults", RESOURCE);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read {}, using defaults", RESOURCE, e);
+        }
+    }
+
+    public static AppConfig getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return System property, else application.properties value, else the default
+     */
+    public String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = properties.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer for {}: {}, using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid long for {}: {}, using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
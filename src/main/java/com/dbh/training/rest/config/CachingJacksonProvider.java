@@ -0,0 +1,346 @@
+package com.dbh.training.rest.config;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Priority;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * JSON, Smile and CBOR reader and writer with per-(type, view) cached
+ * Jackson readers and writers
+ *
+ * Jersey's Jackson provider resolves the @JsonView annotation and builds
+ * the reader / writer configuration on every call. Here an ObjectWriter is
+ * built once per (entity type, generic type, view, pretty) and an
+ * ObjectReader once per (type, generic type, view), then reused.
+ *
+ * Responses are serialized into a per-thread buffer and written with a
+ * Content-Length in one call, instead of being streamed in chunks once
+ * they outgrow the container's buffer. Buffers that grew past
+ * {@link #MAX_RETAINED_BUFFER} are not kept.
+ *
+ * The format follows the negotiated media type; each has its own mapper
+ * from {@link JacksonConfig} and its own caches. ?pretty=true selects the
+ * indented writer for JSON.
+ *
+ * Entities wrapped by {@link ResponseCache#entity} are written from the
+ * response cache when it holds them for this writer (format, type, view
+ * and pretty flag), and stored there after they are serialized. Writers
+ * built per call, once the writer cache is full, bypass the response cache.
+ *
+ * Jackson exceptions are left to the mappers JacksonFeature registers,
+ * so malformed input still maps to 400.
+ */
+@Provider
+@Produces({MediaType.APPLICATION_JSON, "application/*+json", MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, "application/*+json", MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@Priority(Priorities.USER - 100)
+public class CachingJacksonProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    static final String PRETTY_PARAM = "pretty";
+    static final int MAX_RETAINED_BUFFER = 256 * 1024;
+    private static final int INITIAL_BUFFER = 8 * 1024;
+    // Bound on cached readers and writers; beyond it they are built per call
+    private static final int MAX_CACHED = 1024;
+
+    // Handled by Jersey's own providers, as Jackson's provider does
+    private static final Set<Class<?>> UNTOUCHABLES = new HashSet<>(Arrays.asList(
+            InputStream.class, Reader.class, OutputStream.class, Writer.class,
+            byte[].class, char[].class, String.class, StreamingOutput.class, Response.class));
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private final JacksonConfig jacksonConfig;
+    private final ResponseCache responseCache;
+    private final Codec json;
+    private final Codec smile;
+    private final Codec cbor;
+
+    @Context
+    private UriInfo uriInfo;
+
+    public CachingJacksonProvider(JacksonConfig jacksonConfig) {
+        this(jacksonConfig, null);
+    }
+
+    /**
+     * @param responseCache Cache for {@link ResponseCache.Cacheable} entities, or null to serialize them every time
+     */
+    public CachingJacksonProvider(JacksonConfig jacksonConfig, ResponseCache responseCache) {
+        this.jacksonConfig = jacksonConfig;
+        this.responseCache = responseCache;
+        this.json = new Codec(jacksonConfig.getContext(null), jacksonConfig.getPrettyWriter());
+        this.smile = new Codec(jacksonConfig.getSmileMapper(), null);
+        this.cbor = new Codec(jacksonConfig.getCborMapper(), null);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return codecFor(mediaType) != null && !UNTOUCHABLES.contains(type);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return codecFor(mediaType) != null && !UNTOUCHABLES.contains(type);
+    }
+
+    @Override
+    public long getSize(Object value, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        ResponseCache.Cacheable cacheable = null;
+        if (value instanceof ResponseCache.Cacheable) {
+            cacheable = (ResponseCache.Cacheable) value;
+            value = cacheable.getValue();
+            type = value.getClass();
+            genericType = type;
+        }
+        Codec codec = codecFor(mediaType);
+        CacheKey key = new CacheKey(type, genericType, viewOf(annotations), codec == json && wantsPretty());
+        ObjectWriter writer = codec.writerFor(key);
+
+        // The cached writer stands for format, type, view and pretty flag; one
+        // built for this call alone would only add a variant no request asks for
+        if (cacheable != null && responseCache != null && !codec.isCached(key, writer)) {
+            cacheable = null;
+        }
+        if (cacheable != null) {
+            byte[] cached = responseCache.get(cacheable, writer);
+            if (cached != null) {
+                if (!httpHeaders.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+                    httpHeaders.putSingle(HttpHeaders.CONTENT_LENGTH, cached.length);
+                }
+                entityStream.write(cached);
+                return;
+            }
+        }
+
+        Buffer buffer = BUFFERS.get();
+        try {
+            writer.writeValue(buffer, value);
+            if (!httpHeaders.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+                httpHeaders.putSingle(HttpHeaders.CONTENT_LENGTH, buffer.size());
+            }
+            if (cacheable != null) {
+                responseCache.put(cacheable, writer, buffer);
+            }
+            buffer.writeTo(entityStream);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        // An empty body reads as null (optional request bodies), as with Jackson's provider
+        PushbackInputStream input = new PushbackInputStream(entityStream, 1);
+        int first = input.read();
+        if (first < 0) {
+            return null;
+        }
+        input.unread(first);
+        return codecFor(mediaType).readerFor(type, genericType, viewOf(annotations)).readValue(input);
+    }
+
+    private boolean wantsPretty() {
+        return !jacksonConfig.isPrettyPrint() && uriInfo != null
+                && "true".equalsIgnoreCase(uriInfo.getQueryParameters().getFirst(PRETTY_PARAM));
+    }
+
+    /**
+     * Codec of a media type, or null if it is not one of ours
+     */
+    private Codec codecFor(MediaType mediaType) {
+        if (mediaType == null) {
+            return json;
+        }
+        if (!"application".equalsIgnoreCase(mediaType.getType())) {
+            return null;
+        }
+        String subtype = mediaType.getSubtype();
+        if ("json".equalsIgnoreCase(subtype) || subtype.toLowerCase().endsWith("+json")) {
+            return json;
+        }
+        if (MediaTypes.APPLICATION_SMILE_TYPE.getSubtype().equalsIgnoreCase(subtype)) {
+            return smile;
+        }
+        if (MediaTypes.APPLICATION_CBOR_TYPE.getSubtype().equalsIgnoreCase(subtype)) {
+            return cbor;
+        }
+        return null;
+    }
+
+    private static Class<?> viewOf(Annotation[] annotations) {
+        if (annotations != null) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof JsonView) {
+                    Class<?>[] views = ((JsonView) annotation).value();
+                    return views.length > 0 ? views[0] : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One format: its mapper's base reader and writers, and their caches
+     */
+    private static final class Codec {
+        private final ObjectWriter compactWriter;
+        private final ObjectWriter prettyWriter;
+        private final ObjectReader baseReader;
+        private final Map<CacheKey, ObjectWriter> writers = new ConcurrentHashMap<>();
+        private final Map<CacheKey, ObjectReader> readers = new ConcurrentHashMap<>();
+
+        Codec(ObjectMapper mapper, ObjectWriter prettyWriter) {
+            // The container owns the entity streams: never close them
+            this.compactWriter = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.prettyWriter = prettyWriter;
+            this.baseReader = mapper.reader().without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        }
+
+        /**
+         * Cached writer for a type, view and pretty flag
+         */
+        ObjectWriter writerFor(CacheKey key) {
+            ObjectWriter writer = writers.get(key);
+            if (writer == null) {
+                writer = buildWriter(key.genericType, key.view, key.pretty);
+                if (writers.size() < MAX_CACHED) {
+                    ObjectWriter raced = writers.putIfAbsent(key, writer);
+                    if (raced != null) {
+                        writer = raced;
+                    }
+                }
+            }
+            return writer;
+        }
+
+        /**
+         * Whether a writer from {@link #writerFor} is the one cached for its key
+         */
+        boolean isCached(CacheKey key, ObjectWriter writer) {
+            return writers.get(key) == writer;
+        }
+
+        /**
+         * Cached reader for a type and view
+         */
+        ObjectReader readerFor(Class<?> type, Type genericType, Class<?> view) {
+            CacheKey key = new CacheKey(type, genericType, view, false);
+            ObjectReader reader = readers.get(key);
+            if (reader == null) {
+                reader = baseReader.forType(baseReader.getTypeFactory().constructType(
+                        genericType != null ? genericType : type));
+                if (view != null) {
+                    reader = reader.withView(view);
+                }
+                if (readers.size() < MAX_CACHED) {
+                    readers.putIfAbsent(key, reader);
+                }
+            }
+            return reader;
+        }
+
+        private ObjectWriter buildWriter(Type genericType, Class<?> view, boolean pretty) {
+            ObjectWriter writer = pretty && prettyWriter != null ? prettyWriter : compactWriter;
+            if (view != null) {
+                writer = writer.withView(view);
+            }
+            // Declared element types of collections; other values are typed at runtime
+            if (genericType instanceof ParameterizedType) {
+                JavaType rootType = writer.getTypeFactory().constructType(genericType);
+                writer = writer.forType(rootType);
+            }
+            return writer;
+        }
+    }
+
+    /**
+     * Per-thread serialization buffer
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(INITIAL_BUFFER);
+        }
+
+        void release() {
+            if (buf.length > MAX_RETAINED_BUFFER) {
+                buf = new byte[INITIAL_BUFFER];
+            }
+            reset();
+        }
+    }
+
+    private static final class CacheKey {
+        private final Class<?> type;
+        private final Type genericType;
+        private final Class<?> view;
+        private final boolean pretty;
+        private final int hash;
+
+        CacheKey(Class<?> type, Type genericType, Class<?> view, boolean pretty) {
+            this.type = type;
+            this.genericType = genericType;
+            this.view = view;
+            this.pretty = pretty;
+            this.hash = ((type.hashCode() * 31 + Objects.hashCode(genericType)) * 31
+                    + Objects.hashCode(view)) * 31 + (pretty ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return type == other.type && view == other.view && pretty == other.pretty
+                    && Objects.equals(genericType, other.genericType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.dbh.training.rest.config;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+
+/**
+ * Response compression in front of every servlet
+ *
+ * Jetty's GzipHandler deflates a response as it is written, buffer by
+ * buffer, so nothing is held back to be compressed as a whole and the
+ * user export keeps streaming. Responses are left alone when they are
+ * smaller than the minimum size, of a type outside the allowlist, or
+ * already carry a Content-Encoding (precompressed Swagger UI assets).
+ *
+ * Level 1 is the cheapest per byte, 9 the smallest; the default 6 is
+ * close to 9 in size for JSON at a fraction of the CPU
+ * (see CompressionBenchmark).
+ */
+public final class CompressionConfig {
+
+    static final String[] DEFAULT_MIME_TYPES = {
+        "application/json", "application/problem+json", "application/x-ndjson",
+        "text/html", "text/css", "text/plain", "application/javascript", "image/svg+xml"
+    };
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+    private final String[] mimeTypes;
+    private final boolean syncFlush;
+
+    /**
+     * Settings from server.compression.* in application.properties
+     */
+    public CompressionConfig() {
+        AppConfig config = AppConfig.getInstance();
+        this.enabled = config.getBoolean("server.compression.enabled", true);
+        this.minSize = config.getInt("server.compression.min.size", 1024);
+        this.level = config.getInt("server.compression.level", Deflater.DEFAULT_COMPRESSION);
+        this.mimeTypes = split(config.getString("server.compression.mime.types", null));
+        this.syncFlush = config.getBoolean("server.compression.sync.flush", true);
+    }
+
+    /**
+     * @param minSize Smallest response (bytes) worth compressing
+     * @param level Deflate level, 1 (fastest) to 9 (smallest), or -1 for zlib's default (6)
+     * @param mimeTypes Compressed content types; null for the defaults
+     * @param syncFlush Emit compressed data on every flush, for streamed responses
+     */
+    public CompressionConfig(boolean enabled, int minSize, int level, String[] mimeTypes, boolean syncFlush) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+        this.mimeTypes = mimeTypes;
+        this.syncFlush = syncFlush;
+    }
+
+    /**
+     * The handler behind a GzipHandler, or the handler itself if compression is disabled
+     */
+    public Handler wrap(Handler handler) {
+        if (!enabled) {
+            return handler;
+        }
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("server.compression.level must be 1-9 or -1: " + level);
+        }
+        GzipHandler gzip = new GzipHandler();
+        gzip.setMinGzipSize(Math.max(0, minSize));
+        gzip.setCompressionLevel(level);
+        gzip.setIncludedMimeTypes(mimeTypes != null ? mimeTypes : DEFAULT_MIME_TYPES);
+        // Without it a flush leaves data in the deflater and streamed records arrive late
+        gzip.setSyncFlush(syncFlush);
+        gzip.setHandler(handler);
+        return gzip;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return true if an Accept-Encoding header accepts the coding (q &gt; 0)
+     */
+    public static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        // An explicit entry for the coding wins over "*"
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase(coding)) {
+                return hasPositiveQuality(parts);
+            }
+            if (name.equals("*")) {
+                wildcard = hasPositiveQuality(parts);
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    private static boolean hasPositiveQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String[] split(String list) {
+        if (list == null || list.trim().isEmpty()) {
+            return null;
+        }
+        return Arrays.stream(list.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    }
+}
@@ -3,13 +3,18 @@ package com.dbh.training.rest.config;
 import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.Provider;
 
+import com.dbh.training.rest.config.jackson.EnumCodecModule;
 import com.dbh.training.rest.config.jackson.ThirdPartyUserMixIn;
 import com.dbh.training.rest.thirdparty.ThirdPartyUser;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.text.SimpleDateFormat;
@@ -20,21 +25,53 @@ import java.util.TimeZone;
  * 
  * This class configures how Jackson handles JSON in the REST API:
  * - Date/time formatting
- * - Null value handling
- * - Pretty printing
+ * - Null value handling (json.include.null)
+ * - Pretty printing (json.pretty.print)
  * - Java 8 time support
+ * - Enum codecs (EnumCodecModule)
+ * 
+ * Output is compact unless json.pretty.print is set: indentation adds
+ * 20-40% to every response. A client can still ask for indented output
+ * per request with ?pretty=true, which uses a separate, pre-built writer
+ * (see CachingJacksonProvider).
+ * 
+ * The Smile and CBOR mappers share this configuration, so the binary
+ * representations carry the same fields, views and custom serializers.
  */
 @Provider
 public class JacksonConfig implements ContextResolver<ObjectMapper> {
     
     private final ObjectMapper objectMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectWriter prettyWriter;
+    private final boolean prettyPrint;
     
     public JacksonConfig() {
-        objectMapper = new ObjectMapper();
+        this(AppConfig.getInstance().getBoolean("json.pretty.print", false),
+             AppConfig.getInstance().getBoolean("json.include.null", false));
+    }
+    
+    public JacksonConfig(boolean prettyPrint, boolean includeNull) {
+        this.prettyPrint = prettyPrint;
+        objectMapper = configure(new ObjectMapper(), prettyPrint, includeNull);
+        
+        // Same modules, views and serializers over binary encodings
+        smileMapper = configure(new ObjectMapper(new SmileFactory()), false, includeNull);
+        cborMapper = configure(new ObjectMapper(new CBORFactory()), false, includeNull);
         
+        // Built once; the response stream belongs to the container, so never close it
+        prettyWriter = objectMapper.writerWithDefaultPrettyPrinter()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+    
+    private static ObjectMapper configure(ObjectMapper objectMapper, boolean prettyPrint, boolean includeNull) {
         // Java 8 time support (LocalDate, LocalDateTime, etc.)
         objectMapper.registerModule(new JavaTimeModule());
         
+        // Pre-encoded enum names, exception-free decoding
+        objectMapper.registerModule(new EnumCodecModule());
+        
         // Date formatting
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
         dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
@@ -42,7 +79,7 @@ public class JacksonConfig implements ContextResolver<ObjectMapper> {
         
         // Serialization features
         objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, true);  // Pretty print
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, prettyPrint);
         objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
         
         // Deserialization features
@@ -50,12 +87,8 @@ public class JacksonConfig implements ContextResolver<ObjectMapper> {
         objectMapper.configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
         objectMapper.configure(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT, true);
         
-        // Include only non-null values in JSON output
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        
-        // For training purposes, we'll keep pretty printing enabled
-        // In production, you might want to disable it for performance
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        // Include only non-null values in JSON output, unless configured otherwise
+        objectMapper.setSerializationInclusion(includeNull ? JsonInclude.Include.ALWAYS : JsonInclude.Include.NON_NULL);
         
         // Exercise 07: Jackson Advanced - Mix-ins
         // Register mix-in to control third-party class serialization
@@ -63,6 +96,36 @@ public class JacksonConfig implements ContextResolver<ObjectMapper> {
         
         // Exercise 07: Enable JSON Views
         objectMapper.enable(MapperFeature.DEFAULT_VIEW_INCLUSION);
+        
+        return objectMapper;
+    }
+    
+    /**
+     * Writer for ?pretty=true responses
+     */
+    public ObjectWriter getPrettyWriter() {
+        return prettyWriter;
+    }
+    
+    /**
+     * @return true if every response is indented already (json.pretty.print)
+     */
+    public boolean isPrettyPrint() {
+        return prettyPrint;
+    }
+    
+    /**
+     * Mapper for application/x-jackson-smile
+     */
+    public ObjectMapper getSmileMapper() {
+        return smileMapper;
+    }
+    
+    /**
+     * Mapper for application/cbor
+     */
+    public ObjectMapper getCborMapper() {
+        return cborMapper;
     }
     
     @Override
@@ -9,15 +9,26 @@ import org.slf4j.LoggerFactory;
 
 import com.dbh.training.rest.filters.CORSFilter;
 import com.dbh.training.rest.filters.LoggingFilter;
+import com.dbh.training.rest.filters.RateLimitFilter;
+import com.dbh.training.rest.filters.RateLimits;
 import com.dbh.training.rest.exceptions.ValidationExceptionMapper;
 import com.dbh.training.rest.resources.AuthResource;
 import com.dbh.training.rest.resources.UserResourceV1;
 import com.dbh.training.rest.resources.UserResourceV2;
 import com.dbh.training.rest.resources.HealthResource;
+import com.dbh.training.rest.resources.JwksResource;
+import com.dbh.training.rest.resources.AdminMetricsResource;
+import com.dbh.training.rest.resources.ApiKeyResource;
 import com.dbh.training.rest.resources.TodoResource;
+import com.dbh.training.rest.security.ApiKeyStore;
 import com.dbh.training.rest.security.AuthenticationFilter;
 import com.dbh.training.rest.security.JwtService;
+import com.dbh.training.rest.security.PasswordHasher;
+import com.dbh.training.rest.security.PasswordPolicy;
 import com.dbh.training.rest.security.SecurityHeadersFilter;
+import com.dbh.training.rest.security.RouteTable;
+import com.dbh.training.rest.security.TokenCache;
+import com.dbh.training.rest.security.TokenRevocations;
 import com.dbh.training.rest.services.UserService;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import org.glassfish.jersey.server.validation.ValidationFeature;
@@ -40,6 +51,9 @@ public class JerseyConfig extends ResourceConfig {
     public JerseyConfig() {
         logger.info("Initializing Jersey configuration...");
         
+        // Resolve (and, if configured, calibrate) the BCrypt cost before the first login
+        PasswordPolicy.getInstance();
+        
         // Exercise 05: Explicitly register both API versions
         // Both versions coexist at different paths
         register(UserResourceV1.class);  // /v1/users - deprecated
@@ -51,6 +65,9 @@ public class JerseyConfig extends ResourceConfig {
         
         // Exercise 08: Security Implementation
         register(AuthResource.class);    // /auth - login endpoint
+        register(JwksResource.class);    // /.well-known/jwks.json - token verification keys
+        register(ApiKeyResource.class);  // /admin/api-keys - service API keys
+        register(AdminMetricsResource.class);  // /admin/metrics - internal metrics
         register(AuthenticationFilter.class);  // JWT authentication filter
         register(RolesAllowedDynamicFeature.class);  // Enable @RolesAllowed
         register(SecurityHeadersFilter.class);  // Security headers
@@ -58,8 +75,14 @@ public class JerseyConfig extends ResourceConfig {
         // Exercise 06: Register Jackson for JSON processing
         // JacksonFeature enables Jackson JSON provider
         // JacksonConfig customizes ObjectMapper settings
+        // CachingJacksonProvider reads and writes JSON, Smile and CBOR with cached
+        // readers/writers (compact by default, ?pretty=true on request) and serves single
+        // entities from the ResponseCache; JacksonFeature still maps malformed JSON to 400
         register(JacksonFeature.class);
-        register(JacksonConfig.class);
+        JacksonConfig jacksonConfig = new JacksonConfig();
+        ResponseCache responseCache = new ResponseCache();
+        register(jacksonConfig);
+        register(new CachingJacksonProvider(jacksonConfig, responseCache));
         
         // Register Bean Validation (Exercise 04)
         register(ValidationFeature.class);
@@ -69,6 +92,7 @@ public class JerseyConfig extends ResourceConfig {
         // Register filters
         register(CORSFilter.class);
         register(LoggingFilter.class);
+        register(RateLimitFilter.class);  // api.rate.limit.* token buckets
         
         // Disable automatic Wadl generation (optional)
         property(ServerProperties.WADL_FEATURE_DISABLE, true);
@@ -81,7 +105,15 @@ public class JerseyConfig extends ResourceConfig {
             @Override
             protected void configure() {
                 bindAsContract(JwtService.class).in(javax.inject.Singleton.class);
+                bindAsContract(TokenCache.class).in(javax.inject.Singleton.class);
+                bindAsContract(TokenRevocations.class).in(javax.inject.Singleton.class);
+                bindAsContract(RouteTable.class).in(javax.inject.Singleton.class);
+                bindAsContract(ApiKeyStore.class).in(javax.inject.Singleton.class);
+                bindAsContract(PasswordHasher.class).in(javax.inject.Singleton.class);
                 bindAsContract(UserService.class).in(javax.inject.Singleton.class);
+                // Shared with the servlets outside Jersey (UserExportServlet)
+                bindFactory(RateLimits.ContextFactory.class).to(RateLimits.class).in(javax.inject.Singleton.class);
+                bind(responseCache).to(ResponseCache.class);
             }
         });
         
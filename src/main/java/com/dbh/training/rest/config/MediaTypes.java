@@ -0,0 +1,23 @@
+package com.dbh.training.rest.config;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Media types of the binary representations, next to application/json
+ *
+ * Resources list them after JSON in @Produces / @Consumes, so JSON stays
+ * the default and clients opt in through Accept and Content-Type.
+ */
+public final class MediaTypes {
+
+    /** Jackson Smile: binary JSON with back-references to repeated names */
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE_TYPE = MediaType.valueOf(APPLICATION_SMILE);
+
+    /** CBOR (RFC 8949) */
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+
+    private MediaTypes() {
+    }
+}
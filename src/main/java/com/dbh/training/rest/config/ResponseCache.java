@@ -0,0 +1,385 @@
+package com.dbh.training.rest.config;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of serialized single-entity responses
+ *
+ * GET /todos/{id} and GET /v1/users/{id}/... encode the same unchanged
+ * objects over and over. Here the encoded bytes are kept per entity and
+ * variant (view, format, pretty) and written straight to the response by
+ * {@link CachingJacksonProvider}.
+ *
+ * Entries are keyed by (kind, id, version). A resource reads the version
+ * before it reads the entity and returns {@link #entity}; every mutation
+ * calls {@link #invalidate} after changing the entity, which bumps the
+ * version and drops the entry. A request that raced with a mutation can
+ * only store bytes under the old version, which no later request asks for.
+ * Versions are counters in a fixed array of stripes, so ids sharing a
+ * stripe just invalidate each other now and then.
+ *
+ * The cache is bounded by the bytes it holds; larger responses are not
+ * cached. Eviction follows request frequency, as TinyLFU does: a small
+ * count-min sketch counts the lookups of every entity, cached or not, and
+ * halves its counts periodically so old popularity fades. Once the cache
+ * is 90% full, a response is only admitted if its entity was requested
+ * before, and more often than the last entity evicted, so a stream of
+ * rarely read entities cannot flush the popular ones.
+ * When it overflows, one thread drops the least frequently requested
+ * entities until it is back under 90%.
+ */
+public class ResponseCache {
+
+    // Per variant: map entry, key, array slot and byte[] header
+    private static final int VARIANT_OVERHEAD = 96;
+    private static final int STRIPES = 4096;
+    // Views x formats x pretty of one entity; more means writers are not being reused
+    private static final int MAX_VARIANTS = 16;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int maxEntryBytes;
+
+    private final Map<EntityKey, Node> nodes = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final FrequencySketch sketch;
+    // Most requested entity of the last eviction; newcomers must beat it
+    private volatile EntityKey victim;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder tooLarge = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ResponseCache() {
+        this(AppConfig.getInstance().getBoolean("response.cache.enabled", true),
+             AppConfig.getInstance().getLong("response.cache.max.bytes", 16L * 1024 * 1024),
+             AppConfig.getInstance().getInt("response.cache.max.entry.bytes", 64 * 1024));
+    }
+
+    public ResponseCache(boolean enabled, long maxBytes, int maxEntryBytes) {
+        this.enabled = enabled;
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxEntryBytes = maxEntryBytes;
+        // Room to count about four times the entities of 512 bytes that fit
+        this.sketch = new FrequencySketch((int) Math.min(1 << 22, Math.max(1024, this.maxBytes / 128)));
+    }
+
+    /**
+     * A response entity the provider may serve from the cache
+     */
+    public static final class Cacheable {
+        private final Object value;
+        private final EntityKey key;
+        private final long version;
+
+        Cacheable(Object value, EntityKey key, long version) {
+            this.value = value;
+            this.key = key;
+            this.version = version;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Version to pass to {@link #entity}; read it before reading the entity
+     */
+    public long versionOf(Class<?> kind, Object id) {
+        return versions.get(stripe(kind, id));
+    }
+
+    /**
+     * Wrap an entity read at the given version as a cacheable response
+     * entity, or return it as is if the cache is disabled
+     */
+    public Object entity(Object value, Class<?> kind, Object id, long version) {
+        if (!enabled || value == null) {
+            return value;
+        }
+        return new Cacheable(value, new EntityKey(kind, id), version);
+    }
+
+    /**
+     * Drop an entity's responses; call after every change to it, creation included
+     */
+    public void invalidate(Class<?> kind, Object id) {
+        versions.incrementAndGet(stripe(kind, id));
+        Node removed = nodes.remove(new EntityKey(kind, id));
+        if (removed != null) {
+            bytes.addAndGet(-removed.weight());
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * @param variant Identifies view, format and pretty printing; compared by
+     *                identity, so it must be the same object for every request
+     * @return Encoded response for the variant, or null
+     */
+    byte[] get(Cacheable entity, Object variant) {
+        sketch.increment(entity.key.hash);
+        Node node = nodes.get(entity.key);
+        byte[] body = node != null && node.version == entity.version ? node.get(variant) : null;
+        if (body != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return body;
+    }
+
+    void put(Cacheable entity, Object variant, ByteArrayOutputStream encoded) {
+        if (encoded.size() > maxEntryBytes) {
+            tooLarge.increment();
+            return;
+        }
+        long added = encoded.size() + VARIANT_OVERHEAD;
+        if (bytes.get() + added > evictionTarget() && !admit(entity.key)) {
+            rejected.increment();
+            return;
+        }
+        byte[] body = encoded.toByteArray();
+        nodes.compute(entity.key, (key, node) -> {
+            // Only the current version: bytes of an invalidated one would never be read
+            if (versions.get(stripe(key.kind, key.id)) != entity.version) {
+                return node;
+            }
+            if (node == null || node.version != entity.version) {
+                if (node != null) {
+                    bytes.addAndGet(-node.weight());
+                }
+                node = new Node(entity.version);
+            } else if (node.get(variant) != null || node.variantCount() >= MAX_VARIANTS) {
+                return node;
+            }
+            node.add(variant, body);
+            bytes.addAndGet(added);
+            return node;
+        });
+        if (bytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    public void clear() {
+        for (EntityKey key : nodes.keySet()) {
+            Node removed = nodes.remove(key);
+            if (removed != null) {
+                bytes.addAndGet(-removed.weight());
+            }
+        }
+    }
+
+    /**
+     * Hit-rate and memory metrics, suitable for a JSON response
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entities", nodes.size());
+        stats.put("bytes", bytes.get());
+        stats.put("max_bytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_rate", lookups == 0 ? 0.0 : hitCount / (double) lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("too_large", tooLarge.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * Near full: an entity gets in if it was requested more than once, and
+     * more often than the last one evicted is now
+     */
+    private boolean admit(EntityKey key) {
+        EntityKey last = victim;
+        int bar = last == null ? 1 : Math.max(1, sketch.frequency(last.hash));
+        return sketch.frequency(key.hash) > bar;
+    }
+
+    /**
+     * One thread at a time drops the least frequently used entities; the others carry on
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Counts keep changing, so sort a snapshot of them
+            List<Candidate> candidates = new ArrayList<>(nodes.size());
+            nodes.forEach((key, node) -> candidates.add(new Candidate(key, node)));
+            candidates.sort((a, b) -> Integer.compare(a.frequency, b.frequency));
+            long target = evictionTarget();
+            for (Candidate candidate : candidates) {
+                if (bytes.get() <= target) {
+                    break;
+                }
+                if (nodes.remove(candidate.key, candidate.node)) {
+                    bytes.addAndGet(-candidate.node.weight());
+                    evictions.increment();
+                    victim = candidate.key;
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private long evictionTarget() {
+        return maxBytes - maxBytes / 10;
+    }
+
+    private static int stripe(Class<?> kind, Object id) {
+        int h = kind.hashCode() * 31 + id.hashCode();
+        h ^= h >>> 16;
+        return h & (STRIPES - 1);
+    }
+
+    static final class EntityKey {
+        private final Class<?> kind;
+        private final Object id;
+        private final int hash;
+
+        EntityKey(Class<?> kind, Object id) {
+            this.kind = kind;
+            this.id = id;
+            this.hash = kind.hashCode() * 31 + id.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EntityKey)) {
+                return false;
+            }
+            EntityKey other = (EntityKey) o;
+            return kind == other.kind && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final class Candidate {
+        final EntityKey key;
+        final Node node;
+        final int frequency;
+
+        Candidate(EntityKey key, Node node) {
+            this.key = key;
+            this.node = node;
+            this.frequency = sketch.frequency(key.hash);
+        }
+    }
+
+    /**
+     * The encoded variants of one entity version; variants are only added,
+     * under the map's lock, and published as a new array
+     */
+    private static final class Node {
+        final long version;
+        private volatile Object[] variants = new Object[0];
+        private long weight;
+
+        Node(long version) {
+            this.version = version;
+        }
+
+        byte[] get(Object variant) {
+            Object[] current = variants;
+            for (int i = 0; i < current.length; i += 2) {
+                if (current[i] == variant) {
+                    return (byte[]) current[i + 1];
+                }
+            }
+            return null;
+        }
+
+        void add(Object variant, byte[] body) {
+            Object[] next = Arrays.copyOf(variants, variants.length + 2);
+            next[next.length - 2] = variant;
+            next[next.length - 1] = body;
+            weight += body.length + VARIANT_OVERHEAD;
+            variants = next;
+        }
+
+        int variantCount() {
+            return variants.length / 2;
+        }
+
+        long weight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per key; counts are halved
+     * after ten increments per counter so the sketch follows recent traffic
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[] counters;
+        private final int shift;
+        private final int sampleSize;
+        private int increments;
+
+        FrequencySketch(int size) {
+            int bits = 32 - Integer.numberOfLeadingZeros(size - 1);
+            this.counters = new byte[1 << bits];
+            this.shift = 32 - bits;
+            this.sampleSize = 10 * counters.length;
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int seed : SEEDS) {
+                min = Math.min(min, counters[(hash * seed) >>> shift]);
+            }
+            return min;
+        }
+
+        /**
+         * Racy on purpose: a lost update only blurs a count, and no
+         * shared atomic sits on the path of every request
+         */
+        void increment(int hash) {
+            for (int seed : SEEDS) {
+                int index = (hash * seed) >>> shift;
+                if (counters[index] < 15) {
+                    counters[index]++;
+                }
+            }
+            if (++increments >= sampleSize) {
+                increments = 0;
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+            }
+        }
+    }
+}
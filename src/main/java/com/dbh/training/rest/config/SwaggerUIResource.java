@@ -1,34 +1,53 @@
 package com.dbh.training.rest.config;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Serves Swagger UI static files.
  * 
  * This resource makes Swagger UI available at /swagger-ui
  * The UI will automatically load the OpenAPI spec from /openapi.json
+ * 
+ * Assets are read from the webjar once and kept in memory together with a
+ * gzip copy compressed at the highest level, so the bundle is not deflated
+ * again on every request. A .br or .gz file next to an asset on the
+ * classpath is served as is instead (server.compression.precompressed).
  */
 @Path("/swagger-ui")
 public class SwaggerUIResource {
     
     private static final String SWAGGER_UI_PATH = "META-INF/resources/webjars/swagger-ui/4.15.5/";
     
+    // The webjar is immutable: assets are loaded once, on first request
+    private static final Map<String, Asset> ASSETS = new ConcurrentHashMap<>();
+    
+    private final boolean precompressed =
+        AppConfig.getInstance().getBoolean("server.compression.precompressed", true);
+    
     @GET
     @Produces("text/html")
-    public Response getSwaggerUI() {
-        return getStaticFile("index.html");
+    public Response getSwaggerUI(@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        return getStaticFile("index.html", acceptEncoding);
     }
     
     @GET
     @Path("{path:.*}")
-    public Response getStaticFile(@PathParam("path") String path) {
+    public Response getStaticFile(@PathParam("path") String path,
+                                  @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
         // Security: prevent directory traversal
         if (path.contains("..")) {
             return Response.status(Response.Status.BAD_REQUEST).build();
@@ -39,60 +58,109 @@ public class SwaggerUIResource {
             path = "index.html";
         }
         
-        // Load resource from Swagger UI webjar
-        InputStream resource = getClass().getClassLoader()
-            .getResourceAsStream(SWAGGER_UI_PATH + path);
-        
-        if (resource == null) {
-            return Response.status(Response.Status.NOT_FOUND).build();
+        Asset asset;
+        try {
+            asset = ASSETS.get(path);
+            if (asset == null) {
+                asset = load(path);
+                if (asset == null) {
+                    return Response.status(Response.Status.NOT_FOUND).build();
+                }
+                ASSETS.putIfAbsent(path, asset);
+            }
+        } catch (IOException e) {
+            return Response.serverError().entity("Error loading Swagger UI").build();
         }
         
-        // Determine content type based on file extension
-        String contentType = getContentType(path);
+        Response.ResponseBuilder response = Response.ok().type(asset.contentType);
+        if (precompressed && asset.brotli != null && CompressionConfig.accepts(acceptEncoding, "br")) {
+            response.entity(asset.brotli).header(HttpHeaders.CONTENT_ENCODING, "br");
+        } else if (precompressed && asset.gzip != null && CompressionConfig.accepts(acceptEncoding, "gzip")) {
+            response.entity(asset.gzip).header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else {
+            response.entity(asset.content);
+        }
+        if (asset.gzip != null || asset.brotli != null) {
+            response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return response.build();
+    }
+    
+    /**
+     * Read an asset and its compressed forms, or null if the webjar has no such file
+     */
+    private Asset load(String path) throws IOException {
+        byte[] content = read(SWAGGER_UI_PATH + path);
+        if (content == null) {
+            return null;
+        }
         
         // Special handling for index.html to configure the title
         if (path.equals("index.html")) {
-            try {
-                // Java 8 compatible way to read all bytes
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                int nRead;
-                byte[] data = new byte[1024];
-                while ((nRead = resource.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
-                }
-                String html = new String(buffer.toByteArray());
-                
-                // Configure page title
-                html = html.replace("<title>Swagger UI</title>", 
-                                  "<title>DBH REST API Documentation</title>");
-                return Response.ok(html).type(contentType).build();
-            } catch (IOException e) {
-                return Response.serverError().entity("Error loading Swagger UI").build();
-            }
+            String html = new String(content, StandardCharsets.UTF_8);
+            html = html.replace("<title>Swagger UI</title>", 
+                              "<title>DBH REST API Documentation</title>");
+            content = html.getBytes(StandardCharsets.UTF_8);
         }
         
         // Special handling for swagger-initializer.js to configure the OpenAPI URL
         if (path.equals("swagger-initializer.js")) {
-            try {
-                // Java 8 compatible way to read all bytes
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                int nRead;
-                byte[] data = new byte[1024];
-                while ((nRead = resource.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
-                }
-                String js = new String(buffer.toByteArray());
-                
-                // Configure Swagger UI to load our OpenAPI spec
-                js = js.replace("https://petstore.swagger.io/v2/swagger.json", 
-                               "/api/openapi.json");
-                return Response.ok(js).type(contentType).build();
-            } catch (IOException e) {
-                return Response.serverError().entity("Error loading Swagger initializer").build();
-            }
+            String js = new String(content, StandardCharsets.UTF_8);
+            js = js.replace("https://petstore.swagger.io/v2/swagger.json", 
+                           "/api/openapi.json");
+            content = js.getBytes(StandardCharsets.UTF_8);
         }
         
-        return Response.ok(resource).type(contentType).build();
+        String contentType = getContentType(path);
+        byte[] gzip = null;
+        byte[] brotli = null;
+        if (isCompressible(contentType)) {
+            // Files shipped precompressed are only valid for the unmodified original
+            boolean original = !path.equals("index.html") && !path.equals("swagger-initializer.js");
+            brotli = original ? read(SWAGGER_UI_PATH + path + ".br") : null;
+            gzip = original ? read(SWAGGER_UI_PATH + path + ".gz") : null;
+            if (gzip == null) {
+                gzip = gzip(content);
+            }
+            if (gzip.length >= content.length) {
+                gzip = null;
+            }
+        }
+        return new Asset(contentType, content, gzip, brotli);
+    }
+    
+    private byte[] read(String name) throws IOException {
+        InputStream resource = getClass().getClassLoader().getResourceAsStream(name);
+        if (resource == null) {
+            return null;
+        }
+        try (InputStream in = resource) {
+            // Java 8 compatible way to read all bytes
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int nRead;
+            byte[] data = new byte[8192];
+            while ((nRead = in.read(data, 0, data.length)) != -1) {
+                buffer.write(data, 0, nRead);
+            }
+            return buffer.toByteArray();
+        }
+    }
+    
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 3);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        }
+        return buffer.toByteArray();
+    }
+    
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.equals("application/javascript")
+            || contentType.equals("application/json") || contentType.equals("image/svg+xml");
     }
     
     private String getContentType(String path) {
@@ -105,4 +173,21 @@ public class SwaggerUIResource {
         if (path.endsWith(".json")) return "application/json";
         return "application/octet-stream";
     }
+    
+    /**
+     * An asset and its precompressed forms (null when not available or not smaller)
+     */
+    private static final class Asset {
+        final String contentType;
+        final byte[] content;
+        final byte[] gzip;
+        final byte[] brotli;
+        
+        Asset(String contentType, byte[] content, byte[] gzip, byte[] brotli) {
+            this.contentType = contentType;
+            this.content = content;
+            this.gzip = gzip;
+            this.brotli = brotli;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.dbh.training.rest.config.jackson;
+
+import com.dbh.training.rest.models.CompactMoney;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * Deserializer for CompactMoney, reading what {@link MoneyDeserializer} reads
+ * 
+ * Amounts with more decimals than the currency has (a fraction of a cent)
+ * or beyond the long range are rejected rather than rounded.
+ */
+public class CompactMoneyDeserializer extends JsonDeserializer<CompactMoney> {
+    
+    @Override
+    public CompactMoney deserialize(JsonParser p, DeserializationContext ctxt) 
+            throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (CompactMoney) ctxt.handleUnexpectedToken(CompactMoney.class, p);
+        }
+        
+        BigDecimal amount = null;
+        String currency = null;
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            if ("amount".equals(field)) {
+                amount = MoneyDeserializer.readAmount(p, ctxt, value);
+            } else if ("currency".equals(field)) {
+                currency = value == JsonToken.VALUE_STRING ? p.getText() : null;
+            } else {
+                p.skipChildren();
+            }
+        }
+        
+        if (amount == null || currency == null) {
+            return ctxt.reportInputMismatch(this, "Money requires an amount and a currency");
+        }
+        Currency code = MoneyDeserializer.currencyOf(currency, ctxt);
+        try {
+            return CompactMoney.of(amount, code);
+        } catch (ArithmeticException e) {
+            throw ctxt.weirdNumberException(amount, CompactMoney.class,
+                    "more decimals than " + code.getCurrencyCode() + " has, or out of range");
+        }
+    }
+}
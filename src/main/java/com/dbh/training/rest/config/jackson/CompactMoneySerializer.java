@@ -0,0 +1,67 @@
+package com.dbh.training.rest.config.jackson;
+
+import com.dbh.training.rest.models.CompactMoney;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Serializer for CompactMoney, wire-compatible with {@link MoneySerializer}
+ * 
+ * Writes the same amount, currency and formatted fields. Amount and
+ * formatted text are produced digit by digit into a per-thread buffer,
+ * without a BigDecimal or an intermediate String. That holds for JSON
+ * written to a Writer and to bytes alike (HTTP responses,
+ * writeValueAsBytes); binary formats such as Smile and CBOR, which cannot
+ * take a number as text, get the amount as a BigDecimal.
+ */
+public class CompactMoneySerializer extends JsonSerializer<CompactMoney> {
+    
+    private static final ThreadLocal<char[]> BUFFERS =
+        ThreadLocal.withInitial(() -> new char[CompactMoney.MAX_TEXT_LENGTH]);
+    
+    @Override
+    public void serialize(CompactMoney value, JsonGenerator gen, 
+                         SerializerProvider serializers) 
+                         throws IOException {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        
+        char[] buffer = BUFFERS.get();
+        gen.writeStartObject(value);
+        gen.writeFieldName(MoneySerializer.AMOUNT);
+        if (isJson(gen)) {
+            // writeNumber(char[], ...) wraps the chars in a String; the raw value does not
+            gen.writeRawValue(buffer, 0, value.writeAmount(buffer, 0));
+        } else {
+            gen.writeNumber(value.toBigDecimal());
+        }
+        gen.writeFieldName(MoneySerializer.CURRENCY);
+        gen.writeString(value.getCurrency().getCurrencyCode());
+        gen.writeFieldName(MoneySerializer.FORMATTED);
+        int length = value.writeFormatted(buffer, 0);
+        if (length >= 0) {
+            gen.writeString(buffer, 0, length);
+        } else {
+            gen.writeString(value.getFormatted());
+        }
+        gen.writeEndObject();
+    }
+    
+    /**
+     * Textual JSON generator (to chars or UTF-8 bytes), possibly behind delegates
+     */
+    private static boolean isJson(JsonGenerator gen) {
+        JsonGenerator target = gen;
+        while (target instanceof JsonGeneratorDelegate) {
+            target = ((JsonGeneratorDelegate) target).delegate();
+        }
+        return target instanceof JsonGeneratorImpl;
+    }
+}
@@ -0,0 +1,291 @@
+package com.dbh.training.rest.config.jackson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pre-encoded names and an exception-free lookup for an enum
+ *
+ * Each constant's JSON name (its @JsonProperty value, or its name) is held
+ * as a SerializedString, so writing it is a copy of ready-made bytes.
+ * Decoding goes through a perfect hash built once over the JSON names and
+ * the constant names: one case-insensitive hash, one slot, one compare,
+ * and null for anything unknown instead of an exception.
+ *
+ * - {@link #decode}: exact JSON name, as Jackson reads it
+ * - {@link #parse}: JSON name or constant name in any case, as query
+ *   parameters are written ("pending", "PENDING_VERIFICATION")
+ */
+public final class EnumCodec<E extends Enum<E>> {
+
+    private final Class<E> type;
+    private final E[] constants;
+    private final SerializedString[] names;
+
+    // Perfect hash table: slot = (hash * seed) >>> shift
+    private final String[] keys;
+    private final E[] values;
+    private final boolean[] jsonName;
+    private final int seed;
+    private final int shift;
+
+    private EnumCodec(Class<E> type) {
+        this.type = type;
+        this.constants = type.getEnumConstants();
+        this.names = new SerializedString[constants.length];
+
+        List<String> keyList = new ArrayList<>();
+        List<E> valueList = new ArrayList<>();
+        int jsonNames = constants.length;
+        for (E constant : constants) {
+            String name = jsonNameOf(type, constant);
+            names[constant.ordinal()] = new SerializedString(name);
+            keyList.add(name);
+            valueList.add(constant);
+        }
+        for (E constant : constants) {
+            if (!containsIgnoreCase(keyList, constant.name())) {
+                keyList.add(constant.name());
+                valueList.add(constant);
+            }
+        }
+
+        // Smallest power of two table (at least twice the keys) with a collision-free multiplier
+        int bits = 1;
+        while ((1 << bits) < keyList.size() * 2) {
+            bits++;
+        }
+        int[] hashes = new int[keyList.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hash(keyList.get(i));
+        }
+        int found;
+        while ((found = findSeed(hashes, bits)) == 0) {
+            // Only two names with the same hash get this far
+            if (++bits > 16) {
+                throw new IllegalStateException("No perfect hash for the names of " + type.getName());
+            }
+        }
+
+        this.seed = found;
+        this.shift = 32 - bits;
+        this.keys = new String[1 << bits];
+        this.values = newArray(type, 1 << bits);
+        this.jsonName = new boolean[1 << bits];
+        for (int i = 0; i < hashes.length; i++) {
+            int slot = (hashes[i] * seed) >>> shift;
+            keys[slot] = keyList.get(i);
+            values[slot] = valueList.get(i);
+            jsonName[slot] = i < jsonNames;
+        }
+    }
+
+    public static <E extends Enum<E>> EnumCodec<E> of(Class<E> type) {
+        return new EnumCodec<>(type);
+    }
+
+    public Class<E> getType() {
+        return type;
+    }
+
+    /**
+     * Pre-encoded JSON name of the constant
+     */
+    public SerializedString nameOf(E constant) {
+        return names[constant.ordinal()];
+    }
+
+    /**
+     * Constant with exactly this JSON name, or null
+     */
+    public E decode(String text) {
+        if (text == null) {
+            return null;
+        }
+        int slot = (hash(text) * seed) >>> shift;
+        return jsonName[slot] && text.equals(keys[slot]) ? values[slot] : null;
+    }
+
+    /**
+     * Same as {@link #decode(String)}, straight from the parser's buffer
+     */
+    public E decode(char[] text, int offset, int length) {
+        int slot = (hash(text, offset, length) * seed) >>> shift;
+        String key = keys[slot];
+        if (!jsonName[slot] || key.length() != length) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != text[offset + i]) {
+                return null;
+            }
+        }
+        return values[slot];
+    }
+
+    /**
+     * Constant with this JSON name or constant name, ignoring case, or null
+     */
+    public E parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        int slot = (hash(text) * seed) >>> shift;
+        return text.equalsIgnoreCase(keys[slot]) ? values[slot] : null;
+    }
+
+    /**
+     * Accepted JSON names, for error messages
+     */
+    public List<String> getNames() {
+        List<String> list = new ArrayList<>(names.length);
+        for (SerializedString name : names) {
+            list.add(name.getValue());
+        }
+        return list;
+    }
+
+    public JsonSerializer<E> serializer() {
+        return new Serializer<>(this);
+    }
+
+    public JsonDeserializer<E> deserializer() {
+        return new Deserializer<>(this);
+    }
+
+    private static int hash(String text) {
+        int h = 0;
+        for (int i = 0; i < text.length(); i++) {
+            h = 31 * h + Character.toLowerCase(text.charAt(i));
+        }
+        return mix(h);
+    }
+
+    private static int hash(char[] text, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + Character.toLowerCase(text[i]);
+        }
+        return mix(h);
+    }
+
+    // Spread short, similar names over the high bits the slot is taken from
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    /**
+     * @return An odd multiplier that maps every hash to its own slot, or 0 if none was found
+     */
+    private static int findSeed(int[] hashes, int bits) {
+        boolean[] used = new boolean[1 << bits];
+        int candidate = 0x9E3779B9;
+        for (int attempt = 0; attempt < 1 << 12; attempt++, candidate += 2) {
+            Arrays.fill(used, false);
+            boolean collision = false;
+            for (int h : hashes) {
+                int slot = (h * candidate) >>> (32 - bits);
+                if (used[slot]) {
+                    collision = true;
+                    break;
+                }
+                used[slot] = true;
+            }
+            if (!collision) {
+                return candidate;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newArray(Class<E> type, int length) {
+        return (E[]) Array.newInstance(type, length);
+    }
+
+    private static String jsonNameOf(Class<?> type, Enum<?> constant) {
+        try {
+            JsonProperty property = type.getField(constant.name()).getAnnotation(JsonProperty.class);
+            return property != null && !property.value().isEmpty() ? property.value() : constant.name();
+        } catch (NoSuchFieldException e) {
+            return constant.name();
+        }
+    }
+
+    private static boolean containsIgnoreCase(List<String> list, String value) {
+        for (String s : list) {
+            if (s.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static class Serializer<E extends Enum<E>> extends StdScalarSerializer<E> {
+        private final EnumCodec<E> codec;
+
+        Serializer(EnumCodec<E> codec) {
+            super(codec.getType());
+            this.codec = codec;
+        }
+
+        @Override
+        public void serialize(E value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeString(codec.nameOf(value));
+        }
+    }
+
+    static class Deserializer<E extends Enum<E>> extends StdScalarDeserializer<E> {
+        private final EnumCodec<E> codec;
+
+        Deserializer(EnumCodec<E> codec) {
+            super(codec.getType());
+            this.codec = codec;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_STRING) {
+                int length = p.getTextLength();
+                if (length == 0 && ctxt.isEnabled(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)) {
+                    return null;
+                }
+                E value = codec.decode(p.getTextCharacters(), p.getTextOffset(), length);
+                if (value != null || ctxt.isEnabled(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL)) {
+                    return value;
+                }
+                return (E) ctxt.handleWeirdStringValue(handledType(), p.getText(),
+                        "not one of the values accepted for Enum class: %s", codec.getNames());
+            }
+            if (token == JsonToken.VALUE_NUMBER_INT && !ctxt.isEnabled(DeserializationFeature.FAIL_ON_NUMBERS_FOR_ENUMS)) {
+                int index = p.getIntValue();
+                if (index >= 0 && index < codec.constants.length) {
+                    return codec.constants[index];
+                }
+                return (E) ctxt.handleWeirdNumberValue(handledType(), index,
+                        "index value outside legal index range [0..%s]", codec.constants.length - 1);
+            }
+            return (E) ctxt.handleUnexpectedToken(handledType(), p);
+        }
+    }
+}
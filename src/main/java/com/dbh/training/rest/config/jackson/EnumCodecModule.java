@@ -0,0 +1,27 @@
+package com.dbh.training.rest.config.jackson;
+
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.Priority;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Jackson module with {@link EnumCodec} serializers and deserializers
+ * 
+ * - AccountStatus: written and read by its @JsonProperty names
+ * - Priority: read from its name; written by PrioritySerializer as an object
+ */
+public class EnumCodecModule extends SimpleModule {
+    
+    public EnumCodecModule() {
+        super("EnumCodecModule");
+        add(EnumCodec.of(AccountStatus.class), true);
+        add(EnumCodec.of(Priority.class), false);
+    }
+    
+    private <E extends Enum<E>> void add(EnumCodec<E> codec, boolean serialize) {
+        if (serialize) {
+            addSerializer(codec.getType(), codec.serializer());
+        }
+        addDeserializer(codec.getType(), codec.deserializer());
+    }
+}
@@ -2,9 +2,9 @@ package com.dbh.training.rest.config.jackson;
 
 import com.dbh.training.rest.models.Money;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -15,21 +15,64 @@ import java.util.Currency;
  * 
  * Exercise 07: Jackson Advanced  
  * Deserializes Money from JSON with amount and currency fields
+ * 
+ * Reads the tokens directly instead of building a JsonNode tree per value.
+ * "formatted" and unknown fields are skipped; the amount may be a number
+ * or a numeric string.
  */
 public class MoneyDeserializer extends JsonDeserializer<Money> {
     
     @Override
     public Money deserialize(JsonParser p, DeserializationContext ctxt) 
             throws IOException {
-        JsonNode node = p.getCodec().readTree(p);
-        
-        if (node == null || node.isNull()) {
-            return null;
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (Money) ctxt.handleUnexpectedToken(Money.class, p);
         }
         
-        BigDecimal amount = node.get("amount").decimalValue();
-        String currency = node.get("currency").asText();
+        BigDecimal amount = null;
+        String currency = null;
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            if ("amount".equals(field)) {
+                amount = readAmount(p, ctxt, value);
+            } else if ("currency".equals(field)) {
+                currency = value == JsonToken.VALUE_STRING ? p.getText() : null;
+            } else {
+                p.skipChildren();
+            }
+        }
         
-        return new Money(amount, Currency.getInstance(currency));
+        if (amount == null || currency == null) {
+            return ctxt.reportInputMismatch(this, "Money requires an amount and a currency");
+        }
+        return new Money(amount, currencyOf(currency, ctxt));
+    }
+    
+    static BigDecimal readAmount(JsonParser p, DeserializationContext ctxt, JsonToken value)
+            throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return p.getDecimalValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            String text = p.getText().trim();
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                throw ctxt.weirdStringException(text, BigDecimal.class, "not a decimal amount");
+            }
+        }
+        return (BigDecimal) ctxt.handleUnexpectedToken(BigDecimal.class, p);
+    }
+    
+    static Currency currencyOf(String code, DeserializationContext ctxt) throws IOException {
+        try {
+            return Currency.getInstance(code);
+        } catch (IllegalArgumentException e) {
+            throw ctxt.weirdStringException(code, Currency.class, "not an ISO 4217 currency code");
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.dbh.training.rest.config.jackson;
 
 import com.dbh.training.rest.models.Money;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 
@@ -12,9 +13,17 @@ import java.io.IOException;
  * 
  * Exercise 07: Jackson Advanced
  * Serializes Money as JSON with amount, currency, and formatted display
+ * 
+ * Field names are pre-encoded, the currency code and formatted string are
+ * the ones Currency and Money keep, and BigDecimal caches its own text, so
+ * writing the same balance again allocates nothing.
  */
 public class MoneySerializer extends JsonSerializer<Money> {
     
+    static final SerializedString AMOUNT = new SerializedString("amount");
+    static final SerializedString CURRENCY = new SerializedString("currency");
+    static final SerializedString FORMATTED = new SerializedString("formatted");
+    
     @Override
     public void serialize(Money value, JsonGenerator gen, 
                          SerializerProvider serializers) 
@@ -24,11 +33,13 @@ public class MoneySerializer extends JsonSerializer<Money> {
             return;
         }
         
-        gen.writeStartObject();
-        gen.writeNumberField("amount", value.getAmount());
-        gen.writeStringField("currency", 
-                            value.getCurrency().getCurrencyCode());
-        gen.writeStringField("formatted", value.getFormatted());
+        gen.writeStartObject(value);
+        gen.writeFieldName(AMOUNT);
+        gen.writeNumber(value.getAmount());
+        gen.writeFieldName(CURRENCY);
+        gen.writeString(value.getCurrency().getCurrencyCode());
+        gen.writeFieldName(FORMATTED);
+        gen.writeString(value.getFormatted());
         gen.writeEndObject();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.dbh.training.rest.dto;
+
+import java.util.List;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+
+/**
+ * API key creation request DTO (/admin/api-keys)
+ */
+public class ApiKeyRequest {
+    
+    @NotBlank(message = "Name is required")
+    private String name;
+    
+    @NotEmpty(message = "At least one role is required")
+    private List<String> roles;
+    
+    public ApiKeyRequest() {
+    }
+    
+    public ApiKeyRequest(String name, List<String> roles) {
+        this.name = name;
+        this.roles = roles;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public List<String> getRoles() {
+        return roles;
+    }
+    
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+    }
+}
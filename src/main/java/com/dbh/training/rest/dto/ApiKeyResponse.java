@@ -0,0 +1,62 @@
+package com.dbh.training.rest.dto;
+
+import com.dbh.training.rest.security.ApiKey;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * API key response DTO
+ * 
+ * The key itself is only included in the response that creates it.
+ */
+public class ApiKeyResponse {
+    
+    @JsonProperty("id")
+    private String id;
+    
+    @JsonProperty("name")
+    private String name;
+    
+    @JsonProperty("roles")
+    private Set<String> roles;
+    
+    @JsonProperty("created_at")
+    private Instant createdAt;
+    
+    @JsonProperty("key")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String key;
+    
+    public ApiKeyResponse() {
+    }
+    
+    public ApiKeyResponse(ApiKey apiKey, String key) {
+        this.id = apiKey.getId();
+        this.name = apiKey.getName();
+        this.roles = apiKey.getRoles();
+        this.createdAt = Instant.ofEpochMilli(apiKey.getCreatedAtMillis());
+        this.key = key;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Set<String> getRoles() {
+        return roles;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,29 @@
+package com.dbh.training.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import javax.validation.constraints.NotBlank;
+
+/**
+ * Refresh request DTO (/auth/refresh, /auth/logout)
+ */
+public class RefreshRequest {
+    
+    @JsonProperty("refresh_token")
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+    
+    public RefreshRequest() {
+    }
+    
+    public RefreshRequest(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
@@ -0,0 +1,27 @@
+package com.dbh.training.rest.dto;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * Token revocation request DTO (/auth/revoke), for access or refresh tokens
+ */
+public class RevokeRequest {
+    
+    @NotBlank(message = "Token is required")
+    private String token;
+    
+    public RevokeRequest() {
+    }
+    
+    public RevokeRequest(String token) {
+        this.token = token;
+    }
+    
+    public String getToken() {
+        return token;
+    }
+    
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
@@ -1,5 +1,6 @@
 package com.dbh.training.rest.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -18,6 +19,10 @@ public class TokenResponse {
     @JsonProperty("expires_in")
     private long expiresIn = 3600; // 1 hour in seconds
     
+    @JsonProperty("refresh_token")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String refreshToken;
+    
     public TokenResponse() {
     }
     
@@ -25,6 +30,11 @@ public class TokenResponse {
         this.accessToken = accessToken;
     }
     
+    public TokenResponse(String accessToken, String refreshToken) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+    }
+    
     public String getAccessToken() {
         return accessToken;
     }
@@ -48,4 +58,12 @@ public class TokenResponse {
     public void setExpiresIn(long expiresIn) {
         this.expiresIn = expiresIn;
     }
-}
\ No newline at end of file
+    
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
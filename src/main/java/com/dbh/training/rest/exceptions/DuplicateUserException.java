@@ -0,0 +1,24 @@
+package com.dbh.training.rest.exceptions;
+
+/**
+ * Thrown when a username or email is already registered.
+ *
+ * Raised by UserService while reserving the unique index entries, so the
+ * check and the insert are a single atomic step.
+ */
+public class DuplicateUserException extends RuntimeException {
+
+    private final String field;
+
+    public DuplicateUserException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+
+    /**
+     * @return "username" or "email"
+     */
+    public String getField() {
+        return field;
+    }
+}
@@ -5,6 +5,7 @@ import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.ext.Provider;
 import java.io.IOException;
+import java.util.function.BiConsumer;
 
 /**
  * CORS (Cross-Origin Resource Sharing) filter to allow cross-origin requests.
@@ -20,28 +21,35 @@ public class CORSFilter implements ContainerResponseFilter {
     @Override
     public void filter(ContainerRequestContext requestContext, 
                       ContainerResponseContext responseContext) throws IOException {
-        
+        addHeaders(responseContext.getHeaders()::add);
+    }
+    
+    /**
+     * CORS headers, for responses written outside Jersey too
+     */
+    public static void addHeaders(BiConsumer<String, Object> headers) {
         // Allow requests from any origin (for development/training)
         // In production, specify actual allowed origins
-        responseContext.getHeaders().add("Access-Control-Allow-Origin", "*");
+        headers.accept("Access-Control-Allow-Origin", "*");
         
         // Allow specific HTTP methods
-        responseContext.getHeaders().add("Access-Control-Allow-Methods", 
+        headers.accept("Access-Control-Allow-Methods", 
             "GET, POST, PUT, DELETE, OPTIONS, HEAD, PATCH");
         
         // Allow specific headers in requests
-        responseContext.getHeaders().add("Access-Control-Allow-Headers",
+        headers.accept("Access-Control-Allow-Headers",
             "Content-Type, Accept, X-Requested-With, Authorization, X-API-Key");
         
         // Expose specific headers to the client
-        responseContext.getHeaders().add("Access-Control-Expose-Headers",
-            "Location, Content-Disposition, X-Total-Count");
+        headers.accept("Access-Control-Expose-Headers",
+            "Location, Content-Disposition, X-Total-Count, X-Next-Cursor, Link, "
+            + "Retry-After, RateLimit-Limit, RateLimit-Remaining, RateLimit-Reset");
         
         // Allow credentials (cookies, authorization headers)
         // Note: When using credentials, Access-Control-Allow-Origin cannot be "*"
-        // responseContext.getHeaders().add("Access-Control-Allow-Credentials", "true");
+        // headers.accept("Access-Control-Allow-Credentials", "true");
         
         // Cache preflight requests for 1 hour
-        responseContext.getHeaders().add("Access-Control-Max-Age", "3600");
+        headers.accept("Access-Control-Max-Age", "3600");
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.dbh.training.rest.filters;
+
+import com.dbh.training.rest.dto.ErrorResponse;
+import com.dbh.training.rest.security.Route;
+import com.dbh.training.rest.security.RouteTable;
+import com.dbh.training.rest.util.TokenBucketLimiter;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.function.BiConsumer;
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token-bucket rate limiting (api.rate.limit.*)
+ *
+ * Runs right after authentication so requests can be keyed by user. Over
+ * the limit, the request is answered with 429, Retry-After and the
+ * RateLimit-Limit / RateLimit-Remaining / RateLimit-Reset headers; allowed
+ * responses carry the RateLimit-* headers too.
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION + 10)
+public class RateLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final String LIMITER_PROPERTY = "rateLimit.limiter";
+    private static final String RESULT_PROPERTY = "rateLimit.result";
+
+    @Inject
+    private RateLimits rateLimits;
+
+    @Inject
+    private RouteTable routes;
+
+    @Context
+    private HttpServletRequest servletRequest;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (!rateLimits.isEnabled() && !rateLimits.isLoginEnabled()) {
+            return;
+        }
+        Route route = routes.classify(requestContext);
+        if (!route.isRateLimited()) {
+            // Liveness probes are never limited
+            return;
+        }
+
+        if (rateLimits.isLoginEnabled() && route == Route.LOGIN
+                && HttpMethod.POST.equals(requestContext.getMethod())) {
+            // Logins and registrations only count against the login (BCrypt) bucket
+            String ip = clientIp(requestContext);
+            if (!acquire(requestContext, rateLimits.login(), ip)) {
+                logger.warn("Login rate limit exceeded for {} on {}", ip, requestContext.getUriInfo().getPath());
+            }
+            return;
+        }
+
+        if (rateLimits.isEnabled()) {
+            Principal principal = requestContext.getSecurityContext().getUserPrincipal();
+            if (principal != null) {
+                acquire(requestContext, rateLimits.perUser(), principal.getName());
+            } else {
+                acquire(requestContext, rateLimits.perIp(), clientIp(requestContext));
+            }
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext,
+                       ContainerResponseContext responseContext) throws IOException {
+        Object limiter = requestContext.getProperty(LIMITER_PROPERTY);
+        if (limiter != null && !responseContext.getHeaders().containsKey("RateLimit-Limit")) {
+            addHeaders(responseContext.getHeaders()::putSingle, (TokenBucketLimiter) limiter,
+                       (Long) requestContext.getProperty(RESULT_PROPERTY));
+        }
+    }
+
+    /**
+     * Take a token, or abort the request with 429
+     *
+     * @return true if the request may continue
+     */
+    private boolean acquire(ContainerRequestContext requestContext, TokenBucketLimiter limiter, String key) {
+        long result = limiter.tryAcquire(key);
+        if (TokenBucketLimiter.isAllowed(result)) {
+            requestContext.setProperty(LIMITER_PROPERTY, limiter);
+            requestContext.setProperty(RESULT_PROPERTY, result);
+            return true;
+        }
+
+        Response.ResponseBuilder response = Response.status(429)
+                .header("Retry-After", TokenBucketLimiter.retryAfterSeconds(result))
+                .type(MediaType.APPLICATION_JSON)
+                .entity(new ErrorResponse("Too many requests, please retry later", 429));
+        addHeaders(response::header, limiter, result);
+        requestContext.abortWith(response.build());
+        return false;
+    }
+
+    /**
+     * @param result What {@link TokenBucketLimiter#tryAcquire} returned for this request
+     */
+    static void addHeaders(BiConsumer<String, Object> headers, TokenBucketLimiter limiter, long result) {
+        headers.accept("RateLimit-Limit", limiter.getBurst());
+        headers.accept("RateLimit-Remaining", Math.max(0L, result));
+        headers.accept("RateLimit-Reset", limiter.getResetSeconds(result));
+    }
+
+    private String clientIp(ContainerRequestContext requestContext) {
+        return rateLimits.clientIp(requestContext.getHeaderString("X-Forwarded-For"),
+                                   servletRequest != null ? servletRequest.getRemoteAddr() : null);
+    }
+}
@@ -0,0 +1,168 @@
+package com.dbh.training.rest.filters;
+
+import com.dbh.training.rest.config.AppConfig;
+import com.dbh.training.rest.util.TokenBucketLimiter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.inject.Singleton;
+import javax.servlet.ServletContext;
+import javax.ws.rs.core.Context;
+import org.glassfish.hk2.api.Factory;
+
+/**
+ * Token buckets used by {@link RateLimitFilter}
+ *
+ * Authenticated requests are limited per user (JWT subject), anonymous
+ * ones per client IP. POST /auth/login and /auth/register share their own,
+ * much smaller per-IP bucket: every call costs a BCrypt hash, so it must
+ * be stopped before reaching the hashing pool.
+ *
+ * Behind trusted proxies the client IP comes from X-Forwarded-For, counted
+ * from the right: each proxy appends the address it received the request
+ * from, so only the last api.rate.limit.trusted.proxies entries were not
+ * written by the client.
+ *
+ * One instance serves a web application: Jersey's filter and the servlets
+ * outside Jersey find it through {@link #of(ServletContext)}.
+ */
+@Singleton
+public class RateLimits {
+
+    private static final String ATTRIBUTE = RateLimits.class.getName();
+
+    private final boolean enabled;
+    private final boolean loginEnabled;
+    private final boolean trustForwardedFor;
+    private final int trustedProxies;
+    private final TokenBucketLimiter perUser;
+    private final TokenBucketLimiter perIp;
+    private final TokenBucketLimiter login;
+
+    public RateLimits() {
+        this(AppConfig.getInstance());
+    }
+
+    private RateLimits(AppConfig config) {
+        this(config, config.getInt("api.rate.limit.requests.per.minute", 60),
+             config.getInt("api.rate.limit.max.keys", 100_000));
+    }
+
+    private RateLimits(AppConfig config, int perMinute, int maxKeys) {
+        this(config.getBoolean("api.rate.limit.enabled", false),
+             config.getBoolean("api.rate.limit.login.enabled", config.getBoolean("api.rate.limit.enabled", false)),
+             config.getBoolean("api.rate.limit.trust.forwarded.for", false),
+             config.getInt("api.rate.limit.trusted.proxies", 1),
+             new TokenBucketLimiter(perMinute, config.getInt("api.rate.limit.burst", perMinute), maxKeys),
+             new TokenBucketLimiter(config.getInt("api.rate.limit.ip.requests.per.minute", perMinute),
+                                    config.getInt("api.rate.limit.burst", perMinute), maxKeys),
+             new TokenBucketLimiter(config.getInt("api.rate.limit.login.requests.per.minute", 10),
+                                    config.getInt("api.rate.limit.login.burst", 5), maxKeys));
+    }
+
+    /**
+     * @param trustedProxies Proxies in front of the application that append to X-Forwarded-For
+     */
+    public RateLimits(boolean enabled, boolean loginEnabled, boolean trustForwardedFor, int trustedProxies,
+                      TokenBucketLimiter perUser, TokenBucketLimiter perIp, TokenBucketLimiter login) {
+        this.enabled = enabled;
+        this.loginEnabled = loginEnabled;
+        this.trustForwardedFor = trustForwardedFor;
+        this.trustedProxies = Math.max(1, trustedProxies);
+        this.perUser = perUser;
+        this.perIp = perIp;
+        this.login = login;
+    }
+
+    /**
+     * The buckets of a web application, created on first use
+     */
+    public static RateLimits of(ServletContext context) {
+        synchronized (context) {
+            RateLimits limits = (RateLimits) context.getAttribute(ATTRIBUTE);
+            if (limits == null) {
+                limits = new RateLimits();
+                context.setAttribute(ATTRIBUTE, limits);
+            }
+            return limits;
+        }
+    }
+
+    /**
+     * Binds the web application's buckets; outside a servlet container, new ones
+     */
+    public static class ContextFactory implements Factory<RateLimits> {
+        @Context
+        private ServletContext servletContext;
+
+        @Override
+        public RateLimits provide() {
+            return servletContext != null ? of(servletContext) : new RateLimits();
+        }
+
+        @Override
+        public void dispose(RateLimits instance) {
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isLoginEnabled() {
+        return loginEnabled;
+    }
+
+    /**
+     * Whether X-Forwarded-For identifies the client (only behind a trusted proxy)
+     */
+    public boolean isTrustForwardedFor() {
+        return trustForwardedFor;
+    }
+
+    /**
+     * Key of an anonymous client: its address, or the forwarded one behind a trusted proxy
+     */
+    public String clientIp(String forwardedFor, String remoteAddress) {
+        if (trustForwardedFor && forwardedFor != null && !forwardedFor.isEmpty()) {
+            // The entry our outermost proxy appended; anything left of it is the client's say
+            int end = forwardedFor.length();
+            for (int hop = 1; ; hop++) {
+                int comma = forwardedFor.lastIndexOf(',', end - 1);
+                if (hop == trustedProxies || comma < 0) {
+                    String ip = forwardedFor.substring(comma + 1, end).trim();
+                    if (!ip.isEmpty()) {
+                        return ip;
+                    }
+                    break;
+                }
+                end = comma;
+            }
+        }
+        return remoteAddress != null ? remoteAddress : "unknown";
+    }
+
+    public TokenBucketLimiter perUser() {
+        return perUser;
+    }
+
+    public TokenBucketLimiter perIp() {
+        return perIp;
+    }
+
+    public TokenBucketLimiter login() {
+        return login;
+    }
+
+    /**
+     * Limiter metrics, suitable for a JSON response
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("login_enabled", loginEnabled);
+        stats.put("per_user", perUser.getStats());
+        stats.put("per_ip", perIp.getStats());
+        stats.put("login", login.getStats());
+        return stats;
+    }
+}
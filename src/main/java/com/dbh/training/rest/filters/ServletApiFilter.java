@@ -0,0 +1,85 @@
+package com.dbh.training.rest.filters;
+
+import com.dbh.training.rest.dto.ErrorResponse;
+import com.dbh.training.rest.security.Route;
+import com.dbh.training.rest.security.SecurityHeadersFilter;
+import com.dbh.training.rest.util.TokenBucketLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.util.function.BiConsumer;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Jersey filters' headers and rate limit, for servlets mapped outside Jersey
+ *
+ * UserExportServlet answers /api/v1/users/stream without Jersey, so none
+ * of its filters run there. This servlet filter adds what
+ * SecurityHeadersFilter and CORSFilter add, and takes a token from the
+ * same per-IP bucket RateLimitFilter uses. No token is verified here, so
+ * every request counts against its client IP.
+ */
+public class ServletApiFilter implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServletApiFilter.class);
+    private static final ObjectWriter ERROR_WRITER = new ObjectMapper().writerFor(ErrorResponse.class);
+
+    private final Route route;
+    private RateLimits rateLimits;
+
+    /**
+     * @param route Policy of the paths the filter is mapped to
+     */
+    public ServletApiFilter(Route route) {
+        this.route = route;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        rateLimits = RateLimits.of(filterConfig.getServletContext());
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        BiConsumer<String, Object> headers = (name, value) -> response.addHeader(name, String.valueOf(value));
+
+        SecurityHeadersFilter.addHeaders(headers, route.getCaching());
+        CORSFilter.addHeaders(headers);
+
+        if (rateLimits.isEnabled() && route.isRateLimited()) {
+            TokenBucketLimiter limiter = rateLimits.perIp();
+            String ip = rateLimits.clientIp(request.getHeader("X-Forwarded-For"), request.getRemoteAddr());
+            long result = limiter.tryAcquire(ip);
+            if (!TokenBucketLimiter.isAllowed(result)) {
+                logger.debug("Rate limit exceeded for {} on {}", ip, request.getRequestURI());
+                response.setStatus(429);
+                response.setHeader("Retry-After", String.valueOf(TokenBucketLimiter.retryAfterSeconds(result)));
+                RateLimitFilter.addHeaders(headers, limiter, result);
+                response.setContentType(MediaType.APPLICATION_JSON);
+                ERROR_WRITER.writeValue(response.getOutputStream(),
+                        new ErrorResponse("Too many requests, please retry later", 429));
+                return;
+            }
+            RateLimitFilter.addHeaders(headers, limiter, result);
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
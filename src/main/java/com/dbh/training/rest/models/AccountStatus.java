@@ -1,5 +1,6 @@
 package com.dbh.training.rest.models;
 
+import com.dbh.training.rest.config.jackson.EnumCodec;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -24,6 +25,8 @@ public enum AccountStatus {
     @JsonProperty("deleted")
     DELETED;
     
+    private static final EnumCodec<AccountStatus> CODEC = EnumCodec.of(AccountStatus.class);
+    
     /**
      * Get a user-friendly display name for the status
      */
@@ -44,30 +47,20 @@ public enum AccountStatus {
     
     /**
      * Parse a string value to AccountStatus
-     * Handles both enum names and JSON property values
+     * Handles both enum names and JSON property values, in any case
+     * 
+     * Looks the value up in a perfect hash (see EnumCodec) instead of
+     * trying valueOf and catching its exception; the only exception left
+     * is the one reporting an unknown value.
      */
     public static AccountStatus fromString(String value) {
         if (value == null) {
             return null;
         }
-        
-        // Try direct enum name first
-        try {
-            return AccountStatus.valueOf(value.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            // Try JSON property values
-            switch (value.toLowerCase()) {
-                case "active":
-                    return ACTIVE;
-                case "suspended":
-                    return SUSPENDED;
-                case "pending":
-                    return PENDING_VERIFICATION;
-                case "deleted":
-                    return DELETED;
-                default:
-                    throw new IllegalArgumentException("Unknown AccountStatus: " + value);
-            }
+        AccountStatus status = CODEC.parse(value);
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown AccountStatus: " + value);
         }
+        return status;
     }
-}
\ No newline at end of file
+}
@@ -57,6 +57,11 @@ public class Address {
         this.countryCode = countryCode;
     }
     
+    // Copy constructor
+    public Address(Address other) {
+        this(other.streetLine1, other.streetLine2, other.city, other.state, other.postalCode, other.countryCode);
+    }
+    
     // Getters and Setters
     public String getStreetLine1() {
         return streetLine1;
@@ -0,0 +1,255 @@
+package com.dbh.training.rest.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Money as a long count of minor units and an index into the currency table
+ *
+ * Immutable and 24 bytes per instance, against a Money with its BigDecimal
+ * and cached strings. Arithmetic is exact on the long (overflow throws);
+ * BigDecimal and {@link Money} are only built at the edges, by
+ * {@link #of(BigDecimal, Currency)} and {@link #toMoney()}.
+ *
+ * Amounts carry the currency's default fraction digits (2 for EUR, 0 for
+ * JPY, 3 for BHD); currencies that define none (XAU, XXX, ...) use 2.
+ * Text is written straight into a char buffer, digit by digit, for the
+ * serializer: {@link #writeAmount} as amount, {@link #writeFormatted} as
+ * Money.getFormatted() does.
+ */
+public final class CompactMoney implements Comparable<CompactMoney> {
+
+    /**
+     * Longest text {@link #writeAmount} and {@link #writeFormatted} produce,
+     * symbols of up to 8 characters included
+     */
+    public static final int MAX_TEXT_LENGTH = 32;
+
+    // Every ISO 4217 currency the JDK knows, by code; the index fits a short
+    private static final Currency[] CURRENCIES;
+    private static final Map<Currency, Short> INDEX = new HashMap<>();
+    private static final byte[] DIGITS;
+    private static final long[] POW10 = new long[19];
+
+    static {
+        CURRENCIES = Currency.getAvailableCurrencies().toArray(new Currency[0]);
+        Arrays.sort(CURRENCIES, Comparator.comparing(Currency::getCurrencyCode));
+        DIGITS = new byte[CURRENCIES.length];
+        for (int i = 0; i < CURRENCIES.length; i++) {
+            INDEX.put(CURRENCIES[i], (short) i);
+            int digits = CURRENCIES[i].getDefaultFractionDigits();
+            DIGITS[i] = (byte) (digits < 0 ? 2 : digits);
+        }
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final long minorUnits;
+    private final short currency;
+
+    private CompactMoney(long minorUnits, short currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more decimals than the currency or does not fit a long
+     */
+    public static CompactMoney of(BigDecimal amount, Currency currency) {
+        return of(amount, currency, RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * Amount rounded to the currency's minor unit
+     *
+     * @throws ArithmeticException if the rounded amount does not fit a long
+     */
+    public static CompactMoney of(BigDecimal amount, Currency currency, RoundingMode rounding) {
+        short index = indexOf(currency);
+        long minor = amount.setScale(DIGITS[index], rounding).unscaledValue().longValueExact();
+        return new CompactMoney(minor, index);
+    }
+
+    public static CompactMoney ofMinor(long minorUnits, Currency currency) {
+        return new CompactMoney(minorUnits, indexOf(currency));
+    }
+
+    /**
+     * Exact conversion from Money, or null for a missing or incomplete one
+     */
+    public static CompactMoney from(Money money) {
+        if (money == null || money.getAmount() == null || money.getCurrency() == null) {
+            return null;
+        }
+        return of(money.getAmount(), money.getCurrency());
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return CURRENCIES[currency];
+    }
+
+    public int getFractionDigits() {
+        return DIGITS[currency];
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, DIGITS[currency]);
+    }
+
+    public Money toMoney() {
+        return new Money(toBigDecimal(), getCurrency());
+    }
+
+    public CompactMoney plus(CompactMoney other) {
+        checkCurrency(other);
+        return new CompactMoney(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public CompactMoney minus(CompactMoney other) {
+        checkCurrency(other);
+        return new CompactMoney(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public CompactMoney multiply(long factor) {
+        return new CompactMoney(Math.multiplyExact(minorUnits, factor), currency);
+    }
+
+    public CompactMoney negate() {
+        return new CompactMoney(Math.negateExact(minorUnits), currency);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    /**
+     * Same text as Money.getFormatted(): symbol, space, amount with 2 decimals (half up)
+     */
+    public String getFormatted() {
+        char[] buffer = new char[MAX_TEXT_LENGTH];
+        int length = writeFormatted(buffer, 0);
+        return length >= 0 ? new String(buffer, 0, length) : toMoney().getFormatted();
+    }
+
+    /**
+     * Write the plain amount, e.g. "-1234.50", into the buffer
+     *
+     * @return Characters written
+     */
+    public int writeAmount(char[] buffer, int offset) {
+        return writeDecimal(minorUnits, DIGITS[currency], buffer, offset) - offset;
+    }
+
+    /**
+     * Write the formatted amount into the buffer
+     *
+     * @return Characters written, or -1 if it does not fit a long at 2 decimals
+     *         or the symbol is longer than 8 characters; use {@link #getFormatted()}
+     */
+    public int writeFormatted(char[] buffer, int offset) {
+        String symbol = Money.symbolOf(getCurrency());
+        int digits = DIGITS[currency];
+        long cents;
+        if (digits <= 2) {
+            long limit = Long.MAX_VALUE / POW10[2 - digits];
+            if (minorUnits > limit || minorUnits < -limit) {
+                return -1;
+            }
+            cents = minorUnits * POW10[2 - digits];
+        } else {
+            long divisor = POW10[digits - 2];
+            cents = minorUnits / divisor;
+            long remainder = Math.abs(minorUnits % divisor);
+            // HALF_UP rounds ties away from zero
+            if (remainder * 2 >= divisor) {
+                cents += minorUnits < 0 ? -1 : 1;
+            }
+        }
+        if (symbol.length() > 8 || cents == Long.MIN_VALUE) {
+            return -1;
+        }
+        symbol.getChars(0, symbol.length(), buffer, offset);
+        int position = offset + symbol.length();
+        buffer[position++] = ' ';
+        return writeDecimal(cents, 2, buffer, position) - offset;
+    }
+
+    @Override
+    public int compareTo(CompactMoney other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactMoney)) return false;
+        CompactMoney other = (CompactMoney) o;
+        return minorUnits == other.minorUnits && currency == other.currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency;
+    }
+
+    @Override
+    public String toString() {
+        return getFormatted();
+    }
+
+    private void checkCurrency(CompactMoney other) {
+        if (other.currency != currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + getCurrency() + " vs " + other.getCurrency());
+        }
+    }
+
+    private static short indexOf(Currency currency) {
+        Short index = INDEX.get(currency);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown currency: " + currency);
+        }
+        return index;
+    }
+
+    /**
+     * Write value / 10^scale in plain notation
+     *
+     * @return Position after the last character
+     */
+    private static int writeDecimal(long value, int scale, char[] buffer, int offset) {
+        int position = offset;
+        // Work on the negative magnitude: it also holds Long.MIN_VALUE
+        long negative = value < 0 ? value : -value;
+        if (value < 0) {
+            buffer[position++] = '-';
+        }
+        int digitCount = 1;
+        for (long v = negative / 10; v != 0; v /= 10) {
+            digitCount++;
+        }
+        // At least one digit before the point
+        int width = Math.max(digitCount, scale + 1);
+        int end = position + width + (scale > 0 ? 1 : 0);
+        int cursor = end;
+        for (int i = 0; i < width; i++) {
+            if (scale > 0 && i == scale) {
+                buffer[--cursor] = '.';
+            }
+            buffer[--cursor] = (char) ('0' - negative % 10);
+            negative /= 10;
+        }
+        return end;
+    }
+}
@@ -3,15 +3,25 @@ package com.dbh.training.rest.models;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Currency;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Money value object for financial amounts.
  * 
  * Exercise 07: Jackson Advanced
  * Used to demonstrate custom serializers/deserializers
+ * 
+ * Currency symbols are looked up once per currency. The formatted string
+ * itself is not cached: Money is mutable, and user balances are written
+ * from their CompactMoney form, not from a Money.
  */
 public class Money {
+    
+    // Currency.getSymbol() resolves locale data on every call
+    private static final Map<Currency, String> SYMBOLS = new ConcurrentHashMap<>();
+    
     private BigDecimal amount;
     private Currency currency;
     
@@ -49,8 +59,19 @@ public class Money {
         if (amount == null || currency == null) {
             return "N/A";
         }
-        return currency.getSymbol() + " " + 
-               amount.setScale(2, RoundingMode.HALF_UP);
+        return symbolOf(currency) + " " + amount.setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Symbol of a currency in the default locale, cached per currency
+     */
+    public static String symbolOf(Currency currency) {
+        String symbol = SYMBOLS.get(currency);
+        if (symbol == null) {
+            symbol = currency.getSymbol();
+            SYMBOLS.putIfAbsent(currency, symbol);
+        }
+        return symbol;
     }
     
     @Override
@@ -1,8 +1,9 @@
 package com.dbh.training.rest.models;
 
-import com.dbh.training.rest.config.jackson.MoneyDeserializer;
-import com.dbh.training.rest.config.jackson.MoneySerializer;
+import com.dbh.training.rest.config.jackson.CompactMoneyDeserializer;
+import com.dbh.training.rest.config.jackson.CompactMoneySerializer;
 import com.dbh.training.rest.dto.Views;
+import com.dbh.training.rest.security.PasswordPolicy;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -58,6 +59,11 @@ public class User {
     @JsonIgnore
     private String passwordHash;
     
+    // Plain-text password from a request body; write-only, not copied, and
+    // cleared (clearRawPassword) before the user is stored
+    @JsonProperty(value = "password", access = JsonProperty.Access.WRITE_ONLY)
+    private String password;
+    
     @JsonView(Views.Internal.class)
     @JsonProperty("birth_date")
     @JsonFormat(pattern = "yyyy-MM-dd")
@@ -93,9 +99,9 @@ public class User {
     
     @JsonView(Views.Internal.class)
     @JsonProperty("account_balance")
-    @JsonSerialize(using = MoneySerializer.class)
-    @JsonDeserialize(using = MoneyDeserializer.class)
-    private Money accountBalance;
+    @JsonSerialize(using = CompactMoneySerializer.class)
+    @JsonDeserialize(using = CompactMoneyDeserializer.class)
+    private CompactMoney accountBalance;
     
     // Default constructor (required for Jackson)
     public User() {
@@ -109,6 +115,24 @@ public class User {
         this.lastName = lastName;
     }
     
+    // Copy constructor: roles and addresses are copied, the rest is immutable
+    public User(User other) {
+        this.id = other.id;
+        this.username = other.username;
+        this.email = other.email;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.passwordHash = other.passwordHash;
+        this.birthDate = other.birthDate;
+        this.createdAt = other.createdAt;
+        this.status = other.status;
+        this.roles = other.roles != null ? new HashSet<>(other.roles) : null;
+        this.primaryAddress = other.primaryAddress != null ? new Address(other.primaryAddress) : null;
+        this.billingAddress = other.billingAddress != null ? new Address(other.billingAddress) : null;
+        this.lastLogin = other.lastLogin;
+        this.accountBalance = other.accountBalance;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -164,7 +188,22 @@ public class User {
     
     @JsonIgnore
     public void setPassword(String password) {
-        this.passwordHash = BCrypt.hashpw(password, BCrypt.gensalt());
+        this.passwordHash = PasswordPolicy.getInstance().hash(password);
+    }
+    
+    /**
+     * @return Plain-text password as received in a request body, or null
+     */
+    @JsonIgnore
+    public String getRawPassword() {
+        return password;
+    }
+    
+    /**
+     * Forget the plain-text password, once hashed or if it is not used
+     */
+    public void clearRawPassword() {
+        this.password = null;
     }
     
     public String getPasswordHash() {
@@ -223,11 +262,29 @@ public class User {
         this.lastLogin = lastLogin;
     }
     
+    /**
+     * Balance as a Money, converted on each call; changing it does not change the user
+     */
+    @JsonIgnore
     public Money getAccountBalance() {
-        return accountBalance;
+        return accountBalance != null ? accountBalance.toMoney() : null;
     }
     
+    /**
+     * @throws ArithmeticException if the amount has more decimals than its currency
+     */
+    @JsonIgnore
     public void setAccountBalance(Money accountBalance) {
+        setCompactBalance(CompactMoney.from(accountBalance));
+    }
+    
+    @JsonIgnore
+    public CompactMoney getCompactBalance() {
+        return accountBalance;
+    }
+    
+    @JsonIgnore
+    public void setCompactBalance(CompactMoney accountBalance) {
         this.accountBalance = accountBalance;
     }
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package com.dbh.training.rest.models;
 
-import com.dbh.training.rest.config.jackson.MoneyDeserializer;
-import com.dbh.training.rest.config.jackson.MoneySerializer;
+import com.dbh.training.rest.config.jackson.CompactMoneyDeserializer;
+import com.dbh.training.rest.config.jackson.CompactMoneySerializer;
 import com.dbh.training.rest.dto.Views;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -105,9 +105,10 @@ public class UserV2 {
     
     @JsonView(Views.Internal.class)
     @JsonProperty("account_balance")
-    @JsonSerialize(using = MoneySerializer.class)
-    @JsonDeserialize(using = MoneyDeserializer.class)
-    private Money accountBalance;
+    @Schema(implementation = Money.class)
+    @JsonSerialize(using = CompactMoneySerializer.class)
+    @JsonDeserialize(using = CompactMoneyDeserializer.class)
+    private CompactMoney accountBalance;
     
     // Constructors
     public UserV2() {
@@ -233,11 +234,29 @@ public class UserV2 {
         this.lastLogin = lastLogin;
     }
     
+    /**
+     * Balance as a Money, converted on each call; changing it does not change the user
+     */
+    @JsonIgnore
     public Money getAccountBalance() {
-        return accountBalance;
+        return accountBalance != null ? accountBalance.toMoney() : null;
     }
     
+    /**
+     * @throws ArithmeticException if the amount has more decimals than its currency
+     */
+    @JsonIgnore
     public void setAccountBalance(Money accountBalance) {
+        setCompactBalance(CompactMoney.from(accountBalance));
+    }
+    
+    @JsonIgnore
+    public CompactMoney getCompactBalance() {
+        return accountBalance;
+    }
+    
+    @JsonIgnore
+    public void setCompactBalance(CompactMoney accountBalance) {
         this.accountBalance = accountBalance;
     }
     
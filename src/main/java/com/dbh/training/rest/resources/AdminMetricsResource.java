@@ -0,0 +1,64 @@
+package com.dbh.training.rest.resources;
+
+import com.dbh.training.rest.config.MediaTypes;
+import com.dbh.training.rest.config.ResponseCache;
+import com.dbh.training.rest.filters.RateLimits;
+import com.dbh.training.rest.security.ApiKeyStore;
+import com.dbh.training.rest.security.PasswordHasher;
+import com.dbh.training.rest.security.TokenCache;
+import com.dbh.training.rest.security.TokenRevocations;
+
+import javax.annotation.security.RolesAllowed;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Internal metrics of the security and caching components
+ * 
+ * Token caches, revocations, BCrypt cost, rate limit buckets, API key and
+ * response cache counters tell an attacker how the service defends itself,
+ * so unlike /health/details they are for admins only.
+ */
+@Path("/admin/metrics")
+@Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@RolesAllowed("ADMIN")
+public class AdminMetricsResource {
+    
+    @Inject
+    private TokenCache tokenCache;
+    
+    @Inject
+    private TokenRevocations revocations;
+    
+    @Inject
+    private PasswordHasher passwordHasher;
+    
+    @Inject
+    private RateLimits rateLimits;
+    
+    @Inject
+    private ApiKeyStore apiKeys;
+    
+    @Inject
+    private ResponseCache responseCache;
+    
+    @GET
+    public Response metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("token_cache", tokenCache.getStats());
+        metrics.put("token_revocations", revocations.getStats());
+        metrics.put("password_hasher", passwordHasher.getStats());
+        metrics.put("rate_limit", rateLimits.getStats());
+        metrics.put("api_keys", apiKeys.getStats());
+        metrics.put("response_cache", responseCache.getStats());
+        
+        return Response.ok(metrics).build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.dbh.training.rest.resources;
+
+import com.dbh.training.rest.config.MediaTypes;
+import com.dbh.training.rest.dto.ApiKeyRequest;
+import com.dbh.training.rest.dto.ApiKeyResponse;
+import com.dbh.training.rest.dto.ErrorResponse;
+import com.dbh.training.rest.security.ApiKey;
+import com.dbh.training.rest.security.ApiKeyStore;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.security.RolesAllowed;
+import javax.inject.Inject;
+import javax.validation.Valid;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+/**
+ * API key management for service-to-service callers
+ * 
+ * Admins create keys with a set of roles, list them and delete them.
+ * The key is returned once, on creation; only its digest is kept.
+ */
+@Path("/admin/api-keys")
+@Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@RolesAllowed("ADMIN")
+public class ApiKeyResource {
+    
+    @Inject
+    private ApiKeyStore apiKeys;
+    
+    @Context
+    private UriInfo uriInfo;
+    
+    @POST
+    public Response create(@Valid ApiKeyRequest request) {
+        try {
+            ApiKeyStore.Issued issued = apiKeys.create(request.getName(), request.getRoles());
+            return Response.created(uriInfo.getAbsolutePathBuilder().path(issued.getApiKey().getId()).build())
+                    .entity(new ApiKeyResponse(issued.getApiKey(), issued.getKey()))
+                    .build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage(), 400))
+                    .build();
+        }
+    }
+    
+    @GET
+    public List<ApiKeyResponse> list() {
+        return apiKeys.list().stream()
+                .map(apiKey -> new ApiKeyResponse(apiKey, null))
+                .collect(Collectors.toList());
+    }
+    
+    @GET
+    @Path("/{id}")
+    public Response get(@PathParam("id") String id) {
+        ApiKey apiKey = apiKeys.get(id);
+        if (apiKey == null) {
+            return notFound(id);
+        }
+        return Response.ok(new ApiKeyResponse(apiKey, null)).build();
+    }
+    
+    @DELETE
+    @Path("/{id}")
+    public Response delete(@PathParam("id") String id) {
+        if (!apiKeys.delete(id)) {
+            return notFound(id);
+        }
+        return Response.noContent().build();
+    }
+    
+    private static Response notFound(String id) {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(new ErrorResponse("API key not found: " + id, 404))
+                .build();
+    }
+}
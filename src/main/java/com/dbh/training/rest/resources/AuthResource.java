@@ -1,14 +1,31 @@
 package com.dbh.training.rest.resources;
 
+import com.dbh.training.rest.config.AppConfig;
+import com.dbh.training.rest.config.MediaTypes;
 import com.dbh.training.rest.dto.ErrorResponse;
 import com.dbh.training.rest.dto.LoginRequest;
+import com.dbh.training.rest.dto.RefreshRequest;
+import com.dbh.training.rest.dto.RevokeRequest;
 import com.dbh.training.rest.dto.TokenResponse;
+import com.dbh.training.rest.exceptions.DuplicateUserException;
+import com.dbh.training.rest.models.AccountStatus;
 import com.dbh.training.rest.models.User;
 import com.dbh.training.rest.security.JwtService;
+import com.dbh.training.rest.security.PasswordHasher;
+import com.dbh.training.rest.security.PasswordPolicy;
+import com.dbh.training.rest.security.TokenRevocations;
+import com.dbh.training.rest.security.VerifiedToken;
 import com.dbh.training.rest.services.UserService;
+import io.jsonwebtoken.JwtException;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.security.RolesAllowed;
 import javax.inject.Inject;
 import javax.validation.Valid;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import org.slf4j.Logger;
@@ -19,85 +36,226 @@ import org.slf4j.LoggerFactory;
  * 
  * Exercise 08: Security Implementation
  * Handles login and token generation
+ * 
+ * Login and registration return a short-lived access token plus a refresh
+ * token; /refresh renews the pair without a BCrypt check, and /logout and
+ * /revoke put tokens on the revocation list.
  */
 @Path("/auth")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 public class AuthResource {
     
     private static final Logger logger = LoggerFactory.getLogger(AuthResource.class);
     
+    // Upper bound for queue wait plus hashing before the client gets a 503
+    private static final long AUTH_TIMEOUT_SECONDS =
+            AppConfig.getInstance().getLong("auth.timeout.seconds", 10);
+    
     @Inject
     private UserService userService;
     
     @Inject
     private JwtService jwtService;
     
+    @Inject
+    private PasswordHasher passwordHasher;
+    
+    @Inject
+    private TokenRevocations revocations;
+    
     /**
      * Login endpoint - authenticates user and returns JWT token
+     * 
+     * BCrypt verification runs on the PasswordHasher pool; the request
+     * thread is released while it waits. An unknown username costs the same
+     * verification as a wrong password, so response times do not reveal
+     * which usernames exist.
      */
     @POST
     @Path("/login")
-    public Response login(@Valid LoginRequest request) {
+    public void login(@Valid LoginRequest request, @Suspended AsyncResponse asyncResponse) {
         logger.info("Login attempt for user: {}", request.getUsername());
+        asyncResponse.setTimeout(AUTH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        asyncResponse.setTimeoutHandler(this::timeout);
         
-        try {
-            // Find user by username
-            User user = userService.findByUsername(request.getUsername());
+        // Find user by username; without one, verify against a dummy hash
+        User user = userService.findByUsername(request.getUsername());
+        String hash = user != null ? user.getPasswordHash() : null;
+        
+        passwordHasher.verify(request.getPassword(), hash).whenComplete((valid, error) -> {
+            if (error != null) {
+                asyncResponse.resume(failure(error, "Authentication failed", "Error during login"));
+                return;
+            }
+            if (!valid) {
+                logger.warn("Failed login attempt for user: {}", request.getUsername());
+                // Generic error message for security
+                asyncResponse.resume(invalidCredentials());
+                return;
+            }
             
-            if (user != null && user.checkPassword(request.getPassword())) {
-                // Generate JWT token
-                String token = jwtService.generateToken(user);
+            try {
+                userService.recordLogin(user);
+                rehashIfNeeded(user, request.getPassword());
                 
                 logger.info("Successful login for user: {}", request.getUsername());
                 
-                return Response.ok(new TokenResponse(token))
-                              .build();
+                asyncResponse.resume(Response.ok(issueTokens(user)).build());
+            } catch (RuntimeException e) {
+                asyncResponse.resume(failure(e, "Authentication failed", "Error during login"));
             }
-            
-            logger.warn("Failed login attempt for user: {}", request.getUsername());
-            
-            // Generic error message for security
-            return Response.status(Response.Status.UNAUTHORIZED)
-                          .entity(new ErrorResponse("Invalid credentials"))
-                          .build();
-                          
-        } catch (Exception e) {
-            logger.error("Error during login", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                          .entity(new ErrorResponse("Authentication failed"))
-                          .build();
-        }
+        });
     }
     
     /**
      * Registration endpoint (optional)
+     * 
+     * A "password" in the body is hashed on the PasswordHasher pool before
+     * the user is created.
      */
     @POST
     @Path("/register")
-    public Response register(@Valid User user) {
+    public void register(@Valid User user, @Suspended AsyncResponse asyncResponse) {
         logger.info("Registration attempt for username: {}", user.getUsername());
+        asyncResponse.setTimeout(AUTH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        asyncResponse.setTimeoutHandler(this::timeout);
         
-        try {
-            // Check if username already exists
-            if (userService.findByUsername(user.getUsername()) != null) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                              .entity(new ErrorResponse("Username already exists"))
-                              .build();
+        // Cheap pre-check; answered by the Bloom filter when the name is free
+        if (userService.isUsernameTaken(user.getUsername())) {
+            asyncResponse.resume(Response.status(Response.Status.BAD_REQUEST)
+                          .entity(new ErrorResponse("Username already exists"))
+                          .build());
+            return;
+        }
+        
+        String password = user.getRawPassword();
+        user.clearRawPassword();
+        if (password == null) {
+            asyncResponse.resume(createUser(user));
+            return;
+        }
+        
+        passwordHasher.hash(password).whenComplete((hash, error) -> {
+            if (error != null) {
+                asyncResponse.resume(failure(error, "Registration failed", "Error during registration"));
+                return;
             }
-            
-            // Create new user
+            user.setPasswordHash(hash);
+            asyncResponse.resume(createUser(user));
+        });
+    }
+    
+    /**
+     * Exchange a refresh token for a new access token, without a password check
+     * 
+     * The refresh token is rotated: the presented one is revoked and a new
+     * one is returned, so a stolen refresh token works at most once. Roles
+     * come from the current user, not from the old token.
+     */
+    @POST
+    @Path("/refresh")
+    public Response refresh(@Valid RefreshRequest request) {
+        VerifiedToken refreshToken = verifyQuietly(request.getRefreshToken());
+        if (refreshToken == null || !refreshToken.isRefresh() || revocations.isRevoked(refreshToken)) {
+            logger.warn("Rejected refresh token");
+            return invalidRefreshToken();
+        }
+        
+        User user = userService.findByUsername(refreshToken.getSubject());
+        if (user == null || !Objects.equals(user.getId(), refreshToken.getUserId())
+                || user.getStatus() == AccountStatus.SUSPENDED || user.getStatus() == AccountStatus.DELETED) {
+            logger.warn("Refresh token for unknown or inactive user: {}", refreshToken.getSubject());
+            return invalidRefreshToken();
+        }
+        
+        // Consuming the token is atomic: of two concurrent refreshes, one wins
+        if (!revocations.revoke(refreshToken)) {
+            return invalidRefreshToken();
+        }
+        logger.info("Refreshed tokens for user: {}", user.getUsername());
+        return Response.ok(issueTokens(user)).build();
+    }
+    
+    /**
+     * Revoke the bearer token of this request and, if given, a refresh token
+     */
+    @POST
+    @Path("/logout")
+    public Response logout(@HeaderParam("Authorization") String authorization, RefreshRequest request) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            VerifiedToken accessToken = verifyQuietly(authorization.substring("Bearer ".length()).trim());
+            if (accessToken != null) {
+                revocations.revoke(accessToken);
+            }
+        }
+        if (request != null && request.getRefreshToken() != null) {
+            VerifiedToken refreshToken = verifyQuietly(request.getRefreshToken());
+            if (refreshToken != null && refreshToken.isRefresh()) {
+                revocations.revoke(refreshToken);
+            }
+        }
+        return Response.noContent().build();
+    }
+    
+    /**
+     * Revoke any access or refresh token, e.g. one known to be compromised
+     */
+    @POST
+    @Path("/revoke")
+    @RolesAllowed("ADMIN")
+    public Response revoke(@Valid RevokeRequest request) {
+        VerifiedToken token = verifyQuietly(request.getToken());
+        if (token == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(new ErrorResponse("Invalid or expired token"))
+                          .build();
+        }
+        revocations.revoke(token);
+        return Response.noContent().build();
+    }
+    
+    private TokenResponse issueTokens(User user) {
+        TokenResponse response = new TokenResponse(jwtService.generateToken(user),
+                                                   jwtService.generateRefreshToken(user));
+        response.setExpiresIn(jwtService.getExpirationSeconds());
+        return response;
+    }
+    
+    /**
+     * @return Claims of a valid, unexpired token, or null
+     */
+    private VerifiedToken verifyQuietly(String token) {
+        try {
+            return jwtService.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Invalid token: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private static Response invalidRefreshToken() {
+        return Response.status(Response.Status.UNAUTHORIZED)
+                      .entity(new ErrorResponse("Invalid refresh token"))
+                      .build();
+    }
+    
+    private Response createUser(User user) {
+        try {
+            // Create new user - the unique index rejects concurrent duplicates
             User created = userService.createUser(user);
             
-            // Generate token for immediate login
-            String token = jwtService.generateToken(created);
-            
             logger.info("Successful registration for user: {}", user.getUsername());
             
+            // Tokens for immediate login
             return Response.status(Response.Status.CREATED)
-                          .entity(new TokenResponse(token))
+                          .entity(issueTokens(created))
                           .build();
                           
+        } catch (DuplicateUserException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(new ErrorResponse(e.getMessage()))
+                          .build();
         } catch (Exception e) {
             logger.error("Error during registration", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -106,6 +264,56 @@ public class AuthResource {
         }
     }
     
+    /**
+     * Move the user's hash to the current BCrypt cost in the background.
+     * Best effort: if the pool is busy, the next login tries again.
+     */
+    private void rehashIfNeeded(User user, String password) {
+        String oldHash = user.getPasswordHash();
+        if (!PasswordPolicy.getInstance().needsRehash(oldHash)) {
+            return;
+        }
+        passwordHasher.hash(password).whenComplete((newHash, error) -> {
+            if (error == null) {
+                userService.updatePasswordHash(user.getId(), oldHash, newHash);
+            } else {
+                logger.debug("Skipped rehash for user {}: {}", user.getUsername(), error.getMessage());
+            }
+        });
+    }
+    
+    private static Response invalidCredentials() {
+        return Response.status(Response.Status.UNAUTHORIZED)
+                      .entity(new ErrorResponse("Invalid credentials"))
+                      .build();
+    }
+    
+    /**
+     * 503 + Retry-After when the hashing pool sheds load, 500 otherwise
+     */
+    private static Response failure(Throwable error, String message, String logMessage) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        if (cause instanceof PasswordHasher.Busy) {
+            logger.warn("Password hashing pool saturated, shedding request");
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                          .header("Retry-After", ((PasswordHasher.Busy) cause).getRetryAfterSeconds())
+                          .entity(new ErrorResponse("Too many authentication requests, please retry later"))
+                          .build();
+        }
+        logger.error(logMessage, cause);
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                      .entity(new ErrorResponse(message))
+                      .build();
+    }
+    
+    private void timeout(AsyncResponse asyncResponse) {
+        asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                      .header("Retry-After", AUTH_TIMEOUT_SECONDS)
+                      .entity(new ErrorResponse("Authentication timed out, please retry later"))
+                      .build());
+    }
+    
     /**
      * Health check endpoint (no auth required)
      */
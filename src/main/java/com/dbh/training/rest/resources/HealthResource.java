@@ -1,5 +1,7 @@
 package com.dbh.training.rest.resources;
 
+import com.dbh.training.rest.config.MediaTypes;
+
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -17,7 +19,7 @@ import java.util.Map;
  * Useful for load balancers, monitoring tools, and initial testing.
  */
 @Path("/health")
-@Produces(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 public class HealthResource {
     
     /**
@@ -39,6 +41,9 @@ public class HealthResource {
     /**
      * Detailed health check with additional information.
      * 
+     * Open to anyone, so it only carries liveness data; the internal
+     * metrics are at /admin/metrics.
+     * 
      * @return JSON response with detailed health information
      */
     @GET
@@ -0,0 +1,37 @@
+package com.dbh.training.rest.resources;
+
+import com.dbh.training.rest.security.JwtService;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * JSON Web Key Set (RFC 7517) with the public keys that verify our tokens
+ * 
+ * Lists the active key, the next one (published before it starts signing)
+ * and retired keys still inside their overlap window. Empty with HS256,
+ * whose secret is never published.
+ */
+@Path("/.well-known/jwks.json")
+@Produces(MediaType.APPLICATION_JSON)
+public class JwksResource {
+    
+    // Short enough that verifiers pick up the next key well before it is used
+    private static final int MAX_AGE_SECONDS = 300;
+    
+    @Inject
+    private JwtService jwtService;
+    
+    @GET
+    public Response getJwks() {
+        Map<String, Object> jwks = jwtService.getKeyRing().getJwks();
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(MAX_AGE_SECONDS);
+        return Response.ok(jwks).cacheControl(cacheControl).build();
+    }
+}
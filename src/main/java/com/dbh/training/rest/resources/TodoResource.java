@@ -1,5 +1,7 @@
 package com.dbh.training.rest.resources;
 
+import com.dbh.training.rest.config.MediaTypes;
+import com.dbh.training.rest.config.ResponseCache;
 import com.dbh.training.rest.models.Todo;
 import com.dbh.training.rest.models.Priority;
 import com.dbh.training.rest.views.Views;
@@ -14,6 +16,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import javax.annotation.security.RolesAllowed;
+import javax.inject.Inject;
 import javax.validation.Valid;
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
@@ -38,8 +41,8 @@ import java.util.stream.Collectors;
  * - OpenAPI documentation
  */
 @Path("/todos")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 @Tag(name = "Todo Management", description = "Manage personal todo items")
 @SecurityRequirement(name = "bearerAuth")
 public class TodoResource extends AbstractResource {
@@ -54,6 +57,9 @@ public class TodoResource extends AbstractResource {
     @Context
     private UriInfo uriInfo;
     
+    @Inject
+    private ResponseCache responseCache;
+    
     // Package-private for testing
     static void resetForTesting() {
         todos.clear();
@@ -155,6 +161,8 @@ public class TodoResource extends AbstractResource {
             @PathParam("id") Long id) {
         
         String userId = getCurrentUserId();
+        // Version first: a change after it makes the cached response stale
+        long version = responseCache.versionOf(Todo.class, id);
         Todo todo = todos.get(id);
         
         // Return 404 if not found OR belongs to another user (security through obscurity)
@@ -164,7 +172,7 @@ public class TodoResource extends AbstractResource {
                     .build();
         }
         
-        return ok(todo);
+        return ok(responseCache.entity(todo, Todo.class, id, version));
     }
     
     /**
@@ -199,6 +207,7 @@ public class TodoResource extends AbstractResource {
         
         // Store todo
         todos.put(id, todo);
+        responseCache.invalidate(Todo.class, id);
         
         // Build location URI
         URI location = uriInfo.getAbsolutePathBuilder()
@@ -253,6 +262,7 @@ public class TodoResource extends AbstractResource {
         todo.setUpdatedAt(LocalDateTime.now());
         
         todos.put(id, todo);
+        responseCache.invalidate(Todo.class, id);
         
         return ok(todo);
     }
@@ -286,6 +296,7 @@ public class TodoResource extends AbstractResource {
         }
         
         todos.remove(id);
+        responseCache.invalidate(Todo.class, id);
         return noContent();
     }
     
@@ -324,6 +335,7 @@ public class TodoResource extends AbstractResource {
         // Toggle completion
         todo.setCompleted(!todo.isCompleted());
         todo.setUpdatedAt(LocalDateTime.now());
+        responseCache.invalidate(Todo.class, id);
         
         return ok(todo);
     }
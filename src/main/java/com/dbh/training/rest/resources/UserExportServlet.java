@@ -0,0 +1,156 @@
+package com.dbh.training.rest.resources;
+
+import com.dbh.training.rest.config.AppConfig;
+import com.dbh.training.rest.config.CompressionConfig;
+import com.dbh.training.rest.services.UserExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking export of all V1 users at /api/v1/users/stream.
+ *
+ * Mapped as an exact servlet path in front of the Jersey servlet, because
+ * Jersey's StreamingOutput can only write with blocking I/O. Here the
+ * export is driven by a servlet 3.1 {@link WriteListener}: records are
+ * encoded and written only while Jetty reports the connection ready, and
+ * the thread is released as soon as the client falls behind. A slow client
+ * therefore costs a buffer, not a container thread.
+ *
+ * Formats: JSON array (default) or NDJSON via "Accept: application/x-ndjson"
+ * or "?format=ndjson". Gzip is used when the client's Accept-Encoding allows it.
+ * The number of records per write/flush comes from export.flush.interval.
+ *
+ * export.timeout.ms bounds the whole export, not idle time. An export cut
+ * off by the timeout or by a write error is logged and its encoder closed;
+ * the client sees a truncated body.
+ */
+public class UserExportServlet extends HttpServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExportServlet.class);
+
+    public static final String PATH = "/api/v1/users/stream";
+
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final long DEFAULT_TIMEOUT_MS = 300_000;
+
+    private final int flushInterval;
+    private final long timeoutMs;
+
+    public UserExportServlet() {
+        AppConfig config = AppConfig.getInstance();
+        this.flushInterval = Math.max(1, config.getInt("export.flush.interval", DEFAULT_FLUSH_INTERVAL));
+        this.timeoutMs = config.getLong("export.timeout.ms", DEFAULT_TIMEOUT_MS);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserExporter.Format format = negotiateFormat(request);
+        boolean gzip = acceptsGzip(request);
+        UserExporter exporter = new UserExporter(UserResourceV1.snapshotUsers(), format, gzip);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(format.getMediaType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Vary", "Accept, Accept-Encoding");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+
+        AsyncContext async = request.startAsync();
+        async.setTimeout(timeoutMs);
+        ServletOutputStream out = response.getOutputStream();
+        AtomicBoolean done = new AtomicBoolean();
+
+        logger.debug("Exporting {} users as {} (gzip={})", exporter.size(), format, gzip);
+
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                abort(async, exporter, done, "timed out after " + timeoutMs + " ms");
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                abort(async, exporter, done, String.valueOf(event.getThrowable()));
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                // Covers clients that disconnect without an error callback
+                close(exporter);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        out.setWriteListener(new WriteListener() {
+            @Override
+            public void onWritePossible() throws IOException {
+                // Keep writing while the connection accepts data; once isReady()
+                // returns false the container calls us back when it drains
+                while (out.isReady()) {
+                    if (!exporter.writeChunk(out, flushInterval)) {
+                        if (done.compareAndSet(false, true)) {
+                            async.complete();
+                        }
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                abort(async, exporter, done, String.valueOf(t));
+            }
+        });
+    }
+
+    /**
+     * Stop an unfinished export: log it, release the encoder and complete the request once
+     */
+    private static void abort(AsyncContext async, UserExporter exporter, AtomicBoolean done, String reason) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        logger.warn("User export aborted after {} of {} users: {}", exporter.getPosition(), exporter.size(), reason);
+        close(exporter);
+        async.complete();
+    }
+
+    private static void close(UserExporter exporter) {
+        try {
+            exporter.close();
+        } catch (IOException e) {
+            logger.debug("Closing user export failed: {}", e.getMessage());
+        }
+    }
+
+    private static UserExporter.Format negotiateFormat(HttpServletRequest request) {
+        String format = request.getParameter("format");
+        if (format != null) {
+            return "ndjson".equalsIgnoreCase(format) ? UserExporter.Format.NDJSON : UserExporter.Format.JSON;
+        }
+        String accept = request.getHeader("Accept");
+        if (accept != null && accept.contains(UserExporter.Format.NDJSON.getMediaType())) {
+            return UserExporter.Format.NDJSON;
+        }
+        return UserExporter.Format.JSON;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        return CompressionConfig.accepts(request.getHeader("Accept-Encoding"), "gzip");
+    }
+}
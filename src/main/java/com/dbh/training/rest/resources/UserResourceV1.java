@@ -1,14 +1,17 @@
 package com.dbh.training.rest.resources;
 
+import com.dbh.training.rest.config.AppConfig;
+import com.dbh.training.rest.config.MediaTypes;
+import com.dbh.training.rest.config.ResponseCache;
 import com.dbh.training.rest.dto.Views;
 import com.dbh.training.rest.models.Money;
 import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.services.UserExporter;
 import com.fasterxml.jackson.annotation.JsonView;
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonGenerator;
 
 import javax.annotation.security.PermitAll;
 import javax.annotation.security.RolesAllowed;
+import javax.inject.Inject;
 import javax.validation.Valid;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
@@ -31,14 +34,17 @@ import java.util.concurrent.atomic.AtomicLong;
  * This is what students should have after completing Exercise 04.
  */
 @Path("/v1/users")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 public class UserResourceV1 extends AbstractResource {
     
     // Thread-safe storage for users
     private static final Map<Long, User> users = new ConcurrentHashMap<>();
     private static final AtomicLong idGenerator = new AtomicLong(1);
     
+    @Inject
+    private ResponseCache responseCache;
+    
     // Package-private method for test cleanup (only accessible from same package)
     // This pattern prevents production code misuse while allowing test access
     static void resetForTesting() {
@@ -46,6 +52,13 @@ public class UserResourceV1 extends AbstractResource {
         idGenerator.set(1);
     }
     
+    /**
+     * Point-in-time view of all users for the export path
+     */
+    static Collection<User> snapshotUsers() {
+        return new ArrayList<>(users.values());
+    }
+    
     /**
      * GET /users
      * Return all users
@@ -71,11 +84,12 @@ public class UserResourceV1 extends AbstractResource {
     @Path("/{id}")
     @RolesAllowed({"USER", "ADMIN"})
     public Response getUserById(@PathParam("id") Long id) {
+        long version = responseCache.versionOf(User.class, id);
         User user = users.get(id);
         if (user == null) {
             return Response.status(404).entity("User not found").build();
         }
-        return ok(user);
+        return ok(responseCache.entity(user, User.class, id, version));
     }
     
     /**
@@ -91,9 +105,12 @@ public class UserResourceV1 extends AbstractResource {
         Long id = idGenerator.getAndIncrement();
         user.setId(id);
         user.setCreatedAt(LocalDateTime.now());
+        // V1 does not manage passwords: never keep one sent in the body
+        user.clearRawPassword();
         
         // Store the user
         users.put(id, user);
+        responseCache.invalidate(User.class, id);
         
         // Return 201 Created with location header and entity
         // Using helper method from AbstractResource for dynamic URI building
@@ -116,7 +133,9 @@ public class UserResourceV1 extends AbstractResource {
         
         // Preserve the ID and update
         user.setId(id);
+        user.clearRawPassword();
         users.put(id, user);
+        responseCache.invalidate(User.class, id);
         
         return ok(user);
     }
@@ -134,6 +153,7 @@ public class UserResourceV1 extends AbstractResource {
         if (removed == null) {
             return Response.status(404).entity("User not found").build();
         }
+        responseCache.invalidate(User.class, id);
         // Using helper method from AbstractResource
         return noContent();
     }
@@ -148,11 +168,12 @@ public class UserResourceV1 extends AbstractResource {
     @Path("/{id}/public")
     @JsonView(Views.Public.class)
     public Response getPublicUser(@PathParam("id") Long id) {
+        long version = responseCache.versionOf(User.class, id);
         User user = users.get(id);
         if (user == null) {
             return Response.status(404).entity("User not found").build();
         }
-        return Response.ok(user).build();
+        return Response.ok(responseCache.entity(user, User.class, id, version)).build();
     }
     
     /**
@@ -163,12 +184,13 @@ public class UserResourceV1 extends AbstractResource {
     @Path("/{id}/details")
     @JsonView(Views.Internal.class)
     public Response getInternalUser(@PathParam("id") Long id) {
+        long version = responseCache.versionOf(User.class, id);
         User user = users.get(id);
         if (user == null) {
             return Response.status(404).entity("User not found").build();
         }
         // In real app, check auth: @RolesAllowed("USER")
-        return Response.ok(user).build();
+        return Response.ok(responseCache.entity(user, User.class, id, version)).build();
     }
     
     /**
@@ -180,11 +202,12 @@ public class UserResourceV1 extends AbstractResource {
     @JsonView(Views.Admin.class)
     @RolesAllowed("ADMIN")
     public Response getAdminUser(@PathParam("id") Long id) {
+        long version = responseCache.versionOf(User.class, id);
         User user = users.get(id);
         if (user == null) {
             return Response.status(404).entity("User not found").build();
         }
-        return Response.ok(user).build();
+        return Response.ok(responseCache.entity(user, User.class, id, version)).build();
     }
     
     // ===== Exercise 07: Jackson Advanced - Streaming =====
@@ -192,33 +215,28 @@ public class UserResourceV1 extends AbstractResource {
     /**
      * GET /users/stream
      * Stream all users efficiently for large datasets
+     * 
+     * When deployed through Application this path is served by
+     * UserExportServlet, which writes asynchronously and supports gzip.
+     * This blocking variant remains for containers without the servlet.
      */
     @GET
     @Path("/stream")
-    @Produces(MediaType.APPLICATION_JSON)
-    public StreamingOutput streamAllUsers() {
-        return output -> {
-            JsonFactory jsonFactory = new JsonFactory();
-            try (JsonGenerator gen = jsonFactory.createGenerator(output)) {
-                gen.writeStartArray();
-                
-                // Stream each user one by one
-                for (User user : users.values()) {
-                    gen.writeStartObject();
-                    gen.writeNumberField("user_id", user.getId());
-                    gen.writeStringField("user_name", user.getUsername());
-                    gen.writeStringField("email_address", user.getEmail());
-                    gen.writeStringField("first_name", user.getFirstName());
-                    gen.writeStringField("last_name", user.getLastName());
-                    gen.writeEndObject();
-                }
-                
-                gen.writeEndArray();
-                gen.flush();
+    @Produces({MediaType.APPLICATION_JSON, "application/x-ndjson"})
+    public Response streamAllUsers(@HeaderParam("Accept") String accept) {
+        UserExporter.Format format = accept != null && accept.contains(UserExporter.Format.NDJSON.getMediaType())
+                ? UserExporter.Format.NDJSON : UserExporter.Format.JSON;
+        int flushInterval = AppConfig.getInstance().getInt("export.flush.interval", 1000);
+        Collection<User> snapshot = snapshotUsers();
+        
+        StreamingOutput output = out -> {
+            try {
+                new UserExporter(snapshot, format, false).writeTo(out, flushInterval);
             } catch (IOException e) {
                 throw new WebApplicationException("Error streaming users", e);
             }
         };
+        return Response.ok(output, format.getMediaType()).build();
     }
     
     /**
@@ -231,6 +249,7 @@ public class UserResourceV1 extends AbstractResource {
         Long id = idGenerator.getAndIncrement();
         user.setId(id);
         user.setCreatedAt(LocalDateTime.now());
+        user.clearRawPassword();
         
         // Add sample money balance for testing
         user.setAccountBalance(new Money(
@@ -239,6 +258,7 @@ public class UserResourceV1 extends AbstractResource {
         ));
         
         users.put(id, user);
+        responseCache.invalidate(User.class, id);
         return created(user, id);
     }
 }
\ No newline at end of file
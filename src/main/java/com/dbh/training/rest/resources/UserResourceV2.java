@@ -1,6 +1,16 @@
 package com.dbh.training.rest.resources;
 
+import com.dbh.training.rest.config.AppConfig;
+import com.dbh.training.rest.config.MediaTypes;
+import com.dbh.training.rest.dto.ErrorResponse;
+import com.dbh.training.rest.models.AccountStatus;
 import com.dbh.training.rest.models.UserV2;
+import com.dbh.training.rest.services.UserMigration;
+import com.dbh.training.rest.services.UserQuery;
+import com.dbh.training.rest.services.UserV2Importer;
+import com.dbh.training.rest.services.UserV2Store;
+import com.dbh.training.rest.util.NamedThreadFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,12 +24,23 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import javax.annotation.security.RolesAllowed;
 import javax.validation.Valid;
+import javax.validation.Validation;
+import javax.validation.Validator;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Providers;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -31,30 +52,129 @@ import java.util.concurrent.atomic.AtomicLong;
  * - No deprecation headers (this is the current version)
  */
 @Path("/v2/users")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+@Consumes({MediaType.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 @Tag(name = "User Management V2", description = "Current version of user management endpoints")
 @SecurityRequirement(name = "bearerAuth")
 public class UserResourceV2 extends AbstractResource {
     
     // Separate storage for V2 (in production, would share service layer)
-    private static final Map<Long, UserV2> users = new ConcurrentHashMap<>();
+    // Indexed by id plus one ordered index per sortable field
+    private static final UserV2Store users = new UserV2Store();
     private static final AtomicLong idGenerator = new AtomicLong(1);
     
+    // Bulk import: validation runs on a small dedicated pool, never on request threads
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int IMPORT_CHUNK_SIZE =
+            AppConfig.getInstance().getInt("import.chunk.size", 500);
+    private static final int IMPORT_PARALLELISM =
+            AppConfig.getInstance().getInt("import.parallelism", Runtime.getRuntime().availableProcessors());
+    private static final Validator validator =
+            Validation.buildDefaultValidatorFactory().getValidator();
+    private static final ExecutorService importExecutor = Executors.newFixedThreadPool(
+            IMPORT_PARALLELISM, new NamedThreadFactory("user-import"));
+    
+    // V1 -> V2 migration: at most one job at a time; its checkpoint seeds the next run.
+    // Both the checkpoint and the V1 -> V2 id map are in memory only, like the stores.
+    private static volatile UserMigration migration;
+    private static final Map<Long, Long> migratedIds = new ConcurrentHashMap<>();
+    
+    @Context
+    private Providers providers;
+    
     // Package-private method for test cleanup
     static void resetForTesting() {
+        UserMigration current = migration;
+        if (current != null) {
+            current.cancel();
+            migration = null;
+        }
         users.clear();
         idGenerator.set(1);
+        migratedIds.clear();
     }
     
     /**
      * GET /v2/users
-     * Return all users in V2 format
+     * Return a page of users in V2 format.
+     * 
+     * Filtering, ordering and cursor paging run server-side over the store's
+     * ordered indexes. The next page is advertised via the X-Next-Cursor
+     * header and a Link rel="next" header.
      */
     @GET
-    public Response getAllUsers() {
-        List<UserV2> allUsers = new ArrayList<>(users.values());
-        return ok(allUsers);
+    @Operation(
+        summary = "List users",
+        description = "Filtered, sorted and cursor-paginated user listing"
+    )
+    @ApiResponses({
+        @ApiResponse(
+            responseCode = "200",
+            description = "Page of users",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = UserV2.class)))
+        ),
+        @ApiResponse(responseCode = "400", description = "Invalid filter, sort or cursor")
+    })
+    public Response getAllUsers(
+            @Parameter(description = "Filter by account status (e.g. active, suspended)")
+            @QueryParam("status") String status,
+            
+            @Parameter(description = "Case-insensitive username prefix")
+            @QueryParam("namePrefix") String namePrefix,
+            
+            @Parameter(description = "Created at or after (ISO date-time)")
+            @QueryParam("createdAfter") String createdAfter,
+            
+            @Parameter(description = "Created at or before (ISO date-time)")
+            @QueryParam("createdBefore") String createdBefore,
+            
+            @Parameter(description = "Minimum age (inclusive)")
+            @QueryParam("minAge") String minAge,
+            
+            @Parameter(description = "Maximum age (inclusive)")
+            @QueryParam("maxAge") String maxAge,
+            
+            @Parameter(description = "Sort field (id, username, lastName, createdAt, age)")
+            @QueryParam("sort") @DefaultValue("id") String sortField,
+            
+            @Parameter(description = "Sort order (asc, desc)")
+            @QueryParam("order") @DefaultValue("asc") String sortOrder,
+            
+            @Parameter(description = "Page size (1-" + UserQuery.MAX_LIMIT + ")")
+            @QueryParam("limit") @DefaultValue("" + UserQuery.DEFAULT_LIMIT) String limit,
+            
+            @Parameter(description = "Opaque cursor from a previous page's X-Next-Cursor header")
+            @QueryParam("cursor") String cursor) {
+        
+        UserV2Store.Page<UserV2> page;
+        try {
+            Integer pageSize = parseInteger("limit", limit);
+            UserQuery query = UserQuery.builder()
+                    .status(status != null ? AccountStatus.fromString(status) : null)
+                    .namePrefix(namePrefix)
+                    .createdAfter(parseDateTime(createdAfter))
+                    .createdBefore(parseDateTime(createdBefore))
+                    .minAge(parseInteger("minAge", minAge))
+                    .maxAge(parseInteger("maxAge", maxAge))
+                    .sort(UserV2Store.SortField.fromString(sortField), isDescending(sortOrder))
+                    .limit(pageSize != null ? pageSize : UserQuery.DEFAULT_LIMIT)
+                    .cursor(cursor)
+                    .build();
+            page = users.query(query);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage(), 400))
+                    .build();
+        }
+        
+        Response.ResponseBuilder response = Response.ok(page.getItems());
+        if (page.getNextCursor() != null) {
+            UriBuilder next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("cursor", page.getNextCursor());
+            response.header("X-Next-Cursor", page.getNextCursor())
+                    .header("Link", "<" + next.build() + ">; rel=\"next\"");
+        }
+        return response.build();
     }
     
     /**
@@ -102,7 +222,7 @@ public class UserResourceV2 extends AbstractResource {
         user.setCreatedAt(LocalDateTime.now());
         
         // Store user
-        users.put(id, user);
+        users.put(user);
         
         // Return 201 with Location header
         return created(user, id);
@@ -134,16 +254,14 @@ public class UserResourceV2 extends AbstractResource {
         @PathParam("id") Long id,
         @Parameter(description = "Updated user data", required = true)
         @Valid UserV2 user) {
-        if (!users.containsKey(id)) {
+        // Ensure ID consistency
+        user.setId(id);
+        if (users.replace(user) == null) {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity("User not found")
                     .build();
         }
         
-        // Ensure ID consistency
-        user.setId(id);
-        users.put(id, user);
-        
         return ok(user);
     }
     
@@ -175,6 +293,131 @@ public class UserResourceV2 extends AbstractResource {
         return noContent();
     }
     
+    /**
+     * POST /v2/users/import
+     * Bulk import from a JSON array or NDJSON body.
+     * 
+     * The body is parsed incrementally, validated in parallel chunks and
+     * inserted in batches. The response streams one NDJSON result line per
+     * record, then a summary line with the throughput in records per second.
+     */
+    @POST
+    @Path("/import")
+    @RolesAllowed("ADMIN")
+    @Consumes({MediaType.APPLICATION_JSON, NDJSON})
+    @Produces(NDJSON)
+    @Operation(
+        summary = "Bulk import users",
+        description = "Streams a JSON array or NDJSON of users; returns per-record results as NDJSON (requires ADMIN role)"
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Import processed; see per-record results and summary"),
+        @ApiResponse(responseCode = "403", description = "Not authorized - requires ADMIN role")
+    })
+    public Response importUsers(InputStream body) {
+        UserV2Importer importer = new UserV2Importer(
+                resolveMapper(), validator, importExecutor, IMPORT_CHUNK_SIZE, IMPORT_PARALLELISM);
+        
+        StreamingOutput output = out -> importer.run(body, this::storeBatch, out);
+        return Response.ok(output, NDJSON).build();
+    }
+    
+    /**
+     * POST /v2/users/migrate
+     * Start migrating V1 users to V2 in the background.
+     * 
+     * Resumes from the previous job's checkpoint, so a cancelled or failed run
+     * continues where it stopped and a re-run only picks up new V1 users.
+     * restart=true starts from the beginning; users migrated before are
+     * updated in place under their V2 id, never duplicated.
+     */
+    @POST
+    @Path("/migrate")
+    @RolesAllowed("ADMIN")
+    @Operation(
+        summary = "Migrate V1 users to V2",
+        description = "Starts a background migration job, resuming from the last checkpoint (requires ADMIN role)"
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "202", description = "Migration started; poll GET /v2/users/migrate for progress"),
+        @ApiResponse(responseCode = "409", description = "A migration is already running"),
+        @ApiResponse(responseCode = "403", description = "Not authorized - requires ADMIN role")
+    })
+    public Response startMigration(
+        @Parameter(description = "Ignore the checkpoint and migrate all V1 users")
+        @QueryParam("restart") @DefaultValue("false") boolean restart) {
+        synchronized (UserResourceV2.class) {
+            UserMigration previous = migration;
+            if (previous != null && previous.getState() == UserMigration.State.RUNNING) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity(new ErrorResponse("Migration already running"))
+                        .build();
+            }
+            
+            AppConfig config = AppConfig.getInstance();
+            UserMigration job = new UserMigration(
+                    UserResourceV1::snapshotUsers,
+                    this::storeBatch,
+                    migratedIds,
+                    validator,
+                    config.getInt("migration.parallelism", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+                    config.getInt("migration.batch.size", 1000),
+                    config.getInt("migration.queue.capacity", 4),
+                    config.getInt("migration.max.records.per.second", 0));
+            job.start(restart || previous == null ? 0 : previous.getCheckpoint());
+            migration = job;
+            
+            return Response.accepted(job.getProgress())
+                    .location(UriBuilder.fromPath("/api/v2/users/migrate").build())
+                    .build();
+        }
+    }
+    
+    /**
+     * GET /v2/users/migrate
+     * Progress and rate metrics of the current or last migration
+     */
+    @GET
+    @Path("/migrate")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Migration progress", description = "Progress of the current or last V1 -> V2 migration")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Migration progress"),
+        @ApiResponse(responseCode = "404", description = "No migration has been started")
+    })
+    public Response getMigration() {
+        UserMigration current = migration;
+        if (current == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("No migration has been started"))
+                    .build();
+        }
+        return ok(current.getProgress());
+    }
+    
+    /**
+     * DELETE /v2/users/migrate
+     * Cancel a running migration; its checkpoint is kept for the next run
+     */
+    @DELETE
+    @Path("/migrate")
+    @RolesAllowed("ADMIN")
+    @Operation(summary = "Cancel migration", description = "Stops a running migration, keeping its checkpoint")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Migration cancelled"),
+        @ApiResponse(responseCode = "404", description = "No migration has been started")
+    })
+    public Response cancelMigration() {
+        UserMigration current = migration;
+        if (current == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("No migration has been started"))
+                    .build();
+        }
+        current.cancel();
+        return ok(current.getProgress());
+    }
+    
     /**
      * Helper method for migration endpoint (bonus task)
      */
@@ -186,12 +429,59 @@ public class UserResourceV2 extends AbstractResource {
      * Helper method for migration endpoint (bonus task)
      */
     protected void importUser(UserV2 user) {
-        if (user.getId() == null) {
-            user.setId(idGenerator.getAndIncrement());
+        storeBatch(Collections.singletonList(user));
+    }
+    
+    /**
+     * Batch variant of importUser: one store write for the whole batch
+     */
+    protected void storeBatch(List<UserV2> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        for (UserV2 user : batch) {
+            if (user.getId() == null) {
+                user.setId(idGenerator.getAndIncrement());
+            }
+            if (user.getCreatedAt() == null) {
+                user.setCreatedAt(now);
+            }
+        }
+        users.putAll(batch);
+    }
+    
+    private ObjectMapper resolveMapper() {
+        ContextResolver<ObjectMapper> resolver = providers != null
+                ? providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE)
+                : null;
+        ObjectMapper mapper = resolver != null ? resolver.getContext(UserV2.class) : null;
+        return mapper != null ? mapper : new ObjectMapper();
+    }
+    
+    private static LocalDateTime parseDateTime(String value) {
+        return value == null || value.isEmpty() ? null : LocalDateTime.parse(value);
+    }
+    
+    /**
+     * Query parameters are parsed here rather than by Jersey, which answers
+     * a malformed number with 404 instead of 400
+     */
+    private static Integer parseInteger(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+    
+    private static boolean isDescending(String order) {
+        if ("desc".equalsIgnoreCase(order)) {
+            return true;
         }
-        if (user.getCreatedAt() == null) {
-            user.setCreatedAt(LocalDateTime.now());
+        if ("asc".equalsIgnoreCase(order)) {
+            return false;
         }
-        users.put(user.getId(), user);
+        throw new IllegalArgumentException("Invalid order: " + order + " (expected asc or desc)");
     }
-}
\ No newline at end of file
+}
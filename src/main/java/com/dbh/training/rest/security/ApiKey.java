@@ -0,0 +1,56 @@
+package com.dbh.training.rest.security;
+
+import java.util.Set;
+
+/**
+ * A service-to-service API key, as stored: never the key itself, only its SHA-256
+ *
+ * Immutable; the roles are a {@link Roles} mask computed when the key is created.
+ */
+public final class ApiKey {
+
+    private final String id;
+    private final String name;
+    private final long roleMask;
+    private final long createdAtMillis;
+    private final byte[] digest;
+
+    ApiKey(String id, String name, long roleMask, long createdAtMillis, byte[] digest) {
+        this.id = id;
+        this.name = name;
+        this.roleMask = roleMask;
+        this.createdAtMillis = createdAtMillis;
+        this.digest = digest;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRoleMask() {
+        return roleMask;
+    }
+
+    public Set<String> getRoles() {
+        return Roles.namesOf(roleMask);
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * Name of the principal requests made with this key run as
+     */
+    public String getPrincipalName() {
+        return ApiKeyStore.PRINCIPAL_PREFIX + name;
+    }
+
+    byte[] getDigest() {
+        return digest;
+    }
+}
@@ -0,0 +1,274 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.config.AppConfig;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * API keys for service-to-service callers (X-API-Key header)
+ *
+ * Keys are 256 random bits, so a single SHA-256 is enough to store them:
+ * unlike passwords they cannot be guessed, and no BCrypt is needed. The
+ * store is a hash index from digest to key, so authenticating a request is
+ * one SHA-256 and one map lookup, with no JWT parsing. The index is keyed
+ * by the first 128 bits of the digest; the full digest is then compared in
+ * constant time.
+ *
+ * Keys created through the API live in memory. Long-lived keys for batch
+ * jobs can be provisioned in security.api.keys as name:sha256hex:ROLE|ROLE
+ * entries, separated by commas; only the digest is ever configured. Their
+ * roles are registered in {@link Roles} at startup; keys created through
+ * the API may only grant registered roles.
+ */
+@Singleton
+public class ApiKeyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyStore.class);
+
+    static final String PRINCIPAL_PREFIX = "apikey:";
+    private static final String KEY_PREFIX = "dbh_";
+    private static final int KEY_BYTES = 32;
+    // Longer headers are rejected before hashing
+    private static final int MAX_KEY_LENGTH = 256;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]{0,63}");
+    private static final Pattern ROLE = Pattern.compile("[A-Za-z][A-Za-z0-9_]{0,31}");
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    /**
+     * A newly created key together with its plaintext, which is shown once and never stored
+     */
+    public static final class Issued {
+        private final ApiKey apiKey;
+        private final String key;
+
+        Issued(ApiKey apiKey, String key) {
+            this.apiKey = apiKey;
+            this.key = key;
+        }
+
+        public ApiKey getApiKey() {
+            return apiKey;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<DigestKey, ApiKey> byDigest = new ConcurrentHashMap<>();
+    private final Map<String, ApiKey> byId = new ConcurrentHashMap<>();
+
+    private final LongAdder authenticated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ApiKeyStore() {
+        this(AppConfig.getInstance().getString("security.api.keys", ""));
+    }
+
+    /**
+     * @param provisioned Keys as name:sha256hex:ROLE|ROLE, comma separated; may be empty
+     */
+    public ApiKeyStore(String provisioned) {
+        for (String entry : provisioned.split(",")) {
+            if (!entry.trim().isEmpty()) {
+                provision(entry.trim());
+            }
+        }
+    }
+
+    /**
+     * Create a key with the given roles
+     *
+     * @throws IllegalArgumentException if the name or a role is malformed or unknown, or the name is taken
+     */
+    public synchronized Issued create(String name, Collection<String> roles) {
+        String key = KEY_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes());
+        ApiKey apiKey = add(name, roles, digest(key));
+        logger.info("Created API key {} ({}) with roles {}", apiKey.getId(), name, apiKey.getRoles());
+        return new Issued(apiKey, key);
+    }
+
+    /**
+     * Key presented in a request, or null if unknown
+     */
+    public ApiKey authenticate(String presented) {
+        if (presented == null || presented.isEmpty() || presented.length() > MAX_KEY_LENGTH) {
+            rejected.increment();
+            return null;
+        }
+        byte[] digest = digest(presented);
+        ApiKey apiKey = byDigest.get(new DigestKey(digest));
+        // Constant time: the index only narrows it down to one candidate
+        if (apiKey == null || !MessageDigest.isEqual(apiKey.getDigest(), digest)) {
+            rejected.increment();
+            return null;
+        }
+        authenticated.increment();
+        return apiKey;
+    }
+
+    /**
+     * Revoke a key; takes effect on the next request
+     *
+     * @return false if there is no such key
+     */
+    public synchronized boolean delete(String id) {
+        ApiKey apiKey = byId.remove(id);
+        if (apiKey == null) {
+            return false;
+        }
+        byDigest.remove(new DigestKey(apiKey.getDigest()));
+        logger.info("Deleted API key {} ({})", id, apiKey.getName());
+        return true;
+    }
+
+    public ApiKey get(String id) {
+        return byId.get(id);
+    }
+
+    /**
+     * All keys, oldest first
+     */
+    public List<ApiKey> list() {
+        List<ApiKey> keys = new ArrayList<>(byId.values());
+        keys.sort(Comparator.comparingLong(ApiKey::getCreatedAtMillis).thenComparing(ApiKey::getId));
+        return keys;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Key metrics, suitable for a JSON response
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", byId.size());
+        stats.put("authenticated", authenticated.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    private void provision(String entry) {
+        String[] parts = entry.split(":");
+        if (parts.length != 3 || !parts[1].matches("[0-9a-fA-F]{64}")) {
+            throw new IllegalArgumentException("Malformed security.api.keys entry for " + parts[0]
+                    + "; expected name:sha256hex:ROLE|ROLE");
+        }
+        byte[] digest = new byte[KEY_BYTES];
+        for (int i = 0; i < digest.length; i++) {
+            digest[i] = (byte) Integer.parseInt(parts[1].substring(i * 2, i * 2 + 2), 16);
+        }
+        List<String> roles = Arrays.asList(parts[2].split("\\|"));
+        // Configured roles are known roles; keys created later may grant them too
+        for (String role : roles) {
+            if (ROLE.matcher(role).matches()) {
+                Roles.register(role);
+            }
+        }
+        ApiKey apiKey = add(parts[0], roles, digest);
+        logger.info("Provisioned API key {} ({}) with roles {}", apiKey.getId(), apiKey.getName(), apiKey.getRoles());
+    }
+
+    private synchronized ApiKey add(String name, Collection<String> roles, byte[] digest) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid API key name: " + name);
+        }
+        if (roles == null || roles.isEmpty()) {
+            throw new IllegalArgumentException("An API key needs at least one role");
+        }
+        for (String role : roles) {
+            if (role == null || !ROLE.matcher(role).matches()) {
+                throw new IllegalArgumentException("Invalid role: " + role);
+            }
+            if (Roles.bitOf(role) == 0L) {
+                throw new IllegalArgumentException("Unknown role: " + role);
+            }
+        }
+        for (ApiKey existing : byId.values()) {
+            if (existing.getName().equals(name)) {
+                throw new IllegalArgumentException("An API key named " + name + " already exists");
+            }
+        }
+        String id = "ak-" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        ApiKey apiKey = new ApiKey(id, name, Roles.maskOf(roles), System.currentTimeMillis(), digest);
+        // Digest index last: a key is only usable once it can be listed and deleted
+        byId.put(id, apiKey);
+        byDigest.put(new DigestKey(digest), apiKey);
+        return apiKey;
+    }
+
+    private byte[] randomBytes() {
+        byte[] bytes = new byte[KEY_BYTES];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * SHA-256 of a key, as stored
+     */
+    static byte[] digest(String key) {
+        return SHA256.get().digest(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * First 128 bits of a digest, as the index key
+     */
+    private static final class DigestKey {
+        private final long high;
+        private final long low;
+
+        DigestKey(byte[] digest) {
+            this.high = toLong(digest, 0);
+            this.low = toLong(digest, 8);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DigestKey)) {
+                return false;
+            }
+            DigestKey other = (DigestKey) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high ^ low);
+        }
+
+        private static long toLong(byte[] bytes, int offset) {
+            long value = 0;
+            for (int i = offset; i < offset + 8; i++) {
+                value = (value << 8) | (bytes[i] & 0xFF);
+            }
+            return value;
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package com.dbh.training.rest.security;
 
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.SignatureException;
 import java.io.IOException;
-import java.util.List;
 import javax.annotation.Priority;
 import javax.inject.Inject;
 import javax.ws.rs.Priorities;
@@ -17,6 +16,14 @@ import org.slf4j.LoggerFactory;
  * 
  * Exercise 08: Security Implementation
  * Intercepts requests to validate JWT tokens
+ * 
+ * Verified tokens are cached by hash until they expire, and invalid ones
+ * for a short while, so a token is verified once rather than per request.
+ * Revocation is checked on every request, cached or not, so a logout takes
+ * effect immediately.
+ * 
+ * Service callers may send an X-API-Key header instead: the key is looked
+ * up by its SHA-256 in the ApiKeyStore, with no JWT parsing at all.
  */
 @Provider
 @Priority(Priorities.AUTHENTICATION)
@@ -25,15 +32,34 @@ public class AuthenticationFilter implements ContainerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationFilter.class);
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
+    private static final String API_KEY_HEADER = "X-API-Key";
+    private static final String API_KEY_SCHEME = "ApiKey";
     
     @Inject
     private JwtService jwtService;
     
+    @Inject
+    private TokenCache tokenCache;
+    
+    @Inject
+    private TokenRevocations revocations;
+    
+    @Inject
+    private RouteTable routes;
+    
+    @Inject
+    private ApiKeyStore apiKeys;
+    
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
-        // Skip authentication for certain paths
-        String path = requestContext.getUriInfo().getPath();
-        if (isPublicPath(path)) {
+        // Skip authentication for public routes (login, health, docs, ...)
+        if (!routes.classify(requestContext).requiresAuthentication()) {
+            return;
+        }
+        
+        String apiKeyHeader = requestContext.getHeaderString(API_KEY_HEADER);
+        if (apiKeyHeader != null) {
+            authenticateApiKey(requestContext, apiKeyHeader.trim());
             return;
         }
         
@@ -43,40 +69,79 @@ public class AuthenticationFilter implements ContainerRequestFilter {
         if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
             String token = authHeader.substring(BEARER_PREFIX.length()).trim();
             
-            try {
-                // Validate token and extract claims
-                Claims claims = jwtService.validateToken(token);
-                
-                String username = claims.getSubject();
-                Long userId = claims.get("userId", Long.class);
-                @SuppressWarnings("unchecked")
-                List<String> roles = claims.get("roles", List.class);
-                
-                // Create and set security context
-                UserSecurityContext securityContext = new UserSecurityContext(
-                    username, userId, roles, requestContext.getSecurityContext()
-                );
-                
-                requestContext.setSecurityContext(securityContext);
-                
-                logger.debug("Authenticated user: {} with roles: {}", username, roles);
-                
-            } catch (Exception e) {
-                logger.warn("Invalid JWT token: {}", e.getMessage());
-                // Request continues without authentication
-                // @RolesAllowed will handle authorization
+            TokenCache.Key key = tokenCache.keyOf(token);
+            VerifiedToken verified = tokenCache.getVerified(key);
+            
+            if (verified == null) {
+                if (tokenCache.isRejected(key)) {
+                    // Known bad token: no verification, and no warning per request
+                    logger.debug("Rejected cached invalid JWT token");
+                    return;
+                }
+                verified = verify(token, key);
+                if (verified == null) {
+                    // Request continues without authentication
+                    // @RolesAllowed will handle authorization
+                    return;
+                }
+            }
+            
+            if (revocations.isRevoked(verified)) {
+                logger.debug("Rejected revoked JWT token of user: {}", verified.getSubject());
+                return;
             }
+            
+            // Create and set security context
+            UserSecurityContext securityContext = new UserSecurityContext(
+                verified.getSubject(), verified.getUserId(), verified.getRoleMask(), requestContext.getSecurityContext()
+            );
+            
+            requestContext.setSecurityContext(securityContext);
+            
+            logger.debug("Authenticated user: {} with roles: {}", verified.getSubject(), verified.getRoles());
         }
     }
     
     /**
-     * Check if path should skip authentication
+     * Authenticate a service caller by API key; an unknown key leaves the request anonymous
      */
-    private boolean isPublicPath(String path) {
-        // Allow access to login and registration endpoints
-        return path.startsWith("auth/") || 
-               path.equals("health") ||
-               path.equals("") ||
-               path.equals("/");
+    private void authenticateApiKey(ContainerRequestContext requestContext, String key) {
+        ApiKey apiKey = apiKeys.authenticate(key);
+        if (apiKey == null) {
+            logger.debug("Rejected unknown API key");
+            return;
+        }
+        requestContext.setSecurityContext(new UserSecurityContext(
+            apiKey.getPrincipalName(), null, apiKey.getRoleMask(), requestContext.getSecurityContext(), API_KEY_SCHEME
+        ));
+        logger.debug("Authenticated API key: {} with roles: {}", apiKey.getName(), apiKey.getRoles());
+    }
+    
+    /**
+     * Verify a token and cache the outcome
+     * 
+     * @return Claims of a valid token, or null
+     */
+    private VerifiedToken verify(String token, TokenCache.Key key) {
+        try {
+            // Cheap HMAC check first, so forged tokens never reach the JSON parser;
+            // RSA/ECDSA checks cost as much as verify(), which checks the signature anyway
+            if (jwtService.hasCheapSignatureCheck() && !jwtService.hasValidSignature(token)) {
+                throw new SignatureException("JWT signature does not match");
+            }
+            
+            // Validate token once and keep its typed claims
+            VerifiedToken verified = jwtService.verify(token);
+            if (verified.isRefresh()) {
+                throw new IllegalArgumentException("Refresh token used as access token");
+            }
+            tokenCache.putVerified(key, verified);
+            return verified;
+            
+        } catch (Exception e) {
+            logger.warn("Invalid JWT token: {}", e.getMessage());
+            tokenCache.putInvalid(key);
+            return null;
+        }
     }
 }
\ No newline at end of file
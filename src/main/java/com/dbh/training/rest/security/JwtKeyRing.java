@@ -0,0 +1,309 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.util.NamedThreadFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Signing keys indexed by key id (kid)
+ *
+ * One key signs new tokens (active). Asymmetric keys are normally loaded
+ * from configured key files, the same on every node, so tokens survive a
+ * restart and any node verifies any other node's tokens. The configured
+ * next key is published in the JWKS and accepted before it starts signing,
+ * so nodes still holding it as next accept tokens from nodes that already
+ * promoted it, and previous keys keep verifying; rotating is a deployment change that moves next to
+ * active and active to previous.
+ *
+ * Without key files (development only) the key pairs are generated in
+ * memory and rotated on a schedule: the next key is generated and published
+ * one rotation period before it starts signing, so verifiers that cache the
+ * JWKS already know it. Retired keys keep verifying until every token they
+ * signed has expired (the overlap window) and are dropped at the next
+ * rotation after that. A restart invalidates every token.
+ *
+ * HS256 uses the shared secret as its single key and is never rotated:
+ * every node holds the secret, so rotating it is a deployment change.
+ *
+ * The ring is an immutable snapshot swapped atomically; lookups never lock.
+ */
+public class JwtKeyRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final ObjectMapper HEADER_MAPPER = new ObjectMapper();
+
+    private final SignatureAlgorithm algorithm;
+    private final boolean generated;
+    private final long overlapMillis;
+    private final ScheduledExecutorService rotator;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Ring with a single, never rotated HMAC secret
+     */
+    public JwtKeyRing(byte[] secret) {
+        SecretKey key = Keys.hmacShaKeyFor(secret);
+        this.algorithm = SignatureAlgorithm.HS256;
+        this.generated = false;
+        this.overlapMillis = 0;
+        this.rotator = null;
+        this.snapshot = new Snapshot(new SigningKey(fingerprint(algorithm, secret), key, algorithm), null,
+                                     Collections.emptyList());
+    }
+
+    /**
+     * Ring of configured RS256 or ES256 key pairs, never rotated by itself
+     *
+     * The kid of each key is derived from its public key, so every node
+     * loading the same key files names the keys the same way.
+     *
+     * @param next Key published ahead of signing, or null
+     * @param previous Keys that only verify tokens signed before the last key change
+     */
+    public JwtKeyRing(SignatureAlgorithm algorithm, KeyPair active, KeyPair next, List<KeyPair> previous) {
+        checkAlgorithm(algorithm);
+        this.algorithm = algorithm;
+        this.generated = false;
+        this.overlapMillis = 0;
+        this.rotator = null;
+        List<Retired> retired = new ArrayList<>();
+        for (KeyPair keyPair : previous) {
+            retired.add(new Retired(configured(keyPair), Long.MAX_VALUE));
+        }
+        SigningKey activeKey = configured(active);
+        this.snapshot = new Snapshot(activeKey, next != null ? configured(next) : null, retired);
+        logger.info("JWT key ring: {}, configured active kid {}, next {}, {} previous key(s)",
+                algorithm, activeKey.getKid(), snapshot.next != null ? snapshot.next.getKid() : "none",
+                retired.size());
+    }
+
+    /**
+     * Ring of generated RS256 or ES256 key pairs: for development only, as
+     * the keys exist on this node only and are lost on restart
+     *
+     * @param rotationSeconds Rotation period, or 0 to never rotate
+     * @param overlapSeconds How long a retired key still verifies; at least the longest token lifetime
+     */
+    public JwtKeyRing(SignatureAlgorithm algorithm, long rotationSeconds, long overlapSeconds) {
+        checkAlgorithm(algorithm);
+        this.algorithm = algorithm;
+        this.generated = true;
+        this.overlapMillis = TimeUnit.SECONDS.toMillis(overlapSeconds);
+        SigningKey active = generate();
+        if (rotationSeconds > 0) {
+            this.snapshot = new Snapshot(active, generate(), Collections.emptyList());
+            this.rotator = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("jwt-key-rotation"));
+            this.rotator.scheduleAtFixedRate(this::rotate, rotationSeconds, rotationSeconds, TimeUnit.SECONDS);
+        } else {
+            this.snapshot = new Snapshot(active, null, Collections.emptyList());
+            this.rotator = null;
+        }
+        logger.info("JWT key ring: {}, active kid {}, rotation every {} s, overlap {} s",
+                algorithm, active.getKid(), rotationSeconds, overlapSeconds);
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Key that signs new tokens
+     */
+    SigningKey active() {
+        return snapshot.active;
+    }
+
+    /**
+     * Key that verifies a token, found by its header, or null if unknown or retired
+     */
+    SigningKey find(String token) {
+        Snapshot current = snapshot;
+        for (SigningKey key : current.verifying) {
+            if (key.matchesHeader(token)) {
+                return key;
+            }
+        }
+        // Header written by someone else (other field order, extra fields): read the kid
+        String kid = kidOf(token);
+        for (SigningKey key : current.verifying) {
+            if (key.getKid().equals(kid) || (kid == null && key.getAlgorithm().isHmac())) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Promote the next key to active, retire the current one and prepare a new next key
+     *
+     * Only generated rings rotate: configured keys change with the configuration.
+     */
+    public synchronized void rotate() {
+        if (!generated) {
+            return;
+        }
+        try {
+            Snapshot current = snapshot;
+            long now = System.currentTimeMillis();
+            List<Retired> retired = new ArrayList<>();
+            for (Retired old : current.retired) {
+                if (old.untilMillis > now) {
+                    retired.add(old);
+                }
+            }
+            retired.add(new Retired(current.active, now + overlapMillis));
+            SigningKey active = current.next != null ? current.next : generate();
+            snapshot = new Snapshot(active, generate(), retired);
+            logger.info("Rotated JWT signing key: active kid {}, {} retired key(s) still verifying",
+                    active.getKid(), retired.size());
+        } catch (RuntimeException e) {
+            // Keep signing with the current key; the next run tries again
+            logger.error("JWT key rotation failed", e);
+        }
+    }
+
+    /**
+     * Public keys as a JWK Set (RFC 7517): active, next and retired keys; empty for HS256
+     */
+    public Map<String, Object> getJwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (SigningKey key : snapshot.verifying) {
+            Map<String, Object> jwk = key.toJwk();
+            if (jwk != null) {
+                keys.add(jwk);
+            }
+        }
+        Map<String, Object> jwks = new LinkedHashMap<>();
+        jwks.put("keys", keys);
+        return jwks;
+    }
+
+    public void shutdown() {
+        if (rotator != null) {
+            rotator.shutdownNow();
+        }
+    }
+
+    private static void checkAlgorithm(SignatureAlgorithm algorithm) {
+        if (algorithm != SignatureAlgorithm.RS256 && algorithm != SignatureAlgorithm.ES256) {
+            throw new IllegalArgumentException("Unsupported key ring algorithm: " + algorithm);
+        }
+    }
+
+    private SigningKey configured(KeyPair keyPair) {
+        String keyAlgorithm = algorithm == SignatureAlgorithm.ES256 ? "EC" : "RSA";
+        if (!keyAlgorithm.equals(keyPair.getPublic().getAlgorithm())) {
+            throw new IllegalArgumentException(algorithm + " needs an " + keyAlgorithm + " key, not "
+                    + keyPair.getPublic().getAlgorithm());
+        }
+        String kid = fingerprint(algorithm, keyPair.getPublic().getEncoded());
+        return new SigningKey(kid, keyPair, algorithm, System.currentTimeMillis());
+    }
+
+    private SigningKey generate() {
+        try {
+            KeyPairGenerator generator;
+            if (algorithm == SignatureAlgorithm.ES256) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            } else {
+                generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+            }
+            String kid = algorithm.getValue().toLowerCase() + "-" + UUID.randomUUID().toString().substring(0, 8);
+            return new SigningKey(kid, generator.generateKeyPair(), algorithm, System.currentTimeMillis());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate " + algorithm + " key", e);
+        }
+    }
+
+    private static String kidOf(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            JsonNode header = HEADER_MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(0, dot)));
+            JsonNode kid = header.get("kid");
+            return kid != null && kid.isTextual() ? kid.asText() : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stable kid for a shared secret or a configured public key, so every
+     * node derives the same one without revealing the secret
+     */
+    private static String fingerprint(SignatureAlgorithm algorithm, byte[] key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key);
+            StringBuilder kid = new StringBuilder(algorithm.getValue().toLowerCase()).append('-');
+            for (int i = 0; i < 4; i++) {
+                kid.append(String.format("%02x", hash[i]));
+            }
+            return kid.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Retired {
+        final SigningKey key;
+        final long untilMillis;
+
+        Retired(SigningKey key, long untilMillis) {
+            this.key = key;
+            this.untilMillis = untilMillis;
+        }
+    }
+
+    /**
+     * Immutable state of the ring
+     */
+    private static final class Snapshot {
+        final SigningKey active;
+        final SigningKey next;
+        final List<Retired> retired;
+        // Keys that verify tokens and are published: active, retired, next
+        final List<SigningKey> verifying;
+
+        Snapshot(SigningKey active, SigningKey next, List<Retired> retired) {
+            this.active = active;
+            this.next = next;
+            this.retired = retired;
+            List<SigningKey> verifyingKeys = new ArrayList<>();
+            verifyingKeys.add(active);
+            for (Retired old : retired) {
+                verifyingKeys.add(old.key);
+            }
+            // Nodes that already promoted the next key sign with it during a rolling deploy
+            if (next != null) {
+                verifyingKeys.add(next);
+            }
+            this.verifying = verifyingKeys;
+        }
+    }
+}
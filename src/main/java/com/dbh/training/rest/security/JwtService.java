@@ -1,24 +1,53 @@
 package com.dbh.training.rest.security;
 
+import com.dbh.training.rest.config.AppConfig;
 import com.dbh.training.rest.models.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
-import java.security.Key;
+import io.jsonwebtoken.security.SignatureException;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
 import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Service for JWT token generation and validation
  * 
  * Exercise 08: Security Implementation
  * Handles JWT token operations using JJWT library
+ * 
+ * Tokens are signed with the active key of a {@link JwtKeyRing} and carry
+ * its kid. security.jwt.algorithm selects HS256 (shared secret, the
+ * default), RS256 or ES256. With the asymmetric ones only the signing
+ * nodes hold the private key, loaded from security.jwt.key.file; other
+ * services verify with the public keys from /.well-known/jwks.json.
+ * Without a key file the keys are generated in memory and rotate every
+ * security.jwt.rotation.hours, which is for development only.
+ * 
+ * Each key has its own pre-built parser and per-thread verifier, so no
+ * parser or key state is built per request. hasValidSignature() is a
+ * cheaper check that only verifies the signature, without JSON parsing.
+ * 
+ * Every token carries a unique id (jti) so it can be revoked. Refresh
+ * tokens are marked with a token_use claim and are only good for
+ * /auth/refresh, never as bearer tokens.
  */
 @Singleton
 public class JwtService {
     
+    private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+    
     // In production, this should come from environment variable
     private static final String SECRET_ENV = System.getenv("JWT_SECRET");
     private static final String DEFAULT_SECRET = "training-secret-key-minimum-256-bits-for-hs256-algorithm";
@@ -27,11 +56,51 @@ public class JwtService {
     // Token expiration time (1 hour)
     private static final long EXPIRATION_TIME = 3600000;
     
-    private final Key key;
+    // Refresh token lifetime (default 7 days)
+    private static final long REFRESH_EXPIRATION_TIME = TimeUnit.SECONDS.toMillis(
+            AppConfig.getInstance().getLong("security.jwt.refresh.expiration.seconds", 604800));
+    
+    private static final String USER_ID_CLAIM = "userId";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String TOKEN_USE_CLAIM = "token_use";
+    private static final String REFRESH_TOKEN_USE = "refresh";
+    
+    private final JwtKeyRing keyRing;
     
     public JwtService() {
-        // Create key from secret
-        this.key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        this(createKeyRing(AppConfig.getInstance()));
+    }
+    
+    public JwtService(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+    
+    private static JwtKeyRing createKeyRing(AppConfig config) {
+        SignatureAlgorithm algorithm = SignatureAlgorithm.forName(
+                config.getString("security.jwt.algorithm", SignatureAlgorithm.HS256.getValue()));
+        if (algorithm.isHmac()) {
+            return new JwtKeyRing(SECRET.getBytes());
+        }
+        String activeFile = config.getString("security.jwt.key.file", null);
+        if (activeFile != null && !activeFile.trim().isEmpty()) {
+            String keyAlgorithm = algorithm == SignatureAlgorithm.ES256 ? "EC" : "RSA";
+            String nextFile = config.getString("security.jwt.key.next.file", "").trim();
+            List<KeyPair> previous = new ArrayList<>();
+            for (String file : config.getString("security.jwt.key.previous.files", "").split(",")) {
+                if (!file.trim().isEmpty()) {
+                    previous.add(PemKeys.read(Paths.get(file.trim()), keyAlgorithm));
+                }
+            }
+            return new JwtKeyRing(algorithm, PemKeys.read(Paths.get(activeFile.trim()), keyAlgorithm),
+                    nextFile.isEmpty() ? null : PemKeys.read(Paths.get(nextFile), keyAlgorithm), previous);
+        }
+        logger.warn("No security.jwt.key.file: generating {} keys in memory. For development only: "
+                + "tokens do not survive a restart and other nodes cannot verify them", algorithm);
+        // Retired keys must outlive the longest-lived token they signed
+        long overlapSeconds = config.getLong("security.jwt.key.overlap.seconds",
+                TimeUnit.MILLISECONDS.toSeconds(Math.max(EXPIRATION_TIME, REFRESH_EXPIRATION_TIME)));
+        return new JwtKeyRing(algorithm,
+                TimeUnit.HOURS.toSeconds(config.getLong("security.jwt.rotation.hours", 24)), overlapSeconds);
     }
     
     /**
@@ -41,60 +110,166 @@ public class JwtService {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + EXPIRATION_TIME);
         
-        return Jwts.builder()
+        return builder()
             .setSubject(user.getUsername())
-            .claim("userId", user.getId())
-            .claim("roles", user.getRoles())
+            .claim(USER_ID_CLAIM, user.getId())
+            .claim(ROLES_CLAIM, user.getRoles())
             .claim("email", user.getEmail())
+            .setId(UUID.randomUUID().toString())
+            .setIssuedAt(now)
+            .setExpiration(expiry)
+            .compact();
+    }
+    
+    /**
+     * Generate a long-lived refresh token: identifies the user, carries no roles
+     */
+    public String generateRefreshToken(User user) {
+        Date now = new Date();
+        Date expiry = new Date(now.getTime() + REFRESH_EXPIRATION_TIME);
+        
+        return builder()
+            .setSubject(user.getUsername())
+            .claim(USER_ID_CLAIM, user.getId())
+            .claim(TOKEN_USE_CLAIM, REFRESH_TOKEN_USE)
+            .setId(UUID.randomUUID().toString())
             .setIssuedAt(now)
             .setExpiration(expiry)
-            .signWith(key, SignatureAlgorithm.HS256)
             .compact();
     }
     
+    /**
+     * @return Access token lifetime in seconds (the expires_in of a token response)
+     */
+    public long getExpirationSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(EXPIRATION_TIME);
+    }
+    
     /**
      * Validate and parse JWT token
      * @throws io.jsonwebtoken.JwtException if token is invalid
      */
     public Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-            .setSigningKey(key)
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+        return keyFor(token).getParser().parseClaimsJws(token).getBody();
+    }
+    
+    /**
+     * Check only the signature of a token: no claims parsing, no expiry check.
+     * 
+     * For HS256 this is allocation-free in steady state, so it is cheap
+     * enough to run before any other work, e.g. to reject forged tokens early.
+     * An RSA or ECDSA check costs about as much as {@link #verify(String)}.
+     */
+    public boolean hasValidSignature(String token) {
+        if (token == null) {
+            return false;
+        }
+        SigningKey signingKey = keyRing.find(token);
+        return signingKey != null && signingKey.verifySignature(token);
+    }
+    
+    /**
+     * @return true if {@link #hasValidSignature} is much cheaper than {@link #verify} (HMAC keys)
+     */
+    public boolean hasCheapSignatureCheck() {
+        return keyRing.getAlgorithm().isHmac();
+    }
+    
+    public JwtKeyRing getKeyRing() {
+        return keyRing;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        keyRing.shutdown();
+    }
+    
+    /**
+     * Verify a token once and return its claims as typed values
+     * @throws io.jsonwebtoken.JwtException if token is invalid or expired
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = validateToken(token);
+        
+        Object userId = claims.get(USER_ID_CLAIM);
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        
+        return new VerifiedToken(
+            claims.getSubject(),
+            userId instanceof Number ? ((Number) userId).longValue() : null,
+            toRoles(claims.get(ROLES_CLAIM)),
+            issuedAt != null ? issuedAt.getTime() : 0L,
+            expiration != null ? expiration.getTime() : Long.MAX_VALUE,
+            claims.getId(),
+            REFRESH_TOKEN_USE.equals(claims.get(TOKEN_USE_CLAIM)));
     }
     
     /**
      * Extract username from token
+     * Verifies the token; use {@link #verify(String)} when more than one claim is needed
      */
     public String getUsername(String token) {
-        return validateToken(token).getSubject();
+        return verify(token).getSubject();
     }
     
     /**
      * Extract user ID from token
+     * Verifies the token; use {@link #verify(String)} when more than one claim is needed
      */
     public Long getUserId(String token) {
-        return validateToken(token).get("userId", Long.class);
+        return verify(token).getUserId();
     }
     
     /**
      * Extract roles from token
+     * Verifies the token; use {@link #verify(String)} when more than one claim is needed
      */
-    @SuppressWarnings("unchecked")
     public List<String> getRoles(String token) {
-        return validateToken(token).get("roles", List.class);
+        return verify(token).getRoles();
     }
     
     /**
-     * Check if token is expired
+     * Check if token is expired (invalid tokens count as expired)
      */
     public boolean isTokenExpired(String token) {
         try {
-            Date expiration = validateToken(token).getExpiration();
-            return expiration.before(new Date());
+            return verify(token).isExpired(System.currentTimeMillis());
         } catch (Exception e) {
             return true;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * The roles claim is deserialized as a JSON array, i.e. a List of Strings
+     */
+    private static List<String> toRoles(Object claim) {
+        if (!(claim instanceof Collection)) {
+            return Collections.emptyList();
+        }
+        Collection<?> values = (Collection<?>) claim;
+        List<String> roles = new ArrayList<>(values.size());
+        for (Object value : values) {
+            roles.add(String.valueOf(value));
+        }
+        return roles;
+    }
+    
+    /**
+     * Builder signing with the active key and naming it in the kid header
+     */
+    private JwtBuilder builder() {
+        SigningKey active = keyRing.active();
+        return Jwts.builder()
+            .setHeaderParam("kid", active.getKid())
+            .signWith(active.getSigningKey(), active.getAlgorithm());
+    }
+    
+    private SigningKey keyFor(String token) {
+        SigningKey signingKey = token != null ? keyRing.find(token) : null;
+        if (signingKey == null) {
+            throw new SignatureException("Unknown or retired signing key");
+        }
+        return signingKey;
+    }
+}
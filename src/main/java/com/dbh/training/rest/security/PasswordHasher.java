@@ -0,0 +1,195 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.config.AppConfig;
+import com.dbh.training.rest.util.NamedThreadFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BCrypt hashing and verification on a dedicated, bounded pool
+ *
+ * BCrypt is deliberately slow (tens of milliseconds per call). Running it on
+ * Jetty request threads lets a login burst occupy every container thread.
+ * Here it runs on a fixed number of "bcrypt-N" threads behind a bounded
+ * queue. When the queue is full, work is rejected immediately with
+ * {@link Busy}, so callers can shed load (503 + Retry-After) instead of
+ * queueing without limit.
+ *
+ * Records hash latency (time inside BCrypt) and queue wait (time between
+ * submit and start) for /admin/metrics.
+ */
+@Singleton
+public class PasswordHasher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    /**
+     * Raised (as the cause of a failed future) when the hashing queue is full
+     */
+    public static class Busy extends RuntimeException {
+        private final int retryAfterSeconds;
+
+        Busy(int retryAfterSeconds) {
+            super("Password hashing queue is full");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final int retryAfterSeconds;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+    private volatile String dummyHash;
+
+    public PasswordHasher() {
+        this(AppConfig.getInstance().getInt("auth.bcrypt.threads", Runtime.getRuntime().availableProcessors()),
+             AppConfig.getInstance().getInt("auth.bcrypt.queue.capacity", 64),
+             AppConfig.getInstance().getInt("auth.bcrypt.retry.after.seconds", 1));
+    }
+
+    public PasswordHasher(int threads, int queueCapacity, int retryAfterSeconds) {
+        int size = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new NamedThreadFactory("bcrypt"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+        logger.info("BCrypt pool: {} threads, queue capacity {}", size, queueCapacity);
+    }
+
+    /**
+     * Hash a password with a fresh salt at the {@link PasswordPolicy} cost
+     */
+    public CompletableFuture<String> hash(String password) {
+        PasswordPolicy policy = PasswordPolicy.getInstance();
+        return submit(() -> policy.hash(password));
+    }
+
+    /**
+     * Check a password against a stored hash; a missing hash never matches
+     *
+     * Without a hash (unknown user, or no password set) the password is still
+     * checked, against a dummy hash at the current cost, so the answer takes
+     * as long as a wrong password for a real user.
+     */
+    public CompletableFuture<Boolean> verify(String password, String hash) {
+        if (password == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (hash == null) {
+            return submit(() -> {
+                BCrypt.checkpw(password, dummyHash());
+                return false;
+            });
+        }
+        return submit(() -> BCrypt.checkpw(password, hash));
+    }
+
+    /**
+     * Pool and latency metrics, suitable for a JSON response
+     */
+    public Map<String, Object> getStats() {
+        long done = completed.sum();
+        PasswordPolicy policy = PasswordPolicy.getInstance();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cost", policy.getCost());
+        if (!policy.getCalibration().isEmpty()) {
+            stats.put("calibration_ms_by_cost", policy.getCalibration());
+        }
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queue_depth", executor.getQueue().size());
+        stats.put("queue_capacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        stats.put("completed", done);
+        stats.put("rejected", rejected.sum());
+        stats.put("avg_hash_ms", done == 0 ? 0.0 : toMillis(hashNanos.sum() / (double) done));
+        stats.put("max_hash_ms", toMillis(maxHashNanos.get()));
+        stats.put("avg_queue_wait_ms", done == 0 ? 0.0 : toMillis(queueNanos.sum() / (double) done));
+        stats.put("max_queue_wait_ms", toMillis(maxQueueNanos.get()));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hash of a random password, made on the pool at first use
+     */
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            synchronized (this) {
+                hash = dummyHash;
+                if (hash == null) {
+                    hash = PasswordPolicy.getInstance().hash(UUID.randomUUID().toString());
+                    dummyHash = hash;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long submitted = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long started = System.nanoTime();
+                record(queueNanos, maxQueueNanos, started - submitted);
+                T result = null;
+                RuntimeException failure = null;
+                try {
+                    result = work.get();
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+                // Record before completing, so callers observe up-to-date metrics
+                record(hashNanos, maxHashNanos, System.nanoTime() - started);
+                completed.increment();
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(new Busy(retryAfterSeconds));
+        }
+        return future;
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,179 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.config.AppConfig;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BCrypt work factor for password hashes
+ *
+ * The cost is part of every BCrypt hash ("$2a$10$..."), so hashes made
+ * with different costs can coexist. Callers hash with {@link #hash} and,
+ * after a successful check, use {@link #needsRehash} to move a user's
+ * stored hash to the current cost. That upgrades or downgrades it without
+ * anyone resetting their password.
+ *
+ * The cost comes from auth.bcrypt.cost (default 10). With
+ * auth.bcrypt.calibrate=true it is chosen at startup instead: the highest
+ * cost whose verification stays within auth.bcrypt.target.ms on this
+ * hardware. The measurements are logged and exposed via {@link #getCalibration}.
+ *
+ * Run the calibration on its own with ./gradlew calibrateBcrypt -PtargetMs=250
+ */
+public final class PasswordPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordPolicy.class);
+
+    public static final int MIN_COST = 4;
+    public static final int MAX_COST = 16;
+    private static final int DEFAULT_COST = 10;
+    private static final int SAMPLES = 3;
+
+    private static volatile PasswordPolicy instance;
+
+    private final int cost;
+    private final Map<Integer, Double> calibration;
+
+    /**
+     * @param cost Work factor for new hashes
+     * @param calibration Measured verify time in ms per cost, empty if not calibrated
+     */
+    public PasswordPolicy(int cost, Map<Integer, Double> calibration) {
+        if (cost < MIN_COST || cost > 31) {
+            throw new IllegalArgumentException("BCrypt cost must be between " + MIN_COST + " and 31: " + cost);
+        }
+        this.cost = cost;
+        this.calibration = Collections.unmodifiableMap(new LinkedHashMap<>(calibration));
+    }
+
+    /**
+     * Policy from application.properties, calibrated on first use if configured
+     */
+    public static PasswordPolicy getInstance() {
+        PasswordPolicy policy = instance;
+        if (policy == null) {
+            synchronized (PasswordPolicy.class) {
+                policy = instance;
+                if (policy == null) {
+                    policy = fromConfig(AppConfig.getInstance());
+                    instance = policy;
+                }
+            }
+        }
+        return policy;
+    }
+
+    static PasswordPolicy fromConfig(AppConfig config) {
+        if (config.getBoolean("auth.bcrypt.calibrate", false)) {
+            return calibrate(config.getLong("auth.bcrypt.target.ms", 250),
+                             config.getInt("auth.bcrypt.max.cost", 14));
+        }
+        int cost = config.getInt("auth.bcrypt.cost", DEFAULT_COST);
+        logger.info("BCrypt cost {} (configured)", cost);
+        return new PasswordPolicy(cost, Collections.emptyMap());
+    }
+
+    /**
+     * Measure verification time per cost, from MIN_COST up, and pick the
+     * highest cost within the target. Stops at the first cost over the target,
+     * since every step doubles the time.
+     */
+    public static PasswordPolicy calibrate(long targetMillis, int maxCost) {
+        Map<Integer, Double> measurements = new LinkedHashMap<>();
+        int chosen = MIN_COST;
+        int limit = Math.min(Math.max(maxCost, MIN_COST), MAX_COST);
+
+        for (int cost = MIN_COST; cost <= limit; cost++) {
+            double millis = measureVerifyMillis(cost);
+            measurements.put(cost, millis);
+            if (millis > targetMillis) {
+                break;
+            }
+            chosen = cost;
+        }
+
+        logger.info("BCrypt calibration (target {} ms): verify ms by cost {}, chose cost {}",
+                targetMillis, measurements, chosen);
+        return new PasswordPolicy(chosen, measurements);
+    }
+
+    /**
+     * Median time of BCrypt.checkpw for a hash of the given cost
+     */
+    static double measureVerifyMillis(int cost) {
+        String hash = BCrypt.hashpw("calibration-password", BCrypt.gensalt(cost));
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.checkpw("calibration-password", hash);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return Math.round(samples[SAMPLES / 2] / 10_000.0) / 100.0;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * @return Verify time in ms per measured cost; empty if the cost was configured
+     */
+    public Map<Integer, Double> getCalibration() {
+        return calibration;
+    }
+
+    /**
+     * Hash a password at the current cost
+     */
+    public String hash(String password) {
+        return BCrypt.hashpw(password, BCrypt.gensalt(cost));
+    }
+
+    /**
+     * Work factor stored in a BCrypt hash ("$2a$10$..."), or -1 if it is not one
+     */
+    public static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$'
+                || hash.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = hash.charAt(4);
+        char ones = hash.charAt(5);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    /**
+     * @return true if a valid hash was made with a different cost than the current one
+     */
+    public boolean needsRehash(String hash) {
+        int hashCost = costOf(hash);
+        return hashCost > 0 && hashCost != cost;
+    }
+
+    /**
+     * Calibration tool: prints verify time per cost and the cost it would pick.
+     * Usage: PasswordPolicy [targetMillis] [maxCost]
+     */
+    public static void main(String[] args) {
+        long target = args.length > 0 ? Long.parseLong(args[0]) : 250;
+        int maxCost = args.length > 1 ? Integer.parseInt(args[1]) : MAX_COST;
+
+        PasswordPolicy policy = calibrate(target, maxCost);
+
+        System.out.println("BCrypt verify time, target " + target + " ms");
+        for (Map.Entry<Integer, Double> entry : policy.getCalibration().entrySet()) {
+            System.out.printf("  cost %2d: %8.2f ms%s%n", entry.getKey(), entry.getValue(),
+                    entry.getKey() == policy.getCost() ? "  <- chosen" : "");
+        }
+        System.out.println("Set auth.bcrypt.cost=" + policy.getCost());
+    }
+}
@@ -0,0 +1,95 @@
+package com.dbh.training.rest.security;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads signing key pairs from PEM files
+ *
+ * A file holds an unencrypted PKCS#8 private key ("BEGIN PRIVATE KEY") and
+ * its X.509 public key ("BEGIN PUBLIC KEY"), e.g.
+ * <pre>
+ * openssl genpkey -algorithm EC -pkeyopt ec_paramgen_curve:P-256 -out jwt.pem
+ * openssl pkey -in jwt.pem -pubout &gt;&gt; jwt.pem
+ * </pre>
+ * The public block may be left out for RSA keys, whose private key carries it.
+ */
+final class PemKeys {
+
+    private static final Pattern BLOCK = Pattern.compile(
+            "-----BEGIN ([A-Z ]+)-----([A-Za-z0-9+/=\\s]+)-----END \\1-----");
+
+    private PemKeys() {
+    }
+
+    /**
+     * @param keyAlgorithm JCA key algorithm: "RSA" or "EC"
+     * @throws IllegalArgumentException if the file cannot be read or holds no usable key pair
+     */
+    static KeyPair read(Path file, String keyAlgorithm) {
+        String pem;
+        try {
+            pem = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read key file " + file, e);
+        }
+        byte[] privateDer = null;
+        byte[] publicDer = null;
+        Matcher block = BLOCK.matcher(pem);
+        while (block.find()) {
+            byte[] der = Base64.getMimeDecoder().decode(block.group(2));
+            if ("PRIVATE KEY".equals(block.group(1))) {
+                privateDer = der;
+            } else if ("PUBLIC KEY".equals(block.group(1))) {
+                publicDer = der;
+            }
+        }
+        if (privateDer == null) {
+            throw new IllegalArgumentException("No PKCS#8 PRIVATE KEY block in " + file);
+        }
+        try {
+            KeyFactory factory = KeyFactory.getInstance(keyAlgorithm);
+            PrivateKey privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(privateDer));
+            PublicKey publicKey;
+            if (publicDer != null) {
+                publicKey = factory.generatePublic(new X509EncodedKeySpec(publicDer));
+            } else if (privateKey instanceof RSAPrivateCrtKey) {
+                RSAPrivateCrtKey rsa = (RSAPrivateCrtKey) privateKey;
+                publicKey = factory.generatePublic(new RSAPublicKeySpec(rsa.getModulus(), rsa.getPublicExponent()));
+            } else {
+                throw new IllegalArgumentException("No PUBLIC KEY block in " + file);
+            }
+            return new KeyPair(publicKey, privateKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Not a " + keyAlgorithm + " key pair: " + file, e);
+        }
+    }
+
+    /**
+     * PEM text of a key pair in the format {@link #read} expects
+     */
+    static String write(KeyPair keyPair) {
+        return block("PRIVATE KEY", keyPair.getPrivate().getEncoded())
+                + block("PUBLIC KEY", keyPair.getPublic().getEncoded());
+    }
+
+    private static String block(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, new byte[] {'\n'}).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,107 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.config.AppConfig;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry that interns role names to bit positions
+ *
+ * A set of roles is then a long bitmask: membership is a single AND, and
+ * a mask is computed once per token rather than copying role sets per
+ * request. Roles are registered at startup only: ADMIN, USER, the roles
+ * listed in security.roles and those of provisioned API keys. Role names
+ * from tokens or request bodies are never registered; a role nobody
+ * registered maps to no bit, so it grants nothing. At most 64 roles exist.
+ */
+public final class Roles {
+
+    public static final String ADMIN = "ADMIN";
+    public static final String USER = "USER";
+
+    private static final int MAX_ROLES = Long.SIZE;
+
+    private static final Map<String, Long> BITS = new ConcurrentHashMap<>();
+    private static final String[] NAMES = new String[MAX_ROLES];
+    private static int registered;
+
+    static {
+        register(ADMIN);
+        register(USER);
+        for (String role : AppConfig.getInstance().getString("security.roles", "").split(",")) {
+            if (!role.trim().isEmpty()) {
+                register(role.trim());
+            }
+        }
+    }
+
+    private Roles() {
+    }
+
+    /**
+     * Bit of a role, registering it if new; for configured roles at startup
+     *
+     * @throws IllegalStateException if all 64 bits are taken
+     */
+    public static long register(String role) {
+        Long bit = BITS.get(role);
+        return bit != null ? bit : allocate(role);
+    }
+
+    /**
+     * Bit of a registered role, or 0 for an unknown role (which nobody holds)
+     */
+    public static long bitOf(String role) {
+        if (role == null) {
+            return 0L;
+        }
+        Long bit = BITS.get(role);
+        return bit != null ? bit : 0L;
+    }
+
+    /**
+     * Mask of a collection of role names; unknown roles are left out
+     */
+    public static long maskOf(Collection<String> roles) {
+        long mask = 0L;
+        if (roles != null) {
+            for (String role : roles) {
+                mask |= bitOf(role);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Role names in a mask, in registration order
+     */
+    public static Set<String> namesOf(long mask) {
+        if (mask == 0L) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new LinkedHashSet<>(Long.bitCount(mask) * 2);
+        for (long remaining = mask; remaining != 0L; remaining &= remaining - 1) {
+            names.add(NAMES[Long.numberOfTrailingZeros(remaining)]);
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    private static synchronized long allocate(String role) {
+        Long existing = BITS.get(role);
+        if (existing != null) {
+            return existing;
+        }
+        if (registered == MAX_ROLES) {
+            throw new IllegalStateException("More than " + MAX_ROLES + " roles; cannot register " + role);
+        }
+        long bit = 1L << registered;
+        // Name first, so a reader that finds the bit can resolve it
+        NAMES[registered++] = role;
+        BITS.put(role, bit);
+        return bit;
+    }
+}
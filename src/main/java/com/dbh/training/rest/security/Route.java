@@ -0,0 +1,63 @@
+package com.dbh.training.rest.security;
+
+/**
+ * Policy of a class of request paths, as classified by {@link RouteTable}
+ *
+ * Filters read the policy instead of matching the path themselves.
+ */
+public enum Route {
+
+    /** Root and other open resources */
+    PUBLIC(false, true, Caching.DEFAULT),
+    /** Liveness probe: open and never rate limited */
+    HEALTH(false, false, Caching.DEFAULT),
+    /** Operational details: open, but never cached */
+    DIAGNOSTICS(false, true, Caching.NO_STORE),
+    /** OpenAPI document, Swagger UI assets and the JWKS */
+    DOCS(false, true, Caching.DEFAULT),
+    /** Login, registration, refresh and logout: carry credentials, not a session */
+    AUTH(false, true, Caching.NO_STORE),
+    /** Login and registration: like AUTH, but each POST costs a BCrypt hash, so it counts against the login rate limit */
+    LOGIN(false, true, Caching.NO_STORE),
+    /** Token and API key administration, internal metrics */
+    AUTH_ADMIN(true, true, Caching.NO_STORE),
+    /** User accounts */
+    USER_DATA(true, true, Caching.NO_STORE),
+    /** Everything else */
+    AUTHENTICATED(true, true, Caching.DEFAULT);
+
+    /**
+     * Cache-Control class of the responses
+     */
+    public enum Caching {
+        /** Left to the resource */
+        DEFAULT,
+        /** Sensitive: no-store, no-cache, must-revalidate */
+        NO_STORE
+    }
+
+    private final boolean authenticated;
+    private final boolean rateLimited;
+    private final Caching caching;
+
+    Route(boolean authenticated, boolean rateLimited, Caching caching) {
+        this.authenticated = authenticated;
+        this.rateLimited = rateLimited;
+        this.caching = caching;
+    }
+
+    /**
+     * @return true if a bearer token is looked at; false skips header parsing and verification
+     */
+    public boolean requiresAuthentication() {
+        return authenticated;
+    }
+
+    public boolean isRateLimited() {
+        return rateLimited;
+    }
+
+    public Caching getCaching() {
+        return caching;
+    }
+}
@@ -0,0 +1,147 @@
+package com.dbh.training.rest.security;
+
+import java.util.Arrays;
+import javax.inject.Singleton;
+import javax.ws.rs.container.ContainerRequestContext;
+
+/**
+ * Request path to {@link Route}, built once at startup
+ *
+ * The table is a trie of path segments. A path is classified in one pass
+ * over its segments, comparing them in place, so classification neither
+ * allocates nor re-scans the path per rule. An exact rule applies to its
+ * path only; a prefix rule to its path and everything below it. The
+ * deepest matching rule wins; unmatched paths need authentication.
+ *
+ * The route is computed by the first filter that asks for it and kept as
+ * a request property for the others.
+ */
+@Singleton
+public class RouteTable {
+
+    static final String ROUTE_PROPERTY = "route";
+
+    private final Node root = new Node();
+
+    public RouteTable() {
+        exact("", Route.PUBLIC);
+        exact("health", Route.HEALTH);
+        exact("health/details", Route.DIAGNOSTICS);
+        prefix("auth", Route.AUTH);
+        exact("auth/login", Route.LOGIN);
+        exact("auth/register", Route.LOGIN);
+        exact("auth/revoke", Route.AUTH_ADMIN);
+        prefix("admin", Route.AUTH_ADMIN);
+        exact("openapi.json", Route.DOCS);
+        exact("openapi.yaml", Route.DOCS);
+        prefix("swagger-ui", Route.DOCS);
+        exact(".well-known/jwks.json", Route.DOCS);
+        prefix("users", Route.USER_DATA);
+        prefix("v1/users", Route.USER_DATA);
+        prefix("v2/users", Route.USER_DATA);
+    }
+
+    /**
+     * Route of the request, classified on first use
+     */
+    public Route classify(ContainerRequestContext requestContext) {
+        Object route = requestContext.getProperty(ROUTE_PROPERTY);
+        if (route instanceof Route) {
+            return (Route) route;
+        }
+        Route classified = classify(requestContext.getUriInfo().getPath());
+        requestContext.setProperty(ROUTE_PROPERTY, classified);
+        return classified;
+    }
+
+    /**
+     * Route of a path relative to the application root, with or without a leading slash
+     */
+    public Route classify(String path) {
+        Node node = root;
+        Route best = root.subtree;
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            int segmentLength = end - start;
+            if (segmentLength > 0) {
+                if (isDotSegment(path, start, segmentLength)) {
+                    // Never grant a public route to a path that may resolve elsewhere
+                    return Route.AUTHENTICATED;
+                }
+                node = node.child(path, start, segmentLength);
+                if (node == null) {
+                    return best != null ? best : Route.AUTHENTICATED;
+                }
+                if (node.subtree != null) {
+                    best = node.subtree;
+                }
+            }
+            start = end + 1;
+        }
+        if (node.exact != null) {
+            return node.exact;
+        }
+        return best != null ? best : Route.AUTHENTICATED;
+    }
+
+    private void exact(String path, Route route) {
+        node(path).exact = route;
+    }
+
+    private void prefix(String path, Route route) {
+        node(path).subtree = route;
+    }
+
+    private Node node(String path) {
+        Node node = root;
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                node = node.getOrAdd(segment);
+            }
+        }
+        return node;
+    }
+
+    private static boolean isDotSegment(String path, int start, int length) {
+        return path.charAt(start) == '.'
+                && (length == 1 || (length == 2 && path.charAt(start + 1) == '.'));
+    }
+
+    /**
+     * Trie node; children are few, so they are scanned rather than hashed
+     */
+    private static final class Node {
+        String[] segments = new String[0];
+        Node[] children = new Node[0];
+        Route exact;
+        Route subtree;
+
+        Node child(String path, int start, int length) {
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.length() == length && path.regionMatches(start, segment, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrAdd(String segment) {
+            Node existing = child(segment, 0, segment.length());
+            if (existing != null) {
+                return existing;
+            }
+            int size = segments.length;
+            segments = Arrays.copyOf(segments, size + 1);
+            children = Arrays.copyOf(children, size + 1);
+            segments[size] = segment;
+            children[size] = new Node();
+            return children[size];
+        }
+    }
+}
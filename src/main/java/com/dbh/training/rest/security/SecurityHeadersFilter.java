@@ -1,7 +1,9 @@
 package com.dbh.training.rest.security;
 
 import java.io.IOException;
+import java.util.function.BiConsumer;
 import javax.annotation.Priority;
+import javax.inject.Inject;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerResponseContext;
@@ -18,35 +20,43 @@ import javax.ws.rs.ext.Provider;
 @Priority(Priorities.HEADER_DECORATOR)
 public class SecurityHeadersFilter implements ContainerResponseFilter {
     
+    @Inject
+    private RouteTable routes;
+    
     @Override
     public void filter(ContainerRequestContext requestContext, 
                       ContainerResponseContext responseContext) throws IOException {
-        
+        addHeaders(responseContext.getHeaders()::add, routes.classify(requestContext).getCaching());
+    }
+    
+    /**
+     * Security headers, for responses written outside Jersey too
+     */
+    public static void addHeaders(BiConsumer<String, Object> headers, Route.Caching caching) {
         // Prevent MIME type sniffing
-        responseContext.getHeaders().add("X-Content-Type-Options", "nosniff");
+        headers.accept("X-Content-Type-Options", "nosniff");
         
         // Prevent clickjacking
-        responseContext.getHeaders().add("X-Frame-Options", "DENY");
+        headers.accept("X-Frame-Options", "DENY");
         
         // Enable XSS protection
-        responseContext.getHeaders().add("X-XSS-Protection", "1; mode=block");
+        headers.accept("X-XSS-Protection", "1; mode=block");
         
         // Force HTTPS (in production)
         // Uncomment for production with HTTPS
-        // responseContext.getHeaders().add("Strict-Transport-Security", "max-age=31536000; includeSubDomains");
+        // headers.accept("Strict-Transport-Security", "max-age=31536000; includeSubDomains");
         
         // Content Security Policy
-        responseContext.getHeaders().add("Content-Security-Policy", "default-src 'self'");
+        headers.accept("Content-Security-Policy", "default-src 'self'");
         
         // Referrer Policy
-        responseContext.getHeaders().add("Referrer-Policy", "strict-origin-when-cross-origin");
+        headers.accept("Referrer-Policy", "strict-origin-when-cross-origin");
         
         // Cache control for sensitive data
-        String path = requestContext.getUriInfo().getPath();
-        if (path.startsWith("users") || path.startsWith("auth")) {
-            responseContext.getHeaders().add("Cache-Control", "no-store, no-cache, must-revalidate");
-            responseContext.getHeaders().add("Pragma", "no-cache");
-            responseContext.getHeaders().add("Expires", "0");
+        if (caching == Route.Caching.NO_STORE) {
+            headers.accept("Cache-Control", "no-store, no-cache, must-revalidate");
+            headers.accept("Pragma", "no-cache");
+            headers.accept("Expires", "0");
         }
     }
 }
\ No newline at end of file
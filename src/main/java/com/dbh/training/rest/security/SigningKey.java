@@ -0,0 +1,287 @@
+package com.dbh.training.rest.security;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+/**
+ * One entry of the {@link JwtKeyRing}: a key id (kid), its algorithm and
+ * the verifiers built for it
+ *
+ * The jjwt parser and the per-thread Mac / Signature are initialized with
+ * the key once, when the key is created, not per token. All tokens signed
+ * with this key share the same encoded header, so a token is matched to its
+ * key by comparing that prefix, without decoding any JSON.
+ */
+final class SigningKey {
+
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final String kid;
+    private final SignatureAlgorithm algorithm;
+    private final Key signingKey;
+    private final Key verificationKey;
+    private final long createdAtMillis;
+    private final JwtParser parser;
+    private final String encodedHeader;
+    private final int signatureLength;
+    private final ThreadLocal<VerifierState> verifier;
+
+    /**
+     * HMAC key: the same secret signs and verifies
+     */
+    SigningKey(String kid, SecretKey secret, SignatureAlgorithm algorithm) {
+        this(kid, algorithm, secret, secret, System.currentTimeMillis());
+    }
+
+    /**
+     * RSA or EC key pair: only the public half is needed to verify
+     */
+    SigningKey(String kid, KeyPair keyPair, SignatureAlgorithm algorithm, long createdAtMillis) {
+        this(kid, algorithm, keyPair.getPrivate(), keyPair.getPublic(), createdAtMillis);
+    }
+
+    private SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey,
+                       long createdAtMillis) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+        this.createdAtMillis = createdAtMillis;
+        this.parser = Jwts.parserBuilder().setSigningKey(verificationKey).build();
+
+        // Every token of this key starts with the same header segment
+        String sample = Jwts.builder().setHeaderParam("kid", kid).setSubject("sample")
+                .signWith(signingKey, algorithm).compact();
+        this.encodedHeader = sample.substring(0, sample.indexOf('.') + 1);
+        this.signatureLength = Base64.getUrlDecoder().decode(sample.substring(sample.lastIndexOf('.') + 1)).length;
+        this.verifier = ThreadLocal.withInitial(this::newVerifierState);
+    }
+
+    String getKid() {
+        return kid;
+    }
+
+    SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    Key getSigningKey() {
+        return signingKey;
+    }
+
+    long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * Parser that verifies with this key only
+     */
+    JwtParser getParser() {
+        return parser;
+    }
+
+    /**
+     * @return true if the token's header is the one this key produces
+     */
+    boolean matchesHeader(String token) {
+        return token.startsWith(encodedHeader);
+    }
+
+    /**
+     * Check only the signature: no claims parsing, no expiry check.
+     *
+     * Uses this thread's pre-initialized Mac or Signature and scratch
+     * buffers, so steady state does not allocate for HMAC keys.
+     */
+    boolean verifySignature(String token) {
+        int signatureStart = token.lastIndexOf('.') + 1;
+        if (signatureStart <= 1 || token.indexOf('.') == signatureStart - 1
+                || token.length() - signatureStart != encodedLength(signatureLength)) {
+            return false;
+        }
+
+        VerifierState state = verifier.get();
+        if (!decode(token, signatureStart, state.actual)) {
+            return false;
+        }
+
+        // JWT header and payload are base64url, i.e. ASCII
+        int signedLength = signatureStart - 1;
+        byte[] input = state.input(signedLength);
+        for (int i = 0; i < signedLength; i++) {
+            input[i] = (byte) token.charAt(i);
+        }
+        try {
+            if (state.mac != null) {
+                state.mac.update(input, 0, signedLength);
+                state.mac.doFinal(state.expected, 0);
+                // Constant time comparison
+                return MessageDigest.isEqual(state.expected, state.actual);
+            }
+            state.signature.update(input, 0, signedLength);
+            byte[] signature = algorithm.isEllipticCurve() ? toDer(state.actual) : state.actual;
+            return state.signature.verify(signature);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Public key as a JWK (RFC 7517), or null for secret keys, which are never published
+     */
+    Map<String, Object> toJwk() {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (verificationKey instanceof RSAPublicKey) {
+            RSAPublicKey rsa = (RSAPublicKey) verificationKey;
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(rsa.getModulus(), 0));
+            jwk.put("e", base64Url(rsa.getPublicExponent(), 0));
+        } else if (verificationKey instanceof ECPublicKey) {
+            ECPublicKey ec = (ECPublicKey) verificationKey;
+            int size = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-" + ec.getParams().getCurve().getField().getFieldSize());
+            jwk.put("x", base64Url(ec.getW().getAffineX(), size));
+            jwk.put("y", base64Url(ec.getW().getAffineY(), size));
+        } else {
+            return null;
+        }
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm.getValue());
+        return jwk;
+    }
+
+    private VerifierState newVerifierState() {
+        try {
+            if (algorithm.isHmac()) {
+                Mac mac = Mac.getInstance(algorithm.getJcaName());
+                mac.init(verificationKey);
+                return new VerifierState(mac, null, signatureLength);
+            }
+            Signature signature = Signature.getInstance(algorithm.getJcaName());
+            signature.initVerify((PublicKey) verificationKey);
+            return new VerifierState(null, signature, signatureLength);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(algorithm.getJcaName() + " not available", e);
+        }
+    }
+
+    private static int encodedLength(int bytes) {
+        return (bytes * 8 + 5) / 6;
+    }
+
+    /**
+     * Decode an unpadded base64url segment into {@code out} without allocating
+     */
+    private static boolean decode(String token, int start, byte[] out) {
+        int bits = 0;
+        int bitCount = 0;
+        int written = 0;
+        for (int i = start; i < token.length(); i++) {
+            char c = token.charAt(i);
+            int value = c < 128 ? BASE64URL[c] : -1;
+            if (value < 0) {
+                return false;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[written++] = (byte) (bits >> bitCount);
+            }
+        }
+        // Unused trailing bits must be zero
+        return written == out.length && (bits & ((1 << bitCount) - 1)) == 0;
+    }
+
+    /**
+     * JWS carries an ECDSA signature as R || S; the JCA expects DER
+     */
+    private static byte[] toDer(byte[] concatenated) {
+        int half = concatenated.length / 2;
+        byte[] r = new BigInteger(1, Arrays.copyOfRange(concatenated, 0, half)).toByteArray();
+        byte[] s = new BigInteger(1, Arrays.copyOfRange(concatenated, half, concatenated.length)).toByteArray();
+        int sequenceLength = 2 + r.length + 2 + s.length;
+        byte[] der = new byte[(sequenceLength < 128 ? 2 : 3) + sequenceLength];
+        int i = 0;
+        der[i++] = 0x30;
+        if (sequenceLength >= 128) {
+            der[i++] = (byte) 0x81;
+        }
+        der[i++] = (byte) sequenceLength;
+        der[i++] = 0x02;
+        der[i++] = (byte) r.length;
+        System.arraycopy(r, 0, der, i, r.length);
+        i += r.length;
+        der[i++] = 0x02;
+        der[i++] = (byte) s.length;
+        System.arraycopy(s, 0, der, i, s.length);
+        return der;
+    }
+
+    /**
+     * Unsigned big-endian base64url, left-padded to {@code size} bytes if size > 0
+     */
+    private static String base64Url(BigInteger value, int size) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (size > bytes.length) {
+            byte[] padded = new byte[size];
+            System.arraycopy(bytes, 0, padded, size - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Per-thread verifier and scratch buffers
+     */
+    private static final class VerifierState {
+        final Mac mac;
+        final Signature signature;
+        final byte[] expected;
+        final byte[] actual;
+        private byte[] input = new byte[512];
+
+        VerifierState(Mac mac, Signature signature, int signatureLength) {
+            this.mac = mac;
+            this.signature = signature;
+            this.expected = new byte[signatureLength];
+            this.actual = new byte[signatureLength];
+        }
+
+        byte[] input(int length) {
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            return input;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.config.AppConfig;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import javax.inject.Singleton;
+
+/**
+ * Cache of verified bearer tokens
+ *
+ * A token is immutable and valid until it expires, so verifying it once is
+ * enough. Entries are keyed by the SHA-256 of the token (the raw token is
+ * never kept) and hold its {@link VerifiedToken} until the token's expiry.
+ *
+ * Invalid tokens go to a separate, short-lived negative cache. A flood of
+ * forged tokens is then rejected after one lookup, and since the two caches
+ * are bounded independently it can never push valid tokens out.
+ *
+ * Both caches are size-bounded: when one is full, expired entries are
+ * dropped first, then arbitrary entries until it is back under 90%.
+ */
+@Singleton
+public class TokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    /**
+     * First 128 bits of the token's SHA-256
+     */
+    public static final class Key {
+        private final long high;
+        private final long low;
+
+        Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high ^ low);
+        }
+    }
+
+    private final BoundedMap<VerifiedToken> verified;
+    private final BoundedMap<Long> rejected;
+    private final long negativeTtlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TokenCache() {
+        this(AppConfig.getInstance().getInt("security.token.cache.size", 10_000),
+             AppConfig.getInstance().getInt("security.token.cache.negative.size", 10_000),
+             AppConfig.getInstance().getLong("security.token.cache.negative.ttl.ms", 30_000));
+    }
+
+    public TokenCache(int maxSize, int maxNegativeSize, long negativeTtlMillis) {
+        this.verified = new BoundedMap<>(maxSize);
+        this.rejected = new BoundedMap<>(maxNegativeSize);
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /**
+     * Hash a token into a cache key. Hash once per request and reuse the key.
+     */
+    public Key keyOf(String token) {
+        byte[] hash = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return new Key(toLong(hash, 0), toLong(hash, 8));
+    }
+
+    /**
+     * @return Cached claims of a verified, unexpired token, or null
+     */
+    public VerifiedToken getVerified(Key key) {
+        VerifiedToken token = verified.get(key, System.currentTimeMillis());
+        if (token != null) {
+            hits.increment();
+        }
+        return token;
+    }
+
+    /**
+     * Check the negative cache; call after {@link #getVerified} returned null.
+     *
+     * @return true if the token was rejected recently
+     */
+    public boolean isRejected(Key key) {
+        if (rejected.get(key, System.currentTimeMillis()) != null) {
+            negativeHits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Remember a verified token until it expires
+     */
+    public void putVerified(Key key, VerifiedToken token) {
+        if (!token.isExpired(System.currentTimeMillis())) {
+            verified.put(key, token, token.getExpiresAtMillis());
+        }
+    }
+
+    /**
+     * Remember an invalid token for the negative TTL
+     */
+    public void putInvalid(Key key) {
+        long expiresAt = System.currentTimeMillis() + negativeTtlMillis;
+        rejected.put(key, expiresAt, expiresAt);
+    }
+
+    public void clear() {
+        verified.clear();
+        rejected.clear();
+    }
+
+    /**
+     * Hit-rate metrics, suitable for a JSON response
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long negativeHitCount = negativeHits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + negativeHitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", verified.size());
+        stats.put("negative_size", rejected.size());
+        stats.put("hits", hitCount);
+        stats.put("negative_hits", negativeHitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_rate", lookups == 0 ? 0.0 : (hitCount + negativeHitCount) / (double) lookups);
+        stats.put("evictions", verified.evictions.sum() + rejected.evictions.sum());
+        return stats;
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * ConcurrentHashMap with per-entry expiry and a size bound
+     */
+    private static final class BoundedMap<V> {
+        private final Map<Key, Timed<V>> map = new ConcurrentHashMap<>();
+        private final int maxSize;
+        private final AtomicBoolean evicting = new AtomicBoolean();
+        final LongAdder evictions = new LongAdder();
+
+        BoundedMap(int maxSize) {
+            this.maxSize = Math.max(1, maxSize);
+        }
+
+        V get(Key key, long now) {
+            Timed<V> timed = map.get(key);
+            if (timed == null) {
+                return null;
+            }
+            if (timed.expiresAtMillis <= now) {
+                map.remove(key, timed);
+                return null;
+            }
+            return timed.value;
+        }
+
+        void put(Key key, V value, long expiresAtMillis) {
+            map.put(key, new Timed<>(value, expiresAtMillis));
+            if (map.size() > maxSize) {
+                evict();
+            }
+        }
+
+        int size() {
+            return map.size();
+        }
+
+        void clear() {
+            map.clear();
+        }
+
+        /**
+         * One thread at a time trims the map; the others carry on inserting
+         */
+        private void evict() {
+            if (!evicting.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                long now = System.currentTimeMillis();
+                int target = maxSize - maxSize / 10;
+                map.values().removeIf(timed -> timed.expiresAtMillis <= now);
+                Iterator<Timed<V>> it = map.values().iterator();
+                while (map.size() > target && it.hasNext()) {
+                    it.next();
+                    it.remove();
+                    evictions.increment();
+                }
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    private static final class Timed<V> {
+        final V value;
+        final long expiresAtMillis;
+
+        Timed(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.config.AppConfig;
+import com.dbh.training.rest.util.BloomFilter;
+import com.dbh.training.rest.util.NamedThreadFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Revoked token ids (jti), for logout and compromised tokens
+ *
+ * Checked on every authenticated request, cached tokens included, so the
+ * common case must be cheap: a Bloom filter answers "not revoked" without
+ * touching the exact set. Only a Bloom filter hit, i.e. a revoked token or
+ * a rare false positive, is confirmed against the set.
+ *
+ * An entry is only needed until the token it revokes expires. A periodic
+ * prune drops expired entries and rebuilds the filter from the rest, since
+ * a Bloom filter cannot remove keys.
+ */
+@Singleton
+public class TokenRevocations {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocations.class);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // jti -> expiry of the revoked token (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final int expectedRevocations;
+    private final ScheduledExecutorService pruner;
+    private volatile BloomFilter filter;
+    private int filterCapacity;
+
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+
+    public TokenRevocations() {
+        this(AppConfig.getInstance().getInt("security.token.revocation.expected", 10_000),
+             AppConfig.getInstance().getLong("security.token.revocation.prune.seconds", 60));
+    }
+
+    /**
+     * @param expectedRevocations Live revocations the filter is sized for; it grows on prune if exceeded
+     * @param pruneSeconds Prune interval, or 0 to only prune on demand
+     */
+    public TokenRevocations(int expectedRevocations, long pruneSeconds) {
+        this.expectedRevocations = Math.max(16, expectedRevocations);
+        this.filterCapacity = this.expectedRevocations;
+        this.filter = new BloomFilter(filterCapacity, FALSE_POSITIVE_RATE);
+        if (pruneSeconds > 0) {
+            this.pruner = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("token-revocation"));
+            this.pruner.scheduleWithFixedDelay(this::prune, pruneSeconds, pruneSeconds, TimeUnit.SECONDS);
+        } else {
+            this.pruner = null;
+        }
+    }
+
+    /**
+     * Revoke a token until it expires
+     *
+     * @return true if this call revoked it, false if it was already revoked,
+     *         expired or has no id; lets exactly one caller consume a token
+     */
+    public synchronized boolean revoke(VerifiedToken token) {
+        if (token.getTokenId() == null || token.isExpired(System.currentTimeMillis())) {
+            return false;
+        }
+        // Exact set first: a reader that sees the filter bit must find the entry
+        if (revoked.putIfAbsent(token.getTokenId(), token.getExpiresAtMillis()) != null) {
+            return false;
+        }
+        filter.put(token.getTokenId());
+        logger.info("Revoked {} token {} of user {}", token.isRefresh() ? "refresh" : "access",
+                token.getTokenId(), token.getSubject());
+        return true;
+    }
+
+    /**
+     * @return true if the token was revoked; tokens without an id cannot be revoked
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        String tokenId = token.getTokenId();
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        filterHits.increment();
+        if (revoked.containsKey(tokenId)) {
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Drop revocations of expired tokens and rebuild the filter without them,
+     * larger if it has outgrown its capacity
+     *
+     * The new filter is filled before it is published, and revoke() waits
+     * for the prune, so no revoked id is ever missing from the live filter.
+     */
+    public synchronized void prune() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        int removed = before - revoked.size();
+        if (removed == 0 && revoked.size() <= filterCapacity) {
+            return;
+        }
+
+        filterCapacity = Math.max(expectedRevocations, revoked.size() * 2);
+        BloomFilter rebuilt = new BloomFilter(filterCapacity, FALSE_POSITIVE_RATE);
+        for (String tokenId : revoked.keySet()) {
+            rebuilt.put(tokenId);
+        }
+        filter = rebuilt;
+        pruned.add(removed);
+        logger.debug("Pruned {} expired revocations, {} remain", removed, revoked.size());
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Revocation metrics, suitable for a JSON response
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("revoked", revoked.size());
+        stats.put("filter_bits", filter.getBitCount());
+        stats.put("filter_hits", filterHits.sum());
+        stats.put("false_positives", falsePositives.sum());
+        stats.put("pruned", pruned.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pruner != null) {
+            pruner.shutdownNow();
+        }
+    }
+}
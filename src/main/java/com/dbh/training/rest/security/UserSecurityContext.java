@@ -1,7 +1,6 @@
 package com.dbh.training.rest.security;
 
 import java.security.Principal;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import javax.ws.rs.core.SecurityContext;
@@ -11,41 +10,46 @@ import javax.ws.rs.core.SecurityContext;
  * 
  * Exercise 08: Security Implementation
  * Provides user principal and role checking
+ * 
+ * Roles are held as a {@link Roles} bitmask, so isUserInRole is a map
+ * lookup of the (cached) role bit and an AND, and nothing is copied per
+ * request. The principal is created once per context.
  */
 public class UserSecurityContext implements SecurityContext {
     
-    private final String username;
-    private final Long userId;
-    private final Set<String> roles;
+    private final UserPrincipal principal;
+    private final long roleMask;
     private final SecurityContext originalContext;
     private final boolean secure;
+    private final String authenticationScheme;
     
     public UserSecurityContext(String username, Long userId, List<String> roles, 
                                SecurityContext originalContext) {
-        this.username = username;
-        this.userId = userId;
-        this.roles = roles != null ? new HashSet<>(roles) : new HashSet<>();
+        this(username, userId, Roles.maskOf(roles), originalContext);
+    }
+    
+    public UserSecurityContext(String username, Long userId, long roleMask,
+                               SecurityContext originalContext) {
+        this(username, userId, roleMask, originalContext, "Bearer");
+    }
+    
+    public UserSecurityContext(String username, Long userId, long roleMask,
+                               SecurityContext originalContext, String authenticationScheme) {
+        this.principal = new UserPrincipal(username, userId);
+        this.roleMask = roleMask;
         this.originalContext = originalContext;
         this.secure = originalContext != null ? originalContext.isSecure() : false;
+        this.authenticationScheme = authenticationScheme;
     }
     
     @Override
     public Principal getUserPrincipal() {
-        return new Principal() {
-            @Override
-            public String getName() {
-                return username;
-            }
-            
-            public Long getUserId() {
-                return userId;
-            }
-        };
+        return principal;
     }
     
     @Override
     public boolean isUserInRole(String role) {
-        return roles.contains(role);
+        return (roleMask & Roles.bitOf(role)) != 0L;
     }
     
     @Override
@@ -55,18 +59,52 @@ public class UserSecurityContext implements SecurityContext {
     
     @Override
     public String getAuthenticationScheme() {
-        return "Bearer";
+        return authenticationScheme;
     }
     
     public String getUsername() {
-        return username;
+        return principal.getName();
     }
     
     public Long getUserId() {
-        return userId;
+        return principal.getUserId();
     }
     
+    /**
+     * @return Unmodifiable role names, resolved from the mask on each call
+     */
     public Set<String> getRoles() {
-        return new HashSet<>(roles);
+        return Roles.namesOf(roleMask);
+    }
+    
+    public long getRoleMask() {
+        return roleMask;
+    }
+    
+    /**
+     * Authenticated user: name and id
+     */
+    public static final class UserPrincipal implements Principal {
+        private final String username;
+        private final Long userId;
+        
+        UserPrincipal(String username, Long userId) {
+            this.username = username;
+            this.userId = userId;
+        }
+        
+        @Override
+        public String getName() {
+            return username;
+        }
+        
+        public Long getUserId() {
+            return userId;
+        }
+        
+        @Override
+        public String toString() {
+            return username;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package com.dbh.training.rest.security;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Claims of a token whose signature and expiry have been checked
+ * 
+ * Produced once by {@link JwtService#verify(String)}; callers read typed
+ * values from it instead of verifying the token again per claim. Immutable,
+ * so it can also be cached and shared between requests.
+ */
+public final class VerifiedToken {
+    
+    private final String subject;
+    private final Long userId;
+    private final List<String> roles;
+    private final long roleMask;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+    private final String tokenId;
+    private final boolean refresh;
+    
+    public VerifiedToken(String subject, Long userId, List<String> roles,
+                         long issuedAtMillis, long expiresAtMillis) {
+        this(subject, userId, roles, issuedAtMillis, expiresAtMillis, null, false);
+    }
+    
+    public VerifiedToken(String subject, Long userId, List<String> roles,
+                         long issuedAtMillis, long expiresAtMillis, String tokenId, boolean refresh) {
+        this.subject = subject;
+        this.userId = userId;
+        this.roles = roles != null ? Collections.unmodifiableList(roles) : Collections.emptyList();
+        this.roleMask = Roles.maskOf(this.roles);
+        this.issuedAtMillis = issuedAtMillis;
+        this.expiresAtMillis = expiresAtMillis;
+        this.tokenId = tokenId;
+        this.refresh = refresh;
+    }
+    
+    /**
+     * @return Username the token was issued to
+     */
+    public String getSubject() {
+        return subject;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public List<String> getRoles() {
+        return roles;
+    }
+    
+    /**
+     * @return The roles as a {@link Roles} bitmask, computed once per token
+     */
+    public long getRoleMask() {
+        return roleMask;
+    }
+    
+    public long getIssuedAtMillis() {
+        return issuedAtMillis;
+    }
+    
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+    
+    /**
+     * @return The token's unique id (jti), used for revocation; null for tokens issued without one
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+    
+    /**
+     * @return true for a refresh token, which is only accepted by /auth/refresh
+     */
+    public boolean isRefresh() {
+        return refresh;
+    }
+    
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
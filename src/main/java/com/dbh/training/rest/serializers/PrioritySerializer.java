@@ -1,6 +1,7 @@
 package com.dbh.training.rest.serializers;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.dbh.training.rest.models.Priority;
@@ -18,17 +19,35 @@ import java.io.IOException;
  *   "level": 3,
  *   "color": "#FF0000"
  * }
+ * 
+ * Field names, values and colors are encoded once per priority, not per todo.
  */
 public class PrioritySerializer extends JsonSerializer<Priority> {
     
+    private static final SerializedString VALUE = new SerializedString("value");
+    private static final SerializedString LEVEL = new SerializedString("level");
+    private static final SerializedString COLOR = new SerializedString("color");
+    private static final SerializedString[] VALUES = new SerializedString[Priority.values().length];
+    private static final SerializedString[] COLORS = new SerializedString[Priority.values().length];
+    
+    static {
+        for (Priority priority : Priority.values()) {
+            VALUES[priority.ordinal()] = new SerializedString(priority.name());
+            COLORS[priority.ordinal()] = new SerializedString(priority.getColor());
+        }
+    }
+    
     @Override
     public void serialize(Priority priority, JsonGenerator gen, SerializerProvider serializers) 
             throws IOException {
         
-        gen.writeStartObject();
-        gen.writeStringField("value", priority.name());
-        gen.writeNumberField("level", priority.getLevel());
-        gen.writeStringField("color", priority.getColor());
+        gen.writeStartObject(priority);
+        gen.writeFieldName(VALUE);
+        gen.writeString(VALUES[priority.ordinal()]);
+        gen.writeFieldName(LEVEL);
+        gen.writeNumber(priority.getLevel());
+        gen.writeFieldName(COLOR);
+        gen.writeString(COLORS[priority.ordinal()]);
         gen.writeEndObject();
     }
 }
\ No newline at end of file
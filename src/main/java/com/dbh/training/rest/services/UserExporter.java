@@ -0,0 +1,199 @@
+package com.dbh.training.rest.services;
+
+import com.dbh.training.rest.models.User;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Incremental encoder for the user export.
+ *
+ * Works over a point-in-time snapshot of the user references, so a long
+ * running export neither sees users added mid-stream nor holds up writers.
+ * Records are encoded in chunks into a reusable buffer; the caller decides
+ * when to push each chunk to the client. That lets the async servlet write
+ * only while the connection is ready, and lets a blocking caller flush
+ * every N records.
+ *
+ * An export abandoned before its last chunk must be closed, which releases
+ * the native zlib memory of the gzip encoder.
+ */
+public class UserExporter implements Closeable {
+
+    /**
+     * Supported output formats
+     */
+    public enum Format {
+        /** Single JSON array */
+        JSON("application/json"),
+        /** Newline-delimited JSON, one user per line */
+        NDJSON("application/x-ndjson");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+
+    // Shared and thread-safe once configured; generators are per export
+    // (no root separator: NDJSON writes its own newlines)
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .setRootValueSeparator(null);
+
+    // Pre-encoded field names, written without per-record quoting/escaping
+    private static final SerializedString USER_ID = new SerializedString("user_id");
+    private static final SerializedString USER_NAME = new SerializedString("user_name");
+    private static final SerializedString EMAIL = new SerializedString("email_address");
+    private static final SerializedString FIRST_NAME = new SerializedString("first_name");
+    private static final SerializedString LAST_NAME = new SerializedString("last_name");
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final User[] snapshot;
+    private final Format format;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+    private final OutputStream encoded;
+    private final JsonGenerator gen;
+
+    private int position;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param users Users to export; copied to a snapshot immediately
+     * @param format Output format
+     * @param gzip Whether to gzip the output
+     */
+    public UserExporter(Collection<User> users, Format format, boolean gzip) throws IOException {
+        this.snapshot = users.toArray(new User[0]);
+        this.format = format;
+        // syncFlush so every chunk is decodable by the client as it arrives
+        this.encoded = gzip ? new GZIPOutputStream(buffer, 8192, true) : buffer;
+        this.gen = JSON_FACTORY.createGenerator(encoded, JsonEncoding.UTF8);
+    }
+
+    /**
+     * @return Number of users in the snapshot
+     */
+    public int size() {
+        return snapshot.length;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return Number of users encoded so far
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Encode up to {@code maxRecords} users and hand the encoded bytes to {@code out}
+     * in a single write call.
+     *
+     * @return true if more records remain
+     */
+    public boolean writeChunk(OutputStream out, int maxRecords) throws IOException {
+        if (finished) {
+            return false;
+        }
+        if (!started) {
+            if (format == Format.JSON) {
+                gen.writeStartArray();
+            }
+            started = true;
+        }
+
+        int end = (int) Math.min((long) position + Math.max(1, maxRecords), snapshot.length);
+        while (position < end) {
+            writeUser(snapshot[position++]);
+        }
+
+        if (position == snapshot.length) {
+            if (format == Format.JSON) {
+                gen.writeEndArray();
+            }
+            gen.close();
+            if (encoded != buffer) {
+                encoded.close();  // writes the gzip trailer
+            }
+            finished = true;
+        } else {
+            gen.flush();
+        }
+
+        buffer.writeTo(out);
+        buffer.reset();
+        return !finished;
+    }
+
+    /**
+     * Abandon the export: release the encoder without writing anything more.
+     * Does nothing once the export has finished.
+     */
+    @Override
+    public void close() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            gen.close();
+        } finally {
+            if (encoded != buffer) {
+                encoded.close();  // ends the Deflater
+            }
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Blocking export: write everything, flushing {@code out} every {@code flushInterval} records.
+     */
+    public void writeTo(OutputStream out, int flushInterval) throws IOException {
+        while (writeChunk(out, flushInterval)) {
+            out.flush();
+        }
+        out.flush();
+    }
+
+    private void writeUser(User user) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(USER_ID);
+        if (user.getId() != null) {
+            gen.writeNumber(user.getId());
+        } else {
+            gen.writeNull();
+        }
+        gen.writeFieldName(USER_NAME);
+        gen.writeString(user.getUsername());
+        gen.writeFieldName(EMAIL);
+        gen.writeString(user.getEmail());
+        gen.writeFieldName(FIRST_NAME);
+        gen.writeString(user.getFirstName());
+        gen.writeFieldName(LAST_NAME);
+        gen.writeString(user.getLastName());
+        gen.writeEndObject();
+
+        if (format == Format.NDJSON) {
+            gen.writeRaw('\n');
+        }
+    }
+}
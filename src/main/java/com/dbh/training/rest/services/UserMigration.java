@@ -0,0 +1,428 @@
+package com.dbh.training.rest.services;
+
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.models.UserV2;
+import com.dbh.training.rest.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Background job that migrates V1 users to V2.
+ *
+ * Pipeline, with a bounded queue between each stage:
+ * <pre>
+ *   reader --> [transform queue] --> N workers --> [import queue] --> importer
+ *   (V1 snapshot,                    (User -> UserV2,                   (in-order batch
+ *    batches by id)                   validate)                         insert, checkpoint)
+ * </pre>
+ * The reader takes a snapshot of V1, sorted by id, and cuts it into
+ * numbered batches. Workers transform and validate batches in parallel.
+ * The importer commits batches strictly in sequence, so the checkpoint
+ * (the last committed V1 id) always means "everything up to here is in V2".
+ * Starting a new job from that checkpoint resumes a cancelled run, or
+ * picks up V1 users created since the last one.
+ *
+ * Re-running is idempotent. Jobs share a map from V1 id to the V2 id each
+ * user was migrated to, and a user migrated before replaces its earlier
+ * copy under the same V2 id instead of adding another one. The checkpoint
+ * and that map live in memory, like the stores they describe, and do not
+ * survive a process restart.
+ *
+ * The job does not compete with live traffic: its threads run at minimum
+ * priority, the number of batches in flight is capped (memory), and the
+ * import rate can be capped with maxRecordsPerSecond.
+ */
+public class UserMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserMigration.class);
+
+    private static final int MAX_SAMPLE_ERRORS = 20;
+
+    /**
+     * Lifecycle of a job
+     */
+    public enum State {
+        CREATED, RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    /**
+     * A slice of the V1 snapshot travelling through the pipeline
+     */
+    private static final class Batch {
+        final long sequence;
+        final List<User> source;
+        final long lastId;
+        List<UserV2> valid;
+        // V1 ids of the valid users, in the same order
+        List<Long> validIds;
+        int invalid;
+
+        Batch(long sequence, List<User> source) {
+            this.sequence = sequence;
+            this.source = source;
+            this.lastId = source.isEmpty() ? 0 : source.get(source.size() - 1).getId();
+        }
+    }
+
+    // Marks the end of the stream on both queues
+    private static final Batch END = new Batch(-1, Collections.emptyList());
+
+    private final Supplier<Collection<User>> source;
+    private final Consumer<List<UserV2>> sink;
+    private final Map<Long, Long> migratedIds;
+    private final Validator validator;
+    private final int parallelism;
+    private final int batchSize;
+    private final int maxRecordsPerSecond;
+
+    private final BlockingQueue<Batch> transformQueue;
+    private final BlockingQueue<Batch> importQueue;
+    // Batches between the reader and the importer, including the reorder buffer
+    private final Semaphore inFlight;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<String> sampleErrors = new ArrayList<>();
+
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong transformed = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+
+    private volatile State state = State.CREATED;
+    private volatile long startCheckpoint;
+    private volatile long checkpoint;
+    private volatile long total;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile String failure;
+
+    /**
+     * @param source Supplies the V1 users; called once, when the job starts
+     * @param sink Inserts a batch of V2 users; must assign ids
+     * @param validator Bean Validation validator for UserV2
+     * @param parallelism Transform/validate workers
+     * @param batchSize V1 users per batch
+     * @param queueCapacity Capacity of each stage queue, in batches
+     * @param maxRecordsPerSecond Import rate cap, 0 for unlimited
+     */
+    public UserMigration(Supplier<Collection<User>> source, Consumer<List<UserV2>> sink, Validator validator,
+                         int parallelism, int batchSize, int queueCapacity, int maxRecordsPerSecond) {
+        this(source, sink, new ConcurrentHashMap<>(), validator, parallelism, batchSize, queueCapacity,
+             maxRecordsPerSecond);
+    }
+
+    /**
+     * @param source Supplies the V1 users; called once, when the job starts
+     * @param sink Inserts or replaces a batch of V2 users; must assign ids to those without one
+     * @param migratedIds V1 id to V2 id of users migrated by earlier jobs; updated as batches commit
+     * @param validator Bean Validation validator for UserV2
+     * @param parallelism Transform/validate workers
+     * @param batchSize V1 users per batch
+     * @param queueCapacity Capacity of each stage queue, in batches
+     * @param maxRecordsPerSecond Import rate cap, 0 for unlimited
+     */
+    public UserMigration(Supplier<Collection<User>> source, Consumer<List<UserV2>> sink,
+                         Map<Long, Long> migratedIds, Validator validator,
+                         int parallelism, int batchSize, int queueCapacity, int maxRecordsPerSecond) {
+        this.source = source;
+        this.sink = sink;
+        this.migratedIds = migratedIds;
+        this.validator = validator;
+        this.parallelism = Math.max(1, parallelism);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRecordsPerSecond = Math.max(0, maxRecordsPerSecond);
+        int capacity = Math.max(1, queueCapacity);
+        this.transformQueue = new ArrayBlockingQueue<>(capacity + this.parallelism);
+        this.importQueue = new ArrayBlockingQueue<>(capacity + this.parallelism);
+        this.inFlight = new Semaphore(capacity + this.parallelism);
+    }
+
+    /**
+     * Start migrating every V1 user with an id greater than {@code fromCheckpoint}.
+     */
+    public synchronized void start(long fromCheckpoint) {
+        if (state != State.CREATED) {
+            throw new IllegalStateException("Migration already started");
+        }
+        startCheckpoint = fromCheckpoint;
+        checkpoint = fromCheckpoint;
+        startNanos = System.nanoTime();
+        state = State.RUNNING;
+
+        ThreadFactory factory = new NamedThreadFactory("user-migration", Thread.MIN_PRIORITY);
+        threads.add(factory.newThread(this::readStage));
+        for (int i = 0; i < parallelism; i++) {
+            threads.add(factory.newThread(this::transformStage));
+        }
+        threads.add(factory.newThread(this::importStage));
+        threads.forEach(Thread::start);
+
+        logger.info("User migration started from checkpoint {} (parallelism={}, batchSize={})",
+                fromCheckpoint, parallelism, batchSize);
+    }
+
+    /**
+     * Stop the job. Committed batches stay in V2 and the checkpoint is kept.
+     */
+    public void cancel() {
+        stop(State.CANCELLED, null);
+    }
+
+    /**
+     * @return true if the job finished within the timeout
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return Last V1 id whose batch is committed to V2
+     */
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long getImported() {
+        return imported.get();
+    }
+
+    public long getInvalid() {
+        return invalid.get();
+    }
+
+    /**
+     * Progress and rate metrics, suitable for a JSON response
+     */
+    public Map<String, Object> getProgress() {
+        long processed = imported.get() + invalid.get();
+        long elapsedNanos = (state == State.RUNNING || endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+        long elapsedMillis = startNanos == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", state);
+        progress.put("start_checkpoint", startCheckpoint);
+        progress.put("checkpoint", checkpoint);
+        progress.put("total", total);
+        progress.put("read", read.get());
+        progress.put("transformed", transformed.get());
+        progress.put("imported", imported.get());
+        progress.put("invalid", invalid.get());
+        progress.put("percent", total == 0 ? (state == State.COMPLETED ? 100.0 : 0.0)
+                : Math.round(processed * 1000.0 / total) / 10.0);
+        progress.put("elapsed_ms", elapsedMillis);
+        progress.put("records_per_second", elapsedMillis == 0 ? 0 : Math.round(processed * 1000.0 / elapsedMillis));
+        progress.put("transform_queue", transformQueue.size());
+        progress.put("import_queue", importQueue.size());
+        synchronized (sampleErrors) {
+            progress.put("errors", new ArrayList<>(sampleErrors));
+        }
+        if (failure != null) {
+            progress.put("failure", failure);
+        }
+        return progress;
+    }
+
+    // --- Stages ---
+
+    private void readStage() {
+        try {
+            List<User> users = new ArrayList<>();
+            for (User user : source.get()) {
+                if (user.getId() != null && user.getId() > startCheckpoint) {
+                    users.add(user);
+                }
+            }
+            users.sort(Comparator.comparing(User::getId));
+            total = users.size();
+
+            long sequence = 0;
+            for (int from = 0; from < users.size(); from += batchSize) {
+                List<User> slice = users.subList(from, Math.min(from + batchSize, users.size()));
+                inFlight.acquire();
+                transformQueue.put(new Batch(sequence++, slice));
+                read.addAndGet(slice.size());
+            }
+            for (int i = 0; i < parallelism; i++) {
+                transformQueue.put(END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            stop(State.FAILED, e);
+        }
+    }
+
+    private void transformStage() {
+        try {
+            while (true) {
+                Batch batch = transformQueue.take();
+                if (batch == END) {
+                    importQueue.put(END);
+                    return;
+                }
+                List<UserV2> valid = new ArrayList<>(batch.source.size());
+                List<Long> validIds = new ArrayList<>(batch.source.size());
+                for (User user : batch.source) {
+                    UserV2 migrated = transform(user);
+                    Set<ConstraintViolation<UserV2>> violations = validator.validate(migrated);
+                    if (violations.isEmpty()) {
+                        // Migrated before: replace that copy rather than add another
+                        migrated.setId(migratedIds.get(user.getId()));
+                        valid.add(migrated);
+                        validIds.add(user.getId());
+                    } else {
+                        batch.invalid++;
+                        recordError(user, violations);
+                    }
+                }
+                batch.valid = valid;
+                batch.validIds = validIds;
+                transformed.addAndGet(batch.source.size());
+                importQueue.put(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            stop(State.FAILED, e);
+        }
+    }
+
+    private void importStage() {
+        try {
+            // Workers finish out of order; commit strictly by sequence
+            Map<Long, Batch> pending = new HashMap<>();
+            long next = 0;
+            int finishedWorkers = 0;
+            while (finishedWorkers < parallelism) {
+                Batch batch = importQueue.take();
+                if (batch == END) {
+                    finishedWorkers++;
+                    continue;
+                }
+                pending.put(batch.sequence, batch);
+                for (Batch ready = pending.remove(next); ready != null; ready = pending.remove(++next)) {
+                    commit(ready);
+                }
+            }
+            stop(State.COMPLETED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            stop(State.FAILED, e);
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private void commit(Batch batch) throws InterruptedException {
+        if (!batch.valid.isEmpty()) {
+            sink.accept(batch.valid);
+            for (int i = 0; i < batch.valid.size(); i++) {
+                migratedIds.put(batch.validIds.get(i), batch.valid.get(i).getId());
+            }
+        }
+        imported.addAndGet(batch.valid.size());
+        invalid.addAndGet(batch.invalid);
+        checkpoint = batch.lastId;
+        inFlight.release();
+        throttle();
+    }
+
+    /**
+     * Sleep off any lead over the configured rate
+     */
+    private void throttle() throws InterruptedException {
+        if (maxRecordsPerSecond == 0) {
+            return;
+        }
+        long processed = imported.get() + invalid.get();
+        long dueNanos = processed * 1_000_000_000L / maxRecordsPerSecond;
+        long aheadNanos = dueNanos - (System.nanoTime() - startNanos);
+        if (aheadNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        }
+    }
+
+    private synchronized void stop(State finalState, Throwable error) {
+        if (state != State.RUNNING) {
+            return;
+        }
+        state = finalState;
+        endNanos = System.nanoTime();
+        if (error != null) {
+            failure = error.toString();
+            logger.error("User migration failed at checkpoint {}", checkpoint, error);
+        } else {
+            logger.info("User migration {}: {} imported, {} invalid, checkpoint {}",
+                    finalState, imported.get(), invalid.get(), checkpoint);
+        }
+        if (finalState != State.COMPLETED) {
+            Thread current = Thread.currentThread();
+            for (Thread thread : threads) {
+                if (thread != current) {
+                    thread.interrupt();
+                }
+            }
+            if (threads.isEmpty()) {
+                done.countDown();
+            }
+        }
+    }
+
+    private void recordError(User user, Set<ConstraintViolation<UserV2>> violations) {
+        synchronized (sampleErrors) {
+            if (sampleErrors.size() < MAX_SAMPLE_ERRORS) {
+                for (ConstraintViolation<UserV2> violation : violations) {
+                    sampleErrors.add("V1 user " + user.getId() + ": " + violation.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Map a V1 user to V2. The V2 id is assigned by the sink; age is derived from the birth date.
+     */
+    static UserV2 transform(User user) {
+        UserV2 migrated = new UserV2(user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName());
+        migrated.setBirthDate(user.getBirthDate());
+        if (user.getBirthDate() != null) {
+            migrated.setAge(Period.between(user.getBirthDate(), LocalDate.now()).getYears());
+        }
+        migrated.setCreatedAt(user.getCreatedAt());
+        migrated.setStatus(user.getStatus());
+        migrated.setRoles(user.getRoles() != null ? new ArrayList<>(user.getRoles()) : null);
+        migrated.setPrimaryAddress(user.getPrimaryAddress());
+        migrated.setBillingAddress(user.getBillingAddress());
+        migrated.setLastLogin(user.getLastLogin());
+        migrated.setCompactBalance(user.getCompactBalance());
+        return migrated;
+    }
+}
@@ -0,0 +1,142 @@
+package com.dbh.training.rest.services;
+
+import com.dbh.training.rest.models.AccountStatus;
+import java.time.LocalDateTime;
+
+/**
+ * Filter, ordering and paging criteria for listing V2 users.
+ *
+ * All filters are optional; unset fields match everything.
+ * Built through {@link #builder()}.
+ */
+public class UserQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private AccountStatus status;
+    private String namePrefix;
+    private LocalDateTime createdAfter;
+    private LocalDateTime createdBefore;
+    private Integer minAge;
+    private Integer maxAge;
+    private UserV2Store.SortField sortField = UserV2Store.SortField.ID;
+    private boolean descending = false;
+    private int limit = DEFAULT_LIMIT;
+    private String cursor;
+
+    private UserQuery() {
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final UserQuery query = new UserQuery();
+
+        public Builder status(AccountStatus status) {
+            query.status = status;
+            return this;
+        }
+
+        public Builder namePrefix(String namePrefix) {
+            query.namePrefix = namePrefix == null || namePrefix.isEmpty()
+                    ? null : UserService.normalize(namePrefix);
+            return this;
+        }
+
+        public Builder createdAfter(LocalDateTime createdAfter) {
+            query.createdAfter = createdAfter;
+            return this;
+        }
+
+        public Builder createdBefore(LocalDateTime createdBefore) {
+            query.createdBefore = createdBefore;
+            return this;
+        }
+
+        public Builder minAge(Integer minAge) {
+            query.minAge = minAge;
+            return this;
+        }
+
+        public Builder maxAge(Integer maxAge) {
+            query.maxAge = maxAge;
+            return this;
+        }
+
+        public Builder sort(UserV2Store.SortField sortField, boolean descending) {
+            query.sortField = sortField;
+            query.descending = descending;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            query.limit = limit;
+            return this;
+        }
+
+        public Builder cursor(String cursor) {
+            query.cursor = cursor == null || cursor.isEmpty() ? null : cursor;
+            return this;
+        }
+
+        public UserQuery build() {
+            if (query.minAge != null && query.maxAge != null && query.minAge > query.maxAge) {
+                throw new IllegalArgumentException("minAge must not exceed maxAge");
+            }
+            if (query.createdAfter != null && query.createdBefore != null
+                    && query.createdAfter.isAfter(query.createdBefore)) {
+                throw new IllegalArgumentException("createdAfter must not be after createdBefore");
+            }
+            return query;
+        }
+    }
+
+    public AccountStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return Normalized (case-folded) username prefix, or null
+     */
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public LocalDateTime getCreatedAfter() {
+        return createdAfter;
+    }
+
+    public LocalDateTime getCreatedBefore() {
+        return createdBefore;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public UserV2Store.SortField getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+}
@@ -1,10 +1,17 @@
 package com.dbh.training.rest.services;
 
+import com.dbh.training.rest.exceptions.DuplicateUserException;
 import com.dbh.training.rest.models.AccountStatus;
 import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.security.PasswordPolicy;
+import com.dbh.training.rest.util.BloomFilter;
+import java.text.Normalizer;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
@@ -15,14 +22,34 @@ import org.slf4j.LoggerFactory;
  * 
  * Exercise 08: Security Implementation
  * Manages users with authentication support
+ * 
+ * Each stored user is a private snapshot that is never changed after it
+ * is published. Writes build a new snapshot and swap it into the id map
+ * and the unique indexes, so readers never lock and never see a
+ * half-applied update. Lookups return a copy of the snapshot (addresses
+ * and roles included), which the caller may change freely; changes are
+ * stored through updateUser. Last login times live in a per-user atomic
+ * cell that logins set without replacing the snapshot.
  */
 @Singleton
 public class UserService {
     
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     
-    private final Map<Long, User> users = new ConcurrentHashMap<>();
-    private final Map<String, User> usersByUsername = new ConcurrentHashMap<>();
+    // Sized for bulk signups; beyond this the false positive rate degrades gracefully
+    private static final int EXPECTED_USERS = 1_000_000;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    
+    private final Map<Long, Snapshot> users = new ConcurrentHashMap<>();
+    
+    // Unique indexes keyed by normalized (case-folded) username / email
+    private final ConcurrentMap<String, Snapshot> usersByUsername = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Snapshot> usersByEmail = new ConcurrentHashMap<>();
+    
+    // Fast reject for "name is free": a miss here means the key is not in the index
+    private final BloomFilter usernameFilter = new BloomFilter(EXPECTED_USERS, BLOOM_FALSE_POSITIVE_RATE);
+    private final BloomFilter emailFilter = new BloomFilter(EXPECTED_USERS, BLOOM_FALSE_POSITIVE_RATE);
+    
     private final AtomicLong idGenerator = new AtomicLong(1);
     
     public UserService() {
@@ -45,8 +72,7 @@ public class UserService {
         admin.setStatus(AccountStatus.ACTIVE);
         admin.setCreatedAt(LocalDateTime.now());
         
-        users.put(admin.getId(), admin);
-        usersByUsername.put(admin.getUsername(), admin);
+        publish(admin);
         
         // Regular user
         User user = new User();
@@ -60,8 +86,7 @@ public class UserService {
         user.setStatus(AccountStatus.ACTIVE);
         user.setCreatedAt(LocalDateTime.now());
         
-        users.put(user.getId(), user);
-        usersByUsername.put(user.getUsername(), user);
+        publish(user);
         
         // Test user
         User test = new User();
@@ -75,110 +100,307 @@ public class UserService {
         test.setStatus(AccountStatus.ACTIVE);
         test.setCreatedAt(LocalDateTime.now());
         
-        users.put(test.getId(), test);
-        usersByUsername.put(test.getUsername(), test);
+        publish(test);
         
         logger.info("Initialized {} default users", users.size());
     }
     
     /**
-     * Find user by username
+     * Normalize a username or email for the unique indexes.
+     * Unicode compatibility folding plus lower case, so "Admin" and "ADMIN" collide.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        return Normalizer.normalize(value.trim(), Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Find user by username (case-insensitive)
      */
     public User findByUsername(String username) {
-        return usersByUsername.get(username);
+        String key = normalize(username);
+        if (key == null || !usernameFilter.mightContain(key)) {
+            return null;
+        }
+        return copyOf(usersByUsername.get(key));
+    }
+    
+    /**
+     * Find user by email (case-insensitive)
+     */
+    public User findByEmail(String email) {
+        String key = normalize(email);
+        if (key == null || !emailFilter.mightContain(key)) {
+            return null;
+        }
+        return copyOf(usersByEmail.get(key));
+    }
+    
+    /**
+     * Check whether a username is registered.
+     * Answers from the Bloom filter alone for the common "free" case.
+     */
+    public boolean isUsernameTaken(String username) {
+        String key = normalize(username);
+        return key != null && usernameFilter.mightContain(key) && usersByUsername.containsKey(key);
+    }
+    
+    /**
+     * Check whether an email is registered.
+     */
+    public boolean isEmailTaken(String email) {
+        String key = normalize(email);
+        return key != null && emailFilter.mightContain(key) && usersByEmail.containsKey(key);
     }
     
     /**
      * Find user by ID
      */
     public User findById(Long id) {
-        return users.get(id);
+        return copyOf(users.get(id));
     }
     
     /**
      * Get all users
      */
     public List<User> getAllUsers() {
-        return new ArrayList<>(users.values());
+        List<User> all = new ArrayList<>(users.size());
+        for (Snapshot snapshot : users.values()) {
+            all.add(snapshot.copy());
+        }
+        return all;
     }
     
     /**
      * Create new user
+     * 
+     * The given user is copied; the result is a copy of what is stored.
+     * 
+     * @throws DuplicateUserException if the username or email is already registered
      */
     public User createUser(User user) {
-        if (user.getId() == null) {
-            user.setId(idGenerator.getAndIncrement());
+        User created = new User(user);
+        if (created.getId() == null) {
+            created.setId(idGenerator.getAndIncrement());
         }
         
-        if (user.getCreatedAt() == null) {
-            user.setCreatedAt(LocalDateTime.now());
+        if (created.getCreatedAt() == null) {
+            created.setCreatedAt(LocalDateTime.now());
         }
         
-        if (user.getStatus() == null) {
-            user.setStatus(AccountStatus.ACTIVE);
+        if (created.getStatus() == null) {
+            created.setStatus(AccountStatus.ACTIVE);
         }
         
-        if (user.getRoles() == null || user.getRoles().isEmpty()) {
-            user.setRoles(new HashSet<>(Collections.singletonList("USER")));
+        if (created.getRoles() == null || created.getRoles().isEmpty()) {
+            created.setRoles(new HashSet<>(Collections.singletonList("USER")));
         }
         
-        users.put(user.getId(), user);
-        usersByUsername.put(user.getUsername(), user);
+        Snapshot snapshot = publish(created);
         
-        logger.info("Created user: {}", user.getUsername());
+        logger.info("Created user: {}", created.getUsername());
         
-        return user;
+        return snapshot.copy();
     }
     
     /**
      * Update existing user
+     * 
+     * Builds a new snapshot and swaps it in atomically; concurrent updates
+     * of the same user are applied one after the other.
      */
     public User updateUser(Long id, User user) {
-        User existing = users.get(id);
-        if (existing == null) {
-            return null;
-        }
+        Snapshot updated = users.computeIfPresent(id, (key, existing) -> {
+            User changed = new User(existing.user);
+            changed.setEmail(user.getEmail());
+            changed.setFirstName(user.getFirstName());
+            changed.setLastName(user.getLastName());
+            
+            if (user.getRoles() != null) {
+                changed.setRoles(user.getRoles());
+            }
+            
+            if (user.getStatus() != null) {
+                changed.setStatus(user.getStatus());
+            }
+            
+            Snapshot snapshot = new Snapshot(changed, existing.lastLoginMillis);
+            
+            // Move the email index entry first so a clash leaves the user untouched
+            reindexEmail(existing, snapshot);
+            usersByUsername.replace(normalize(existing.user.getUsername()), existing, snapshot);
+            return snapshot;
+        });
         
-        // Update fields
-        existing.setEmail(user.getEmail());
-        existing.setFirstName(user.getFirstName());
-        existing.setLastName(user.getLastName());
-        
-        if (user.getRoles() != null) {
-            existing.setRoles(user.getRoles());
-        }
-        
-        if (user.getStatus() != null) {
-            existing.setStatus(user.getStatus());
+        if (updated != null) {
+            logger.info("Updated user: {}", updated.user.getUsername());
         }
         
-        logger.info("Updated user: {}", existing.getUsername());
-        
-        return existing;
+        return copyOf(updated);
     }
     
     /**
      * Delete user
      */
     public boolean deleteUser(Long id) {
-        User user = users.remove(id);
-        if (user != null) {
-            usersByUsername.remove(user.getUsername());
-            logger.info("Deleted user: {}", user.getUsername());
+        Snapshot snapshot = users.remove(id);
+        if (snapshot != null) {
+            usersByUsername.remove(normalize(snapshot.user.getUsername()), snapshot);
+            if (snapshot.user.getEmail() != null) {
+                usersByEmail.remove(normalize(snapshot.user.getEmail()), snapshot);
+            }
+            logger.info("Deleted user: {}", snapshot.user.getUsername());
             return true;
         }
         return false;
     }
     
     /**
-     * Authenticate user with username and password
+     * Replace a user's password hash, if it is still the one the caller verified
+     * 
+     * Used by AuthResource to move a hash to a new BCrypt cost after a
+     * successful login; a concurrent password change wins over the rehash.
+     *
+     * @return The updated user, or null if the user is gone or the hash changed
      */
-    public User authenticate(String username, String password) {
-        User user = findByUsername(username);
-        if (user != null && user.checkPassword(password)) {
-            user.setLastLogin(LocalDateTime.now());
-            return user;
+    public User updatePasswordHash(Long id, String expectedHash, String newHash) {
+        Snapshot[] swapped = new Snapshot[1];
+        users.computeIfPresent(id, (key, existing) -> {
+            if (!Objects.equals(existing.user.getPasswordHash(), expectedHash)) {
+                return existing;
+            }
+            User changed = new User(existing.user);
+            changed.setPasswordHash(newHash);
+            Snapshot snapshot = new Snapshot(changed, existing.lastLoginMillis);
+            usersByUsername.replace(normalize(existing.user.getUsername()), existing, snapshot);
+            if (existing.user.getEmail() != null) {
+                usersByEmail.replace(normalize(existing.user.getEmail()), existing, snapshot);
+            }
+            swapped[0] = snapshot;
+            return snapshot;
+        });
+        
+        if (swapped[0] != null) {
+            logger.info("Rehashed password of user {} at BCrypt cost {}",
+                    swapped[0].user.getUsername(), PasswordPolicy.costOf(newHash));
+        }
+        return copyOf(swapped[0]);
+    }
+    
+    /**
+     * Record a successful login for a user whose password was verified elsewhere
+     */
+    public void recordLogin(User user) {
+        Snapshot snapshot = users.get(user.getId());
+        if (snapshot != null) {
+            snapshot.lastLoginMillis.set(System.currentTimeMillis());
+        }
+    }
+    
+    /**
+     * Last successful login of a user, or null if they never logged in
+     */
+    public LocalDateTime getLastLogin(Long id) {
+        Snapshot snapshot = users.get(id);
+        return snapshot != null ? snapshot.getLastLogin() : null;
+    }
+    
+    /**
+     * Freeze a new user into a snapshot, claim its unique keys and store it
+     */
+    private Snapshot publish(User user) {
+        // Last login cell (epoch millis, 0 = never) is handed on to every later snapshot
+        Snapshot snapshot = new Snapshot(user, new AtomicLong());
+        // Claiming the unique keys is the atomic uniqueness check
+        reserve(snapshot);
+        users.put(snapshot.user.getId(), snapshot);
+        return snapshot;
+    }
+    
+    private static User copyOf(Snapshot snapshot) {
+        return snapshot != null ? snapshot.copy() : null;
+    }
+    
+    /**
+     * Atomically claim the username and email index entries for a user.
+     * Rolls back the username claim if the email is already taken.
+     */
+    private void reserve(Snapshot snapshot) {
+        String usernameKey = normalize(snapshot.user.getUsername());
+        if (usernameKey == null) {
+            throw new IllegalArgumentException("Username is required");
+        }
+        
+        // Bloom filter must learn the key before the map does, otherwise a
+        // concurrent lookup could be rejected while the entry exists
+        usernameFilter.put(usernameKey);
+        if (usersByUsername.putIfAbsent(usernameKey, snapshot) != null) {
+            throw new DuplicateUserException("username", "Username already exists");
+        }
+        
+        String emailKey = normalize(snapshot.user.getEmail());
+        if (emailKey != null) {
+            emailFilter.put(emailKey);
+            if (usersByEmail.putIfAbsent(emailKey, snapshot) != null) {
+                usersByUsername.remove(usernameKey, snapshot);
+                throw new DuplicateUserException("email", "Email already exists");
+            }
+        }
+    }
+    
+    /**
+     * Point the email index at a user's new snapshot, moving the entry if the address changed.
+     */
+    private void reindexEmail(Snapshot existing, Snapshot updated) {
+        String oldKey = normalize(existing.user.getEmail());
+        String newKey = normalize(updated.user.getEmail());
+        if (Objects.equals(oldKey, newKey)) {
+            if (newKey != null) {
+                usersByEmail.replace(newKey, existing, updated);
+            }
+            return;
+        }
+        
+        if (newKey != null) {
+            emailFilter.put(newKey);
+            if (usersByEmail.putIfAbsent(newKey, updated) != null) {
+                throw new DuplicateUserException("email", "Email already exists");
+            }
+        }
+        if (oldKey != null) {
+            usersByEmail.remove(oldKey, existing);
+        }
+    }
+    
+    /**
+     * One published version of a user
+     *
+     * The user is a private copy that is never changed or handed out;
+     * readers get {@link #copy()}. The last login time is not part of the
+     * version: it is read from a cell shared by all versions of the user.
+     */
+    private static final class Snapshot {
+        final User user;
+        final AtomicLong lastLoginMillis;
+        
+        Snapshot(User user, AtomicLong lastLoginMillis) {
+            // Own copy: the caller may keep changing the user it built this from
+            this.user = new User(user);
+            this.lastLoginMillis = lastLoginMillis;
+        }
+        
+        LocalDateTime getLastLogin() {
+            long millis = lastLoginMillis.get();
+            return millis == 0L ? null
+                    : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        }
+        
+        User copy() {
+            User copy = new User(user);
+            copy.setLastLogin(getLastLogin());
+            return copy;
         }
-        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,301 @@
+package com.dbh.training.rest.services;
+
+import com.dbh.training.rest.models.UserV2;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Streaming bulk importer for V2 users.
+ *
+ * Pipeline: the request body (a JSON array or NDJSON) is parsed record by
+ * record with a {@link JsonParser}, so the whole payload never sits in
+ * memory. Records are grouped into chunks; each chunk is validated on the
+ * executor while the next one is being parsed, with at most
+ * {@code parallelism} chunks in flight. Chunks are then inserted in order,
+ * one batch per chunk, and a result line per record is written back as
+ * NDJSON, followed by a summary line with the throughput.
+ */
+public class UserV2Importer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserV2Importer.class);
+
+    /**
+     * Outcome of one import run
+     */
+    public static class Summary {
+        private long total;
+        private long created;
+        private long failed;
+        private long elapsedMillis;
+        private boolean aborted;
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public boolean isAborted() {
+            return aborted;
+        }
+
+        public double getRecordsPerSecond() {
+            return elapsedMillis > 0 ? total * 1000.0 / elapsedMillis : total;
+        }
+    }
+
+    /**
+     * One parsed record: either a user, or the reason it could not be bound
+     */
+    private static final class Record {
+        final long index;
+        final UserV2 user;
+        List<String> errors;
+
+        Record(long index, UserV2 user, List<String> errors) {
+            this.index = index;
+            this.user = user;
+            this.errors = errors;
+        }
+    }
+
+    private final ObjectMapper mapper;
+    private final ObjectReader userReader;
+    private final Validator validator;
+    private final Executor executor;
+    private final int chunkSize;
+    private final int parallelism;
+
+    /**
+     * @param mapper Mapper used to bind records (the application's configured mapper)
+     * @param validator Bean Validation validator
+     * @param executor Executor for chunk validation
+     * @param chunkSize Records per validation chunk and insert batch
+     * @param parallelism Maximum chunks validated concurrently
+     */
+    public UserV2Importer(ObjectMapper mapper, Validator validator, Executor executor,
+                          int chunkSize, int parallelism) {
+        this.mapper = mapper;
+        this.userReader = mapper.readerFor(UserV2.class);
+        this.validator = validator;
+        this.executor = executor;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Import all records from {@code in}, handing each valid chunk to {@code batchSink}
+     * and writing per-record results to {@code out}.
+     *
+     * The sink must assign ids to the users it stores.
+     */
+    public Summary run(InputStream in, Consumer<List<UserV2>> batchSink, OutputStream out) throws IOException {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        Deque<CompletableFuture<List<Record>>> inFlight = new ArrayDeque<>();
+
+        JsonFactory factory = mapper.getFactory();
+        try (JsonParser parser = factory.createParser(in);
+             JsonGenerator gen = factory.createGenerator(out)) {
+            // One result object per line; the response stream is closed by the container
+            gen.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            List<Record> chunk = new ArrayList<>(chunkSize);
+            String malformed = null;
+            try {
+                long index = 0;
+                JsonToken token = parser.nextToken();
+                boolean array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    chunk.add(bind(index++, parser));
+                    if (chunk.size() == chunkSize) {
+                        submit(chunk, inFlight);
+                        chunk = new ArrayList<>(chunkSize);
+                        while (inFlight.size() >= parallelism) {
+                            complete(inFlight.removeFirst(), batchSink, gen, summary);
+                        }
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException e) {
+                // Malformed JSON: the stream cannot be resynchronized, keep what was parsed
+                summary.aborted = true;
+                malformed = e.getOriginalMessage();
+                logger.warn("Import aborted, malformed input: {}", malformed);
+            }
+            if (!chunk.isEmpty()) {
+                submit(chunk, inFlight);
+            }
+
+            while (!inFlight.isEmpty()) {
+                complete(inFlight.removeFirst(), batchSink, gen, summary);
+            }
+            // After the results of every record parsed before the error
+            if (malformed != null) {
+                writeAbort(gen, malformed);
+            }
+
+            summary.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            writeSummary(gen, summary);
+        }
+
+        logger.info("Imported {} of {} users in {} ms ({} records/s)",
+                summary.created, summary.total, summary.elapsedMillis,
+                Math.round(summary.getRecordsPerSecond()));
+        return summary;
+    }
+
+    /**
+     * Bind the object at the parser's current token. Binding goes through a
+     * tree so a bad field only fails its own record and the parser stays in sync.
+     */
+    private Record bind(long index, JsonParser parser) throws IOException {
+        JsonNode node = parser.readValueAsTree();
+        if (node == null || !node.isObject()) {
+            return new Record(index, null, single("Record must be a JSON object"));
+        }
+        try {
+            UserV2 user = userReader.readValue(node);
+            // Ids are always assigned by the server
+            user.setId(null);
+            return new Record(index, user, null);
+        } catch (IOException e) {
+            return new Record(index, null, single("Invalid record: " + e.getMessage().split("\n")[0]));
+        }
+    }
+
+    private void submit(List<Record> chunk, Deque<CompletableFuture<List<Record>>> inFlight) {
+        inFlight.addLast(CompletableFuture.supplyAsync(() -> validate(chunk), executor));
+    }
+
+    private List<Record> validate(List<Record> chunk) {
+        for (Record record : chunk) {
+            if (record.user == null) {
+                continue;
+            }
+            Set<ConstraintViolation<UserV2>> violations = validator.validate(record.user);
+            if (!violations.isEmpty()) {
+                List<String> errors = new ArrayList<>(violations.size());
+                for (ConstraintViolation<UserV2> violation : violations) {
+                    errors.add(violation.getMessage());
+                }
+                record.errors = errors;
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Wait for a validated chunk, insert its valid users as one batch and report each record.
+     */
+    private void complete(CompletableFuture<List<Record>> future, Consumer<List<UserV2>> batchSink,
+                          JsonGenerator gen, Summary summary) throws IOException {
+        List<Record> chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Validation failed", e.getCause());
+        }
+
+        List<UserV2> batch = new ArrayList<>(chunk.size());
+        for (Record record : chunk) {
+            if (record.errors == null) {
+                batch.add(record.user);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchSink.accept(batch);
+        }
+
+        for (Record record : chunk) {
+            summary.total++;
+            gen.writeStartObject();
+            gen.writeNumberField("index", record.index);
+            if (record.errors == null) {
+                summary.created++;
+                gen.writeStringField("status", "created");
+                gen.writeNumberField("user_id", record.user.getId());
+            } else {
+                summary.failed++;
+                gen.writeStringField("status", "invalid");
+                gen.writeArrayFieldStart("errors");
+                for (String error : record.errors) {
+                    gen.writeString(error);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        gen.flush();
+    }
+
+    private static void writeAbort(JsonGenerator gen, String message) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("status", "aborted");
+        gen.writeStringField("error", "Malformed JSON: " + message);
+        gen.writeEndObject();
+    }
+
+    private static void writeSummary(JsonGenerator gen, Summary summary) throws IOException {
+        gen.writeStartObject();
+        gen.writeObjectFieldStart("summary");
+        gen.writeNumberField("total", summary.total);
+        gen.writeNumberField("created", summary.created);
+        gen.writeNumberField("failed", summary.failed);
+        gen.writeBooleanField("aborted", summary.aborted);
+        gen.writeNumberField("elapsed_ms", summary.elapsedMillis);
+        gen.writeNumberField("records_per_second", Math.round(summary.getRecordsPerSecond()));
+        gen.writeEndObject();
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+        gen.flush();
+    }
+
+    private static List<String> single(String message) {
+        List<String> errors = new ArrayList<>(1);
+        errors.add(message);
+        return errors;
+    }
+}
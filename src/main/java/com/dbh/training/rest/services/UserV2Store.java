@@ -0,0 +1,337 @@
+package com.dbh.training.rest.services;
+
+import com.dbh.training.rest.models.UserV2;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * In-memory storage for V2 users with ordered secondary indexes.
+ *
+ * Every sortable field has a skip-list index keyed by (field value, id).
+ * A query walks the index of its sort field, starting at the cursor and
+ * narrowed by any range filter on that same field, and stops as soon as
+ * the page is full. Listing cost therefore tracks the page size rather than
+ * the number of stored users; only filters on other fields are checked
+ * entry by entry.
+ *
+ * Writes are serialized so the indexes stay consistent with each other;
+ * reads never block.
+ */
+public class UserV2Store {
+
+    /**
+     * Sortable fields and how to derive / round-trip their index values.
+     */
+    public enum SortField {
+        ID(UserV2::getId, Long::valueOf),
+        USERNAME(u -> UserService.normalize(u.getUsername()), s -> s),
+        LAST_NAME(u -> UserService.normalize(u.getLastName()), s -> s),
+        CREATED_AT(UserV2::getCreatedAt, LocalDateTime::parse),
+        AGE(UserV2::getAge, Integer::valueOf);
+
+        private final Function<UserV2, Comparable<?>> extractor;
+        private final Function<String, Comparable<?>> parser;
+
+        SortField(Function<UserV2, Comparable<?>> extractor, Function<String, Comparable<?>> parser) {
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+
+        Comparable<?> valueOf(UserV2 user) {
+            return extractor.apply(user);
+        }
+
+        /**
+         * Parse a sort field name such as "createdAt" or "last_name".
+         */
+        public static SortField fromString(String value) {
+            if (value == null || value.isEmpty()) {
+                return ID;
+            }
+            String normalized = value.replace("_", "").toLowerCase();
+            for (SortField field : values()) {
+                if (field.name().replace("_", "").toLowerCase().equals(normalized)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown sort field: " + value);
+        }
+    }
+
+    /**
+     * Result page with an opaque cursor for the next page (null on the last page).
+     */
+    public static class Page<T> {
+        private final List<T> items;
+        private final String nextCursor;
+
+        Page(List<T> items, String nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    /**
+     * Composite index key; the id breaks ties so keys are unique.
+     * Null values sort last.
+     */
+    static final class SortKey implements Comparable<SortKey> {
+        private static final Comparator<Comparable<Object>> VALUE_ORDER =
+                Comparator.nullsLast(Comparator.naturalOrder());
+
+        final Comparable<?> value;
+        final long id;
+
+        SortKey(Comparable<?> value, long id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compareTo(SortKey other) {
+            int c = VALUE_ORDER.compare((Comparable<Object>) value, (Comparable<Object>) other.value);
+            return c != 0 ? c : Long.compare(id, other.id);
+        }
+    }
+
+    private final Map<Long, UserV2> byId = new ConcurrentHashMap<>();
+    private final Map<SortField, ConcurrentSkipListMap<SortKey, UserV2>> indexes = new EnumMap<>(SortField.class);
+
+    public UserV2Store() {
+        for (SortField field : SortField.values()) {
+            indexes.put(field, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    public UserV2 get(Long id) {
+        return byId.get(id);
+    }
+
+    public boolean contains(Long id) {
+        return byId.containsKey(id);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return Unordered snapshot of all users
+     */
+    public Collection<UserV2> values() {
+        return new ArrayList<>(byId.values());
+    }
+
+    /**
+     * Insert or replace a user. The user must have an id.
+     *
+     * @return The previous user with the same id, or null
+     */
+    public synchronized UserV2 put(UserV2 user) {
+        UserV2 previous = byId.put(user.getId(), user);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(user);
+        return previous;
+    }
+
+    /**
+     * Insert or replace a batch of users under a single write lock.
+     */
+    public synchronized void putAll(Collection<UserV2> batch) {
+        for (UserV2 user : batch) {
+            put(user);
+        }
+    }
+
+    /**
+     * Replace a user only if the id already exists.
+     *
+     * @return The previous user, or null if there was none (nothing stored)
+     */
+    public synchronized UserV2 replace(UserV2 user) {
+        if (!byId.containsKey(user.getId())) {
+            return null;
+        }
+        return put(user);
+    }
+
+    public synchronized UserV2 remove(Long id) {
+        UserV2 removed = byId.remove(id);
+        if (removed != null) {
+            unindex(removed);
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        byId.clear();
+        for (ConcurrentSkipListMap<SortKey, UserV2> index : indexes.values()) {
+            index.clear();
+        }
+    }
+
+    /**
+     * Run a filtered, ordered, cursor-paged query.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another ordering
+     */
+    public Page<UserV2> query(UserQuery query) {
+        SortField field = query.getSortField();
+        NavigableMap<SortKey, UserV2> view = rangeFor(field, query);
+        if (query.isDescending()) {
+            view = view.descendingMap();
+        }
+        if (query.getCursor() != null) {
+            view = view.tailMap(decodeCursor(query.getCursor(), field, query.isDescending()), false);
+        }
+
+        List<UserV2> items = new ArrayList<>(Math.min(query.getLimit(), 64));
+        SortKey last = null;
+        boolean more = false;
+
+        for (Map.Entry<SortKey, UserV2> entry : view.entrySet()) {
+            UserV2 user = entry.getValue();
+            // Skip entries whose user was replaced or removed mid-iteration
+            if (byId.get(user.getId()) != user || !matches(user, query)) {
+                continue;
+            }
+            if (items.size() == query.getLimit()) {
+                more = true;
+                break;
+            }
+            items.add(user);
+            last = entry.getKey();
+        }
+
+        String nextCursor = more ? encodeCursor(field, query.isDescending(), last) : null;
+        return new Page<>(Collections.unmodifiableList(items), nextCursor);
+    }
+
+    /**
+     * Narrow the sort index to the range implied by a filter on the same field.
+     */
+    private NavigableMap<SortKey, UserV2> rangeFor(SortField field, UserQuery query) {
+        NavigableMap<SortKey, UserV2> index = indexes.get(field);
+        Comparable<?> from = null;
+        Comparable<?> to = null;
+
+        switch (field) {
+            case USERNAME:
+                if (query.getNamePrefix() != null) {
+                    from = query.getNamePrefix();
+                    to = query.getNamePrefix() + Character.MAX_VALUE;
+                }
+                break;
+            case CREATED_AT:
+                from = query.getCreatedAfter();
+                to = query.getCreatedBefore();
+                break;
+            case AGE:
+                from = query.getMinAge();
+                to = query.getMaxAge();
+                break;
+            default:
+                break;
+        }
+
+        if (from != null) {
+            index = index.tailMap(new SortKey(from, Long.MIN_VALUE), true);
+        }
+        if (to != null) {
+            index = index.headMap(new SortKey(to, Long.MAX_VALUE), true);
+        }
+        return index;
+    }
+
+    private static boolean matches(UserV2 user, UserQuery query) {
+        if (query.getStatus() != null && query.getStatus() != user.getStatus()) {
+            return false;
+        }
+        if (query.getNamePrefix() != null) {
+            String username = UserService.normalize(user.getUsername());
+            if (username == null || !username.startsWith(query.getNamePrefix())) {
+                return false;
+            }
+        }
+        LocalDateTime createdAt = user.getCreatedAt();
+        if (query.getCreatedAfter() != null
+                && (createdAt == null || createdAt.isBefore(query.getCreatedAfter()))) {
+            return false;
+        }
+        if (query.getCreatedBefore() != null
+                && (createdAt == null || createdAt.isAfter(query.getCreatedBefore()))) {
+            return false;
+        }
+        Integer age = user.getAge();
+        if (query.getMinAge() != null && (age == null || age < query.getMinAge())) {
+            return false;
+        }
+        if (query.getMaxAge() != null && (age == null || age > query.getMaxAge())) {
+            return false;
+        }
+        return true;
+    }
+
+    private void index(UserV2 user) {
+        for (Map.Entry<SortField, ConcurrentSkipListMap<SortKey, UserV2>> entry : indexes.entrySet()) {
+            entry.getValue().put(new SortKey(entry.getKey().valueOf(user), user.getId()), user);
+        }
+    }
+
+    private void unindex(UserV2 user) {
+        for (Map.Entry<SortField, ConcurrentSkipListMap<SortKey, UserV2>> entry : indexes.entrySet()) {
+            entry.getValue().remove(new SortKey(entry.getKey().valueOf(user), user.getId()), user);
+        }
+    }
+
+    // Cursor format (base64url): FIELD|a or d|id|n  (null value) or FIELD|a or d|id|v<value>
+
+    private static String encodeCursor(SortField field, boolean descending, SortKey key) {
+        String raw = field.name() + '|' + (descending ? 'd' : 'a') + '|' + key.id + '|'
+                + (key.value == null ? "n" : "v" + key.value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SortKey decodeCursor(String cursor, SortField field, boolean descending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 4 || !parts[0].equals(field.name())
+                || !parts[1].equals(descending ? "d" : "a") || parts[3].isEmpty()) {
+            throw new IllegalArgumentException("Cursor does not match the requested ordering");
+        }
+        try {
+            long id = Long.parseLong(parts[2]);
+            Comparable<?> value = parts[3].charAt(0) == 'n' ? null : field.parser.apply(parts[3].substring(1));
+            return new SortKey(value, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
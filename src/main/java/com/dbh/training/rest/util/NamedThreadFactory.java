@@ -0,0 +1,35 @@
+package com.dbh.training.rest.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factory for background pools.
+ *
+ * Threads are named "prefix-N" so they are easy to spot in thread dumps,
+ * are daemons so they never block JVM shutdown, and can be given a lower
+ * priority for work that must not compete with request threads.
+ */
+public final class NamedThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final int priority;
+    private final AtomicInteger counter = new AtomicInteger(1);
+
+    public NamedThreadFactory(String prefix) {
+        this(prefix, Thread.NORM_PRIORITY);
+    }
+
+    public NamedThreadFactory(String prefix, int priority) {
+        this.prefix = prefix;
+        this.priority = priority;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+        thread.setDaemon(true);
+        thread.setPriority(priority);
+        return thread;
+    }
+}
@@ -0,0 +1,230 @@
+package com.dbh.training.rest.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token buckets for string keys (client IP, user name, ...).
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will be
+ * full again (the "theoretical arrival time" of the generic cell rate
+ * algorithm). Taking a token advances that time by one refill interval,
+ * with one CAS and no background refill thread. A bucket whose time has
+ * passed is full, so dropping it loses nothing: that is the idle eviction.
+ *
+ * Keys are spread over independent stripes. Each stripe is swept on its
+ * own, so eviction never scans the whole key space or blocks other stripes.
+ * When a stripe holds too many keys even after dropping full buckets, the
+ * buckets closest to full go next; emptied buckets are the last to go, so
+ * a client cannot win a fresh burst by cycling through keys until its own
+ * bucket is pushed out.
+ */
+public class TokenBucketLimiter {
+
+    private static final long MIN_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int burst;
+    private final int maxKeysPerStripe;
+    private final Stripe[] stripes;
+    private final long origin = System.nanoTime();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param permitsPerMinute Sustained rate
+     * @param burst Tokens a full bucket holds, i.e. requests allowed back to back
+     * @param maxKeys Bound on tracked keys; full buckets are dropped first, then the fullest
+     */
+    public TokenBucketLimiter(int permitsPerMinute, int burst, int maxKeys) {
+        if (permitsPerMinute <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerMinute and burst must be positive");
+        }
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+        this.burst = burst;
+        this.burstNanos = intervalNanos * burst;
+
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4) * 2 - 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.maxKeysPerStripe = Math.max(16, maxKeys / count);
+    }
+
+    /**
+     * Take one token from the key's bucket.
+     *
+     * @return Tokens left (&gt;= 0) if allowed, otherwise the negated nanoseconds
+     *         until a token is available (&lt; 0)
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime() - origin;
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        AtomicLong bucket = stripe.buckets.get(key);
+        if (bucket == null) {
+            // Make room before inserting: a new bucket is full, so a sweep would drop it
+            if (stripe.buckets.size() >= maxKeysPerStripe) {
+                stripe.sweep(now, maxKeysPerStripe);
+            }
+            bucket = stripe.buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long full = bucket.get();
+            long start = Math.max(full, now);
+            long next = start + intervalNanos;
+            long backlog = next - now;
+            if (backlog > burstNanos) {
+                rejected.increment();
+                return -(backlog - burstNanos);
+            }
+            if (bucket.compareAndSet(full, next)) {
+                allowed.increment();
+                return (burstNanos - backlog) / intervalNanos;
+            }
+        }
+    }
+
+    /**
+     * @return true if a {@link #tryAcquire} result allowed the request
+     */
+    public static boolean isAllowed(long result) {
+        return result >= 0;
+    }
+
+    /**
+     * Whole seconds until a rejected request may be retried, at least 1
+     */
+    public static long retryAfterSeconds(long result) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(-result + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * Whole seconds until the key's bucket is full again (RateLimit-Reset), rounded up
+     *
+     * @param result What {@link #tryAcquire} returned for the key
+     */
+    public long getResetSeconds(long result) {
+        // Allowed: at most (burst - remaining) intervals of backlog. Rejected: the wait
+        // for the next token plus the rest of the burst
+        long nanos = result >= 0 ? (burst - result) * intervalNanos : -result + burstNanos - intervalNanos;
+        return TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1);
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Drop idle buckets in every stripe
+     */
+    public void evictIdle() {
+        long now = System.nanoTime() - origin;
+        for (Stripe stripe : stripes) {
+            stripe.lastSweep.set(Long.MIN_VALUE);
+            stripe.sweep(now, maxKeysPerStripe);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.buckets.size();
+        }
+        return size;
+    }
+
+    /**
+     * Counters, suitable for a JSON response
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests_per_minute", TimeUnit.MINUTES.toNanos(1) / intervalNanos);
+        stats.put("burst", burst);
+        stats.put("keys", size());
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private static int spread(int h) {
+        int mixed = h * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private final class Stripe {
+        final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        final AtomicBoolean sweeping = new AtomicBoolean();
+        final AtomicLong lastSweep = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * Remove full buckets; if still over the bound, remove the ones that
+         * will be full soonest. Only one thread sweeps a stripe, and at most
+         * once per second unless the stripe has grown to twice its bound.
+         */
+        void sweep(long now, int maxKeys) {
+            long last = lastSweep.get();
+            boolean due = last == Long.MIN_VALUE || now - last >= MIN_SWEEP_INTERVAL_NANOS;
+            if ((!due && buckets.size() <= maxKeys * 2) || !sweeping.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                lastSweep.set(now);
+                Iterator<AtomicLong> it = buckets.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().get() <= now) {
+                        it.remove();
+                        evictions.increment();
+                    }
+                }
+                int target = maxKeys - maxKeys / 10;
+                if (buckets.size() > target) {
+                    evictFullest(buckets.size() - target);
+                }
+            } finally {
+                sweeping.set(false);
+            }
+        }
+
+        /**
+         * Remove about {@code count} buckets with the earliest full time
+         */
+        private void evictFullest(int count) {
+            long[] fullTimes = new long[buckets.size() + 16];
+            int n = 0;
+            for (AtomicLong bucket : buckets.values()) {
+                if (n == fullTimes.length) {
+                    break;
+                }
+                fullTimes[n++] = bucket.get();
+            }
+            if (n == 0) {
+                return;
+            }
+            Arrays.sort(fullTimes, 0, n);
+            long threshold = fullTimes[Math.min(count, n) - 1];
+            int removed = 0;
+            Iterator<AtomicLong> it = buckets.values().iterator();
+            while (removed < count && it.hasNext()) {
+                // A bucket drained since the snapshot is above the threshold and stays
+                if (it.next().get() <= threshold) {
+                    it.remove();
+                    removed++;
+                    evictions.increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.dbh.training.rest.filters;
+
+import com.dbh.training.rest.Application;
+import com.dbh.training.rest.dto.LoginRequest;
+import com.dbh.training.rest.util.TokenBucketLimiter;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.eclipse.jetty.server.Server;
+import org.junit.jupiter.api.*;
+import static io.restassured.RestAssured.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rate limiting tests
+ *
+ * Starts a server with small buckets (burst 3, login burst 2) and checks
+ * the 429 responses and RateLimit-* headers. Tests that send
+ * X-Forwarded-For get buckets of their own.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RateLimitFilterTest {
+
+    private static final String[] PROPERTIES = {
+        "api.rate.limit.enabled", "api.rate.limit.burst", "api.rate.limit.login.burst",
+        "api.rate.limit.trust.forwarded.for"
+    };
+
+    private Server server;
+
+    @BeforeAll
+    public void setUp() throws Exception {
+        System.setProperty("api.rate.limit.enabled", "true");
+        System.setProperty("api.rate.limit.burst", "3");
+        System.setProperty("api.rate.limit.login.burst", "2");
+        // Lets tests use their own client addresses
+        System.setProperty("api.rate.limit.trust.forwarded.for", "true");
+        server = Application.startServer(8090);
+        RestAssured.baseURI = "http://localhost";
+        RestAssured.port = 8090;
+        RestAssured.basePath = "/api";
+    }
+
+    @AfterAll
+    public void tearDown() throws Exception {
+        for (String property : PROPERTIES) {
+            System.clearProperty(property);
+        }
+        if (server != null) {
+            server.stop();
+        }
+        RestAssured.reset();
+    }
+
+    @Test
+    public void testAnonymousRequestsLimitedPerIp() {
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            given()
+            .when()
+                .get("/todos")
+            .then()
+                .statusCode(not(429))
+                .header("RateLimit-Limit", "3")
+                .header("RateLimit-Remaining", String.valueOf(remaining));
+        }
+
+        given()
+        .when()
+            .get("/todos")
+        .then()
+            .statusCode(429)
+            .header("Retry-After", notNullValue())
+            .header("RateLimit-Remaining", "0")
+            .header("RateLimit-Reset", notNullValue())
+            .body("error", notNullValue());
+
+        // Liveness probes are exempt
+        given().when().get("/health").then().statusCode(200);
+    }
+
+    @Test
+    public void testLoginHasItsOwnLimit() {
+        LoginRequest request = new LoginRequest("admin", "wrong-password");
+        for (int i = 0; i < 2; i++) {
+            given()
+                .contentType(ContentType.JSON)
+                .body(request)
+            .when()
+                .post("/auth/login")
+            .then()
+                .statusCode(401);
+        }
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(request)
+        .when()
+            .post("/auth/login")
+        .then()
+            .statusCode(429)
+            .header("Retry-After", notNullValue());
+    }
+
+    @Test
+    public void testExportServletSharesPerIpLimit() {
+        String client = "203.0.113.28";
+        for (int i = 0; i < 2; i++) {
+            given()
+                .header("X-Forwarded-For", client)
+            .when()
+                .get("/todos")
+            .then()
+                .statusCode(not(429));
+        }
+
+        // Served outside Jersey, from the same bucket
+        given()
+            .header("X-Forwarded-For", client)
+        .when()
+            .get("/v1/users/stream")
+        .then()
+            .statusCode(200)
+            .header("RateLimit-Remaining", "0");
+
+        given()
+            .header("X-Forwarded-For", client)
+        .when()
+            .get("/v1/users/stream")
+        .then()
+            .statusCode(429)
+            .header("Retry-After", notNullValue())
+            .header("Cache-Control", containsString("no-store"))
+            .body("error", notNullValue());
+    }
+
+    @Test
+    public void testForwardedForKeysOnProxyEntry() {
+        // Rotating the client-written part of the header must not buy a fresh bucket
+        for (int i = 0; i < 3; i++) {
+            given()
+                .header("X-Forwarded-For", "10.0.0." + i + ", 198.51.100.9")
+            .when()
+                .get("/todos")
+            .then()
+                .statusCode(not(429));
+        }
+
+        given()
+            .header("X-Forwarded-For", "10.0.0.99, 198.51.100.9")
+        .when()
+            .get("/todos")
+        .then()
+            .statusCode(429);
+    }
+
+    @Test
+    public void testRegisterCountsAgainstLoginLimit() {
+        String client = "198.51.100.77";
+        given()
+            .header("X-Forwarded-For", client)
+            .contentType(ContentType.JSON)
+            .body(new LoginRequest("admin", "wrong-password"))
+        .when()
+            .post("/auth/login")
+        .then()
+            .statusCode(401);
+
+        // Invalid, but the limit is checked before the body
+        given()
+            .header("X-Forwarded-For", client)
+            .contentType(ContentType.JSON)
+            .body("{}")
+        .when()
+            .post("/auth/register")
+        .then()
+            .statusCode(400);
+
+        given()
+            .header("X-Forwarded-For", client)
+            .contentType(ContentType.JSON)
+            .body("{}")
+        .when()
+            .post("/auth/register")
+        .then()
+            .statusCode(429)
+            .header("Retry-After", notNullValue());
+    }
+
+    @Test
+    public void testClientIpCountsTrustedProxiesFromTheRight() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(60, 60, 10);
+        RateLimits oneProxy = new RateLimits(true, true, true, 1, limiter, limiter, limiter);
+        RateLimits twoProxies = new RateLimits(true, true, true, 2, limiter, limiter, limiter);
+        RateLimits untrusted = new RateLimits(true, true, false, 1, limiter, limiter, limiter);
+
+        assertEquals("192.0.2.2", oneProxy.clientIp("spoofed, 192.0.2.2", "10.0.0.1"));
+        assertEquals("192.0.2.1", twoProxies.clientIp("spoofed, 192.0.2.1, 192.0.2.2", "10.0.0.1"));
+        assertEquals("192.0.2.1", twoProxies.clientIp("192.0.2.1", "10.0.0.1"));
+        assertEquals("10.0.0.1", oneProxy.clientIp(" ", "10.0.0.1"));
+        assertEquals("10.0.0.1", untrusted.clientIp("192.0.2.2", "10.0.0.1"));
+    }
+}
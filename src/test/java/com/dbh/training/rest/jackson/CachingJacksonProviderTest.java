@@ -0,0 +1,170 @@
+package com.dbh.training.rest.jackson;
+
+import com.dbh.training.rest.config.CachingJacksonProvider;
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.config.MediaTypes;
+import com.dbh.training.rest.dto.LoginRequest;
+import com.dbh.training.rest.models.Money;
+import com.dbh.training.rest.models.Priority;
+import com.dbh.training.rest.models.Todo;
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.views.Views;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CachingJacksonProvider
+ *
+ * Covers views, generic collection types, Content-Length, request bodies
+ * and the Smile / CBOR encodings.
+ */
+public class CachingJacksonProviderTest {
+
+    private static final Type TODO_LIST = new GenericType<List<Todo>>() { }.getType();
+
+    private CachingJacksonProvider provider;
+    private JacksonConfig config;
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void setUp() {
+        config = new JacksonConfig(false, false);
+        provider = new CachingJacksonProvider(config);
+        mapper = config.getContext(null);
+    }
+
+    @Test
+    public void testWritesWithViewAndContentLength() throws Exception {
+        Todo todo = new Todo("Write tests", "Secret details", Priority.HIGH);
+        todo.setId(1L);
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        provider.writeTo(Arrays.asList(todo), List.class, TODO_LIST, summaryView(),
+                MediaType.APPLICATION_JSON_TYPE, headers, out);
+
+        JsonNode json = mapper.readTree(out.toByteArray());
+        assertEquals("Write tests", json.get(0).get("title").asText());
+        assertNull(json.get(0).get("description"), "Summary view hides the description");
+        assertEquals(out.size(), headers.getFirst(HttpHeaders.CONTENT_LENGTH));
+        assertFalse(new String(out.toByteArray(), StandardCharsets.UTF_8).contains("\n"));
+    }
+
+    @Test
+    public void testReadsBodiesAndEmptyBodyIsNull() throws Exception {
+        byte[] body = "{\"username\":\"alice\",\"password\":\"secret\"}".getBytes(StandardCharsets.UTF_8);
+        Object request = read(LoginRequest.class, body);
+        assertEquals("alice", ((LoginRequest) request).getUsername());
+
+        assertNull(read(LoginRequest.class, new byte[0]));
+        assertThrows(JsonParseException.class, () -> read(LoginRequest.class, "{".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testSmileHonorsViewAndPrioritySerializer() throws Exception {
+        Todo todo = new Todo("Write tests", "Secret details", Priority.HIGH);
+        todo.setId(1L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        provider.writeTo(Arrays.asList(todo), List.class, TODO_LIST, summaryView(),
+                MediaTypes.APPLICATION_SMILE_TYPE, new MultivaluedHashMap<>(), out);
+
+        JsonNode smile = config.getSmileMapper().readTree(out.toByteArray());
+        assertEquals("Write tests", smile.get(0).get("title").asText());
+        assertNull(smile.get(0).get("description"), "Summary view hides the description");
+        assertEquals("HIGH", smile.get(0).get("priority").get("value").asText());
+        assertEquals(3, smile.get(0).get("priority").get("level").asInt());
+        assertEquals("#FF0000", smile.get(0).get("priority").get("color").asText());
+    }
+
+    @Test
+    public void testCborHonorsViewAndMoneySerializer() throws Exception {
+        User user = new User("alice", "alice@example.com", "Alice", "Smith");
+        user.setAccountBalance(new Money(new BigDecimal("12.50"), "EUR"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        provider.writeTo(user, User.class, User.class, internalView(),
+                MediaTypes.APPLICATION_CBOR_TYPE, new MultivaluedHashMap<>(), out);
+
+        JsonNode cbor = config.getCborMapper().readTree(out.toByteArray());
+        assertEquals("alice", cbor.get("user_name").asText());
+        assertEquals(0, new BigDecimal("12.50").compareTo(cbor.get("account_balance").get("amount").decimalValue()));
+        assertEquals("EUR", cbor.get("account_balance").get("currency").asText());
+        assertEquals(user.getAccountBalance().getFormatted(), cbor.get("account_balance").get("formatted").asText());
+
+        out.reset();
+        provider.writeTo(user, User.class, User.class, publicView(),
+                MediaTypes.APPLICATION_CBOR_TYPE, new MultivaluedHashMap<>(), out);
+        assertNull(config.getCborMapper().readTree(out.toByteArray()).get("account_balance"),
+                "Public view hides the balance");
+    }
+
+    @Test
+    public void testReadsSmileAndCborBodies() throws Exception {
+        LoginRequest login = new LoginRequest("alice", "secret");
+
+        Object smile = read(LoginRequest.class, config.getSmileMapper().writeValueAsBytes(login),
+                MediaTypes.APPLICATION_SMILE_TYPE);
+        Object cbor = read(LoginRequest.class, config.getCborMapper().writeValueAsBytes(login),
+                MediaTypes.APPLICATION_CBOR_TYPE);
+
+        assertEquals("alice", ((LoginRequest) smile).getUsername());
+        assertEquals("secret", ((LoginRequest) cbor).getPassword());
+    }
+
+    @Test
+    public void testSkipsTypesJerseyHandles() {
+        assertFalse(provider.isWriteable(String.class, String.class, new Annotation[0], MediaType.APPLICATION_JSON_TYPE));
+        assertFalse(provider.isWriteable(Todo.class, Todo.class, new Annotation[0], MediaType.TEXT_PLAIN_TYPE));
+        assertTrue(provider.isWriteable(Todo.class, Todo.class, new Annotation[0],
+                MediaType.valueOf("application/problem+json")));
+        assertTrue(provider.isReadable(Todo.class, Todo.class, new Annotation[0], MediaTypes.APPLICATION_CBOR_TYPE));
+        assertFalse(provider.isWriteable(Todo.class, Todo.class, new Annotation[0], MediaType.APPLICATION_XML_TYPE));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object read(Class<?> type, byte[] body) throws Exception {
+        return read(type, body, MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object read(Class<?> type, byte[] body, MediaType mediaType) throws Exception {
+        return provider.readFrom((Class) type, type, new Annotation[0], mediaType,
+                new MultivaluedHashMap<>(), new ByteArrayInputStream(body));
+    }
+
+    @JsonView(Views.Summary.class)
+    private static Annotation[] summaryView() throws NoSuchMethodException {
+        return CachingJacksonProviderTest.class.getDeclaredMethod("summaryView").getAnnotations();
+    }
+
+    @JsonView(com.dbh.training.rest.dto.Views.Public.class)
+    private static Annotation[] publicView() throws NoSuchMethodException {
+        return CachingJacksonProviderTest.class.getDeclaredMethod("publicView").getAnnotations();
+    }
+
+    @JsonView(com.dbh.training.rest.dto.Views.Internal.class)
+    private static Annotation[] internalView() throws NoSuchMethodException {
+        return CachingJacksonProviderTest.class.getDeclaredMethod("internalView").getAnnotations();
+    }
+}
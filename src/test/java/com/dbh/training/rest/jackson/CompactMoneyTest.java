@@ -0,0 +1,145 @@
+package com.dbh.training.rest.jackson;
+
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.config.jackson.CompactMoneySerializer;
+import com.dbh.training.rest.config.jackson.MoneySerializer;
+import com.dbh.training.rest.dto.Views;
+import com.dbh.training.rest.models.CompactMoney;
+import com.dbh.training.rest.models.Money;
+import com.dbh.training.rest.models.User;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CompactMoney and its serializer / deserializer
+ *
+ * The JSON must match what MoneySerializer writes for the same balance.
+ */
+public class CompactMoneyTest {
+
+    private static final Currency EUR = Currency.getInstance("EUR");
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        objectMapper = new JacksonConfig(false, false).getContext(null);
+    }
+
+    @Test
+    public void testExactConversionAndArithmetic() {
+        CompactMoney balance = CompactMoney.of(new BigDecimal("1250.5"), EUR);
+        assertEquals(125050, balance.getMinorUnits());
+        assertEquals(new BigDecimal("1250.50"), balance.toBigDecimal());
+
+        CompactMoney fee = CompactMoney.ofMinor(199, EUR);
+        assertEquals(new BigDecimal("1248.51"), balance.minus(fee).toBigDecimal());
+        assertEquals(new BigDecimal("1252.49"), balance.plus(fee).toBigDecimal());
+        assertEquals(new BigDecimal("-3.98"), fee.multiply(2).negate().toBigDecimal());
+        assertTrue(fee.compareTo(balance) < 0);
+        assertEquals(new BigDecimal("5"), CompactMoney.of(new BigDecimal("5"), Currency.getInstance("JPY")).toBigDecimal());
+
+        assertThrows(ArithmeticException.class, () -> CompactMoney.of(new BigDecimal("1.005"), EUR));
+        assertThrows(ArithmeticException.class, () -> CompactMoney.ofMinor(Long.MAX_VALUE, EUR).plus(fee));
+        assertThrows(IllegalArgumentException.class,
+                () -> balance.plus(CompactMoney.ofMinor(1, Currency.getInstance("USD"))));
+    }
+
+    @Test
+    public void testFormattedMatchesMoney() {
+        String[][] cases = {
+            {"1250.50", "EUR"}, {"-0.05", "EUR"}, {"0", "USD"}, {"1000", "JPY"},
+            {"-12.345", "BHD"}, {"12.344", "BHD"}, {"12.3456", "CLF"}, {"92233720368547758.07", "EUR"}
+        };
+        for (String[] c : cases) {
+            Money money = new Money(new BigDecimal(c[0]), c[1]);
+            CompactMoney compact = CompactMoney.from(money);
+            assertEquals(money.getFormatted(), compact.getFormatted(), c[0] + " " + c[1]);
+            assertEquals(0, money.getAmount().compareTo(compact.toBigDecimal()), c[0] + " " + c[1]);
+        }
+    }
+
+    @Test
+    public void testJsonMatchesMoneySerializer() throws Exception {
+        String[][] cases = {{"1250.50", "EUR"}, {"-7.10", "GBP"}, {"300", "JPY"}, {"0.250", "KWD"}};
+        for (String[] c : cases) {
+            Money money = new Money(new BigDecimal(c[0]), c[1]);
+            StringWriter expected = new StringWriter();
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(expected)) {
+                new MoneySerializer().serialize(money, gen, objectMapper.getSerializerProvider());
+            }
+
+            User user = new User();
+            user.setAccountBalance(money);
+            JsonNode actual = objectMapper.readTree(objectMapper.writerWithView(Views.Internal.class)
+                    .writeValueAsString(user)).get("account_balance");
+
+            assertEquals(objectMapper.readTree(expected.toString()), actual, c[0] + " " + c[1]);
+        }
+    }
+
+    @Test
+    public void testBytesAndStringWriteTheSameJson() throws Exception {
+        User user = new User();
+        user.setAccountBalance(new Money(new BigDecimal("1250.50"), "EUR"));
+
+        String text = objectMapper.writerWithView(Views.Internal.class).writeValueAsString(user);
+        byte[] bytes = objectMapper.writerWithView(Views.Internal.class).writeValueAsBytes(user);
+
+        assertEquals(text, new String(bytes, StandardCharsets.UTF_8));
+        assertTrue(text.contains("\"amount\":1250.50"), text);
+    }
+
+    @Test
+    public void testUtf8JsonWritesAmountWithoutBigDecimal() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = new JsonGeneratorDelegate(objectMapper.getFactory().createGenerator(out)) {
+            @Override
+            public void writeNumber(BigDecimal value) {
+                throw new AssertionError("Amount written as a BigDecimal");
+            }
+        }) {
+            new CompactMoneySerializer().serialize(CompactMoney.ofMinor(-710, Currency.getInstance("GBP")),
+                    gen, objectMapper.getSerializerProvider());
+        }
+
+        String json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"amount\":-7.10,\"currency\":\"GBP\""), json);
+    }
+
+    @Test
+    public void testBinaryFormatsGetBigDecimalAmount() throws Exception {
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        User user = new User();
+        user.setAccountBalance(new Money(new BigDecimal("99.90"), "EUR"));
+
+        JsonNode json = smile.readTree(smile.writerWithView(Views.Internal.class).writeValueAsBytes(user));
+        assertEquals(0, new BigDecimal("99.90").compareTo(json.get("account_balance").get("amount").decimalValue()));
+    }
+
+    @Test
+    public void testUserBalanceRoundTrip() throws Exception {
+        User user = objectMapper.readValue(
+            "{\"account_balance\": {\"amount\": 99.9, \"currency\": \"EUR\", \"formatted\": \"ignored\"}}", User.class);
+
+        assertEquals(CompactMoney.ofMinor(9990, EUR), user.getCompactBalance());
+        assertEquals(new BigDecimal("99.90"), user.getAccountBalance().getAmount());
+
+        assertThrows(JsonMappingException.class, () -> objectMapper.readValue(
+            "{\"account_balance\": {\"amount\": 0.001, \"currency\": \"EUR\"}}", User.class));
+    }
+}
@@ -0,0 +1,93 @@
+package com.dbh.training.rest.jackson;
+
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.config.jackson.EnumCodec;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.Priority;
+import com.dbh.training.rest.models.Todo;
+import com.dbh.training.rest.models.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EnumCodec and the enum codecs registered by JacksonConfig
+ */
+public class EnumCodecTest {
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        objectMapper = new JacksonConfig(false, false).getContext(null);
+    }
+
+    @Test
+    public void testDecodeAndParse() {
+        EnumCodec<AccountStatus> codec = EnumCodec.of(AccountStatus.class);
+
+        for (AccountStatus status : AccountStatus.values()) {
+            String name = codec.nameOf(status).getValue();
+            assertSame(status, codec.decode(name));
+            assertSame(status, codec.decode(name.toCharArray(), 0, name.length()));
+            assertSame(status, codec.parse(status.name().toLowerCase()));
+        }
+        assertEquals("pending", codec.nameOf(AccountStatus.PENDING_VERIFICATION).getValue());
+
+        // Jackson reads exact JSON names only
+        assertNull(codec.decode("PENDING_VERIFICATION"));
+        assertNull(codec.decode("Active"));
+        assertNull(codec.decode("activ"));
+        assertNull(codec.decode(""));
+
+        assertSame(AccountStatus.PENDING_VERIFICATION, codec.parse("Pending"));
+        assertNull(codec.parse("unknown"));
+        assertNull(codec.parse(null));
+    }
+
+    @Test
+    public void testFromString() {
+        assertEquals(AccountStatus.ACTIVE, AccountStatus.fromString("ACTIVE"));
+        assertEquals(AccountStatus.SUSPENDED, AccountStatus.fromString("suspended"));
+        assertEquals(AccountStatus.PENDING_VERIFICATION, AccountStatus.fromString("pending"));
+        assertEquals(AccountStatus.PENDING_VERIFICATION, AccountStatus.fromString("pending_verification"));
+        assertNull(AccountStatus.fromString(null));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> AccountStatus.fromString("closed"));
+        assertEquals("Unknown AccountStatus: closed", e.getMessage());
+    }
+
+    @Test
+    public void testAccountStatusJson() throws Exception {
+        User user = new User();
+        user.setStatus(AccountStatus.PENDING_VERIFICATION);
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(user));
+        assertEquals("pending", json.get("account_status").asText());
+
+        User read = objectMapper.readValue("{\"account_status\": \"deleted\"}", User.class);
+        assertEquals(AccountStatus.DELETED, read.getStatus());
+
+        InvalidFormatException e = assertThrows(InvalidFormatException.class,
+            () -> objectMapper.readValue("{\"account_status\": \"DELETED\"}", User.class));
+        assertTrue(e.getMessage().contains("[active, suspended, pending, deleted]"), e.getMessage());
+    }
+
+    @Test
+    public void testPriorityJson() throws Exception {
+        Todo todo = objectMapper.readValue("{\"title\": \"Test\", \"priority\": \"LOW\"}", Todo.class);
+        assertEquals(Priority.LOW, todo.getPriority());
+
+        JsonNode priority = objectMapper.readTree(objectMapper.writeValueAsString(todo)).get("priority");
+        assertEquals("LOW", priority.get("value").asText());
+        assertEquals(1, priority.get("level").asInt());
+        assertEquals("#00FF00", priority.get("color").asText());
+
+        assertThrows(InvalidFormatException.class,
+            () -> objectMapper.readValue("{\"title\": \"Test\", \"priority\": \"URGENT\"}", Todo.class));
+    }
+}
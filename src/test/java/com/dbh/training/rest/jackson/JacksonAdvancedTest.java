@@ -8,6 +8,7 @@ import com.dbh.training.rest.dto.Views;
 import com.dbh.training.rest.models.Money;
 import com.dbh.training.rest.models.User;
 import com.dbh.training.rest.thirdparty.ThirdPartyUser;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
@@ -99,6 +100,40 @@ public class JacksonAdvancedTest {
         assertEquals("€ 5000.00", balance.get("formatted").asText());
     }
     
+    @Test
+    public void testUserMoneyDeserialization() throws Exception {
+        // formatted and unknown fields are ignored, the amount may be a string
+        String json = "{\"user_name\": \"rich_user\", \"account_balance\": "
+            + "{\"formatted\": \"x\", \"extra\": {\"a\": [1, 2]}, \"amount\": \"12.30\", \"currency\": \"EUR\"}}";
+        
+        User user = objectMapper.readValue(json, User.class);
+        
+        assertEquals(new BigDecimal("12.30"), user.getAccountBalance().getAmount());
+        assertEquals(Currency.getInstance("EUR"), user.getAccountBalance().getCurrency());
+        assertEquals("€ 12.30", user.getAccountBalance().getFormatted());
+    }
+    
+    @Test
+    public void testUserMoneyDeserializationRejectsInvalidMoney() {
+        assertThrows(JsonMappingException.class, () -> objectMapper.readValue(
+            "{\"account_balance\": {\"amount\": 1}}", User.class));
+        assertThrows(JsonMappingException.class, () -> objectMapper.readValue(
+            "{\"account_balance\": {\"amount\": 1, \"currency\": \"XYZ1\"}}", User.class));
+        assertThrows(JsonMappingException.class, () -> objectMapper.readValue(
+            "{\"account_balance\": 5}", User.class));
+    }
+    
+    @Test
+    public void testFormattedFollowsChanges() {
+        Money money = new Money(new BigDecimal("1.005"), "USD");
+        assertEquals("$ 1.01", money.getFormatted());
+        
+        money.setAmount(new BigDecimal("2"));
+        assertEquals("$ 2.00", money.getFormatted());
+        money.setCurrency(Currency.getInstance("EUR"));
+        assertEquals("€ 2.00", money.getFormatted());
+    }
+    
     // ===== JSON Views Tests =====
     
     @Test
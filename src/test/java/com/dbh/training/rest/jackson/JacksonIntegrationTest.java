@@ -1,9 +1,13 @@
 package com.dbh.training.rest.jackson;
 
+import com.dbh.training.rest.config.MediaTypes;
 import com.dbh.training.rest.models.AccountStatus;
 import com.dbh.training.rest.models.Address;
 import com.dbh.training.rest.models.User;
 import com.dbh.training.rest.test.BaseIntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import org.junit.jupiter.api.Test;
@@ -354,4 +358,45 @@ public class JacksonIntegrationTest extends BaseIntegrationTest {
             .body("primary_address.city", equalTo("Munich"))
             .body("$", not(hasKey("password")));  // Password should never be returned
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testCompactOutputWithPrettyParameter() {
+        String compact = given()
+            .when()
+            .get("/health")
+            .then()
+            .statusCode(200)
+            .extract()
+            .asString();
+        assertFalse(compact.contains("\n"), "Responses are compact by default");
+        
+        String pretty = given()
+            .queryParam("pretty", "true")
+            .when()
+            .get("/health")
+            .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("status", equalTo("UP"))
+            .extract()
+            .asString();
+        assertTrue(pretty.contains("\n  \""), "?pretty=true indents the response");
+        assertTrue(pretty.length() > compact.length());
+    }
+    
+    @Test
+    public void testSmileNegotiatedByAcceptHeader() throws Exception {
+        byte[] body = given()
+            .accept(MediaTypes.APPLICATION_SMILE)
+            .when()
+            .get("/health")
+            .then()
+            .statusCode(200)
+            .contentType(MediaTypes.APPLICATION_SMILE)
+            .extract()
+            .asByteArray();
+        
+        JsonNode health = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertEquals("UP", health.get("status").asText());
+    }
+}
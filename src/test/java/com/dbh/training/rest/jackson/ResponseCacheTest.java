@@ -0,0 +1,222 @@
+package com.dbh.training.rest.jackson;
+
+import com.dbh.training.rest.config.CachingJacksonProvider;
+import com.dbh.training.rest.config.JacksonConfig;
+import com.dbh.training.rest.config.MediaTypes;
+import com.dbh.training.rest.config.ResponseCache;
+import com.dbh.training.rest.dto.Views;
+import com.dbh.training.rest.models.AccountStatus;
+import com.dbh.training.rest.models.User;
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ResponseCache, through CachingJacksonProvider
+ *
+ * Covers hits per variant, invalidation, stale versions, the size bound,
+ * admission, frequency-aware eviction and uncached writers.
+ */
+public class ResponseCacheTest {
+
+    private JacksonConfig config;
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void setUp() {
+        config = new JacksonConfig(false, false);
+        mapper = config.getContext(null);
+    }
+
+    @Test
+    public void testServesCachedBytesUntilInvalidated() throws Exception {
+        ResponseCache cache = new ResponseCache(true, 1024 * 1024, 64 * 1024);
+        CachingJacksonProvider provider = new CachingJacksonProvider(config, cache);
+        User user = user(1L);
+
+        assertEquals("user1", mapper.readTree(write(provider, cache, user, publicView(), MediaType.APPLICATION_JSON_TYPE))
+                .get("user_name").asText());
+
+        // Changed without invalidation: the cached bytes are served
+        user.setUsername("renamed");
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        byte[] cached = write(provider, cache, user, publicView(), MediaType.APPLICATION_JSON_TYPE, headers);
+        assertEquals("user1", mapper.readTree(cached).get("user_name").asText());
+        assertEquals(cached.length, headers.getFirst(HttpHeaders.CONTENT_LENGTH));
+
+        cache.invalidate(User.class, 1L);
+        assertEquals("renamed", mapper.readTree(write(provider, cache, user, publicView(), MediaType.APPLICATION_JSON_TYPE))
+                .get("user_name").asText());
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+        assertEquals(1L, stats.get("invalidations"));
+        assertEquals(1, stats.get("entities"));
+    }
+
+    @Test
+    public void testCachesViewsAndFormatsSeparately() throws Exception {
+        ResponseCache cache = new ResponseCache(true, 1024 * 1024, 64 * 1024);
+        CachingJacksonProvider provider = new CachingJacksonProvider(config, cache);
+        User user = user(1L);
+
+        for (int round = 0; round < 2; round++) {
+            assertNull(mapper.readTree(write(provider, cache, user, publicView(), MediaType.APPLICATION_JSON_TYPE))
+                    .get("account_status"), "Public view hides the status");
+            assertEquals("active", mapper.readTree(write(provider, cache, user, internalView(),
+                    MediaType.APPLICATION_JSON_TYPE)).get("account_status").asText());
+            assertEquals("user1", config.getCborMapper().readTree(write(provider, cache, user, publicView(),
+                    MediaTypes.APPLICATION_CBOR_TYPE)).get("user_name").asText());
+        }
+
+        assertEquals(3L, cache.getStats().get("hits"));
+        assertEquals(3L, cache.getStats().get("misses"));
+        assertEquals(1, cache.getStats().get("entities"));
+    }
+
+    @Test
+    public void testDoesNotStoreStaleVersions() throws Exception {
+        ResponseCache cache = new ResponseCache(true, 1024 * 1024, 64 * 1024);
+        CachingJacksonProvider provider = new CachingJacksonProvider(config, cache);
+        User user = user(1L);
+
+        long version = cache.versionOf(User.class, 1L);
+        cache.invalidate(User.class, 1L);
+        provider.writeTo(cache.entity(user, User.class, 1L, version), User.class, User.class, publicView(),
+                MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), new ByteArrayOutputStream());
+
+        assertEquals(0, cache.getStats().get("entities"));
+        assertEquals(0L, cache.getStats().get("bytes"));
+    }
+
+    @Test
+    public void testEvictsLeastFrequentlyUsed() throws Exception {
+        ResponseCache cache = new ResponseCache(true, 4 * 1024, 64 * 1024);
+        CachingJacksonProvider provider = new CachingJacksonProvider(config, cache);
+        User popular = user(0L);
+        for (int i = 0; i < 5; i++) {
+            write(provider, cache, popular, publicView(), MediaType.APPLICATION_JSON_TYPE);
+        }
+
+        // Read once: once the cache is full they are not admitted
+        for (long id = 1; id <= 100; id++) {
+            write(provider, cache, user(id), publicView(), MediaType.APPLICATION_JSON_TYPE);
+        }
+        assertTrue((Long) cache.getStats().get("rejected") > 0, cache.getStats().toString());
+
+        // Read again: admitted, evicting each other but not the popular one
+        for (long id = 1; id <= 100; id++) {
+            write(provider, cache, user(id), publicView(), MediaType.APPLICATION_JSON_TYPE);
+        }
+
+        Map<String, Object> stats = cache.getStats();
+        assertTrue((Long) stats.get("evictions") > 0, stats.toString());
+        assertTrue((Long) stats.get("bytes") <= 4 * 1024, stats.toString());
+
+        long hits = (Long) stats.get("hits");
+        write(provider, cache, popular, publicView(), MediaType.APPLICATION_JSON_TYPE);
+        assertEquals(hits + 1, cache.getStats().get("hits"), "The frequently read entity survives");
+    }
+
+    @Test
+    public void testBypassesCacheForUncachedWriters() throws Exception {
+        ResponseCache cache = new ResponseCache(true, 1024 * 1024, 64 * 1024);
+        CachingJacksonProvider provider = new CachingJacksonProvider(config, cache);
+        // Fill the provider's writer cache with distinct generic types
+        for (int i = 0; i < 2048; i++) {
+            provider.writeTo(Collections.emptyList(), List.class, listType(), null,
+                    MediaType.APPLICATION_JSON_TYPE, new MultivaluedHashMap<>(), new ByteArrayOutputStream());
+        }
+
+        User user = user(1L);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("user1", mapper.readTree(write(provider, cache, user, publicView(),
+                    MediaType.APPLICATION_JSON_TYPE)).get("user_name").asText());
+        }
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(0, stats.get("entities"), "Each call's writer would be a new variant");
+        assertEquals(0L, stats.get("misses"));
+    }
+
+    @Test
+    public void testSkipsLargeResponsesAndDisabledCache() throws Exception {
+        ResponseCache cache = new ResponseCache(true, 1024 * 1024, 16);
+        CachingJacksonProvider provider = new CachingJacksonProvider(config, cache);
+        write(provider, cache, user(1L), publicView(), MediaType.APPLICATION_JSON_TYPE);
+        assertEquals(1L, cache.getStats().get("too_large"));
+        assertEquals(0, cache.getStats().get("entities"));
+
+        User user = user(2L);
+        assertSame(user, new ResponseCache(false, 1024, 1024).entity(user, User.class, 2L, 0));
+    }
+
+    private static User user(long id) {
+        User user = new User("user" + id, "user" + id + "@example.com", "First", "Last");
+        user.setId(id);
+        user.setStatus(AccountStatus.ACTIVE);
+        return user;
+    }
+
+    private static byte[] write(CachingJacksonProvider provider, ResponseCache cache, User user,
+                                Annotation[] annotations, MediaType mediaType) throws Exception {
+        return write(provider, cache, user, annotations, mediaType, new MultivaluedHashMap<>());
+    }
+
+    private static byte[] write(CachingJacksonProvider provider, ResponseCache cache, User user,
+                                Annotation[] annotations, MediaType mediaType,
+                                MultivaluedMap<String, Object> headers) throws Exception {
+        Object entity = cache.entity(user, User.class, user.getId(), cache.versionOf(User.class, user.getId()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        provider.writeTo(entity, entity.getClass(), entity.getClass(), annotations, mediaType, headers, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * List&lt;User&gt; that equals no other instance
+     */
+    private static Type listType() {
+        return new ParameterizedType() {
+            @Override
+            public Type[] getActualTypeArguments() {
+                return new Type[] {User.class};
+            }
+
+            @Override
+            public Type getRawType() {
+                return List.class;
+            }
+
+            @Override
+            public Type getOwnerType() {
+                return null;
+            }
+        };
+    }
+
+    @JsonView(Views.Public.class)
+    private static Annotation[] publicView() throws NoSuchMethodException {
+        return ResponseCacheTest.class.getDeclaredMethod("publicView").getAnnotations();
+    }
+
+    @JsonView(Views.Internal.class)
+    private static Annotation[] internalView() throws NoSuchMethodException {
+        return ResponseCacheTest.class.getDeclaredMethod("internalView").getAnnotations();
+    }
+}
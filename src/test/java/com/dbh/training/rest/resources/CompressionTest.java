@@ -0,0 +1,88 @@
+package com.dbh.training.rest.resources;
+
+import com.dbh.training.rest.config.CompressionConfig;
+import com.dbh.training.rest.test.BaseIntegrationTest;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for response compression
+ *
+ * - Large responses are gzipped, small ones are sent as is
+ * - Swagger UI assets come precompressed, or uncompressed if not accepted
+ */
+public class CompressionTest extends BaseIntegrationTest {
+
+    @BeforeEach
+    public void setUp() {
+        RestAssured.port = TEST_PORT;
+        RestAssured.basePath = BASE_PATH;
+    }
+
+    @Test
+    @DisplayName("Should gzip large JSON responses")
+    public void testLargeResponseIsCompressed() {
+        given()
+            .header("Accept-Encoding", "gzip")
+        .when()
+            .get("/openapi.json")
+        .then()
+            .statusCode(200)
+            .header("Content-Encoding", "gzip")
+            .header("Vary", containsString("Accept-Encoding"))
+            .body("openapi", notNullValue());
+    }
+
+    @Test
+    @DisplayName("Should send responses below the minimum size uncompressed")
+    public void testSmallResponseIsNotCompressed() {
+        given()
+            .header("Accept-Encoding", "gzip")
+        .when()
+            .get("/health")
+        .then()
+            .statusCode(200)
+            .header("Content-Encoding", nullValue())
+            .body("status", equalTo("UP"));
+    }
+
+    @Test
+    @DisplayName("Should serve precompressed Swagger UI assets when gzip is accepted")
+    public void testPrecompressedAsset() {
+        Response gzipped = given()
+            .header("Accept-Encoding", "gzip, deflate")
+        .when()
+            .get("/swagger-ui/swagger-ui.css");
+        assertEquals(200, gzipped.getStatusCode());
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+
+        Response identity = given()
+            .config(RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()))
+            .header("Accept-Encoding", "identity")
+        .when()
+            .get("/swagger-ui/swagger-ui.css");
+        assertEquals(200, identity.getStatusCode());
+        assertNull(identity.getHeader("Content-Encoding"));
+        assertEquals(identity.asString(), gzipped.asString(), "Both encodings carry the same stylesheet");
+    }
+
+    @Test
+    @DisplayName("Should parse Accept-Encoding qualities")
+    public void testAcceptsEncoding() {
+        assertTrue(CompressionConfig.accepts("gzip, deflate, br", "gzip"));
+        assertTrue(CompressionConfig.accepts("br;q=1.0, gzip;q=0.5", "gzip"));
+        assertTrue(CompressionConfig.accepts("*", "br"));
+        assertFalse(CompressionConfig.accepts("gzip;q=0", "gzip"));
+        assertFalse(CompressionConfig.accepts("*, gzip;q=0", "gzip"));
+        assertFalse(CompressionConfig.accepts("identity", "gzip"));
+        assertFalse(CompressionConfig.accepts(null, "gzip"));
+    }
+}
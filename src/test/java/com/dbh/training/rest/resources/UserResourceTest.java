@@ -9,6 +9,9 @@ import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.*;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * REST Assured tests for UserResource CRUD operations.
@@ -150,6 +153,16 @@ public class UserResourceTest extends BaseIntegrationTest {
         // Given: Create a test user
         Integer userId = createTestUser("updatetest", "update@example.com", "Update", "Test");
         
+        // Read it once, so the update has a cached response to invalidate
+        given()
+            .header("Authorization", "Bearer " + userToken)
+            .accept(ContentType.JSON)
+        .when()
+            .get("/v1/users/{id}", userId)
+        .then()
+            .statusCode(200)
+            .body("first_name", equalTo("Update"));
+        
         // When: Update the user
         User updatedUser = new User();
         updatedUser.setId(userId.longValue());
@@ -411,6 +424,94 @@ public class UserResourceTest extends BaseIntegrationTest {
             .body("last_name", equalTo("Doe"));
     }
     
+    @Test
+    public void testStreamAllUsersAsJsonArray() {
+        createTestUser("streamone", "one@example.com", "Stream", "One");
+        createTestUser("streamtwo", "two@example.com", "Stream", "Two");
+        
+        given()
+            .accept(ContentType.JSON)
+        .when()
+            .get("/v1/users/stream")
+        .then()
+            .statusCode(200)
+            .contentType(ContentType.JSON)
+            .body("size()", equalTo(2))
+            .body("user_name", hasItems("streamone", "streamtwo"));
+    }
+    
+    @Test
+    public void testStreamAllUsersAsGzippedNdjson() {
+        createTestUser("ndjsonone", "nd1@example.com", "Nd", "One");
+        createTestUser("ndjsontwo", "nd2@example.com", "Nd", "Two");
+        
+        // RestAssured decompresses gzip transparently
+        String body = given()
+            .header("Accept", "application/x-ndjson")
+            .header("Accept-Encoding", "gzip")
+        .when()
+            .get("/v1/users/stream")
+        .then()
+            .statusCode(200)
+            .header("Content-Encoding", equalTo("gzip"))
+            .contentType(containsString("application/x-ndjson"))
+            .extract()
+            .asString();
+        
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"user_id\":"));
+    }
+    
+    @Test
+    public void testStreamHonoursRefusedGzip() {
+        given()
+            .accept(ContentType.JSON)
+            .header("Accept-Encoding", "gzip;q=0, identity")
+        .when()
+            .get("/v1/users/stream")
+        .then()
+            .statusCode(200)
+            .header("Content-Encoding", nullValue());
+    }
+    
+    @Test
+    public void testCreateUserDoesNotKeepPlainTextPassword() {
+        Integer id = given()
+            .header("Authorization", "Bearer " + adminToken)
+            .contentType(ContentType.JSON)
+            .body("{\"user_name\":\"withpassword\",\"email_address\":\"pw@example.com\","
+                    + "\"first_name\":\"With\",\"last_name\":\"Password\",\"password\":\"secret123\"}")
+        .when()
+            .post("/v1/users")
+        .then()
+            .statusCode(201)
+            .body("password", nullValue())
+            .extract()
+            .path("user_id");
+        
+        User stored = UserResourceV1.snapshotUsers().stream()
+            .filter(user -> user.getId().equals(id.longValue()))
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+        assertNull(stored.getRawPassword());
+    }
+    
+    @Test
+    public void testStreamAllUsersHasApiHeaders() {
+        // Served outside Jersey, but with the headers of the rest of /v1/users
+        given()
+            .accept(ContentType.JSON)
+        .when()
+            .get("/v1/users/stream")
+        .then()
+            .statusCode(200)
+            .header("Cache-Control", containsString("no-store"))
+            .header("X-Content-Type-Options", "nosniff")
+            .header("X-Frame-Options", "DENY")
+            .header("Access-Control-Allow-Origin", "*");
+    }
+    
     // Helper method to create test users
     private Integer createTestUser(String username, String email, String firstName, String lastName) {
         User user = new User();
@@ -6,7 +6,12 @@ import io.restassured.http.ContentType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static io.restassured.RestAssured.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 import static org.hamcrest.Matchers.*;
 
 /**
@@ -344,4 +349,356 @@ public class UserResourceV2Test extends BaseIntegrationTest {
             .header("Sunset", nullValue())
             .header("Deprecation", nullValue());
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testV2FilterByNamePrefixAndAgeRange() {
+        createV2User("alice", 25);
+        createV2User("Alfred", 40);
+        createV2User("albert", 61);
+        createV2User("bob", 30);
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+            .queryParam("namePrefix", "AL")
+            .queryParam("minAge", 20)
+            .queryParam("maxAge", 60)
+            .queryParam("sort", "username")
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(200)
+            .body("size()", equalTo(2))
+            .body("user_name", contains("Alfred", "alice"));
+    }
+    
+    @Test
+    public void testV2SortByAgeDescending() {
+        createV2User("young", 18);
+        createV2User("old", 80);
+        createV2User("middle", 45);
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+            .queryParam("sort", "age")
+            .queryParam("order", "desc")
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(200)
+            .body("age", contains(80, 45, 18));
+    }
+    
+    @Test
+    public void testV2CursorPagination() {
+        for (int i = 0; i < 5; i++) {
+            createV2User("pageuser" + i, 20 + i);
+        }
+        
+        io.restassured.response.Response first = given()
+            .header("Authorization", "Bearer " + userToken)
+            .queryParam("limit", 2)
+        .when()
+            .get("/v2/users");
+        first.then()
+            .statusCode(200)
+            .body("user_name", contains("pageuser0", "pageuser1"))
+            .header("X-Next-Cursor", notNullValue())
+            .header("Link", containsString("rel=\"next\""));
+        
+        io.restassured.response.Response second = given()
+            .header("Authorization", "Bearer " + userToken)
+            .queryParam("limit", 2)
+            .queryParam("cursor", first.getHeader("X-Next-Cursor"))
+        .when()
+            .get("/v2/users");
+        second.then()
+            .statusCode(200)
+            .body("user_name", contains("pageuser2", "pageuser3"));
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+            .queryParam("limit", 2)
+            .queryParam("cursor", second.getHeader("X-Next-Cursor"))
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(200)
+            .body("user_name", contains("pageuser4"))
+            .header("X-Next-Cursor", nullValue());
+    }
+    
+    @Test
+    public void testV2InvalidQueryParameters() {
+        given()
+            .header("Authorization", "Bearer " + userToken)
+            .queryParam("sort", "password")
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(400);
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+            .queryParam("cursor", "not-a-cursor")
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(400);
+        
+        // Malformed numbers and an unknown order are 400 with an error body, not 404
+        String[][] invalid = {{"limit", "abc"}, {"minAge", "x"}, {"maxAge", "1.5"}, {"order", "sideways"}};
+        for (String[] param : invalid) {
+            given()
+                .header("Authorization", "Bearer " + userToken)
+                .queryParam(param[0], param[1])
+            .when()
+                .get("/v2/users")
+            .then()
+                .statusCode(400)
+                .body("message", containsString(param[0]));
+        }
+    }
+    
+    @Test
+    public void testV2BulkImportNdjson() {
+        String body =
+            "{\"user_name\":\"bulk1\",\"email_address\":\"bulk1@example.com\",\"first_name\":\"Bulk\",\"last_name\":\"One\",\"age\":30}\n" +
+            "{\"user_name\":\"bulk2\",\"email_address\":\"not-an-email\",\"first_name\":\"Bulk\",\"last_name\":\"Two\"}\n" +
+            "{\"user_name\":\"bulk3\",\"email_address\":\"bulk3@example.com\",\"first_name\":\"Bulk\",\"last_name\":\"Three\"}\n";
+        
+        String result = given()
+            .header("Authorization", "Bearer " + adminToken)
+            .contentType("application/x-ndjson")
+            .accept("application/x-ndjson")
+            .body(body.getBytes(StandardCharsets.UTF_8))
+        .when()
+            .post("/v2/users/import")
+        .then()
+            .statusCode(200)
+            .contentType(containsString("application/x-ndjson"))
+            .extract().asString();
+        
+        String[] lines = result.trim().split("\n");
+        assertEquals(4, lines.length, result);
+        assertTrue(lines[0].contains("\"status\":\"created\""), lines[0]);
+        assertTrue(lines[1].contains("\"index\":1") && lines[1].contains("\"status\":\"invalid\""), lines[1]);
+        assertTrue(lines[2].contains("\"status\":\"created\""), lines[2]);
+        assertTrue(lines[3].contains("\"total\":3") && lines[3].contains("\"created\":2")
+                && lines[3].contains("\"failed\":1"), lines[3]);
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(200)
+            .body("user_name", containsInAnyOrder("bulk1", "bulk3"));
+    }
+    
+    @Test
+    public void testV2BulkImportJsonArrayRequiresAdmin() {
+        given()
+            .header("Authorization", "Bearer " + userToken)
+            .contentType(ContentType.JSON)
+            .accept("application/x-ndjson")
+            .body("[]")
+        .when()
+            .post("/v2/users/import")
+        .then()
+            .statusCode(403);
+    }
+    
+    @Test
+    public void testV2BulkImportJsonArray() {
+        String body = "[" +
+            "{\"user_name\":\"array1\",\"email_address\":\"array1@example.com\",\"first_name\":\"Array\",\"last_name\":\"One\"}," +
+            "{\"user_name\":\"array2\",\"email_address\":\"array2@example.com\",\"first_name\":\"Array\",\"last_name\":\"Two\"}" +
+            "]";
+        
+        String result = given()
+            .header("Authorization", "Bearer " + adminToken)
+            .contentType(ContentType.JSON)
+            .accept("application/x-ndjson")
+            .body(body)
+        .when()
+            .post("/v2/users/import")
+        .then()
+            .statusCode(200)
+            .extract().asString();
+        
+        String[] lines = result.trim().split("\n");
+        assertEquals(3, lines.length, result);
+        assertTrue(lines[2].contains("\"total\":2") && lines[2].contains("\"created\":2")
+                && lines[2].contains("\"aborted\":false"), lines[2]);
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(200)
+            .body("user_name", containsInAnyOrder("array1", "array2"));
+    }
+    
+    @Test
+    public void testV2BulkImportKeepsRecordsBeforeMalformedInput() {
+        // Three good records, then a record cut off mid-way
+        String body =
+            "{\"user_name\":\"good1\",\"email_address\":\"good1@example.com\",\"first_name\":\"Good\",\"last_name\":\"One\"}\n" +
+            "{\"user_name\":\"good2\",\"email_address\":\"good2@example.com\",\"first_name\":\"Good\",\"last_name\":\"Two\"}\n" +
+            "{\"user_name\":\"good3\",\"email_address\":\"good3@example.com\",\"first_name\":\"Good\",\"last_name\":\"Three\"}\n" +
+            "{\"user_name\":\"broken\",\"email_addr";
+        
+        String result = given()
+            .header("Authorization", "Bearer " + adminToken)
+            .contentType("application/x-ndjson")
+            .accept("application/x-ndjson")
+            .body(body.getBytes(StandardCharsets.UTF_8))
+        .when()
+            .post("/v2/users/import")
+        .then()
+            .statusCode(200)
+            .extract().asString();
+        
+        String[] lines = result.trim().split("\n");
+        assertEquals(5, lines.length, result);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(lines[i].contains("\"status\":\"created\""), lines[i]);
+        }
+        // The abort line follows the results of the records before it
+        assertTrue(lines[3].contains("\"status\":\"aborted\""), lines[3]);
+        assertTrue(lines[4].contains("\"total\":3") && lines[4].contains("\"created\":3")
+                && lines[4].contains("\"aborted\":true"), lines[4]);
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(200)
+            .body("user_name", containsInAnyOrder("good1", "good2", "good3"));
+    }
+    
+    @Test
+    public void testV1ToV2MigrationResumesFromCheckpoint() throws InterruptedException {
+        createV1User("legacy1");
+        createV1User("legacy2");
+        
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+        .when()
+            .post("/v2/users/migrate")
+        .then()
+            .statusCode(202)
+            .body("state", equalTo("RUNNING"));
+        awaitMigrationCompleted();
+        
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+        .when()
+            .get("/v2/users/migrate")
+        .then()
+            .statusCode(200)
+            .body("imported", equalTo(2))
+            .body("checkpoint", equalTo(2));
+        
+        // A second run only picks up V1 users created since the checkpoint
+        createV1User("legacy3");
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+        .when()
+            .post("/v2/users/migrate")
+        .then()
+            .statusCode(202)
+            .body("start_checkpoint", equalTo(2));
+        awaitMigrationCompleted();
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(200)
+            .body("user_name", containsInAnyOrder("legacy1", "legacy2", "legacy3"))
+            .body("first_name", everyItem(equalTo("Legacy")));
+    }
+    
+    @Test
+    public void testMigrationRestartDoesNotDuplicateUsers() throws InterruptedException {
+        createV1User("again1");
+        createV1User("again2");
+        
+        for (int run = 0; run < 2; run++) {
+            given()
+                .header("Authorization", "Bearer " + adminToken)
+                .queryParam("restart", true)
+            .when()
+                .post("/v2/users/migrate")
+            .then()
+                .statusCode(202)
+                .body("start_checkpoint", equalTo(0));
+            awaitMigrationCompleted();
+        }
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+        .when()
+            .get("/v2/users")
+        .then()
+            .statusCode(200)
+            .body("user_name", containsInAnyOrder("again1", "again2"));
+    }
+    
+    @Test
+    public void testMigrationStatusWithoutJob() {
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+        .when()
+            .get("/v2/users/migrate")
+        .then()
+            .statusCode(404);
+    }
+    
+    private void awaitMigrationCompleted() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String state = given()
+                .header("Authorization", "Bearer " + adminToken)
+            .when()
+                .get("/v2/users/migrate")
+            .then()
+                .statusCode(200)
+                .extract().path("state");
+            if ("COMPLETED".equals(state)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Migration did not complete");
+    }
+    
+    private void createV1User(String username) {
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+            .contentType(ContentType.JSON)
+            .body("{\"user_name\":\"" + username + "\",\"email_address\":\"" + username
+                    + "@example.com\",\"first_name\":\"Legacy\",\"last_name\":\"User\"}")
+        .when()
+            .post("/v1/users")
+        .then()
+            .statusCode(201);
+    }
+    
+    private void createV2User(String username, Integer age) {
+        UserV2 user = new UserV2(username, username + "@example.com", "First", "Last");
+        user.setAge(age);
+        
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+            .contentType(ContentType.JSON)
+            .body(user)
+        .when()
+            .post("/v2/users")
+        .then()
+            .statusCode(201);
+    }
+}
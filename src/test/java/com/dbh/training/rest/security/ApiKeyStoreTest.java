@@ -0,0 +1,92 @@
+package com.dbh.training.rest.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ApiKeyStore
+ *
+ * Covers key creation, digest lookup, deletion, provisioning and validation.
+ */
+public class ApiKeyStoreTest {
+
+    @Test
+    public void testCreatedKeyAuthenticates() {
+        // Configured at startup (security.roles)
+        Roles.register("EXPORTER");
+        ApiKeyStore store = new ApiKeyStore("");
+        ApiKeyStore.Issued issued = store.create("nightly-export", Arrays.asList("USER", "EXPORTER"));
+
+        ApiKey apiKey = store.authenticate(issued.getKey());
+        assertSame(issued.getApiKey(), apiKey);
+        assertEquals("apikey:nightly-export", apiKey.getPrincipalName());
+        assertEquals(Roles.bitOf("USER") | Roles.bitOf("EXPORTER"), apiKey.getRoleMask());
+
+        assertNull(store.authenticate(issued.getKey() + "x"));
+        assertNull(store.authenticate(""));
+        assertNull(store.authenticate(null));
+        assertEquals(1L, store.getStats().get("authenticated"));
+        assertEquals(3L, store.getStats().get("rejected"));
+    }
+
+    @Test
+    public void testDeletedKeyIsRejected() {
+        ApiKeyStore store = new ApiKeyStore("");
+        ApiKeyStore.Issued issued = store.create("batch", Collections.singletonList("USER"));
+
+        assertTrue(store.delete(issued.getApiKey().getId()));
+        assertFalse(store.delete(issued.getApiKey().getId()));
+        assertNull(store.authenticate(issued.getKey()));
+        assertTrue(store.list().isEmpty());
+    }
+
+    @Test
+    public void testProvisionedKeyAuthenticates() {
+        String key = "dbh_provisioned-test-key";
+        StringBuilder hex = new StringBuilder();
+        for (byte b : ApiKeyStore.digest(key)) {
+            hex.append(String.format("%02x", b));
+        }
+        ApiKeyStore store = new ApiKeyStore("reports:" + hex + ":USER|ADMIN");
+
+        ApiKey apiKey = store.authenticate(key);
+        assertNotNull(apiKey);
+        assertEquals("reports", apiKey.getName());
+        assertTrue(apiKey.getRoles().contains("ADMIN"));
+        assertThrows(IllegalArgumentException.class, () -> new ApiKeyStore("broken:abc:USER"));
+    }
+
+    @Test
+    public void testOnlyKnownRolesCanBeGranted() {
+        ApiKeyStore store = new ApiKeyStore("");
+        assertThrows(IllegalArgumentException.class,
+                () -> store.create("typo", Collections.singletonList("NOT_A_CONFIGURED_ROLE")));
+        assertEquals(0L, Roles.bitOf("NOT_A_CONFIGURED_ROLE"));
+        assertTrue(store.list().isEmpty());
+
+        // A provisioned key's roles are registered at startup
+        StringBuilder hex = new StringBuilder();
+        for (byte b : ApiKeyStore.digest("dbh_batch-key")) {
+            hex.append(String.format("%02x", b));
+        }
+        new ApiKeyStore("batch:" + hex + ":BATCH_JOB");
+        assertNotEquals(0L, Roles.bitOf("BATCH_JOB"));
+        assertNotNull(store.create("another-batch", Collections.singletonList("BATCH_JOB")));
+    }
+
+    @Test
+    public void testInvalidKeysAreRefused() {
+        ApiKeyStore store = new ApiKeyStore("");
+        store.create("batch", Collections.singletonList("USER"));
+
+        assertThrows(IllegalArgumentException.class, () -> store.create("batch", Collections.singletonList("USER")));
+        assertThrows(IllegalArgumentException.class, () -> store.create("bad name", Collections.singletonList("USER")));
+        assertThrows(IllegalArgumentException.class, () -> store.create("other", Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class, () -> store.create("other", Collections.singletonList("NOT A ROLE")));
+        assertEquals(1, store.size());
+    }
+}
@@ -0,0 +1,203 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.models.User;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JwtKeyRing with asymmetric keys
+ *
+ * Covers signing and verification per algorithm, rotation with overlap,
+ * configured key files and the published JWK Set.
+ */
+public class JwtKeyRingTest {
+
+    @Test
+    public void testSignAndVerifyRs256() {
+        assertSignsAndVerifies(SignatureAlgorithm.RS256);
+    }
+
+    @Test
+    public void testSignAndVerifyEs256() {
+        assertSignsAndVerifies(SignatureAlgorithm.ES256);
+    }
+
+    private static void assertSignsAndVerifies(SignatureAlgorithm algorithm) {
+        JwtService jwtService = new JwtService(new JwtKeyRing(algorithm, 0, 3600));
+        String token = jwtService.generateToken(user());
+
+        assertTrue(jwtService.hasValidSignature(token));
+        assertEquals("alice", jwtService.verify(token).getSubject());
+        assertFalse(jwtService.hasCheapSignatureCheck());
+
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "AA." + parts[2];
+        assertFalse(jwtService.hasValidSignature(tampered));
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+
+        // Another ring's keys are unknown here
+        String foreign = new JwtService(new JwtKeyRing(algorithm, 0, 3600)).generateToken(user());
+        assertFalse(jwtService.hasValidSignature(foreign));
+        assertThrows(JwtException.class, () -> jwtService.verify(foreign));
+    }
+
+    @Test
+    public void testRotationKeepsRetiredKeyVerifying() {
+        JwtKeyRing ring = new JwtKeyRing(SignatureAlgorithm.ES256, 0, 3600);
+        JwtService jwtService = new JwtService(ring);
+        String before = jwtService.generateToken(user());
+        String oldKid = ring.active().getKid();
+
+        ring.rotate();
+
+        assertNotEquals(oldKid, ring.active().getKid());
+        String after = jwtService.generateToken(user());
+        assertTrue(jwtService.hasValidSignature(before));
+        assertTrue(jwtService.hasValidSignature(after));
+        assertEquals("alice", jwtService.verify(before).getSubject());
+    }
+
+    @Test
+    public void testRetiredKeyDroppedAfterOverlap() {
+        JwtKeyRing ring = new JwtKeyRing(SignatureAlgorithm.ES256, 0, 0);
+        JwtService jwtService = new JwtService(ring);
+        String before = jwtService.generateToken(user());
+
+        ring.rotate();
+        ring.rotate();
+
+        assertFalse(jwtService.hasValidSignature(before));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJwksPublishesPublicKeys() {
+        JwtKeyRing ring = new JwtKeyRing(SignatureAlgorithm.RS256, 3600, 3600);
+        try {
+            List<Map<String, Object>> keys = (List<Map<String, Object>>) ring.getJwks().get("keys");
+
+            // Active and next key
+            assertEquals(2, keys.size());
+            Map<String, Object> active = keys.get(0);
+            assertEquals(ring.active().getKid(), active.get("kid"));
+            assertEquals("RSA", active.get("kty"));
+            assertEquals("RS256", active.get("alg"));
+            assertEquals("AQAB", active.get("e"));
+            assertNotNull(active.get("n"));
+            assertFalse(active.containsKey("d"));
+        } finally {
+            ring.shutdown();
+        }
+
+        JwtKeyRing ec = new JwtKeyRing(SignatureAlgorithm.ES256, 0, 3600);
+        Map<String, Object> jwk = ((List<Map<String, Object>>) ec.getJwks().get("keys")).get(0);
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals("P-256", jwk.get("crv"));
+        assertEquals(43, ((String) jwk.get("x")).length());
+
+        // The shared secret is never published
+        assertTrue(((List<?>) new JwtKeyRing("a-secret-of-at-least-thirty-two-bytes!".getBytes()).getJwks()
+                .get("keys")).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConfiguredKeysAreSharedAcrossRings(@TempDir Path dir) throws Exception {
+        Path activeFile = writeKey(dir.resolve("active.pem"), "EC");
+        Path nextFile = writeKey(dir.resolve("next.pem"), "EC");
+        KeyPair active = PemKeys.read(activeFile, "EC");
+        KeyPair next = PemKeys.read(nextFile, "EC");
+
+        // Two nodes, or one node before and after a restart
+        JwtKeyRing first = new JwtKeyRing(SignatureAlgorithm.ES256, active, next, Collections.emptyList());
+        JwtKeyRing second = new JwtKeyRing(SignatureAlgorithm.ES256, PemKeys.read(activeFile, "EC"),
+                PemKeys.read(nextFile, "EC"), Collections.emptyList());
+        assertEquals(first.active().getKid(), second.active().getKid());
+        String token = new JwtService(first).generateToken(user());
+        assertEquals("alice", new JwtService(second).verify(token).getSubject());
+
+        // The next key is published, and configured keys never rotate by themselves
+        List<Map<String, Object>> keys = (List<Map<String, Object>>) first.getJwks().get("keys");
+        assertEquals(2, keys.size());
+        String kid = first.active().getKid();
+        first.rotate();
+        assertEquals(kid, first.active().getKid());
+
+        // Deploying next as active keeps the old key verifying as a previous key
+        JwtKeyRing rotated = new JwtKeyRing(SignatureAlgorithm.ES256, next, null, Collections.singletonList(active));
+        JwtService rotatedService = new JwtService(rotated);
+        assertNotEquals(kid, rotated.active().getKid());
+        assertEquals("alice", rotatedService.verify(token).getSubject());
+        assertTrue(rotatedService.hasValidSignature(rotatedService.generateToken(user())));
+    }
+
+    @Test
+    public void testRollingDeployAcceptsPromotedNextKey() throws Exception {
+        KeyPair a = generate("EC");
+        KeyPair b = generate("EC");
+        // Node not yet redeployed, and a node that already promoted B
+        JwtService notYet = new JwtService(new JwtKeyRing(SignatureAlgorithm.ES256, a, b, Collections.emptyList()));
+        JwtService promoted = new JwtService(new JwtKeyRing(SignatureAlgorithm.ES256, b, null,
+                Collections.singletonList(a)));
+
+        String fromPromoted = promoted.generateToken(user());
+        assertTrue(notYet.hasValidSignature(fromPromoted));
+        assertEquals("alice", notYet.verify(fromPromoted).getSubject());
+        assertEquals("alice", promoted.verify(notYet.generateToken(user())).getSubject());
+    }
+
+    @Test
+    public void testRsaKeyFileWithoutPublicBlock(@TempDir Path dir) throws Exception {
+        KeyPair keyPair = generate("RSA");
+        Path file = dir.resolve("rsa.pem");
+        String pem = PemKeys.write(keyPair);
+        Files.write(file, pem.substring(0, pem.indexOf("-----BEGIN PUBLIC KEY")).getBytes(StandardCharsets.US_ASCII));
+
+        KeyPair read = PemKeys.read(file, "RSA");
+        assertEquals(keyPair.getPublic(), read.getPublic());
+
+        // An EC key file cannot configure an RS256 ring
+        KeyPair ec = PemKeys.read(writeKey(dir.resolve("ec.pem"), "EC"), "EC");
+        assertThrows(IllegalArgumentException.class,
+                () -> new JwtKeyRing(SignatureAlgorithm.RS256, ec, null, Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class, () -> PemKeys.read(dir.resolve("missing.pem"), "RSA"));
+    }
+
+    private static Path writeKey(Path file, String keyAlgorithm) throws Exception {
+        Files.write(file, PemKeys.write(generate(keyAlgorithm)).getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    private static KeyPair generate(String keyAlgorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+        if ("EC".equals(keyAlgorithm)) {
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        } else {
+            generator.initialize(2048);
+        }
+        return generator.generateKeyPair();
+    }
+
+    private static User user() {
+        User user = new User("alice", "alice@example.com", "Alice", "Smith");
+        user.setId(42L);
+        user.setRoles(new HashSet<>(Arrays.asList("USER")));
+        return user;
+    }
+}
@@ -0,0 +1,92 @@
+package com.dbh.training.rest.security;
+
+import com.dbh.training.rest.models.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JwtService
+ *
+ * Covers the shared parser, typed claims via verify() and the
+ * signature-only verification path.
+ */
+public class JwtServiceTest {
+
+    private JwtService jwtService;
+    private String token;
+
+    @BeforeEach
+    public void setUp() {
+        jwtService = new JwtService();
+        User user = new User("alice", "alice@example.com", "Alice", "Smith");
+        user.setId(42L);
+        user.setRoles(new HashSet<>(Arrays.asList("USER", "ADMIN")));
+        token = jwtService.generateToken(user);
+    }
+
+    @Test
+    public void testValidateTokenWithSharedParser() {
+        for (int i = 0; i < 3; i++) {
+            Claims claims = jwtService.validateToken(token);
+            assertEquals("alice", claims.getSubject());
+            assertEquals(Long.valueOf(42), claims.get("userId", Long.class));
+        }
+    }
+
+    @Test
+    public void testVerifyReturnsTypedClaims() {
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals("alice", verified.getSubject());
+        assertEquals(Long.valueOf(42), verified.getUserId());
+        assertEquals(new HashSet<>(Arrays.asList("USER", "ADMIN")), new HashSet<>(verified.getRoles()));
+        assertTrue(verified.getExpiresAtMillis() > verified.getIssuedAtMillis());
+        assertFalse(verified.isExpired(System.currentTimeMillis()));
+        assertThrows(UnsupportedOperationException.class, () -> verified.getRoles().add("ROOT"));
+
+        // The helpers are views over the same verification
+        assertEquals("alice", jwtService.getUsername(token));
+        assertEquals(Long.valueOf(42), jwtService.getUserId(token));
+        assertEquals(verified.getRoles(), jwtService.getRoles(token));
+        assertFalse(jwtService.isTokenExpired(token));
+        assertTrue(jwtService.isTokenExpired(token + "x"));
+    }
+
+    @Test
+    public void testSignatureCheckAcceptsIssuedToken() {
+        assertTrue(jwtService.hasValidSignature(token));
+        // Tokens issued by another instance with the same secret verify too
+        assertTrue(new JwtService().hasValidSignature(token));
+    }
+
+    @Test
+    public void testSignatureCheckRejectsTamperedTokens() {
+        String[] parts = token.split("\\.");
+        String tamperedPayload = parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "AA." + parts[2];
+        char last = parts[2].charAt(0);
+        String tamperedSignature = parts[0] + "." + parts[1] + "." + (last == 'A' ? 'B' : 'A') + parts[2].substring(1);
+
+        assertFalse(jwtService.hasValidSignature(tamperedPayload));
+        assertFalse(jwtService.hasValidSignature(tamperedSignature));
+        assertThrows(JwtException.class, () -> jwtService.validateToken(tamperedSignature));
+    }
+
+    @Test
+    public void testSignatureCheckRejectsMalformedTokens() {
+        String[] parts = token.split("\\.");
+
+        assertFalse(jwtService.hasValidSignature(null));
+        assertFalse(jwtService.hasValidSignature(""));
+        assertFalse(jwtService.hasValidSignature("not-a-token"));
+        assertFalse(jwtService.hasValidSignature(parts[1] + "." + parts[2]));
+        assertFalse(jwtService.hasValidSignature(parts[0] + "." + parts[1] + "." + parts[2] + "A"));
+        assertFalse(jwtService.hasValidSignature(parts[0] + "." + parts[1] + "." + parts[2].replace(parts[2].charAt(5), '*')));
+    }
+}
@@ -0,0 +1,91 @@
+package com.dbh.training.rest.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordHasher
+ *
+ * Covers hashing and verification on the pool (also without a hash),
+ * load shedding when the queue is full, and the latency metrics.
+ */
+public class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+
+    @AfterEach
+    public void tearDown() {
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    public void testHashAndVerify() throws Exception {
+        hasher = new PasswordHasher(2, 8, 1);
+
+        String hash = hasher.hash("secret123").get(10, TimeUnit.SECONDS);
+
+        assertTrue(hash.startsWith("$2a$"));
+        assertTrue(hasher.verify("secret123", hash).get(10, TimeUnit.SECONDS));
+        assertFalse(hasher.verify("wrong", hash).get(10, TimeUnit.SECONDS));
+        assertFalse(hasher.verify("secret123", null).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMissingHashStillCostsAVerification() throws Exception {
+        hasher = new PasswordHasher(1, 8, 1);
+
+        assertFalse(hasher.verify("secret123", null).get(10, TimeUnit.SECONDS));
+        assertFalse(hasher.verify("secret123", null).get(10, TimeUnit.SECONDS));
+
+        // Both ran on the pool, like a check against a real hash
+        assertEquals(2L, hasher.getStats().get("completed"));
+    }
+
+    @Test
+    public void testFullQueueIsRejectedWithRetryAfter() throws Exception {
+        hasher = new PasswordHasher(1, 1, 3);
+
+        // One running, one queued, the rest must be shed immediately
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(hasher.hash("password" + i));
+        }
+
+        int rejected = 0;
+        for (CompletableFuture<String> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                PasswordHasher.Busy busy = assertInstanceOf(PasswordHasher.Busy.class, e.getCause());
+                assertEquals(3, busy.getRetryAfterSeconds());
+                rejected++;
+            }
+        }
+        assertTrue(rejected >= 4, "Expected at least 4 rejections, got " + rejected);
+        assertEquals((long) rejected, hasher.getStats().get("rejected"));
+    }
+
+    @Test
+    public void testStatsRecordLatency() throws Exception {
+        hasher = new PasswordHasher(1, 8, 1);
+
+        hasher.hash("a").get(10, TimeUnit.SECONDS);
+        hasher.hash("b").get(10, TimeUnit.SECONDS);
+
+        Map<String, Object> stats = hasher.getStats();
+        assertEquals(2L, stats.get("completed"));
+        assertTrue((Double) stats.get("avg_hash_ms") > 0.0, stats.toString());
+        assertEquals(8, stats.get("queue_capacity"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.dbh.training.rest.security;
+
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordPolicy
+ *
+ * Covers the cost stored in hashes, rehash decisions and calibration.
+ */
+public class PasswordPolicyTest {
+
+    @Test
+    public void testHashCarriesConfiguredCost() {
+        PasswordPolicy policy = new PasswordPolicy(5, Collections.emptyMap());
+
+        String hash = policy.hash("secret123");
+
+        assertEquals(5, PasswordPolicy.costOf(hash));
+        assertTrue(BCrypt.checkpw("secret123", hash));
+        assertFalse(policy.needsRehash(hash));
+    }
+
+    @Test
+    public void testNeedsRehashOnUpgradeAndDowngrade() {
+        PasswordPolicy policy = new PasswordPolicy(6, Collections.emptyMap());
+
+        assertTrue(policy.needsRehash(BCrypt.hashpw("pw", BCrypt.gensalt(4))));
+        assertTrue(policy.needsRehash(BCrypt.hashpw("pw", BCrypt.gensalt(7))));
+        assertFalse(policy.needsRehash(null));
+        assertFalse(policy.needsRehash("not-a-bcrypt-hash"));
+        assertEquals(-1, PasswordPolicy.costOf("$2a$xx$abc"));
+    }
+
+    @Test
+    public void testInvalidCostRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPolicy(3, Collections.emptyMap()));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPolicy(32, Collections.emptyMap()));
+    }
+
+    @Test
+    public void testCalibrationReportsMeasurementsAndStaysWithinTarget() {
+        PasswordPolicy policy = PasswordPolicy.calibrate(1000, 6);
+
+        Map<Integer, Double> measured = policy.getCalibration();
+        assertTrue(measured.containsKey(PasswordPolicy.MIN_COST));
+        assertTrue(policy.getCost() >= PasswordPolicy.MIN_COST && policy.getCost() <= 6);
+        assertTrue(measured.keySet().stream().allMatch(cost -> cost <= 6));
+    }
+
+    @Test
+    public void testImpossibleTargetFallsBackToMinimumCost() {
+        PasswordPolicy policy = PasswordPolicy.calibrate(0, 8);
+
+        assertEquals(PasswordPolicy.MIN_COST, policy.getCost());
+        assertEquals(1, policy.getCalibration().size());
+    }
+}
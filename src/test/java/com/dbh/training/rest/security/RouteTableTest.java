@@ -0,0 +1,52 @@
+package com.dbh.training.rest.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RouteTable
+ *
+ * Covers exact and prefix rules, the deepest-match rule and path normalization.
+ */
+public class RouteTableTest {
+
+    private final RouteTable routes = new RouteTable();
+
+    @Test
+    public void testPublicRoutes() {
+        assertEquals(Route.PUBLIC, routes.classify(""));
+        assertEquals(Route.PUBLIC, routes.classify("/"));
+        assertEquals(Route.HEALTH, routes.classify("health"));
+        assertEquals(Route.DIAGNOSTICS, routes.classify("health/details"));
+        assertEquals(Route.DOCS, routes.classify("openapi.json"));
+        assertEquals(Route.DOCS, routes.classify("swagger-ui"));
+        assertEquals(Route.DOCS, routes.classify("swagger-ui/swagger-ui-bundle.js"));
+        assertEquals(Route.DOCS, routes.classify(".well-known/jwks.json"));
+        assertEquals(Route.LOGIN, routes.classify("auth/login"));
+        assertEquals(Route.LOGIN, routes.classify("auth/register"));
+        assertEquals(Route.AUTH, routes.classify("auth/refresh"));
+
+        assertFalse(routes.classify("swagger-ui/index.html").requiresAuthentication());
+        assertFalse(routes.classify("health").isRateLimited());
+    }
+
+    @Test
+    public void testDeepestRuleWins() {
+        assertEquals(Route.AUTH_ADMIN, routes.classify("auth/revoke"));
+        assertTrue(routes.classify("auth/revoke").requiresAuthentication());
+        assertEquals(Route.Caching.NO_STORE, routes.classify("auth/revoke").getCaching());
+        assertEquals(Route.USER_DATA, routes.classify("v2/users/42"));
+        assertEquals(Route.USER_DATA, routes.classify("/v1/users/"));
+    }
+
+    @Test
+    public void testUnmatchedPathsNeedAuthentication() {
+        assertEquals(Route.AUTHENTICATED, routes.classify("todos"));
+        assertEquals(Route.AUTHENTICATED, routes.classify("health/other"));
+        assertEquals(Route.AUTHENTICATED, routes.classify("healthz"));
+        assertEquals(Route.AUTHENTICATED, routes.classify("v2"));
+        assertEquals(Route.AUTHENTICATED, routes.classify("auth/../todos"));
+        assertEquals(Route.AUTHENTICATED, routes.classify("swagger-ui/./x"));
+    }
+}
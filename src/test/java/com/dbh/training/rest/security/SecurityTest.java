@@ -1,13 +1,16 @@
 package com.dbh.training.rest.security;
 
 import com.dbh.training.rest.Application;
+import com.dbh.training.rest.dto.ApiKeyRequest;
 import com.dbh.training.rest.dto.LoginRequest;
+import com.dbh.training.rest.dto.RefreshRequest;
 import com.dbh.training.rest.dto.TokenResponse;
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import org.eclipse.jetty.server.Server;
 import org.junit.jupiter.api.*;
+import java.util.Collections;
 import static io.restassured.RestAssured.*;
 import static org.hamcrest.Matchers.*;
 
@@ -302,4 +305,244 @@ public class SecurityTest {
             .statusCode(200)
             .body("status", equalTo("healthy"));
     }
-}
\ No newline at end of file
+    
+    @Test
+    @Order(17)
+    public void testRegisterWithPasswordThenLogin() {
+        String body = "{\"user_name\":\"newcomer\",\"email_address\":\"newcomer@example.com\","
+                + "\"first_name\":\"New\",\"last_name\":\"Comer\",\"password\":\"newcomer123\"}";
+        
+        given()
+            .contentType(ContentType.JSON)
+            .body(body)
+        .when()
+            .post("/auth/register")
+        .then()
+            .statusCode(201)
+            .body("access_token", notNullValue());
+        
+        given()
+            .contentType(ContentType.JSON)
+            .body(new LoginRequest("newcomer", "newcomer123"))
+        .when()
+            .post("/auth/login")
+        .then()
+            .statusCode(200)
+            .body("access_token", notNullValue());
+        
+        given()
+            .contentType(ContentType.JSON)
+            .body(new LoginRequest("newcomer", "wrong-password"))
+        .when()
+            .post("/auth/login")
+        .then()
+            .statusCode(401);
+    }
+    
+    @Test
+    @Order(18)
+    public void testRefreshTokenRotation() {
+        Response login = given()
+            .contentType(ContentType.JSON)
+            .body(new LoginRequest("user", "user123"))
+        .when()
+            .post("/auth/login")
+        .then()
+            .statusCode(200)
+            .body("refresh_token", notNullValue())
+            .extract()
+            .response();
+        String refreshToken = login.jsonPath().getString("refresh_token");
+        
+        // A refresh token is not an access token
+        given()
+            .header("Authorization", "Bearer " + refreshToken)
+        .when()
+            .get("/v1/users")
+        .then()
+            .statusCode(403);
+        
+        Response refreshed = given()
+            .contentType(ContentType.JSON)
+            .body(new RefreshRequest(refreshToken))
+        .when()
+            .post("/auth/refresh")
+        .then()
+            .statusCode(200)
+            .body("access_token", notNullValue())
+            .body("refresh_token", not(equalTo(refreshToken)))
+            .extract()
+            .response();
+        
+        given()
+            .header("Authorization", "Bearer " + refreshed.jsonPath().getString("access_token"))
+        .when()
+            .get("/v1/users")
+        .then()
+            .statusCode(200);
+        
+        // Rotated: the old refresh token is spent
+        given()
+            .contentType(ContentType.JSON)
+            .body(new RefreshRequest(refreshToken))
+        .when()
+            .post("/auth/refresh")
+        .then()
+            .statusCode(401);
+    }
+    
+    @Test
+    @Order(19)
+    public void testLogoutRevokesTokens() {
+        Response login = given()
+            .contentType(ContentType.JSON)
+            .body(new LoginRequest("user", "user123"))
+        .when()
+            .post("/auth/login")
+        .then()
+            .statusCode(200)
+            .extract()
+            .response();
+        String accessToken = login.jsonPath().getString("access_token");
+        String refreshToken = login.jsonPath().getString("refresh_token");
+        
+        // Cache the token as verified before revoking it
+        given().header("Authorization", "Bearer " + accessToken).when().get("/v1/users").then().statusCode(200);
+        
+        given()
+            .header("Authorization", "Bearer " + accessToken)
+            .contentType(ContentType.JSON)
+            .body(new RefreshRequest(refreshToken))
+        .when()
+            .post("/auth/logout")
+        .then()
+            .statusCode(204);
+        
+        given()
+            .header("Authorization", "Bearer " + accessToken)
+        .when()
+            .get("/v1/users")
+        .then()
+            .statusCode(403);
+        
+        given()
+            .contentType(ContentType.JSON)
+            .body(new RefreshRequest(refreshToken))
+        .when()
+            .post("/auth/refresh")
+        .then()
+            .statusCode(401);
+    }
+    
+    @Test
+    @Order(20)
+    public void testApiKeyAuthentication() {
+        // Only admins manage keys
+        given()
+            .header("Authorization", "Bearer " + userToken)
+            .contentType(ContentType.JSON)
+            .body(new ApiKeyRequest("nightly-job", Collections.singletonList("USER")))
+        .when()
+            .post("/admin/api-keys")
+        .then()
+            .statusCode(403);
+        
+        Response created = given()
+            .header("Authorization", "Bearer " + adminToken)
+            .contentType(ContentType.JSON)
+            .body(new ApiKeyRequest("nightly-job", Collections.singletonList("USER")))
+        .when()
+            .post("/admin/api-keys")
+        .then()
+            .statusCode(201)
+            .header("Location", notNullValue())
+            .body("roles", contains("USER"))
+            .extract()
+            .response();
+        String id = created.jsonPath().getString("id");
+        String key = created.jsonPath().getString("key");
+        Assertions.assertNotNull(key, "Key should be returned on creation");
+        
+        // Scoped to USER: may read, may not create users
+        given()
+            .header("X-API-Key", key)
+        .when()
+            .get("/v1/users")
+        .then()
+            .statusCode(200);
+        
+        given()
+            .header("X-API-Key", key)
+            .contentType(ContentType.JSON)
+            .body("{\"user_name\":\"bykey\",\"email_address\":\"bykey@example.com\"," +
+                  "\"first_name\":\"By\",\"last_name\":\"Key\"}")
+        .when()
+            .post("/v1/users")
+        .then()
+            .statusCode(403);
+        
+        // The key is never listed
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+        .when()
+            .get("/admin/api-keys")
+        .then()
+            .statusCode(200)
+            .body("find { it.id == '" + id + "' }.name", equalTo("nightly-job"))
+            .body("key", everyItem(nullValue()));
+        
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+        .when()
+            .delete("/admin/api-keys/" + id)
+        .then()
+            .statusCode(204);
+        
+        given()
+            .header("X-API-Key", key)
+        .when()
+            .get("/v1/users")
+        .then()
+            .statusCode(403);
+    }
+    
+    @Test
+    @Order(21)
+    public void testInternalMetricsAreForAdminsOnly() {
+        // Public details carry liveness data only
+        given()
+        .when()
+            .get("/health/details")
+        .then()
+            .statusCode(200)
+            .body("status", equalTo("UP"))
+            .body("$", not(hasKey("api_keys")))
+            .body("$", not(hasKey("password_hasher")))
+            .body("$", not(hasKey("rate_limit")));
+        
+        given()
+        .when()
+            .get("/admin/metrics")
+        .then()
+            .statusCode(403);
+        
+        given()
+            .header("Authorization", "Bearer " + userToken)
+        .when()
+            .get("/admin/metrics")
+        .then()
+            .statusCode(403);
+        
+        given()
+            .header("Authorization", "Bearer " + adminToken)
+        .when()
+            .get("/admin/metrics")
+        .then()
+            .statusCode(200)
+            .header("Cache-Control", containsString("no-store"))
+            .body("api_keys.keys", notNullValue())
+            .body("password_hasher", notNullValue())
+            .body("token_revocations", notNullValue())
+            .body("rate_limit", notNullValue());
+    }
+}
@@ -0,0 +1,94 @@
+package com.dbh.training.rest.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenCache
+ *
+ * Covers positive and negative caching, expiry, the size bound and metrics.
+ */
+public class TokenCacheTest {
+
+    private static final long HOUR = 3_600_000;
+
+    @Test
+    public void testVerifiedTokenIsCachedUntilExpiry() throws InterruptedException {
+        TokenCache cache = new TokenCache(100, 100, 1000);
+        TokenCache.Key key = cache.keyOf("token-a");
+
+        assertNull(cache.getVerified(key));
+        cache.putVerified(key, entry(System.currentTimeMillis() + HOUR));
+        assertEquals("alice", cache.getVerified(cache.keyOf("token-a")).getSubject());
+        assertNull(cache.getVerified(cache.keyOf("token-b")));
+
+        TokenCache.Key shortLived = cache.keyOf("token-c");
+        cache.putVerified(shortLived, entry(System.currentTimeMillis() + 20));
+        Thread.sleep(40);
+        assertNull(cache.getVerified(shortLived));
+    }
+
+    @Test
+    public void testInvalidTokenIsCachedForNegativeTtl() throws InterruptedException {
+        TokenCache cache = new TokenCache(100, 100, 30);
+        TokenCache.Key key = cache.keyOf("forged");
+
+        assertFalse(cache.isRejected(key));
+        cache.putInvalid(key);
+        assertTrue(cache.isRejected(key));
+        assertNull(cache.getVerified(key));
+
+        Thread.sleep(60);
+        assertFalse(cache.isRejected(key));
+    }
+
+    @Test
+    public void testCachesAreBoundedIndependently() {
+        TokenCache cache = new TokenCache(100, 50, 60_000);
+        TokenCache.Key valid = cache.keyOf("valid");
+        cache.putVerified(valid, entry(System.currentTimeMillis() + HOUR));
+
+        // A flood of forged tokens only churns the negative cache
+        for (int i = 0; i < 10_000; i++) {
+            cache.putInvalid(cache.keyOf("forged-" + i));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            cache.putVerified(cache.keyOf("valid-" + i), entry(System.currentTimeMillis() + HOUR));
+        }
+
+        Map<String, Object> stats = cache.getStats();
+        assertTrue((Integer) stats.get("negative_size") <= 50, stats.toString());
+        assertTrue((Integer) stats.get("size") <= 100, stats.toString());
+        assertTrue((Long) stats.get("evictions") > 0);
+    }
+
+    @Test
+    public void testHitRateMetrics() {
+        TokenCache cache = new TokenCache(100, 100, 60_000);
+        TokenCache.Key valid = cache.keyOf("valid");
+        TokenCache.Key forged = cache.keyOf("forged");
+
+        assertNull(cache.getVerified(valid));
+        assertFalse(cache.isRejected(valid));            // miss
+        cache.putVerified(valid, entry(System.currentTimeMillis() + HOUR));
+        cache.putInvalid(forged);
+        assertNotNull(cache.getVerified(valid));          // hit
+        assertNotNull(cache.getVerified(valid));          // hit
+        assertNull(cache.getVerified(forged));
+        assertTrue(cache.isRejected(forged));             // negative hit
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(1L, stats.get("negative_hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0.75, (Double) stats.get("hit_rate"), 1e-9);
+    }
+
+    private static VerifiedToken entry(long expiresAtMillis) {
+        return new VerifiedToken("alice", 42L, Arrays.asList("USER"), System.currentTimeMillis(), expiresAtMillis);
+    }
+}
@@ -0,0 +1,77 @@
+package com.dbh.training.rest.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenRevocations
+ *
+ * Covers revocation, single use, pruning and filter growth.
+ */
+public class TokenRevocationsTest {
+
+    private static final long HOUR = 3_600_000;
+
+    @Test
+    public void testRevokedTokenIsRejected() {
+        TokenRevocations revocations = new TokenRevocations(100, 0);
+        VerifiedToken token = token("jti-1", System.currentTimeMillis() + HOUR);
+
+        assertFalse(revocations.isRevoked(token));
+        assertTrue(revocations.revoke(token));
+        assertTrue(revocations.isRevoked(token));
+        assertFalse(revocations.isRevoked(token("jti-2", System.currentTimeMillis() + HOUR)));
+    }
+
+    @Test
+    public void testTokenCanOnlyBeRevokedOnce() {
+        TokenRevocations revocations = new TokenRevocations(100, 0);
+        VerifiedToken token = token("jti-1", System.currentTimeMillis() + HOUR);
+
+        assertTrue(revocations.revoke(token));
+        assertFalse(revocations.revoke(token));
+        assertFalse(revocations.revoke(token(null, System.currentTimeMillis() + HOUR)));
+        assertFalse(revocations.revoke(token("expired", System.currentTimeMillis() - 1)));
+    }
+
+    @Test
+    public void testPruneDropsExpiredRevocations() throws InterruptedException {
+        TokenRevocations revocations = new TokenRevocations(100, 0);
+        VerifiedToken shortLived = token("short", System.currentTimeMillis() + 20);
+        VerifiedToken longLived = token("long", System.currentTimeMillis() + HOUR);
+        revocations.revoke(shortLived);
+        revocations.revoke(longLived);
+
+        Thread.sleep(40);
+        revocations.prune();
+
+        assertEquals(1, revocations.size());
+        assertFalse(revocations.isRevoked(shortLived));
+        assertTrue(revocations.isRevoked(longLived));
+        assertEquals(1L, revocations.getStats().get("pruned"));
+    }
+
+    @Test
+    public void testFilterGrowsBeyondExpectedSize() {
+        TokenRevocations revocations = new TokenRevocations(16, 0);
+        long bits = (Long) revocations.getStats().get("filter_bits");
+        for (int i = 0; i < 100; i++) {
+            revocations.revoke(token("jti-" + i, System.currentTimeMillis() + HOUR));
+        }
+
+        revocations.prune();
+
+        assertTrue((Long) revocations.getStats().get("filter_bits") > bits);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(revocations.isRevoked(token("jti-" + i, System.currentTimeMillis() + HOUR)));
+        }
+    }
+
+    private static VerifiedToken token(String tokenId, long expiresAtMillis) {
+        return new VerifiedToken("alice", 42L, Collections.singletonList("USER"),
+                System.currentTimeMillis(), expiresAtMillis, tokenId, false);
+    }
+}
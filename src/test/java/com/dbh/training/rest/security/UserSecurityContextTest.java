@@ -0,0 +1,70 @@
+package com.dbh.training.rest.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserSecurityContext and the Roles registry
+ *
+ * Covers bitmask role checks, the cached principal and role name resolution.
+ */
+public class UserSecurityContextTest {
+
+    @Test
+    public void testRoleChecksUseMask() {
+        // Configured at startup (security.roles)
+        Roles.register("AUDITOR");
+        UserSecurityContext context = new UserSecurityContext("alice", 42L, Arrays.asList("USER", "AUDITOR"), null);
+
+        assertTrue(context.isUserInRole("USER"));
+        assertTrue(context.isUserInRole("AUDITOR"));
+        assertFalse(context.isUserInRole("ADMIN"));
+        assertFalse(context.isUserInRole("NEVER_REGISTERED_ROLE"));
+        assertFalse(context.isUserInRole(null));
+        assertEquals(new HashSet<>(Arrays.asList("USER", "AUDITOR")), context.getRoles());
+        assertThrows(UnsupportedOperationException.class, () -> context.getRoles().add("ADMIN"));
+    }
+
+    @Test
+    public void testPrincipalIsCached() {
+        UserSecurityContext context = new UserSecurityContext("alice", 42L, Roles.bitOf(Roles.ADMIN), null);
+
+        assertSame(context.getUserPrincipal(), context.getUserPrincipal());
+        assertEquals("alice", context.getUserPrincipal().getName());
+        assertEquals(Long.valueOf(42), ((UserSecurityContext.UserPrincipal) context.getUserPrincipal()).getUserId());
+        assertTrue(context.isUserInRole(Roles.ADMIN));
+        assertFalse(context.isUserInRole(Roles.USER));
+    }
+
+    @Test
+    public void testRegistryIsStable() {
+        long bit = Roles.register("OPERATOR");
+
+        assertEquals(1, Long.bitCount(bit));
+        assertEquals(bit, Roles.register("OPERATOR"));
+        assertEquals(bit, Roles.bitOf("OPERATOR"));
+        assertEquals(Roles.bitOf(Roles.ADMIN) | Roles.bitOf(Roles.USER), Roles.maskOf(Arrays.asList("USER", "ADMIN")));
+        assertEquals(Collections.emptySet(), Roles.namesOf(0L));
+    }
+
+    @Test
+    public void testUnknownRolesAreNeverRegistered() {
+        // Role names from a token or a request body
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Roles.bitOf(Roles.USER), Roles.maskOf(Arrays.asList("USER", "JUNK_" + i)));
+        }
+        assertEquals(0L, Roles.bitOf("JUNK_0"));
+
+        UserSecurityContext context = new UserSecurityContext("mallory", 7L, Arrays.asList("JUNK_1"), null);
+        assertFalse(context.isUserInRole("JUNK_1"));
+        assertEquals(Collections.emptySet(), context.getRoles());
+
+        // The registry still has room for configured roles
+        assertEquals(1, Long.bitCount(Roles.register("ANOTHER_CONFIGURED_ROLE")));
+    }
+}
@@ -0,0 +1,182 @@
+package com.dbh.training.rest.services;
+
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.models.UserV2;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the V1 -> V2 migration pipeline
+ *
+ * Covers in-order commits, validation failures, resuming from a checkpoint
+ * and idempotent re-runs.
+ */
+public class UserMigrationTest {
+
+    private static final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final List<User> v1Users = Collections.synchronizedList(new ArrayList<>());
+    private final List<UserV2> migrated = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong ids = new AtomicLong(1);
+
+    @BeforeEach
+    public void setUp() {
+        v1Users.clear();
+        migrated.clear();
+        for (long id = 1; id <= 1000; id++) {
+            v1Users.add(v1User(id));
+        }
+    }
+
+    @Test
+    public void testMigratesAllUsersInIdOrder() throws InterruptedException {
+        Collections.shuffle(v1Users);
+        UserMigration migration = newMigration(4, 0);
+
+        migration.start(0);
+
+        assertTrue(migration.awaitCompletion(10, TimeUnit.SECONDS));
+        assertEquals(UserMigration.State.COMPLETED, migration.getState());
+        assertEquals(1000, migration.getImported());
+        assertEquals(1000, migration.getCheckpoint());
+        // Batches are committed in sequence even with parallel workers
+        List<String> names = migrated.stream().map(UserV2::getUsername).collect(Collectors.toList());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals("user" + (i + 1), names.get(i));
+        }
+        assertEquals(1000L, migration.getProgress().get("total"));
+    }
+
+    @Test
+    public void testInvalidUsersAreCountedNotImported() throws InterruptedException {
+        v1Users.get(10).setEmail("not-an-email");
+        UserMigration migration = newMigration(2, 0);
+
+        migration.start(0);
+
+        assertTrue(migration.awaitCompletion(10, TimeUnit.SECONDS));
+        assertEquals(999, migration.getImported());
+        assertEquals(1, migration.getInvalid());
+        @SuppressWarnings("unchecked")
+        List<String> errors = (List<String>) migration.getProgress().get("errors");
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).startsWith("V1 user 11:"), errors.get(0));
+    }
+
+    @Test
+    public void testResumeFromCheckpointAfterCancel() throws InterruptedException {
+        // 100 records/s with batches of 50: the first batch commits, then the job is throttled
+        UserMigration first = newMigration(2, 100);
+        first.start(0);
+        waitFor(() -> first.getCheckpoint() > 0);
+        first.cancel();
+        assertTrue(first.awaitCompletion(10, TimeUnit.SECONDS));
+        assertEquals(UserMigration.State.CANCELLED, first.getState());
+
+        long checkpoint = first.getCheckpoint();
+        assertEquals(first.getImported(), checkpoint);
+        assertTrue(checkpoint < 1000);
+
+        UserMigration second = newMigration(2, 0);
+        second.start(checkpoint);
+        assertTrue(second.awaitCompletion(10, TimeUnit.SECONDS));
+
+        assertEquals(1000 - checkpoint, second.getImported());
+        assertEquals(1000, migrated.size());
+        assertEquals(1000, migrated.stream().map(UserV2::getUsername).distinct().count());
+    }
+
+    @Test
+    public void testRerunReplacesPreviouslyMigratedUsers() throws InterruptedException {
+        Map<Long, Long> migratedIds = new ConcurrentHashMap<>();
+        Map<Long, UserV2> store = new ConcurrentHashMap<>();
+        Consumer<List<UserV2>> upsert = batch -> {
+            for (UserV2 user : batch) {
+                if (user.getId() == null) {
+                    user.setId(ids.getAndIncrement());
+                }
+                store.put(user.getId(), user);
+            }
+        };
+
+        UserMigration first = new UserMigration(this::snapshot, upsert, migratedIds, validator, 2, 50, 2, 0);
+        first.start(0);
+        assertTrue(first.awaitCompletion(10, TimeUnit.SECONDS));
+        Map<Long, Long> firstIds = new HashMap<>(migratedIds);
+
+        // A restart from the beginning sees a changed V1 user and updates its copy
+        v1Users.get(0).setFirstName("Renamed");
+        UserMigration second = new UserMigration(this::snapshot, upsert, migratedIds, validator, 2, 50, 2, 0);
+        second.start(0);
+        assertTrue(second.awaitCompletion(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, second.getImported());
+        assertEquals(1000, store.size());
+        assertEquals(firstIds, migratedIds);
+        assertEquals("Renamed", store.get(migratedIds.get(1L)).getFirstName());
+    }
+
+    @Test
+    public void testTransformDerivesAgeAndCopiesFields() {
+        User user = v1User(7);
+        user.setBirthDate(LocalDate.now().minusYears(30));
+        user.getRoles().add("USER");
+
+        UserV2 v2 = UserMigration.transform(user);
+
+        assertNull(v2.getId());
+        assertEquals("user7", v2.getUsername());
+        assertEquals("First7", v2.getFirstName());
+        assertEquals("Last7", v2.getLastName());
+        assertEquals(Integer.valueOf(30), v2.getAge());
+        assertEquals(Collections.singletonList("USER"), v2.getRoles());
+    }
+
+    private UserMigration newMigration(int parallelism, int maxRecordsPerSecond) {
+        return new UserMigration(this::snapshot, this::sink, validator, parallelism, 50, 2, maxRecordsPerSecond);
+    }
+
+    private Collection<User> snapshot() {
+        synchronized (v1Users) {
+            return new ArrayList<>(v1Users);
+        }
+    }
+
+    private void sink(List<UserV2> batch) {
+        for (UserV2 user : batch) {
+            user.setId(ids.getAndIncrement());
+        }
+        migrated.addAll(batch);
+    }
+
+    private static User v1User(long id) {
+        User user = new User("user" + id, "user" + id + "@example.com", "First" + id, "Last" + id);
+        user.setId(id);
+        return user;
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for condition");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.dbh.training.rest.services;
+
+import com.dbh.training.rest.exceptions.DuplicateUserException;
+import com.dbh.training.rest.models.Address;
+import com.dbh.training.rest.models.User;
+import com.dbh.training.rest.security.PasswordPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserService
+ *
+ * Covers the case-insensitive unique indexes for username and email,
+ * their behaviour under concurrent registration, and the immutable
+ * snapshots published by updates.
+ */
+public class UserServiceTest {
+
+    private UserService userService;
+
+    @BeforeEach
+    public void setUp() {
+        userService = new UserService();
+    }
+
+    @Test
+    public void testFindByUsernameIsCaseInsensitive() {
+        assertNotNull(userService.findByUsername("ADMIN"));
+        assertNotNull(userService.findByUsername(" Admin "));
+        assertNull(userService.findByUsername("nobody"));
+    }
+
+    @Test
+    public void testDuplicateUsernameDifferentCaseRejected() {
+        userService.createUser(new User("Alice", "alice@example.com", "Alice", "Smith"));
+
+        DuplicateUserException e = assertThrows(DuplicateUserException.class, () ->
+            userService.createUser(new User("ALICE", "other@example.com", "Alice", "Jones")));
+        assertEquals("username", e.getField());
+    }
+
+    @Test
+    public void testDuplicateEmailRejectedAndUsernameReleased() {
+        userService.createUser(new User("bob", "Bob@Example.com", "Bob", "Smith"));
+
+        DuplicateUserException e = assertThrows(DuplicateUserException.class, () ->
+            userService.createUser(new User("robert", "bob@example.COM", "Robert", "Smith")));
+        assertEquals("email", e.getField());
+
+        // The failed registration must not keep the username reserved
+        assertFalse(userService.isUsernameTaken("robert"));
+        assertNotNull(userService.createUser(new User("robert", "robert@example.com", "Robert", "Smith")));
+    }
+
+    @Test
+    public void testDeleteReleasesUsernameAndEmail() {
+        User carol = userService.createUser(new User("carol", "carol@example.com", "Carol", "Smith"));
+        assertTrue(userService.deleteUser(carol.getId()));
+
+        assertFalse(userService.isUsernameTaken("carol"));
+        assertFalse(userService.isEmailTaken("carol@example.com"));
+        assertNotNull(userService.createUser(new User("Carol", "CAROL@example.com", "Carol", "Jones")));
+    }
+
+    @Test
+    public void testUpdateMovesEmailIndex() {
+        User dave = userService.createUser(new User("dave", "dave@example.com", "Dave", "Smith"));
+
+        userService.updateUser(dave.getId(), new User("dave", "david@example.com", "Dave", "Smith"));
+
+        assertFalse(userService.isEmailTaken("dave@example.com"));
+        assertEquals(dave.getId(), userService.findByEmail("DAVID@example.com").getId());
+        assertThrows(DuplicateUserException.class, () ->
+            userService.updateUser(dave.getId(), new User("dave", "admin@example.com", "Dave", "Smith")));
+    }
+
+    @Test
+    public void testUpdatePublishesNewSnapshotAndLeavesOldOneIntact() {
+        User erin = userService.createUser(new User("erin", "erin@example.com", "Erin", "Smith"));
+
+        User changes = new User("erin", "erin@example.org", "Erin", "Jones");
+        changes.setRoles(new HashSet<>(Arrays.asList("USER", "ADMIN")));
+        User updated = userService.updateUser(erin.getId(), changes);
+
+        assertNotSame(erin, updated);
+        assertEquals("Smith", erin.getLastName());
+        assertEquals(Collections.singleton("USER"), erin.getRoles());
+        assertEquals("Jones", updated.getLastName());
+        assertEquals("Jones", userService.findById(erin.getId()).getLastName());
+        assertEquals("Jones", userService.findByUsername("erin").getLastName());
+        assertEquals(erin.getId(), userService.findByEmail("erin@example.org").getId());
+
+        // The caller's roles set is not adopted
+        changes.getRoles().add("AUDITOR");
+        assertFalse(userService.findById(erin.getId()).getRoles().contains("AUDITOR"));
+    }
+
+    @Test
+    public void testReturnedUsersAreCopies() {
+        User input = new User("frank", "frank@example.com", "Frank", "Smith");
+        input.setPrimaryAddress(new Address("1 Main St", "Springfield", "12345", "US"));
+        User frank = userService.createUser(input);
+
+        // Changing the input or a returned user never changes the stored user
+        input.getPrimaryAddress().setCity("Shelbyville");
+        frank.setEmail("x@example.com");
+        frank.getRoles().add("ADMIN");
+        frank.getPrimaryAddress().setCity("Capital City");
+        userService.findByUsername("frank").getPrimaryAddress().setCity("Ogdenville");
+
+        User stored = userService.findById(frank.getId());
+        assertEquals("frank@example.com", stored.getEmail());
+        assertEquals(Collections.singleton("USER"), stored.getRoles());
+        assertEquals("Springfield", stored.getPrimaryAddress().getCity());
+        assertNotSame(stored.getPrimaryAddress(), userService.findById(frank.getId()).getPrimaryAddress());
+    }
+
+    @Test
+    public void testUpdatePasswordHashMovesToCurrentCost() {
+        User created = userService.createUser(new User("legacy", "legacy@example.com", "Legacy", "User"));
+        String oldHash = BCrypt.hashpw("legacy123", BCrypt.gensalt(4));
+        assertNotNull(userService.updatePasswordHash(created.getId(), created.getPasswordHash(), oldHash));
+        PasswordPolicy policy = PasswordPolicy.getInstance();
+        assertTrue(policy.needsRehash(userService.findByUsername("legacy").getPasswordHash()));
+
+        // What AuthResource does after a successful login
+        User rehashed = userService.updatePasswordHash(created.getId(), oldHash, policy.hash("legacy123"));
+
+        assertNotNull(rehashed);
+        String newHash = userService.findByUsername("legacy").getPasswordHash();
+        assertEquals(policy.getCost(), PasswordPolicy.costOf(newHash));
+        assertFalse(policy.needsRehash(newHash));
+        assertTrue(BCrypt.checkpw("legacy123", newHash));
+        assertEquals(newHash, rehashed.getPasswordHash());
+        assertEquals(newHash, userService.findByEmail("legacy@example.com").getPasswordHash());
+    }
+
+    @Test
+    public void testUpdatePasswordHashLosesToConcurrentChange() {
+        User user = userService.findByUsername("user");
+
+        assertNull(userService.updatePasswordHash(user.getId(), "stale-hash", "new-hash"));
+        assertEquals(user.getPasswordHash(), userService.findByUsername("user").getPasswordHash());
+    }
+
+    @Test
+    public void testRecordLoginSurvivesUpdates() {
+        User user = userService.findByUsername("user");
+        assertNull(user.getLastLogin());
+
+        userService.recordLogin(user);
+        LocalDateTime lastLogin = userService.getLastLogin(user.getId());
+        assertNotNull(lastLogin);
+        assertEquals(lastLogin, userService.findById(user.getId()).getLastLogin());
+
+        // The login time survives replacing the snapshot
+        User updated = userService.updateUser(user.getId(), new User("user", "user@example.com", "Renamed", "User"));
+        assertEquals(lastLogin, updated.getLastLogin());
+        assertEquals(lastLogin, userService.getLastLogin(user.getId()));
+    }
+
+    @Test
+    public void testConcurrentReadersNeverSeeTornUpdates() throws Exception {
+        User grace = userService.createUser(new User("grace", "grace0@example.com", "Grace0", "Last0"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger torn = new AtomicInteger();
+        CountDownLatch writerDone = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> {
+                for (int i = 1; i <= 2000; i++) {
+                    userService.updateUser(grace.getId(),
+                        new User("grace", "grace" + i + "@example.com", "Grace" + i, "Last" + i));
+                }
+                writerDone.countDown();
+                return null;
+            }));
+            for (int r = 0; r < 3; r++) {
+                futures.add(executor.submit(() -> {
+                    while (writerDone.getCount() > 0) {
+                        User seen = userService.findByUsername("grace");
+                        // All fields of one version carry the same suffix
+                        String version = seen.getFirstName().substring("Grace".length());
+                        if (!seen.getLastName().equals("Last" + version)
+                                || !seen.getEmail().equals("grace" + version + "@example.com")) {
+                            torn.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, torn.get());
+        assertEquals("grace2000@example.com", userService.findByUsername("grace").getEmail());
+        assertFalse(userService.isEmailTaken("grace1999@example.com"));
+    }
+
+    @Test
+    public void testConcurrentRegistrationProducesNoDuplicates() throws Exception {
+        final int threads = 16;
+        final int names = 200;
+        final int attemptsPerName = threads;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < names; n++) {
+                        // Every thread races for the same names with different casing,
+                        // and a third of them also reuse a shared email
+                        String username = thread % 2 == 0 ? "racer" + n : "RACER" + n;
+                        String email = thread % 3 == 0 ? "shared" + n + "@example.com"
+                                                       : "racer" + n + "-" + thread + "@example.com";
+                        try {
+                            userService.createUser(new User(username, email, "Race", "Condition"));
+                            created.incrementAndGet();
+                        } catch (DuplicateUserException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(names, created.get(), "Exactly one registration per name must win");
+        assertEquals(names * (attemptsPerName - 1), rejected.get());
+
+        List<User> racers = userService.getAllUsers().stream()
+            .filter(u -> u.getUsername().toLowerCase().startsWith("racer"))
+            .collect(Collectors.toList());
+        assertEquals(names, racers.size());
+        assertEquals(names, racers.stream().map(u -> u.getEmail().toLowerCase()).distinct().count());
+
+        for (int n = 0; n < names; n++) {
+            assertNotNull(userService.findByUsername("Racer" + n));
+        }
+    }
+}
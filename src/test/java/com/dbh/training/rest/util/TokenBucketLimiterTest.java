@@ -0,0 +1,101 @@
+package com.dbh.training.rest.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenBucketLimiter
+ *
+ * Covers burst and refill accounting, independent keys and eviction.
+ */
+public class TokenBucketLimiterTest {
+
+    @Test
+    public void testBurstThenReject() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(60, 3, 1000);
+
+        long first = limiter.tryAcquire("client");
+        assertEquals(2, first);
+        // The key's own refill time, not the full-burst window
+        assertEquals(1, limiter.getResetSeconds(first));
+        assertEquals(1, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+
+        long rejected = limiter.tryAcquire("client");
+        assertFalse(TokenBucketLimiter.isAllowed(rejected));
+        // One token per second at 60/min
+        assertTrue(-rejected <= TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, TokenBucketLimiter.retryAfterSeconds(rejected));
+        assertEquals(3, limiter.getResetSeconds(rejected));
+    }
+
+    @Test
+    public void testKeysAreIndependent() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(60, 1, 1000);
+
+        assertTrue(TokenBucketLimiter.isAllowed(limiter.tryAcquire("a")));
+        assertFalse(TokenBucketLimiter.isAllowed(limiter.tryAcquire("a")));
+        assertTrue(TokenBucketLimiter.isAllowed(limiter.tryAcquire("b")));
+    }
+
+    @Test
+    public void testRefillsLazily() throws Exception {
+        // One token every 10 ms
+        TokenBucketLimiter limiter = new TokenBucketLimiter(6000, 1, 1000);
+
+        assertTrue(TokenBucketLimiter.isAllowed(limiter.tryAcquire("client")));
+        assertFalse(TokenBucketLimiter.isAllowed(limiter.tryAcquire("client")));
+
+        Thread.sleep(30);
+
+        assertTrue(TokenBucketLimiter.isAllowed(limiter.tryAcquire("client")));
+    }
+
+    @Test
+    public void testFullBucketsAreEvicted() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(60_000, 1, 1000);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+        assertEquals(100, limiter.size());
+
+        // 1 ms per token: every bucket is full again
+        Thread.sleep(20);
+        limiter.evictIdle();
+
+        assertEquals(0, limiter.size());
+        assertEquals(100L, limiter.getStats().get("evictions"));
+    }
+
+    @Test
+    public void testKeyCountIsBounded() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 64);
+
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1);
+        assertTrue(limiter.size() <= (Math.max(16, 64 / stripes) * 2 + 1) * stripes,
+                   "size " + limiter.size());
+    }
+
+    @Test
+    public void testCyclingKeysDoesNotEvictDrainedBucket() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 2, 64);
+        assertTrue(TokenBucketLimiter.isAllowed(limiter.tryAcquire("attacker")));
+        assertTrue(TokenBucketLimiter.isAllowed(limiter.tryAcquire("attacker")));
+        assertFalse(TokenBucketLimiter.isAllowed(limiter.tryAcquire("attacker")));
+
+        // Enough fresh keys to force evictions in every stripe
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("spoofed-" + i);
+        }
+
+        assertTrue((Long) limiter.getStats().get("evictions") > 0);
+        assertFalse(TokenBucketLimiter.isAllowed(limiter.tryAcquire("attacker")));
+    }
+}